@@ -0,0 +1,210 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 G l y p h L i n k s B e n c h                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphGroup;
+import org.audiveris.omr.glyph.GlyphLink;
+import org.audiveris.omr.glyph.GlyphProximity;
+import org.audiveris.omr.glyph.Glyphs;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+
+import org.jgrapht.graph.SimpleGraph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Class {@code GlyphLinksBench} compares, on each selected sheet, the building of glyph
+ * links graphs with per-glyph distance tables and with {@link GlyphProximity}.
+ * <p>
+ * Graphs are built on the symbol glyphs of each system, with the maximum gap used by SYMBOLS step.
+ * The bench reports the best duration with each builder, and checks that both graphs have the
+ * same edges, with the same distances.
+ *
+ * @author Hervé Bitteur
+ */
+public class GlyphLinksBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(GlyphLinksBench.class);
+
+    /** Number of measurements, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    /** Maximum gap between glyphs, as a fraction of interline. */
+    private static final double MAX_GAP = 0.5;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code GlyphLinksBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public GlyphLinksBench (Book book,
+                            SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = Glyphs.isProximityUsed();
+
+        try {
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.SYMBOLS)) {
+                        processSheet(stub.getSheet());
+                    }
+                }
+            }
+        } finally {
+            Glyphs.setUseProximity(wasUsed);
+        }
+    }
+
+    //---------//
+    // compare //
+    //---------//
+    /**
+     * Count the differences between two graphs built on the same glyphs.
+     *
+     * @param tables    graph built with distance tables
+     * @param proximity graph built by proximity builder
+     * @return the number of edges missing in one graph or with a different distance
+     */
+    private static int compare (SimpleGraph<Glyph, GlyphLink> tables,
+                                SimpleGraph<Glyph, GlyphLink> proximity)
+    {
+        int diffs = 0;
+
+        for (GlyphLink link : tables.edgeSet()) {
+            final GlyphLink other = proximity.getEdge(
+                    tables.getEdgeSource(link),
+                    tables.getEdgeTarget(link));
+
+            if ((other == null) || (distanceOf(other) != distanceOf(link))) {
+                diffs++;
+            }
+        }
+
+        return diffs + Math.abs(proximity.edgeSet().size() - tables.edgeSet().size());
+    }
+
+    //------------//
+    // distanceOf //
+    //------------//
+    private static double distanceOf (GlyphLink link)
+    {
+        return (link instanceof GlyphLink.Nearby) ? ((GlyphLink.Nearby) link).getDistance() : 0;
+    }
+
+    //--------------//
+    // processSheet //
+    //--------------//
+    /**
+     * Build the links graphs of all systems in sheet, with each builder.
+     *
+     * @param sheet the sheet to process
+     */
+    private void processSheet (Sheet sheet)
+    {
+        final double maxGap = MAX_GAP * sheet.getInterline();
+        final List<List<Glyph>> systemGlyphs = new ArrayList<>();
+        int glyphCount = 0;
+
+        for (SystemInfo system : sheet.getSystems()) {
+            final List<Glyph> glyphs = system.getGroupedGlyphs(GlyphGroup.SYMBOL);
+            systemGlyphs.add(glyphs);
+            glyphCount += glyphs.size();
+        }
+
+        long tablesBest = Long.MAX_VALUE;
+        long proximityBest = Long.MAX_VALUE;
+        int edgeCount = 0;
+        int diffs = 0;
+
+        for (int r = 0; r < RUNS; r++) {
+            final List<SimpleGraph<Glyph, GlyphLink>> tablesGraphs = new ArrayList<>();
+            final List<SimpleGraph<Glyph, GlyphLink>> proximityGraphs = new ArrayList<>();
+
+            Glyphs.setUseProximity(false);
+
+            long start = System.nanoTime();
+
+            for (List<Glyph> glyphs : systemGlyphs) {
+                tablesGraphs.add(Glyphs.buildLinks(glyphs, maxGap));
+            }
+
+            final long tablesDur = System.nanoTime() - start;
+
+            Glyphs.setUseProximity(true);
+            start = System.nanoTime();
+
+            for (List<Glyph> glyphs : systemGlyphs) {
+                proximityGraphs.add(Glyphs.buildLinks(glyphs, maxGap));
+            }
+
+            final long proximityDur = System.nanoTime() - start;
+
+            if (r > 0) {
+                tablesBest = Math.min(tablesBest, tablesDur);
+                proximityBest = Math.min(proximityBest, proximityDur);
+            }
+
+            if (r == (RUNS - 1)) {
+                for (int i = 0; i < tablesGraphs.size(); i++) {
+                    edgeCount += tablesGraphs.get(i).edgeSet().size();
+                    diffs += compare(tablesGraphs.get(i), proximityGraphs.get(i));
+                }
+            }
+        }
+
+        logger.info(
+                "{} glyphs: {} links: {} tables: {} ms, proximity: {} ms, differences: {}",
+                sheet.getId(),
+                glyphCount,
+                edgeCount,
+                tablesBest / 1_000_000,
+                proximityBest / 1_000_000,
+                diffs);
+
+        if (diffs > 0) {
+            logger.warn("{} links graphs differ", sheet.getId());
+        }
+    }
+}
@@ -0,0 +1,250 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               H e a d T e m p l a t e B e n c h                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.image.Anchored.Anchor;
+import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.image.Template;
+import org.audiveris.omr.image.TemplateFactory;
+import org.audiveris.omr.image.TemplateFactory.Catalog;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sheet.grid.LineInfo;
+import org.audiveris.omr.sheet.note.DistancesBuilder;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.HorizontalSide;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Class {@code HeadTemplateBench} replays, on the distance table of each selected sheet,
+ * the template evaluations performed by HEADS step along staff lines.
+ * <p>
+ * It compares the former evaluation, one location at a time on template key points list, with the
+ * evaluation by strips on compiled key points with early abandon.
+ * It reports the best duration for each evaluation and checks that both agree on every location
+ * whose distance does not exceed the good matching distance.
+ *
+ * @author Hervé Bitteur
+ */
+public class HeadTemplateBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(HeadTemplateBench.class);
+
+    /** Number of measurements per evaluation, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    /** Ordinate offsets tried around each line ordinate. */
+    private static final int[] Y_OFFSETS = new int[]{-2, -1, 0, 1, 2};
+
+    /** Number of locations per strip. */
+    private static final int STRIP = 32;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code HeadTemplateBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public HeadTemplateBench (Book book,
+                              SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = Template.isKernelUsed();
+
+        try {
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.HEADS)) {
+                        replay(stub.getSheet());
+                    }
+                }
+            }
+        } finally {
+            Template.setUseKernel(wasUsed);
+        }
+    }
+
+    //--------//
+    // replay //
+    //--------//
+    /**
+     * Replay template evaluations on the provided sheet.
+     *
+     * @param sheet the sheet to process
+     */
+    private void replay (Sheet sheet)
+    {
+        final DistanceTable distances = new DistancesBuilder(sheet).buildDistances();
+        final EnumSet<Shape> shapes = ShapeSet.getTemplateNotes(sheet);
+        final double maxDist = Template.maxDistanceLow();
+        final List<Strip> strips = new ArrayList<>();
+
+        // Record the strips to evaluate
+        for (SystemInfo system : sheet.getSystems()) {
+            for (Staff staff : system.getStaves()) {
+                if (staff.isTablature()) {
+                    continue;
+                }
+
+                final Catalog catalog = TemplateFactory.getInstance().getCatalog(
+                        staff.getHeadPointSize());
+                final int left = Math.max(
+                        staff.getAbscissa(HorizontalSide.LEFT),
+                        staff.getHeaderStop());
+                final int right = staff.getAbscissa(HorizontalSide.RIGHT);
+
+                for (LineInfo line : staff.getLines()) {
+                    for (int x = left; x <= right; x += STRIP) {
+                        final int y0 = line.yAt(x);
+
+                        for (int dy : Y_OFFSETS) {
+                            for (Shape shape : shapes) {
+                                strips.add(new Strip(catalog.getTemplate(shape), x, y0 + dy));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        final int locCount = strips.size() * STRIP;
+        final double[] formers = new double[locCount];
+        final double[] kernels = new double[locCount];
+        final double[] dists = new double[STRIP];
+        long formerBest = Long.MAX_VALUE;
+        long kernelBest = Long.MAX_VALUE;
+
+        for (int r = 0; r < RUNS; r++) {
+            // Former evaluation, location by location
+            Template.setUseKernel(false);
+
+            long start = System.nanoTime();
+            int i = 0;
+
+            for (Strip strip : strips) {
+                for (int p = 0; p < STRIP; p++) {
+                    formers[i++] = strip.template.evaluate(
+                            strip.x + p, strip.y, Anchor.MIDDLE_LEFT, distances);
+                }
+            }
+
+            final long formerDur = System.nanoTime() - start;
+
+            // Compiled evaluation, strip by strip
+            Template.setUseKernel(true);
+            start = System.nanoTime();
+            i = 0;
+
+            for (Strip strip : strips) {
+                strip.template.evaluateStrip(
+                        strip.x, strip.y, Anchor.MIDDLE_LEFT, distances, maxDist, null, dists);
+                System.arraycopy(dists, 0, kernels, i, STRIP);
+                i += STRIP;
+            }
+
+            final long kernelDur = System.nanoTime() - start;
+
+            if (r > 0) {
+                formerBest = Math.min(formerBest, formerDur);
+                kernelBest = Math.min(kernelBest, kernelDur);
+            }
+        }
+
+        // Check results
+        int mismatches = 0;
+        int goods = 0;
+
+        for (int i = 0; i < locCount; i++) {
+            if (formers[i] <= maxDist) {
+                goods++;
+
+                if (kernels[i] != formers[i]) {
+                    mismatches++;
+                }
+            } else if (kernels[i] <= maxDist) {
+                mismatches++;
+            }
+        }
+
+        logger.info(
+                "{} {} locations, {} goods, former: {} ms, kernel: {} ms, mismatches: {}",
+                sheet.getId(),
+                locCount,
+                goods,
+                formerBest / 1_000_000,
+                kernelBest / 1_000_000,
+                mismatches);
+
+        if (mismatches > 0) {
+            logger.warn("{} template evaluations differ", sheet.getId());
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Strip //
+    //-------//
+    /**
+     * A horizontal strip of locations to evaluate with a template.
+     */
+    private static class Strip
+    {
+
+        final Template template;
+
+        final int x;
+
+        final int y;
+
+        Strip (Template template,
+               int x,
+               int y)
+        {
+            this.template = template;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
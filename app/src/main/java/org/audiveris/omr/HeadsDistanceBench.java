@@ -0,0 +1,229 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              H e a d s D i s t a n c e B e n c h                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.image.ChamferDistance;
+import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sheet.note.DistancesBuilder;
+import org.audiveris.omr.sig.inter.HeadInter;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.SortedSet;
+
+/**
+ * Class {@code HeadsDistanceBench} compares, on each selected sheet, the chamfer distance
+ * on whole sheet and the Euclidean distance on staff bands, as used by HEADS step.
+ * <p>
+ * It reports the best duration of distance table building with each engine, and checks that both
+ * tables agree on foreground locations within staff bands, since only these locations matter for
+ * template matching.
+ * <p>
+ * It then reports the duration of the whole HEADS step with each engine, together with the number
+ * of heads found.
+ * NOTA: Each sheet is thus reprocessed from BINARY and left at HEADS step.
+ *
+ * @author Hervé Bitteur
+ */
+public class HeadsDistanceBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(HeadsDistanceBench.class);
+
+    /** Number of measurements per table building, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    /** Number of measurements per HEADS step, the first one being considered as warm-up. */
+    private static final int STEP_RUNS = 2;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code HeadsDistanceBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public HeadsDistanceBench (Book book,
+                               SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = DistancesBuilder.isEuclideanUsed();
+
+        try {
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.HEADS)) {
+                        compareTables(stub.getSheet());
+                        compareSteps(stub);
+                    }
+                }
+            }
+        } finally {
+            DistancesBuilder.setUseEuclidean(wasUsed);
+        }
+    }
+
+    //--------------//
+    // compareSteps //
+    //--------------//
+    /**
+     * Run HEADS step on the provided sheet with each engine.
+     *
+     * @param stub the sheet stub to process
+     */
+    private void compareSteps (SheetStub stub)
+    {
+        final long[] bests = new long[]{Long.MAX_VALUE, Long.MAX_VALUE};
+        final int[] heads = new int[2];
+
+        for (int r = 0; r < STEP_RUNS; r++) {
+            for (int e = 0; e < 2; e++) {
+                DistancesBuilder.setUseEuclidean(e == 1);
+
+                if (!stub.reachStep(Step.LEDGERS, true)) {
+                    logger.info("{} could not reach LEDGERS", stub.getId());
+
+                    return;
+                }
+
+                final long start = System.nanoTime();
+                stub.reachStep(Step.HEADS, false);
+
+                final long dur = System.nanoTime() - start;
+
+                if (r > 0) {
+                    bests[e] = Math.min(bests[e], dur);
+                }
+
+                heads[e] = countHeads(stub.getSheet());
+            }
+        }
+
+        logger.info(
+                "{} HEADS chamfer: {} ms {} heads, euclidean: {} ms {} heads",
+                stub.getId(),
+                bests[0] / 1_000_000,
+                heads[0],
+                bests[1] / 1_000_000,
+                heads[1]);
+
+        if (heads[0] != heads[1]) {
+            logger.warn("{} head counts differ", stub.getId());
+        }
+    }
+
+    //---------------//
+    // compareTables //
+    //---------------//
+    /**
+     * Build the distance table of the provided sheet with each engine.
+     *
+     * @param sheet the sheet to process
+     */
+    private void compareTables (Sheet sheet)
+    {
+        long chamferBest = Long.MAX_VALUE;
+        long euclideanBest = Long.MAX_VALUE;
+        DistanceTable chamfer = null;
+        DistanceTable euclidean = null;
+
+        for (int r = 0; r < RUNS; r++) {
+            DistancesBuilder.setUseEuclidean(false);
+
+            long start = System.nanoTime();
+            chamfer = new DistancesBuilder(sheet).buildDistances();
+
+            final long chamferDur = System.nanoTime() - start;
+
+            DistancesBuilder.setUseEuclidean(true);
+            start = System.nanoTime();
+            euclidean = new DistancesBuilder(sheet).buildDistances();
+
+            final long euclideanDur = System.nanoTime() - start;
+
+            if (r > 0) {
+                chamferBest = Math.min(chamferBest, chamferDur);
+                euclideanBest = Math.min(euclideanBest, euclideanDur);
+            }
+        }
+
+        // Check foreground locations within bands
+        int covered = 0;
+        int mismatches = 0;
+
+        for (int i = (chamfer.getWidth() * chamfer.getHeight()) - 1; i >= 0; i--) {
+            final int e = euclidean.getValue(i);
+
+            if (e != ChamferDistance.VALUE_UNKNOWN) {
+                covered++;
+
+                if ((e == 0) != (chamfer.getValue(i) == 0)) {
+                    mismatches++;
+                }
+            }
+        }
+
+        logger.info(
+                "{} {}x{} distances chamfer: {} ms, euclidean: {} ms on {}% of sheet,"
+                        + " mismatches: {}",
+                sheet.getId(),
+                chamfer.getWidth(),
+                chamfer.getHeight(),
+                chamferBest / 1_000_000,
+                euclideanBest / 1_000_000,
+                (100L * covered) / (chamfer.getWidth() * chamfer.getHeight()),
+                mismatches);
+
+        if (mismatches > 0) {
+            logger.warn("{} distance tables differ", sheet.getId());
+        }
+    }
+
+    //------------//
+    // countHeads //
+    //------------//
+    private static int countHeads (Sheet sheet)
+    {
+        int count = 0;
+
+        for (SystemInfo system : sheet.getSystems()) {
+            count += system.getSig().inters(HeadInter.class).size();
+        }
+
+        return count;
+    }
+}
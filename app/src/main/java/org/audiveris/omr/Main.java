@@ -152,6 +152,9 @@ public class Main
             // So shutdown gracefully the executors
             boolean timeout = !OmrExecutors.shutdown();
 
+            // Release the language data of idle OCR engines
+            TesseractOCR.getInstance().disposeEngines();
+
             // Save global sample repository if modified
             if (SampleRepository.hasInstance()) {
                 SampleRepository repository = SampleRepository.getGlobalInstance(false);
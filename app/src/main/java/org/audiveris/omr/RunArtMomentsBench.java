@@ -0,0 +1,181 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              R u n A r t M o m e n t s B e n c h                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.math.PointsCollector;
+import org.audiveris.omr.moments.ARTMoments;
+import org.audiveris.omr.moments.BasicARTExtractor;
+import org.audiveris.omr.moments.BasicARTMoments;
+import org.audiveris.omr.moments.RunARTExtractor;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Class {@code RunArtMomentsBench} compares, on the glyphs of each selected sheet, the
+ * extraction of ART moments by {@link BasicARTExtractor} on glyph points and by
+ * {@link RunARTExtractor} on glyph runs.
+ * <p>
+ * It reports the best duration for each extractor and checks the maximum moment difference
+ * against {@link RunARTExtractor#TOLERANCE}.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunArtMomentsBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunArtMomentsBench.class);
+
+    /** Number of measurements per extractor, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunArtMomentsBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunArtMomentsBench (Book book,
+                               SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        for (SheetStub stub : book.getValidStubs()) {
+            if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                final Sheet sheet = stub.getSheet();
+                final List<RunTable> tables = new ArrayList<>();
+
+                for (Glyph glyph : sheet.getGlyphIndex().getEntities()) {
+                    if ((glyph.getRunTable() != null) && (glyph.getWeight() > 0)) {
+                        tables.add(glyph.getRunTable());
+                    }
+                }
+
+                if (tables.isEmpty()) {
+                    logger.info("{} no glyph available", sheet.getId());
+
+                    continue;
+                }
+
+                final List<ARTMoments> basics = new ArrayList<>();
+                final List<ARTMoments> runs = new ArrayList<>();
+                long basicBest = Long.MAX_VALUE;
+                long runBest = Long.MAX_VALUE;
+
+                for (int r = 0; r < RUNS; r++) {
+                    basics.clear();
+
+                    long start = System.nanoTime();
+
+                    for (RunTable table : tables) {
+                        basics.add(basicMoments(table));
+                    }
+
+                    final long basicDur = System.nanoTime() - start;
+
+                    runs.clear();
+                    start = System.nanoTime();
+
+                    for (RunTable table : tables) {
+                        final ARTMoments moments = new BasicARTMoments();
+                        final RunARTExtractor extractor = new RunARTExtractor();
+                        extractor.setDescriptor(moments);
+                        extractor.extract(table);
+                        runs.add(moments);
+                    }
+
+                    final long runDur = System.nanoTime() - start;
+
+                    if (r > 0) {
+                        basicBest = Math.min(basicBest, basicDur);
+                        runBest = Math.min(runBest, runDur);
+                    }
+                }
+
+                // Check results
+                double maxDiff = 0;
+
+                for (int i = 0; i < tables.size(); i++) {
+                    for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+                        for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                            final double diff = Math.abs(
+                                    basics.get(i).getModule(p, r) - runs.get(i).getModule(p, r));
+                            maxDiff = Math.max(maxDiff, diff);
+                        }
+                    }
+                }
+
+                logger.info(
+                        "{} {} glyphs, basic: {} ms, runs: {} ms, max diff: {}",
+                        sheet.getId(),
+                        tables.size(),
+                        basicBest / 1_000_000,
+                        runBest / 1_000_000,
+                        maxDiff);
+
+                if (maxDiff > RunARTExtractor.TOLERANCE) {
+                    logger.warn("{} moments differ beyond tolerance", sheet.getId());
+                }
+            }
+        }
+    }
+
+    //--------------//
+    // basicMoments //
+    //--------------//
+    /**
+     * Extract moments on table points, as formerly done by RunTable.
+     *
+     * @param table the glyph table
+     * @return the ART moments
+     */
+    private ARTMoments basicMoments (RunTable table)
+    {
+        final PointsCollector collector = new PointsCollector(null, table.getWeight());
+        table.cumulate(collector, null);
+
+        final ARTMoments moments = new BasicARTMoments();
+        final BasicARTExtractor extractor = new BasicARTExtractor();
+        extractor.setDescriptor(moments);
+        extractor.extract(collector.getXValues(), collector.getYValues(), collector.getSize());
+
+        return moments;
+    }
+}
@@ -0,0 +1,188 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                            R u n B i n a r i z a t i o n B e n c h                             //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.image.AdaptiveDescriptor;
+import org.audiveris.omr.image.FilterDescriptor;
+import org.audiveris.omr.image.ParallelFilter;
+import org.audiveris.omr.image.PixelFilter;
+import org.audiveris.omr.image.RandomFilter;
+import org.audiveris.omr.image.VerticalFilter;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Picture.SourceKey;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.function.Supplier;
+
+/**
+ * Class {@code RunBinarizationBench} compares the adaptive binarization engines on the
+ * gray image of each selected sheet, reporting throughput in MPixels/s and checking that
+ * all engines provide the same output.
+ * <p>
+ * It also compares the building of binary run table, via a binary image or directly from filter.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunBinarizationBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunBinarizationBench.class);
+
+    /** Number of runs per engine, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunBinarizationBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunBinarizationBench (Book book,
+                                 SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        for (SheetStub stub : book.getValidStubs()) {
+            if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                final Sheet sheet = stub.getSheet();
+                final ByteProcessor gray = sheet.getPicture().getSource(SourceKey.GRAY);
+
+                if (gray == null) {
+                    logger.info("{} no gray source available", sheet.getId());
+
+                    continue;
+                }
+
+                final FilterDescriptor desc = stub.getBinarizationFilter().getValue();
+                final AdaptiveDescriptor ad = (desc instanceof AdaptiveDescriptor)
+                        ? (AdaptiveDescriptor) desc : AdaptiveDescriptor.getDefault();
+                final double mpix = (gray.getWidth() * (double) gray.getHeight()) / 1e6;
+
+                final byte[] ref = (byte[]) bench(
+                        sheet,
+                        "VerticalFilter",
+                        mpix,
+                        () -> new VerticalFilter(gray, ad.meanCoeff, ad.stdDevCoeff)).getPixels();
+
+                final Map<String, Supplier<PixelFilter>> others = new LinkedHashMap<>();
+                others.put(
+                        "RandomFilter",
+                        () -> new RandomFilter(gray, ad.meanCoeff, ad.stdDevCoeff));
+                others.put(
+                        "ParallelFilter",
+                        () -> new ParallelFilter(gray, ad.meanCoeff, ad.stdDevCoeff));
+
+                for (Map.Entry<String, Supplier<PixelFilter>> entry : others.entrySet()) {
+                    final String name = entry.getKey();
+                    final ByteProcessor out = bench(sheet, name, mpix, entry.getValue());
+
+                    if (!Arrays.equals(ref, (byte[]) out.getPixels())) {
+                        logger.warn("{} {} output differs from VerticalFilter", sheet.getId(), name);
+                    }
+                }
+
+                // Binary table, built via image or directly
+                final RunTableFactory factory = new RunTableFactory(Orientation.VERTICAL);
+                long start = System.nanoTime();
+                final RunTable viaImage = factory.createTable(
+                        new ParallelFilter(gray, ad.meanCoeff, ad.stdDevCoeff).filteredImage());
+                final long viaImageDur = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                final RunTable direct = factory.createTable(
+                        new ParallelFilter(gray, ad.meanCoeff, ad.stdDevCoeff));
+                final long directDur = System.nanoTime() - start;
+
+                logger.info(
+                        "{} binary table via image: {} ms, direct: {} ms, identical: {}",
+                        sheet.getId(),
+                        viaImageDur / 1_000_000,
+                        directDur / 1_000_000,
+                        direct.equals(viaImage));
+            }
+        }
+    }
+
+    //-------//
+    // bench //
+    //-------//
+    /**
+     * Measure the best binarization time, including the building of filter integrals.
+     *
+     * @param sheet    the sheet at hand
+     * @param name     engine name
+     * @param mpix     image size in MPixels
+     * @param supplier provides a new filter instance for each run
+     * @return the binarized image
+     */
+    private ByteProcessor bench (Sheet sheet,
+                                 String name,
+                                 double mpix,
+                                 Supplier<PixelFilter> supplier)
+    {
+        ByteProcessor out = null;
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < RUNS; i++) {
+            final long start = System.nanoTime();
+            out = supplier.get().filteredImage();
+
+            final long dur = System.nanoTime() - start;
+
+            if (i > 0) {
+                best = Math.min(best, dur);
+            }
+        }
+
+        logger.info(
+                "{} {} {} MPixels in {} ms, {} MPixels/s",
+                sheet.getId(),
+                name,
+                String.format("%.1f", mpix),
+                best / 1_000_000,
+                String.format("%.1f", (mpix * 1e9) / best));
+
+        return out;
+    }
+}
@@ -0,0 +1,304 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               R u n E x c l u s i o n B e n c h                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.inter.ClutterInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.DoubleDotRelation;
+import org.audiveris.omr.sig.relation.Exclusion;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * Class {@code RunExclusionBench} compares the former reduction of exclusions, by repeated
+ * scans, with the reduction driven by a priority queue.
+ * <p>
+ * It works first on synthetic sigs with tens of thousands of exclusions, reporting the best
+ * duration for each reduction and checking that inters are removed in the same order.
+ * <p>
+ * Then, for each selected sheet, it replays REDUCTION and LINKS steps with each reduction, and
+ * checks that the resulting sigs contain the same inters.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunExclusionBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunExclusionBench.class);
+
+    /** Number of measurements per reduction, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    /** Number of inters in synthetic sigs. */
+    private static final int SYNTHETIC_INTERS = 10_000;
+
+    /** Numbers of exclusions in synthetic sigs. */
+    private static final int[] SYNTHETIC_EXCLUSIONS = new int[]{10_000, 40_000};
+
+    /** Number of supports in synthetic sigs. */
+    private static final int SYNTHETIC_SUPPORTS = 5_000;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunExclusionBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunExclusionBench (Book book,
+                              SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = SIGraph.isExclusionQueueUsed();
+
+        try {
+            final List<SheetStub> stubs = new ArrayList<>();
+
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.GRID)) {
+                        stubs.add(stub);
+                    }
+                }
+            }
+
+            if (stubs.isEmpty()) {
+                logger.info("No sheet with systems available");
+
+                return;
+            }
+
+            // Synthetic sigs, hosted by the first system available
+            final SystemInfo system = stubs.get(0).getSheet().getSystems().get(0);
+
+            for (int exclusionCount : SYNTHETIC_EXCLUSIONS) {
+                compareSynthetic(system, exclusionCount);
+            }
+
+            // Real steps
+            for (SheetStub stub : stubs) {
+                if (stub.isDone(Step.LINKS)) {
+                    compareSteps(stub);
+                }
+            }
+        } finally {
+            SIGraph.setUseExclusionQueue(wasUsed);
+        }
+    }
+
+    //--------------//
+    // compareSteps //
+    //--------------//
+    /**
+     * Replay REDUCTION and LINKS steps on the provided sheet with both reductions.
+     *
+     * @param stub the sheet stub to process
+     */
+    private void compareSteps (SheetStub stub)
+    {
+        final List<String> contents = new ArrayList<>();
+
+        for (boolean queue : new boolean[]{false, true}) {
+            SIGraph.setUseExclusionQueue(queue);
+
+            final String mode = queue ? "queue" : "scan";
+            stub.reachStep(Step.STEMS, true);
+
+            long start = System.nanoTime();
+            stub.reachStep(Step.REDUCTION, false);
+
+            final long reductionDur = System.nanoTime() - start;
+            stub.reachStep(Step.SYMBOLS, false);
+
+            start = System.nanoTime();
+            stub.reachStep(Step.LINKS, false);
+
+            final long linksDur = System.nanoTime() - start;
+            final Sheet sheet = stub.getSheet();
+            logger.info(
+                    "{} {} REDUCTION: {} ms, LINKS: {} ms",
+                    sheet.getId(),
+                    mode,
+                    reductionDur / 1_000_000,
+                    linksDur / 1_000_000);
+
+            final StringBuilder sb = new StringBuilder();
+
+            for (SystemInfo system : sheet.getSystems()) {
+                sb.append(system.getId()).append(':');
+
+                for (Inter inter : system.getSig().vertexSet()) {
+                    sb.append(' ').append(inter.getId());
+                }
+
+                sb.append('\n');
+            }
+
+            contents.add(sb.toString());
+        }
+
+        if (!contents.get(0).equals(contents.get(1))) {
+            logger.warn("{} sigs differ between scan and queue reductions", stub.getId());
+        }
+    }
+
+    //------------------//
+    // compareSynthetic //
+    //------------------//
+    /**
+     * Reduce synthetic sigs with both reductions, and check they remove the same inters
+     * in the same order.
+     *
+     * @param system         the system to host synthetic sigs
+     * @param exclusionCount number of exclusions
+     */
+    private void compareSynthetic (SystemInfo system,
+                                   int exclusionCount)
+    {
+        final String name = "synthetic-" + exclusionCount;
+        final List<List<Integer>> orders = new ArrayList<>();
+
+        for (boolean queue : new boolean[]{false, true}) {
+            SIGraph.setUseExclusionQueue(queue);
+
+            List<Integer> order = null;
+            long best = Long.MAX_VALUE;
+
+            for (int r = 0; r < RUNS; r++) {
+                final List<Inter> inters = new ArrayList<>();
+                final SIGraph sig = syntheticSig(system, exclusionCount, inters);
+                final Map<Inter, Integer> indices = new IdentityHashMap<>();
+
+                for (int i = 0; i < inters.size(); i++) {
+                    indices.put(inters.get(i), i);
+                }
+
+                final long start = System.nanoTime();
+                final Set<Inter> removed = sig.reduceExclusions();
+                final long dur = System.nanoTime() - start;
+
+                if (r > 0) {
+                    best = Math.min(best, dur);
+                }
+
+                order = new ArrayList<>();
+
+                for (Inter inter : removed) {
+                    order.add(indices.get(inter));
+                }
+            }
+
+            logger.info(
+                    "{} {} {} removed in {} ms",
+                    name,
+                    queue ? "queue" : "scan",
+                    order.size(),
+                    best / 1_000_000);
+            orders.add(order);
+        }
+
+        if (!orders.get(0).equals(orders.get(1))) {
+            logger.warn("{} removal orders differ between scan and queue reductions", name);
+        }
+    }
+
+    //--------------//
+    // syntheticSig //
+    //--------------//
+    /**
+     * Build a sig of clutter inters with random grades, random exclusions and random
+     * supports.
+     *
+     * @param system         the hosting system
+     * @param exclusionCount number of exclusions
+     * @param inters         (output) the created inters
+     * @return the synthetic sig
+     */
+    private SIGraph syntheticSig (SystemInfo system,
+                                  int exclusionCount,
+                                  List<Inter> inters)
+    {
+        final Random random = new Random(exclusionCount); // Same sig for each reduction
+        final SIGraph sig = new SIGraph(system);
+
+        for (int i = 0; i < SYNTHETIC_INTERS; i++) {
+            // Grades are rounded, to get many ties
+            inters.add(new ClutterInter(null, Math.rint(random.nextDouble() * 100) / 100));
+        }
+
+        sig.populateAllInters(inters);
+
+        for (Inter inter : inters) {
+            inter.setSig(sig);
+        }
+
+        for (int i = 0; i < SYNTHETIC_SUPPORTS; i++) {
+            final Inter source = inters.get(random.nextInt(SYNTHETIC_INTERS));
+            final Inter target = inters.get(random.nextInt(SYNTHETIC_INTERS));
+
+            if ((source != target) && (sig.getEdge(source, target) == null)
+                        && (sig.getEdge(target, source) == null)) {
+                sig.addEdge(source, target, new DoubleDotRelation());
+            }
+        }
+
+        for (int i = 0; i < exclusionCount; i++) {
+            final Inter source = inters.get(random.nextInt(SYNTHETIC_INTERS));
+            final Inter target = inters.get(random.nextInt(SYNTHETIC_INTERS));
+
+            if ((source != target) && (sig.getEdge(source, target) == null)
+                        && (sig.getEdge(target, source) == null)) {
+                sig.addEdge(source, target, new Exclusion(Exclusion.Cause.OVERLAP));
+            }
+        }
+
+        for (Inter inter : inters) {
+            sig.computeContextualGrade(inter);
+        }
+
+        return sig;
+    }
+}
@@ -0,0 +1,219 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           R u n G l y p h L a b e l i n g B e n c h                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphFactory;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Picture;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+
+/**
+ * Class {@code RunGlyphLabelingBench} compares the former labeling of glyphs with the
+ * union-find labeling, on synthetic tables and on the BINARY table of each selected sheet.
+ * <p>
+ * It reports the best duration for each labeling and checks that both provide the same glyphs.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunGlyphLabelingBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunGlyphLabelingBench.class);
+
+    /** Number of measurements per labeling, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    /** Dimension of synthetic tables. */
+    private static final int SYNTHETIC_SIZE = 3000;
+
+    /** Foreground densities of synthetic tables. */
+    private static final double[] DENSITIES = new double[]{0.05, 0.2, 0.5};
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunGlyphLabelingBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunGlyphLabelingBench (Book book,
+                                  SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = GlyphFactory.isUnionFindUsed();
+
+        try {
+            // Synthetic tables
+            for (double density : DENSITIES) {
+                compare("synthetic-" + density, syntheticTable(density));
+            }
+
+            // Real tables
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.BINARY)) {
+                        final Sheet sheet = stub.getSheet();
+                        final RunTable table = sheet.getPicture().getTable(Picture.TableKey.BINARY);
+
+                        if (table != null) {
+                            compare(sheet.getId(), table);
+                        }
+                    }
+                }
+            }
+        } finally {
+            GlyphFactory.setUseUnionFind(wasUsed);
+        }
+    }
+
+    //---------//
+    // compare //
+    //---------//
+    /**
+     * Label the provided table with both labelings, and check they give the same glyphs.
+     *
+     * @param name  table name
+     * @param table the table to label
+     */
+    private void compare (String name,
+                          RunTable table)
+    {
+        GlyphFactory.setUseUnionFind(false);
+
+        final List<Glyph> former = label(name, table, "former");
+
+        GlyphFactory.setUseUnionFind(true);
+
+        final List<Glyph> unionFind = label(name, table, "union-find");
+
+        if (former.size() != unionFind.size()) {
+            logger.warn("{} glyph count mismatch {} vs {}", name, former.size(), unionFind.size());
+
+            return;
+        }
+
+        for (int i = 0; i < former.size(); i++) {
+            final Glyph g1 = former.get(i);
+            final Glyph g2 = unionFind.get(i);
+
+            if ((g1.getLeft() != g2.getLeft()) || (g1.getTop() != g2.getTop())
+                        || !g1.getRunTable().equals(g2.getRunTable())) {
+                logger.warn("{} glyph #{} mismatch {} vs {}", name, i, g1, g2);
+
+                return;
+            }
+        }
+    }
+
+    //-------//
+    // label //
+    //-------//
+    /**
+     * Label the provided table, and report the best duration.
+     *
+     * @param name  table name
+     * @param table the table to label
+     * @param mode  name of labeling
+     * @return the glyphs found
+     */
+    private List<Glyph> label (String name,
+                               RunTable table,
+                               String mode)
+    {
+        List<Glyph> glyphs = null;
+        long best = Long.MAX_VALUE;
+
+        for (int r = 0; r < RUNS; r++) {
+            final long start = System.nanoTime();
+            glyphs = GlyphFactory.buildGlyphs(table, null);
+
+            final long dur = System.nanoTime() - start;
+
+            if (r > 0) {
+                best = Math.min(best, dur);
+            }
+        }
+
+        logger.info(
+                "{} {} {} runs, {} glyphs in {} ms",
+                name,
+                mode,
+                table.getTotalRunCount(),
+                glyphs.size(),
+                best / 1_000_000);
+
+        return glyphs;
+    }
+
+    //----------------//
+    // syntheticTable //
+    //----------------//
+    /**
+     * Build a vertical table of random runs, with the provided foreground density.
+     *
+     * @param density ratio of foreground pixels
+     * @return the synthetic table
+     */
+    private RunTable syntheticTable (double density)
+    {
+        final RunTable table = new RunTable(
+                Orientation.VERTICAL,
+                SYNTHETIC_SIZE,
+                SYNTHETIC_SIZE);
+        final Random random = new Random(SYNTHETIC_SIZE);
+        final int meanRun = 8;
+        final int meanGap = (int) Math.max(1, Math.rint((meanRun * (1 - density)) / density));
+
+        for (int x = 0; x < SYNTHETIC_SIZE; x++) {
+            int y = random.nextInt(2 * meanGap);
+
+            while (y < SYNTHETIC_SIZE) {
+                final int length = Math.min(SYNTHETIC_SIZE - y, 1 + random.nextInt(2 * meanRun));
+                table.addRun(x, y, length);
+                y += (length + 1 + random.nextInt(2 * meanGap));
+            }
+        }
+
+        return table;
+    }
+}
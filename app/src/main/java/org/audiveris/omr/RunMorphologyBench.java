@@ -0,0 +1,192 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              R u n M o r p h o l o g y B e n c h                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.image.LinearMorphology;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.beam.SpotsBuilder;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.SortedSet;
+
+/**
+ * Class {@code RunMorphologyBench} compares, on the beam spot buffer of each selected sheet,
+ * the closing performed by {@link org.audiveris.omr.image.MorphoProcessor} with the closing
+ * performed by {@link LinearMorphology}.
+ * <p>
+ * It reports the best duration of each closing and checks that the exact linear closing gives
+ * the same pixels as the former one.
+ * The octagonal approximation of the disk is also measured, with the number of pixels it modifies
+ * with respect to the exact closing.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunMorphologyBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunMorphologyBench.class);
+
+    /** Number of measurements per closing, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunMorphologyBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunMorphologyBench (Book book,
+                               SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = LinearMorphology.isUsed();
+
+        try {
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.BEAMS)) {
+                        compare(stub.getSheet());
+                    }
+                }
+            }
+        } finally {
+            LinearMorphology.setUse(wasUsed);
+        }
+    }
+
+    //---------//
+    // compare //
+    //---------//
+    /**
+     * Close the beam spot buffer of the provided sheet with each closing.
+     *
+     * @param sheet the sheet to process
+     */
+    private void compare (Sheet sheet)
+    {
+        final Integer beam = sheet.getScale().getBeamThickness();
+
+        if (beam == null) {
+            logger.info("{} no beam thickness", sheet.getId());
+
+            return;
+        }
+
+        final SpotsBuilder spotsBuilder = new SpotsBuilder(sheet);
+        final ByteProcessor source = spotsBuilder.getBuffer();
+        final double radius = (spotsBuilder.getSpotDiameter(beam) - 1) / 2;
+        final LinearMorphology octagon = LinearMorphology.polygonalDisk(radius);
+
+        ByteProcessor former = null;
+        ByteProcessor linear = null;
+        ByteProcessor polygonal = null;
+        long formerBest = Long.MAX_VALUE;
+        long linearBest = Long.MAX_VALUE;
+        long polygonalBest = Long.MAX_VALUE;
+
+        for (int r = 0; r < RUNS; r++) {
+            // Former closing
+            LinearMorphology.setUse(false);
+            former = (ByteProcessor) source.duplicate();
+
+            long start = System.nanoTime();
+            spotsBuilder.closeSpots(former, beam);
+
+            final long formerDur = System.nanoTime() - start;
+
+            // Exact linear closing
+            LinearMorphology.setUse(true);
+            linear = (ByteProcessor) source.duplicate();
+            start = System.nanoTime();
+            spotsBuilder.closeSpots(linear, beam);
+
+            final long linearDur = System.nanoTime() - start;
+
+            // Octagonal closing
+            polygonal = (ByteProcessor) source.duplicate();
+            start = System.nanoTime();
+            octagon.close(polygonal);
+
+            final long polygonalDur = System.nanoTime() - start;
+
+            if (r > 0) {
+                formerBest = Math.min(formerBest, formerDur);
+                linearBest = Math.min(linearBest, linearDur);
+                polygonalBest = Math.min(polygonalBest, polygonalDur);
+            }
+        }
+
+        final int mismatches = countDiffs(former, linear);
+        logger.info(
+                "{} {}x{} beam: {} former: {} ms, linear: {} ms, octagon: {} ms ({} pixels differ)"
+                        + " mismatches: {}",
+                sheet.getId(),
+                source.getWidth(),
+                source.getHeight(),
+                beam,
+                formerBest / 1_000_000,
+                linearBest / 1_000_000,
+                polygonalBest / 1_000_000,
+                countDiffs(linear, polygonal),
+                mismatches);
+
+        if (mismatches > 0) {
+            logger.warn("{} linear closing differs from former closing", sheet.getId());
+        }
+    }
+
+    //------------//
+    // countDiffs //
+    //------------//
+    private static int countDiffs (ByteProcessor one,
+                                   ByteProcessor two)
+    {
+        final byte[] p1 = (byte[]) one.getPixels();
+        final byte[] p2 = (byte[]) two.getPixels();
+        int count = 0;
+
+        for (int i = 0; i < p1.length; i++) {
+            if (p1[i] != p2[i]) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
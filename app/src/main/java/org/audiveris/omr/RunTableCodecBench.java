@@ -0,0 +1,181 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              R u n T a b l e C o d e c B e n c h                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.ImageHolder;
+import org.audiveris.omr.sheet.Picture;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.Jaxb;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.SortedSet;
+
+import javax.imageio.ImageIO;
+import javax.xml.bind.JAXBContext;
+
+/**
+ * Class {@code RunTableCodecBench} compares, on the BINARY table of each selected sheet,
+ * the stored size and the load time of the XML format, of the PNG image format and of the
+ * binary format (with and without offset table).
+ * <p>
+ * It also checks that the tables loaded from each format are identical.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableCodecBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTableCodecBench.class);
+
+    /** Number of measurements per format, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunTableCodecBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunTableCodecBench (Book book,
+                               SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        try {
+            final JAXBContext context = JAXBContext.newInstance(RunTable.class);
+
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.BINARY)) {
+                        compare(stub.getSheet(), context);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            logger.warn("Error in RunTableCodecBench {}", ex.toString(), ex);
+        }
+    }
+
+    //---------//
+    // compare //
+    //---------//
+    /**
+     * Store and load the BINARY table of provided sheet with each format.
+     *
+     * @param sheet   the sheet to process
+     * @param context JAXB context for XML format
+     * @throws Exception if anything goes wrong
+     */
+    private void compare (Sheet sheet,
+                          JAXBContext context)
+            throws Exception
+    {
+        final RunTable table = sheet.getPicture().getTable(Picture.TableKey.BINARY);
+
+        if (table == null) {
+            logger.info("{} no BINARY table", sheet.getId());
+
+            return;
+        }
+
+        // Stored data
+        final ByteArrayOutputStream xmlOs = new ByteArrayOutputStream();
+        Jaxb.marshal(table, xmlOs, context);
+
+        final byte[] xml = xmlOs.toByteArray();
+
+        final ByteArrayOutputStream pngOs = new ByteArrayOutputStream();
+        ImageIO.write(table.getBufferedImage(), ImageHolder.IMAGE_FORMAT, pngOs);
+
+        final byte[] png = pngOs.toByteArray();
+        final byte[] bin = RunTableCodec.encode(table, false);
+        final byte[] binOffsets = RunTableCodec.encode(table, true);
+
+        // Load times
+        long xmlBest = Long.MAX_VALUE;
+        long pngBest = Long.MAX_VALUE;
+        long binBest = Long.MAX_VALUE;
+        RunTable xmlTable = null;
+        RunTable pngTable = null;
+        RunTable binTable = null;
+
+        for (int r = 0; r < RUNS; r++) {
+            long start = System.nanoTime();
+            xmlTable = (RunTable) Jaxb.unmarshal(new ByteArrayInputStream(xml), context);
+
+            final long xmlDur = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            pngTable = Picture.tableOf(ImageIO.read(new ByteArrayInputStream(png)));
+
+            final long pngDur = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            binTable = RunTableCodec.decode(bin);
+
+            final long binDur = System.nanoTime() - start;
+
+            if (r > 0) {
+                xmlBest = Math.min(xmlBest, xmlDur);
+                pngBest = Math.min(pngBest, pngDur);
+                binBest = Math.min(binBest, binDur);
+            }
+        }
+
+        logger.info(
+                "{} {}x{} XML: {} KB {} ms, PNG: {} KB {} ms,"
+                        + " binary: {} KB ({} KB with offsets) {} ms",
+                sheet.getId(),
+                table.getWidth(),
+                table.getHeight(),
+                xml.length / 1024,
+                xmlBest / 1_000_000,
+                png.length / 1024,
+                pngBest / 1_000_000,
+                bin.length / 1024,
+                binOffsets.length / 1024,
+                binBest / 1_000_000);
+
+        // XML table is the reference, since XML unmarshalling discards empty sequences as well
+        if (!xmlTable.equals(binTable) || !xmlTable.equals(pngTable)) {
+            logger.warn("{} a loaded table differs from XML table", sheet.getId());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              R u n T a b l e I n d e x B e n c h                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Picture;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+import java.util.SortedSet;
+
+/**
+ * Class {@code RunTableIndexBench} measures random pixel probes on the BINARY table of
+ * each selected sheet, with and without the index of sequence run starts.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableIndexBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTableIndexBench.class);
+
+    /** Number of random probes per measurement. */
+    private static final int PROBES = 5_000_000;
+
+    /** Number of measurements per mode, the first one being considered as warm-up. */
+    private static final int RUNS = 4;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunTableIndexBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunTableIndexBench (Book book,
+                               SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        final boolean wasUsed = RunTable.isSequenceIndexUsed();
+
+        try {
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.BINARY)) {
+                        final Sheet sheet = stub.getSheet();
+                        final RunTable table = sheet.getPicture().getTable(Picture.TableKey.BINARY);
+
+                        if (table != null) {
+                            final int[] xs = new int[PROBES];
+                            final int[] ys = new int[PROBES];
+                            final Random random = new Random(stub.getNumber());
+
+                            for (int i = 0; i < PROBES; i++) {
+                                xs[i] = random.nextInt(table.getWidth());
+                                ys[i] = random.nextInt(table.getHeight());
+                            }
+
+                            RunTable.setUseSequenceIndex(false);
+
+                            final int plain = probe(sheet, table, xs, ys, "iterator");
+
+                            RunTable.setUseSequenceIndex(true);
+
+                            final int indexed = probe(sheet, table, xs, ys, "index");
+
+                            if (plain != indexed) {
+                                logger.warn("{} fore count mismatch", sheet.getId());
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            RunTable.setUseSequenceIndex(wasUsed);
+        }
+    }
+
+    //-------//
+    // probe //
+    //-------//
+    /**
+     * Probe the table at the provided locations, and report the best duration.
+     *
+     * @param sheet the sheet at hand
+     * @param table the table to probe
+     * @param xs    abscissae of probes
+     * @param ys    ordinates of probes
+     * @param mode  name of access mode
+     * @return the count of foreground pixels found
+     */
+    private int probe (Sheet sheet,
+                       RunTable table,
+                       int[] xs,
+                       int[] ys,
+                       String mode)
+    {
+        int fores = 0;
+        long best = Long.MAX_VALUE;
+
+        for (int r = 0; r < RUNS; r++) {
+            fores = 0;
+
+            final long start = System.nanoTime();
+
+            for (int i = 0; i < PROBES; i++) {
+                if (table.get(xs[i], ys[i]) == 0) {
+                    fores++;
+                }
+            }
+
+            final long dur = System.nanoTime() - start;
+
+            if (r > 0) {
+                best = Math.min(best, dur);
+            }
+        }
+
+        logger.info(
+                "{} {} {} probes in {} ms, {} ns/probe, {} fore",
+                sheet.getId(),
+                mode,
+                PROBES,
+                best / 1_000_000,
+                String.format("%.1f", best / (double) PROBES),
+                fores);
+
+        return fores;
+    }
+}
@@ -0,0 +1,175 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 T e x t B l o c k s B e n c h                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.text.RegionScanner;
+import org.audiveris.omr.text.OcrUtil;
+import org.audiveris.omr.text.SheetScanner;
+import org.audiveris.omr.text.TextLine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Class {@code TextRegionsBench} compares, on each selected sheet, the OCR of the whole
+ * sheet and the OCR of its text regions, as performed at the beginning of TEXTS step.
+ * <p>
+ * The bench reports the best duration of sheet scanning with each mode, together with the number
+ * of raw lines and words found.
+ * For text regions, it also reports the number of regions, the share of sheet area submitted to OCR
+ * and the rate of regions scanned per second.
+ *
+ * @author Hervé Bitteur
+ */
+public class TextRegionsBench
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(TextRegionsBench.class);
+
+    /** Number of measurements, the first one being considered as warm-up. */
+    private static final int RUNS = 3;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code TextRegionsBench} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public TextRegionsBench (Book book,
+                            SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void process ()
+    {
+        if (!OcrUtil.getOcr().isAvailable()) {
+            logger.info("No OCR available");
+
+            return;
+        }
+
+        final boolean wasUsed = SheetScanner.isRegionsUsed();
+
+        try {
+            for (SheetStub stub : book.getValidStubs()) {
+                if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                    if (stub.isDone(Step.TEXTS)) {
+                        processSheet(stub.getSheet());
+                    }
+                }
+            }
+        } finally {
+            SheetScanner.setUseRegions(wasUsed);
+        }
+    }
+
+    //------------//
+    // countWords //
+    //------------//
+    private static int countWords (List<TextLine> lines)
+    {
+        int count = 0;
+
+        for (TextLine line : lines) {
+            count += line.getWords().size();
+        }
+
+        return count;
+    }
+
+    //--------------//
+    // processSheet //
+    //--------------//
+    /**
+     * Scan the provided sheet with each mode.
+     *
+     * @param sheet the sheet to process
+     */
+    private void processSheet (Sheet sheet)
+    {
+        final long[] bests = new long[]{Long.MAX_VALUE, Long.MAX_VALUE};
+        final int[] lines = new int[2];
+        final int[] words = new int[2];
+        RegionScanner regionScanner = null;
+        long sheetArea = 0;
+
+        for (int r = 0; r < RUNS; r++) {
+            for (int m = 0; m < 2; m++) {
+                SheetScanner.setUseRegions(m == 1);
+
+                final SheetScanner scanner = new SheetScanner(sheet);
+                final long start = System.nanoTime();
+                final List<TextLine> found = scanner.scanSheet();
+                final long dur = System.nanoTime() - start;
+
+                if (r > 0) {
+                    bests[m] = Math.min(bests[m], dur);
+                }
+
+                lines[m] = (found != null) ? found.size() : 0;
+                words[m] = (found != null) ? countWords(found) : 0;
+
+                if (m == 1) {
+                    final ByteProcessor buffer = scanner.getBuffer();
+                    regionScanner = scanner.getRegionScanner();
+                    sheetArea = (long) buffer.getWidth() * buffer.getHeight();
+                }
+            }
+        }
+
+        logger.info(
+                "{} OCR sheet: {} ms {} lines {} words, regions: {} ms {} lines {} words",
+                sheet.getId(),
+                bests[0] / 1_000_000,
+                lines[0],
+                words[0],
+                bests[1] / 1_000_000,
+                lines[1],
+                words[1]);
+
+        logger.info(
+                "{} {} regions on {}% of sheet, {} regions/s",
+                sheet.getId(),
+                regionScanner.getRegionCount(),
+                String.format("%.1f", (100.0 * regionScanner.getRegionArea()) / sheetArea),
+                String.format(
+                        "%.1f",
+                        (1e9 * regionScanner.getRegionCount())
+                                / Math.max(1, regionScanner.getDuration())));
+    }
+}
@@ -28,6 +28,7 @@ import static org.audiveris.omr.classifier.Classifier.SHAPE_COUNT;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphSignature;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeChecker;
 import org.audiveris.omr.math.PoorManAlgebra.DataSet;
@@ -35,6 +36,7 @@ import org.audiveris.omr.math.PoorManAlgebra.INDArray;
 import org.audiveris.omr.math.PoorManAlgebra.Nd4j;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.util.LruCache;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.UriUtil;
 import org.audiveris.omr.util.ZipFileSystem;
@@ -60,6 +62,7 @@ import static java.nio.file.StandardOpenOption.CREATE;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -84,6 +87,12 @@ import javax.xml.bind.JAXBException;
  * <p>
  * After any user training, the data is stored as the custom definition in the user local area,
  * which will be picked up first when the application is run again.
+ * <p>
+ * Raw grades computed by {@code evaluate} methods are kept in a bounded cache, keyed by glyph
+ * signature and interline, so that a glyph evaluated again (or any glyph with identical pixels at
+ * the same location) does not go through features extraction and model once more.
+ * Cached grades are copied into new {@link Evaluation} instances on each call, since evaluations
+ * may be modified by shape checks.
  *
  * @param <M> precise model class to be used
  * @author Hervé Bitteur
@@ -124,6 +133,13 @@ public abstract class AbstractClassifier<M extends Object>
     /** The glyph checker for additional specific checks. */
     protected ShapeChecker glyphChecker = ShapeChecker.getInstance();
 
+    /** Raw grades of evaluated glyphs, SHAPE_COUNT grades per glyph signature. */
+    protected final LruCache<GlyphSignature, double[]> gradesCache = new LruCache<>(
+            "grades",
+            constants.gradesCacheSize.getValue(),
+            constants.gradesCacheBytes.getValue(),
+            (sig, grades) -> sig.getFootprint() + (8L * grades.length));
+
     //~ Methods ------------------------------------------------------------------------------------
     //----------//
     // evaluate //
@@ -153,6 +169,65 @@ public abstract class AbstractClassifier<M extends Object>
         return evaluate(glyph, null, count, minGrade, conditions, interline);
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public Evaluation[][] evaluate (List<Glyph> glyphs,
+                                    SystemInfo system,
+                                    int count,
+                                    double minGrade,
+                                    EnumSet<Condition> conditions)
+    {
+        final int interline = system.getSheet().getInterline();
+        final int size = glyphs.size();
+
+        // Only glyphs big enough are submitted to the classifier, the others are just NOISE
+        final boolean[] bigs = new boolean[size];
+        final List<Glyph> bigGlyphs = new ArrayList<>(size);
+
+        for (int ig = 0; ig < size; ig++) {
+            final Glyph glyph = glyphs.get(ig);
+
+            if (isBigEnough(glyph, interline)) {
+                bigs[ig] = true;
+                bigGlyphs.add(glyph);
+            }
+        }
+
+        final double[] grades = getCachedGrades(bigGlyphs, interline);
+        final Shape[] values = Shape.values();
+        final Evaluation[][] results = new Evaluation[size][];
+        final List<Evaluation> acceptables = new ArrayList<>();
+
+        for (int ig = 0, ib = 0; ig < size; ig++) {
+            final Evaluation[] evals;
+
+            if (bigs[ig]) {
+                // Allocate evaluations only for acceptable grades
+                acceptables.clear();
+
+                for (int s = 0, offset = ib * SHAPE_COUNT; s < SHAPE_COUNT; s++) {
+                    final double grade = grades[offset + s];
+
+                    if (grade >= minGrade) {
+                        acceptables.add(new Evaluation(values[s], grade));
+                    }
+                }
+
+                evals = acceptables.toArray(new Evaluation[acceptables.size()]);
+                Arrays.sort(evals, Evaluation.byReverseGrade); // Order the evals from best to worst
+                ib++;
+            } else {
+                evals = noiseEvaluations;
+            }
+
+            results[ig] = select(glyphs.get(ig), system, evals, count, minGrade, conditions);
+        }
+
+        return results;
+    }
+
     //---------------//
     // getDescriptor //
     //---------------//
@@ -162,6 +237,43 @@ public abstract class AbstractClassifier<M extends Object>
         return descriptor;
     }
 
+    //----------------//
+    // getGradesCache //
+    //----------------//
+    /**
+     * Report the cache of raw grades, mainly to check its hit and miss counts.
+     *
+     * @return the grades cache
+     */
+    public LruCache<GlyphSignature, double[]> getGradesCache ()
+    {
+        return gradesCache;
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                                 int interline)
+    {
+        final double[] grades = getNaturalGrades(glyphs, interline);
+        final Shape[] values = Shape.values();
+        final Evaluation[][] results = new Evaluation[glyphs.size()][];
+
+        for (int ig = 0; ig < results.length; ig++) {
+            final Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0, offset = ig * SHAPE_COUNT; s < SHAPE_COUNT; s++) {
+                evals[s] = new Evaluation(values[s], grades[offset + s]);
+            }
+
+            results[ig] = evals;
+        }
+
+        return results;
+    }
+
     //---------------//
     // getRawDataSet //
     //---------------//
@@ -228,6 +340,90 @@ public abstract class AbstractClassifier<M extends Object>
         return weight >= constants.minWeight.getValue();
     }
 
+    //-----------------//
+    // getCachedGrades //
+    //-----------------//
+    /**
+     * Report the raw grades for a batch of glyphs, using cached grades when available.
+     * <p>
+     * Only the glyphs not found in cache are submitted to {@link #getNaturalGrades}, and their
+     * grades are then cached.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the relevant scaling interline
+     * @return flat matrix of grades, with SHAPE_COUNT grades per glyph, ordered by Shape ordinal
+     */
+    protected double[] getCachedGrades (List<Glyph> glyphs,
+                                        int interline)
+    {
+        if (!gradesCache.isEnabled()) {
+            return getNaturalGrades(glyphs, interline);
+        }
+
+        final int size = glyphs.size();
+        final double[] grades = new double[size * SHAPE_COUNT];
+        final GlyphSignature[] sigs = new GlyphSignature[size];
+        final int[] missedIndices = new int[size];
+        final List<Glyph> missedGlyphs = new ArrayList<>();
+
+        for (int ig = 0; ig < size; ig++) {
+            final Glyph glyph = glyphs.get(ig);
+            final GlyphSignature sig = new GlyphSignature(glyph, interline);
+            final double[] cached = gradesCache.get(sig);
+
+            if (cached != null) {
+                System.arraycopy(cached, 0, grades, ig * SHAPE_COUNT, SHAPE_COUNT);
+            } else {
+                sigs[ig] = sig;
+                missedIndices[missedGlyphs.size()] = ig;
+                missedGlyphs.add(glyph);
+            }
+        }
+
+        if (!missedGlyphs.isEmpty()) {
+            final double[] fresh = getNaturalGrades(missedGlyphs, interline);
+
+            for (int im = 0; im < missedGlyphs.size(); im++) {
+                final int ig = missedIndices[im];
+                final int from = im * SHAPE_COUNT;
+                System.arraycopy(fresh, from, grades, ig * SHAPE_COUNT, SHAPE_COUNT);
+                gradesCache.put(sigs[ig], Arrays.copyOfRange(fresh, from, from + SHAPE_COUNT));
+            }
+        }
+
+        return grades;
+    }
+
+    //------------------//
+    // getNaturalGrades //
+    //------------------//
+    /**
+     * Run the classifier on a batch of glyphs, and report the raw grades for each glyph
+     * and each shape.
+     * <p>
+     * This default implementation processes one glyph at a time, subclasses may override it
+     * to process the whole batch at once.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the relevant scaling interline
+     * @return flat matrix of grades, with SHAPE_COUNT grades per glyph, ordered by Shape ordinal
+     */
+    protected double[] getNaturalGrades (List<Glyph> glyphs,
+                                         int interline)
+    {
+        final double[] grades = new double[glyphs.size() * SHAPE_COUNT];
+
+        for (int ig = 0; ig < glyphs.size(); ig++) {
+            final Evaluation[] evals = getNaturalEvaluations(glyphs.get(ig), interline);
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                grades[(ig * SHAPE_COUNT) + s] = evals[s].grade;
+            }
+        }
+
+        return grades;
+    }
+
     //----------------------//
     // getSortedEvaluations //
     //----------------------//
@@ -246,7 +442,14 @@ public abstract class AbstractClassifier<M extends Object>
         if (!isBigEnough(glyph, interline)) {
             return noiseEvaluations;
         } else {
-            Evaluation[] evals = getNaturalEvaluations(glyph, interline);
+            final double[] grades = getCachedGrades(Collections.singletonList(glyph), interline);
+            final Shape[] values = Shape.values();
+            final Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                evals[s] = new Evaluation(values[s], grades[s]);
+            }
+
             Arrays.sort(evals, Evaluation.byReverseGrade); // Order the evals from best to worst
 
             return evals;
@@ -499,9 +702,38 @@ public abstract class AbstractClassifier<M extends Object>
                                    double minGrade,
                                    EnumSet<Classifier.Condition> conditions,
                                    int interline)
+    {
+        return select(
+                glyph,
+                system,
+                getSortedEvaluations(glyph, interline),
+                count,
+                minGrade,
+                conditions);
+    }
+
+    //--------//
+    // select //
+    //--------//
+    /**
+     * Select the best acceptable evaluations among the sorted evaluations of a glyph.
+     *
+     * @param glyph      the evaluated glyph
+     * @param system     the system containing the glyph, if any
+     * @param evals      glyph evaluations, ordered from best to worst
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the sequence of selected evaluations, perhaps empty but not null
+     */
+    private Evaluation[] select (Glyph glyph,
+                                 SystemInfo system,
+                                 Evaluation[] evals,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Classifier.Condition> conditions)
     {
         List<Evaluation> bests = new ArrayList<>();
-        Evaluation[] evals = getSortedEvaluations(glyph, interline);
 
         EvalsLoop:
         for (Evaluation eval : evals) {
@@ -579,5 +811,15 @@ public abstract class AbstractClassifier<M extends Object>
         private final Scale.AreaFraction minWeight = new Scale.AreaFraction(
                 0.04,
                 "Minimum normalized weight to be considered not a noise");
+
+        private final Constant.Integer gradesCacheSize = new Constant.Integer(
+                "Glyphs",
+                20000,
+                "Maximum number of glyph signatures in grades cache (0 to disable)");
+
+        private final Constant.Integer gradesCacheBytes = new Constant.Integer(
+                "Bytes",
+                8_000_000,
+                "Maximum memory retained by glyph signatures and grades in grades cache");
     }
 }
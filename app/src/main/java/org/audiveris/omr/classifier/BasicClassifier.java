@@ -30,7 +30,9 @@ import org.audiveris.omr.math.NeuralNetwork;
 import org.audiveris.omr.math.PoorManAlgebra.DataSet;
 import org.audiveris.omr.math.PoorManAlgebra.INDArray;
 import org.audiveris.omr.math.PoorManAlgebra.Nd4j;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 
 //import org.nd4j.linalg.api.ndarray.INDArray;
@@ -51,6 +53,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
@@ -80,6 +84,9 @@ public class BasicClassifier
     /** Model entry name. */
     public static final String MODEL_ENTRY_NAME = "model.xml";
 
+    /** Per-thread buffer for normalized features of a batch of glyphs. */
+    private static final ThreadLocal<double[]> batchInputs = new ThreadLocal<>();
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** The underlying (old) neural network. */
     private NeuralNetwork model;
@@ -87,6 +94,9 @@ public class BasicClassifier
     /** Training listener, if any. */
     private TrainingMonitor listener;
 
+    /** Norms as plain arrays, lazily derived from current norms. */
+    private volatile PlainNorms plainNorms;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Private constructor, to create a glyph neural network.
@@ -158,20 +168,11 @@ public class BasicClassifier
     public Evaluation[] getNaturalEvaluations (Glyph glyph,
                                                int interline)
     {
-        double[] ins = descriptor.getFeatures(glyph, interline);
-        final INDArray features = Nd4j.create(ins);
-        normalize(features);
+        final double[] outs = getNaturalGrades(Collections.singletonList(glyph), interline);
 
         Shape[] values = Shape.values();
         Evaluation[] evals = new Evaluation[SHAPE_COUNT];
 
-        for (int i = 0; i < ins.length; i++) {
-            ins[i] = features.getDouble(i);
-        }
-
-        double[] outs = new double[SHAPE_COUNT];
-        model.run(ins, null, outs);
-
         for (int s = 0; s < SHAPE_COUNT; s++) {
             evals[s] = new Evaluation(values[s], outs[s]);
         }
@@ -186,6 +187,7 @@ public class BasicClassifier
     public void reset ()
     {
         model = createNetwork();
+        gradesCache.clear();
     }
 
     //------//
@@ -269,11 +271,89 @@ public class BasicClassifier
 
         // Train
         model.train(inputs, desiredOutputs, listener, listener.getIterationPeriod());
+        gradesCache.clear();
 
         // Store
         store(FILE_NAME);
     }
 
+    //------------------//
+    // getNaturalGrades //
+    //------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Features of all glyphs are normalized with plain arrays into a flat matrix, which is then
+     * pushed through the network by blocks of rows, the row range being split across cores for
+     * large batches.
+     */
+    @Override
+    protected double[] getNaturalGrades (List<Glyph> glyphs,
+                                         int interline)
+    {
+        final int count = glyphs.size();
+        final NeuralNetwork network = model;
+        final PlainNorms pn = getPlainNorms();
+        final int length = pn.means.length;
+        final double[] outputs = new double[count * SHAPE_COUNT];
+
+        double[] inputs = batchInputs.get();
+
+        if ((inputs == null) || (inputs.length < (count * length))) {
+            inputs = new double[count * length];
+            batchInputs.set(inputs);
+        }
+
+        // Normalized features
+        for (int ig = 0; ig < count; ig++) {
+            final double[] ins = descriptor.getFeatures(glyphs.get(ig), interline);
+
+            for (int j = 0, offset = ig * length; j < length; j++) {
+                inputs[offset + j] = (ins[j] - pn.means[j]) / pn.stds[j];
+            }
+        }
+
+        // Network
+        final int chunk = Math.max(
+                constants.minBatchChunk.getValue(),
+                (count + OmrExecutors.getNumberOfCpus() - 1) / OmrExecutors.getNumberOfCpus());
+
+        if ((count <= chunk) || !OmrExecutors.defaultParallelism.getValue()) {
+            network.run(inputs, outputs, 0, count);
+        } else {
+            final double[] ins = inputs;
+
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+
+                for (int i = 0; i < count; i += chunk) {
+                    final int from = i;
+                    final int to = Math.min(count, i + chunk);
+                    tasks.add(() -> {
+                        network.run(ins, outputs, from, to);
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Batch evaluation got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in batch evaluation", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+
+        return outputs;
+    }
+
     //--------------//
     // isCompatible //
     //--------------//
@@ -441,6 +521,25 @@ public class BasicClassifier
                 getMaxEpochs());
     }
 
+    //---------------//
+    // getPlainNorms //
+    //---------------//
+    /**
+     * Report the current norms as plain arrays.
+     *
+     * @return plain norms, consistent with current norms
+     */
+    private PlainNorms getPlainNorms ()
+    {
+        PlainNorms pn = plainNorms;
+
+        if ((pn == null) || (pn.norms != norms)) {
+            plainNorms = pn = new PlainNorms(norms, descriptor.length());
+        }
+
+        return pn;
+    }
+
     //-----------//
     // normalize //
     //-----------//
@@ -492,6 +591,11 @@ public class BasicClassifier
                 "Maximum number of epochs in training");
 
         private final Constant.Ratio momentum = new Constant.Ratio(0.2, "Training momentum");
+
+        private final Constant.Integer minBatchChunk = new Constant.Integer(
+                "Glyphs",
+                64,
+                "Minimum number of glyphs per parallel chunk in batch evaluation");
     }
 
     //---------------//
@@ -503,6 +607,38 @@ public class BasicClassifier
         static final BasicClassifier INSTANCE = new BasicClassifier();
     }
 
+    //------------//
+    // PlainNorms //
+    //------------//
+    /**
+     * Norms values copied into plain arrays, for allocation-free normalization.
+     */
+    private static class PlainNorms
+    {
+
+        /** The norms copied. */
+        final Norms norms;
+
+        /** Features means. */
+        final double[] means;
+
+        /** Features standard deviations. */
+        final double[] stds;
+
+        PlainNorms (Norms norms,
+                    int length)
+        {
+            this.norms = norms;
+            means = new double[length];
+            stds = new double[length];
+
+            for (int j = 0; j < length; j++) {
+                means[j] = norms.means.getDouble(j);
+                stds[j] = norms.stds.getDouble(j);
+            }
+        }
+    }
+
     //----------//
     // MyVector //
     //----------//
@@ -39,6 +39,7 @@ import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.ZipFileSystem;
+import org.audiveris.omr.util.ZipFileSystemPool;
 
 import org.jdesktop.application.Application;
 import org.jdesktop.application.SingleFrameApplication;
@@ -293,7 +294,7 @@ public class SampleRepository
         }
 
         try {
-            Path imagesRoot = ZipFileSystem.open(imagesFile);
+            Path imagesRoot = ZipFileSystemPool.acquire(imagesFile);
 
             try {
                 Path folderPath = imagesRoot.resolve(descriptor.getName());
@@ -306,9 +307,7 @@ public class SampleRepository
 
                 return Files.exists(imagePath);
             } finally {
-                if (imagesRoot != null) {
-                    imagesRoot.getFileSystem().close();
-                }
+                ZipFileSystemPool.release(imagesRoot);
             }
         } catch (IOException ex) {
             return false;
@@ -387,27 +386,29 @@ public class SampleRepository
 
                 if (!descs.isEmpty()) {
                     try {
-                        final Path root = ZipFileSystem.open(imagesFile);
+                        final Path root = ZipFileSystemPool.acquire(imagesFile);
 
-                        for (Descriptor desc : descs) {
-                            final Path file = root.resolve(desc.getName()).resolve(
-                                    SampleSheet.IMAGE_FILE_NAME);
-                            final RunTable rt = RunTable.unmarshal(file);
+                        try {
+                            for (Descriptor desc : descs) {
+                                final Path file = root.resolve(desc.getName()).resolve(
+                                        SampleSheet.IMAGE_FILE_NAME);
+                                final RunTable rt = RunTable.unmarshal(file);
 
-                            if ((rt != null) && rt.equals(image)) {
-                                // We have found the image
-                                desc.addAlias(name);
-                                desc.addAlias(longName);
+                                if ((rt != null) && rt.equals(image)) {
+                                    // We have found the image
+                                    desc.addAlias(name);
+                                    desc.addAlias(longName);
 
-                                sampleSheet = nameMap.get(desc.getName());
-                                sampleSheet.setImage(rt, true);
-                                imageMap.put(rt, sampleSheet);
+                                    sampleSheet = nameMap.get(desc.getName());
+                                    sampleSheet.setImage(rt, true);
+                                    imageMap.put(rt, sampleSheet);
 
-                                break;
+                                    break;
+                                }
                             }
+                        } finally {
+                            ZipFileSystemPool.release(root);
                         }
-
-                        root.getFileSystem().close();
                     } catch (IOException ignored) {
                     }
                 }
@@ -851,7 +852,7 @@ public class SampleRepository
         RunTable runTable = null;
 
         try {
-            final Path imagesRoot = ZipFileSystem.open(imagesFile);
+            final Path imagesRoot = ZipFileSystemPool.acquire(imagesFile);
 
             try {
                 Path folderPath = imagesRoot.resolve(descriptor.getName());
@@ -868,9 +869,7 @@ public class SampleRepository
                     logger.debug("Loaded {}", file);
                 }
             } finally {
-                if (imagesRoot != null) {
-                    imagesRoot.getFileSystem().close();
-                }
+                ZipFileSystemPool.release(imagesRoot);
             }
         } catch (IOException ex) {
             logger.warn("Error loading {} image ", descriptor, ex);
@@ -23,6 +23,8 @@ package org.audiveris.omr.glyph;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.math.BasicLine;
 import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.math.PointsCollector;
@@ -32,6 +34,7 @@ import org.audiveris.omr.run.Orientation;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.util.LruCache;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.Table;
 
@@ -83,8 +86,24 @@ public class Glyph
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(Glyph.class);
 
+    /** ART moments shared by glyphs with identical pixels. */
+    private static final LruCache<GlyphSignature, ARTMoments> artCache = new LruCache<>(
+            "art-moments",
+            constants.momentsCacheSize.getValue(),
+            constants.momentsCacheBytes.getValue(),
+            (sig, moments) -> sig.getFootprint());
+
+    /** Geometric moments shared by glyphs with identical pixels. */
+    private static final LruCache<GlyphSignature, GeometricMoments> geoCache = new LruCache<>(
+            "geo-moments",
+            constants.momentsCacheSize.getValue(),
+            constants.momentsCacheBytes.getValue(),
+            (sig, moments) -> sig.getFootprint());
+
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -246,13 +265,17 @@ public class Glyph
 
     /**
      * Report the glyph ART moments.
+     * <p>
+     * Moments are shared with any other glyph of same signature, see {@link GlyphSignature}.
      *
      * @return the glyph ART moments
      */
     public ARTMoments getARTMoments ()
     {
         if (artMoments == null) {
-            artMoments = runTable.computeArtMoments(left, top);
+            artMoments = artCache.computeIfAbsent(
+                    new GlyphSignature(this, 0),
+                    sig -> runTable.computeArtMoments(left, top));
         }
 
         return artMoments;
@@ -308,6 +331,8 @@ public class Glyph
 
     /**
      * Report the glyph geometric moments.
+     * <p>
+     * Moments are shared with any other glyph of same signature, see {@link GlyphSignature}.
      *
      * @param interline the global sheet interline
      * @return the glyph geometric moments
@@ -315,7 +340,9 @@ public class Glyph
     public GeometricMoments getGeometricMoments (int interline)
     {
         if (geoMoments == null) {
-            geoMoments = runTable.computeGeometricMoments(left, top, interline);
+            geoMoments = geoCache.computeIfAbsent(
+                    new GlyphSignature(this, interline),
+                    sig -> runTable.computeGeometricMoments(left, top, interline));
         }
 
         return geoMoments;
@@ -395,6 +422,16 @@ public class Glyph
         return basicLine.getMeanDistance();
     }
 
+    /**
+     * Report the status of the caches of moments shared between glyphs.
+     *
+     * @return a description of moments caches
+     */
+    public static String getMomentsCacheStatus ()
+    {
+        return artCache + " " + geoCache;
+    }
+
     /**
      * Report the underlying table of runs
      *
@@ -701,4 +738,23 @@ public class Glyph
 
         return collector;
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer momentsCacheSize = new Constant.Integer(
+                "Glyphs",
+                20000,
+                "Maximum number of glyph signatures in each moments cache (0 to disable)");
+
+        private final Constant.Integer momentsCacheBytes = new Constant.Integer(
+                "Bytes",
+                4_000_000,
+                "Maximum memory retained by glyph signatures in each moments cache");
+    }
 }
@@ -21,19 +21,35 @@
 // </editor-fold>
 package org.audiveris.omr.glyph;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTables;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
 import org.jgrapht.Graphs;
 import org.jgrapht.graph.SimpleGraph;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code GlyphCluster} handles a cluster of connected glyphs, to retrieve all
@@ -46,7 +62,18 @@ import java.util.Set;
  * <li>For each reachable vertex, recursively process the new set composed of current set + the
  * reachable vertex.</li>
  * </ol>
- * TODO: implement a non-recursive version for better efficiency?
+ * Cluster parts are indexed once, so that subsets and considered parts are handled as bit sets
+ * over part indices.
+ * The compound of a subset is built incrementally, by merging the run table of the added part
+ * into the run table of the compound of the parent subset.
+ * <p>
+ * The number of subsets explored per cluster is bounded (see constant {@code maxSubsets}).
+ * <p>
+ * Several independent clusters can be decomposed together via {@link #decompose(List)}: subsets
+ * enumeration and compounds building are then run in parallel, while evaluations are performed
+ * sequentially, cluster after cluster, in the same order as with {@link #decompose()}.
+ * Each enumeration hands its compounds over through a small bounded queue, so that only a few
+ * compounds per cluster are waiting for evaluation at any time.
  *
  * @author Hervé Bitteur
  */
@@ -54,6 +81,8 @@ public class GlyphCluster
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(GlyphCluster.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -63,6 +92,33 @@ public class GlyphCluster
     /** Group, if any, to be assigned to created glyphs. */
     private final GlyphGroup group;
 
+    /** Indexed glyphs: seeds by decreasing weight, followed by non-seed neighbors if any. */
+    private List<Glyph> glyphs;
+
+    /** Number of seeds, at beginning of glyphs list. */
+    private int seedCount;
+
+    /** Weight of each indexed glyph. */
+    private int[] weights;
+
+    /** Bounds of each indexed glyph. */
+    private Rectangle[] boxes;
+
+    /** Indices of neighbors of each indexed glyph. */
+    private int[][] neighbors;
+
+    /** Compounds to be evaluated by another thread, null for immediate evaluation. */
+    private BlockingQueue<Compound> pendings;
+
+    /** Maximum number of subsets to explore. */
+    private int maxSubsets;
+
+    /** Number of subsets explored. */
+    private int explored;
+
+    /** Number of subsets skipped because of budget. */
+    private int skipped;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new Cluster object, with an adapter to the environment.
@@ -86,106 +142,424 @@ public class GlyphCluster
      */
     public void decompose ()
     {
-        final Set<Glyph> considered = new LinkedHashSet<>(); // Parts considered so far
+        index();
+        enumerate(null);
+    }
 
+    //-------------//
+    // getExplored //
+    //-------------//
+    /**
+     * Report the number of subsets explored by last decomposition.
+     *
+     * @return the count of explored subsets
+     */
+    public int getExplored ()
+    {
+        return explored;
+    }
+
+    //------------//
+    // getSkipped //
+    //------------//
+    /**
+     * Report the number of subsets skipped by last decomposition, because the budget of
+     * subsets was exhausted.
+     *
+     * @return the count of skipped subsets
+     */
+    public int getSkipped ()
+    {
+        return skipped;
+    }
+
+    //---------------//
+    // buildCompound //
+    //---------------//
+    /**
+     * Build the compound of parent compound plus an added part.
+     *
+     * @param parent the compound of parent subset, null if none
+     * @param part   the added part
+     * @param box    the bounds of resulting compound
+     * @return the resulting compound
+     */
+    private Glyph buildCompound (Glyph parent,
+                                 Glyph part,
+                                 Rectangle box)
+    {
+        if (parent == null) {
+            return part;
+        }
+
+        final RunTable parentTable = parent.getRunTable();
+        final RunTable partTable = part.getRunTable();
+
+        if (parentTable.getOrientation() != partTable.getOrientation()) {
+            return GlyphFactory.buildGlyph(Arrays.asList(parent, part));
+        }
+
+        final RunTable table = RunTables.union(
+                parentTable,
+                new Point(parent.getLeft() - box.x, parent.getTop() - box.y),
+                partTable,
+                new Point(part.getLeft() - box.x, part.getTop() - box.y),
+                box.width,
+                box.height);
+
+        return new Glyph(box.x, box.y, table);
+    }
+
+    //-----------//
+    // enumerate //
+    //-----------//
+    /**
+     * Enumerate the acceptable subsets of indexed parts.
+     *
+     * @param pendings the queue to populate with compounds, or null for immediate evaluation
+     */
+    private void enumerate (BlockingQueue<Compound> pendings)
+    {
+        this.pendings = pendings;
+        explored = 0;
+        skipped = 0;
+
+        final int[] path = new int[glyphs.size()];
+        final BitSet considered = new BitSet(glyphs.size()); // Parts considered so far
+
+        for (int i = 0; i < seedCount; i++) {
+            considered.set(i);
+            path[0] = i;
+
+            final BitSet parts = new BitSet(glyphs.size());
+            parts.set(i);
+            process(path, 1, parts, considered, weights[i], new Rectangle(boxes[i]), null);
+        }
+
+        if (skipped > 0) {
+            logger.debug(
+                    "Cluster of {} parts reached budget, explored:{} skipped:{}",
+                    seedCount,
+                    explored,
+                    skipped);
+        } else {
+            logger.debug("Cluster of {} parts explored:{}", seedCount, explored);
+        }
+
+        this.pendings = null;
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate the provided compound.
+     *
+     * @param compound the compound glyph
+     * @param parts    the parts that compose the compound
+     */
+    private void evaluate (Glyph compound,
+                           Set<Glyph> parts)
+    {
+        compound.addGroup(group);
+
+        // Create all acceptable inters, if any, for the compound
+        adapter.evaluateGlyph(compound, parts);
+    }
+
+    //-------//
+    // index //
+    //-------//
+    /**
+     * Index the cluster parts, together with their weight, bounds and neighbors.
+     * <p>
+     * This is the only place where the adapter is asked for parts and neighbors.
+     */
+    private void index ()
+    {
         //TODO: we could truncate this list by discarding the smallest items
         // since a too large list would result in explosion of combinations
-        final List<Glyph> seeds = adapter.getParts();
-        Collections.sort(seeds, Glyphs.byReverseWeight);
+        glyphs = new ArrayList<>(adapter.getParts());
+        Collections.sort(glyphs, Glyphs.byReverseWeight);
+        seedCount = glyphs.size();
 
-        ///logger.debug("Decomposing {}", Glyphs.ids("cluster", seeds));
-        for (Glyph seed : seeds) {
-            considered.add(seed);
-            process(Collections.singleton(seed), considered);
+        final Map<Glyph, Integer> indices = new HashMap<>();
+
+        for (int i = 0; i < seedCount; i++) {
+            indices.put(glyphs.get(i), i);
         }
+
+        // Neighbors not found among parts, if any, get appended to the list
+        final List<int[]> neighborList = new ArrayList<>();
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            final List<Glyph> glyphNeighbors = adapter.getNeighbors(glyphs.get(i));
+            final int[] ids = new int[glyphNeighbors.size()];
+
+            for (int k = 0; k < ids.length; k++) {
+                final Glyph neighbor = glyphNeighbors.get(k);
+                Integer id = indices.get(neighbor);
+
+                if (id == null) {
+                    id = glyphs.size();
+                    glyphs.add(neighbor);
+                    indices.put(neighbor, id);
+                }
+
+                ids[k] = id;
+            }
+
+            neighborList.add(ids);
+        }
+
+        neighbors = neighborList.toArray(new int[neighborList.size()][]);
+        weights = new int[glyphs.size()];
+        boxes = new Rectangle[glyphs.size()];
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = glyphs.get(i).getWeight();
+            boxes[i] = glyphs.get(i).getBounds();
+        }
+
+        maxSubsets = constants.maxSubsets.getValue();
     }
 
+    //---------//
+    // partsOf //
+    //---------//
     /**
-     * Retrieve all parts at acceptable distance from at least one member of the
-     * provided set.
+     * Report the set of parts designated by the provided path.
      *
-     * @param set the provided set
-     * @return all the parts reachable from the set
+     * @param path  indices of parts, in order of insertion
+     * @param count number of parts in path
+     * @return the (new) set of parts
      */
-    private Set<Glyph> getOutliers (Set<Glyph> set)
+    private Set<Glyph> partsOf (int[] path,
+                                int count)
     {
-        Set<Glyph> outliers = new LinkedHashSet<>();
+        final Set<Glyph> set = new LinkedHashSet<>();
 
-        for (Glyph part : set) {
-            outliers.addAll(adapter.getNeighbors(part));
+        for (int k = 0; k < count; k++) {
+            set.add(glyphs.get(path[k]));
         }
 
-        outliers.removeAll(set);
-
-        return outliers;
+        return set;
     }
 
+    //---------//
+    // process //
+    //---------//
     /**
      * Process the provided set of parts.
      *
-     * @param parts (read only) the set of current parts
-     * @param seen  (read only) all parts considered so far (current parts plus discarded ones)
+     * @param path   indices of current parts, in order of insertion (the array is shared, only
+     *               the first count cells pertain to current set)
+     * @param count  number of current parts
+     * @param parts  (read only) the set of current parts
+     * @param seen   (read only) all parts considered so far (current parts plus discarded ones)
+     * @param weight cumulated weight of current parts
+     * @param box    bounds of current parts
+     * @param parent compound of current parts minus the last one, null for a single part
      */
-    private void process (Set<Glyph> parts,
-                          Set<Glyph> seen)
+    private void process (int[] path,
+                          int count,
+                          BitSet parts,
+                          BitSet seen,
+                          int weight,
+                          Rectangle box,
+                          Glyph parent)
     {
-        ///logger.debug(" {} {} {}", set.size(), Glyphs.ids("set", set), Glyphs.ids("seen", seen));
+        if (explored >= maxSubsets) {
+            skipped++;
 
-        // Check what we have got
-        final int weight = Glyphs.weightOf(parts);
+            return;
+        }
+
+        explored++;
 
+        // Check what we have got
         if (adapter.isTooHeavy(weight)) {
             logger.debug("Too high weight {} for {}", weight, parts);
 
             return;
         }
 
-        Rectangle box = Glyphs.getBounds(parts);
-
         if (adapter.isTooLarge(box)) {
             logger.debug("Too large  {} for {}", box, parts);
 
             return;
         }
 
+        final Glyph last = glyphs.get(path[count - 1]);
+        Glyph compound = null;
+
         if (!adapter.isTooLight(weight)) {
             // Build compound and get acceptable evaluations for the compound
-            Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
-                    : parts.iterator().next();
-            compound.addGroup(group);
-
-            // Create all acceptable inters, if any, for the compound
-            adapter.evaluateGlyph(compound, parts);
+            compound = buildCompound(parent, last, box);
+
+            if (pendings != null) {
+                try {
+                    pendings.put(new Compound(compound, partsOf(path, count)));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt(); // Evaluation has been abandoned
+                    throw new ProcessingCancellationException(ex);
+                }
+            } else {
+                evaluate(compound, partsOf(path, count));
+            }
         } else {
             logger.debug("Too low weight {} for {}", weight, parts);
         }
 
         // Then, identify all outliers immediately reachable from the compound
-        Set<Glyph> outliers = getOutliers(parts);
-        outliers.removeAll(seen);
+        final int[] outliers = new int[glyphs.size()];
+        final BitSet found = new BitSet(glyphs.size());
+        int outlierCount = 0;
+
+        for (int k = 0; k < count; k++) {
+            for (int id : neighbors[path[k]]) {
+                if (!parts.get(id) && !seen.get(id) && !found.get(id)) {
+                    found.set(id);
+                    outliers[outlierCount++] = id;
+                }
+            }
+        }
 
-        if (outliers.isEmpty()) {
+        if (outlierCount == 0) {
             return; // No further growth is possible
         }
 
-        ///logger.debug("      {}", Glyphs.ids("outliers", outliers));
-        Rectangle setBox = Glyphs.getBounds(parts);
-        Set<Glyph> newConsidered = new LinkedHashSet<>(seen);
+        if (compound == null) {
+            compound = buildCompound(parent, last, box);
+        }
+
+        final BitSet newConsidered = (BitSet) seen.clone();
 
-        for (Glyph outlier : outliers) {
-            newConsidered.add(outlier);
+        for (int i = 0; i < outlierCount; i++) {
+            final int outlier = outliers[i];
+            newConsidered.set(outlier);
 
             // Check appending this atom does not make the resulting symbol too wide or too high
-            Rectangle symBox = outlier.getBounds().union(setBox);
+            final Rectangle symBox = boxes[outlier].union(box);
 
             if (!adapter.isTooLarge(symBox)) {
-                Set<Glyph> largerSet = new LinkedHashSet<>(parts);
-                largerSet.add(outlier);
-                process(largerSet, newConsidered);
+                final BitSet largerSet = (BitSet) parts.clone();
+                largerSet.set(outlier);
+                path[count] = outlier;
+                process(
+                        path,
+                        count + 1,
+                        largerSet,
+                        newConsidered,
+                        weight + weights[outlier],
+                        symBox,
+                        compound);
+            }
+        }
+    }
+
+    //-----------//
+    // decompose //
+    //-----------//
+    /**
+     * Decompose the provided independent clusters.
+     * <p>
+     * Subsets enumeration and compounds building are run in parallel, one task per cluster, if
+     * parallelism is allowed.
+     * Evaluations are performed sequentially by the calling thread, cluster after cluster in list
+     * order, since adapters are not assumed to be thread-safe for evaluation.
+     * <p>
+     * To bound memory, enumerations run at most one cluster per processor ahead of evaluation,
+     * and each enumeration waits when its queue of pending compounds is full.
+     * <p>
+     * Parts and neighbors are retrieved beforehand from each adapter, so the only adapter methods
+     * called concurrently are the size and weight checks, which must not modify any data.
+     *
+     * @param clusters the clusters to decompose, with no common adapter
+     */
+    public static void decompose (List<GlyphCluster> clusters)
+    {
+        if ((clusters.size() <= 1)
+                    || !constants.parallelClusters.isSet()
+                    || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            for (GlyphCluster cluster : clusters) {
+                cluster.decompose();
+            }
+
+            return;
+        }
+
+        final int ahead = OmrExecutors.getNumberOfCpus();
+        final int window = constants.maxPendings.getValue();
+        final List<BlockingQueue<Compound>> queues = new ArrayList<>();
+        final List<Future<Void>> futures = new ArrayList<>();
+
+        for (GlyphCluster cluster : clusters) {
+            cluster.index();
+            queues.add(new ArrayBlockingQueue<>(window));
+        }
+
+        try {
+            for (int i = 0; i < clusters.size(); i++) {
+                // Keep enumerations running a few clusters ahead of evaluation
+                for (int k = futures.size(); k < Math.min(clusters.size(), i + ahead); k++) {
+                    futures.add(startEnumeration(clusters.get(k), queues.get(k)));
+                }
+
+                // Sequential evaluation, as compounds arrive
+                final GlyphCluster cluster = clusters.get(i);
+                final BlockingQueue<Compound> queue = queues.get(i);
+
+                for (Compound compound; (compound = queue.take()) != Compound.END;) {
+                    cluster.evaluate(compound.glyph, compound.parts);
+                }
+
+                futures.get(i).get(); // To report any enumeration failure
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("GlyphCluster got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause
+                    : new RuntimeException(cause);
+        } finally {
+            // Stop any enumeration still running, which happens only on error
+            for (Future<Void> future : futures) {
+                future.cancel(true);
             }
         }
     }
 
+    //------------------//
+    // startEnumeration //
+    //------------------//
+    /**
+     * Launch, on a helper thread, the enumeration of the provided (indexed) cluster.
+     * <p>
+     * The queue gets the compounds to evaluate, followed by {@link Compound#END}, even when
+     * enumeration fails.
+     *
+     * @param cluster the cluster to enumerate
+     * @param queue   the queue to populate
+     * @return the enumeration future
+     */
+    private static Future<Void> startEnumeration (GlyphCluster cluster,
+                                                  BlockingQueue<Compound> queue)
+    {
+        return OmrExecutors.getCachedLowExecutor().submit(() -> {
+            try {
+                cluster.enumerate(queue);
+            } finally {
+                queue.put(Compound.END);
+            }
+
+            return null;
+        });
+    }
+
     //-------------//
     // getSubGraph //
     //-------------//
@@ -366,4 +740,50 @@ public class GlyphCluster
             return false;
         }
     }
+
+    //----------//
+    // Compound //
+    //----------//
+    /**
+     * A compound glyph, together with its parts, waiting for evaluation.
+     */
+    private static class Compound
+    {
+
+        /** Marker for the end of an enumeration. */
+        static final Compound END = new Compound(null, null);
+
+        final Glyph glyph;
+
+        final Set<Glyph> parts;
+
+        Compound (Glyph glyph,
+                  Set<Glyph> parts)
+        {
+            this.glyph = glyph;
+            this.parts = parts;
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer maxSubsets = new Constant.Integer(
+                "Subsets",
+                10_000,
+                "Maximum number of subsets explored per cluster");
+
+        private final Constant.Boolean parallelClusters = new Constant.Boolean(
+                true,
+                "Should independent clusters be enumerated in parallel?");
+
+        private final Constant.Integer maxPendings = new Constant.Integer(
+                "Compounds",
+                32,
+                "Maximum number of compounds pending evaluation per cluster");
+    }
 }
@@ -23,12 +23,16 @@ package org.audiveris.omr.glyph;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.run.MarkedRun;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.ByteUtil;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,12 +40,15 @@ import org.slf4j.LoggerFactory;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code GlyphFactory} builds a collection of glyphs out of a provided {@link
@@ -52,6 +59,15 @@ import java.util.Map.Entry;
  * <p>
  * Comments refer to 'sequences', which are synonymous of columns for vertical runs, and of rows
  * for horizontal runs.
+ * <p>
+ * Runs are labelled via a union-find structure on primitive arrays, where each run is identified
+ * by its rank in table scanning order (sequence by sequence, then run by run).
+ * Any union links the larger root to the smaller one, hence the root of a glyph is its first run
+ * in scanning order.
+ * Bands of consecutive sequences are labelled in parallel, then stitched at band borders.
+ * <p>
+ * The former labeling, based on {@link MarkedRun} instances and a map of mark merges, is kept
+ * available for comparison purpose, see {@link #setUseUnionFind(boolean)}.
  *
  * @author Hervé Bitteur
  */
@@ -59,6 +75,8 @@ public class GlyphFactory
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(GlyphFactory.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -77,8 +95,23 @@ public class GlyphFactory
     /** Global id to assign glyph marks. */
     private int globalMark;
 
+    /** Start of each run, by rank in scanning order. */
+    private int[] runStarts;
+
+    /** Stop of each run, by rank in scanning order. */
+    private int[] runStops;
+
+    /** Sequence index of each run, by rank in scanning order. */
+    private int[] runSeqs;
+
+    /** Rank of first run for each sequence, plus total run count as last cell. */
+    private int[] seqFirsts;
+
+    /** Union-find parent of each run. (numerical invariant: parent <= child) */
+    private int[] parents;
+
     /** Specific run table implementation, meant for marking runs. */
-    private final List<List<MarkedRun>> markedTable;
+    private List<List<MarkedRun>> markedTable;
 
     /** Merges (child => parent). (numerical invariant: child > parent) */
     private final Map<Integer, Integer> merges = new HashMap<>();
@@ -94,13 +127,6 @@ public class GlyphFactory
         this.runTable = runTable;
         this.offset = (offset != null) ? offset : new Point(0, 0);
         this.group = group;
-
-        // Allocate & initialize markedTable
-        markedTable = new ArrayList<>(runTable.getSize());
-
-        for (int iseq = 0, size = runTable.getSize(); iseq < size; iseq++) {
-            markedTable.add(new ArrayList<MarkedRun>());
-        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -195,6 +221,125 @@ public class GlyphFactory
         created.add(glyph);
     }
 
+    /**
+     * Build all glyphs, once runs have been labelled.
+     * <p>
+     * Glyphs are created in the order of their root run, which is the order of the former
+     * labeling.
+     */
+    private void buildLabeledGlyphs ()
+    {
+        final int total = parents.length;
+
+        // Assign a glyph number to each root, and propagate it to other runs
+        final int[] labels = new int[total];
+        int glyphCount = 0;
+
+        for (int r = 0; r < total; r++) {
+            final int root = find(r);
+            labels[r] = (root == r) ? glyphCount++ : labels[root];
+        }
+
+        logger.debug("glyphs: {}", glyphCount);
+
+        // Sort runs by glyph, keeping scanning order within each glyph
+        final int[] firsts = new int[glyphCount + 1];
+
+        for (int r = 0; r < total; r++) {
+            firsts[labels[r] + 1]++;
+        }
+
+        for (int g = 0; g < glyphCount; g++) {
+            firsts[g + 1] += firsts[g];
+        }
+
+        final int[] cursors = Arrays.copyOf(firsts, glyphCount);
+        final int[] sorted = new int[total];
+
+        for (int r = 0; r < total; r++) {
+            sorted[cursors[labels[r]]++] = r;
+        }
+
+        // Build each glyph in turn
+        int[] pairs = new int[0];
+
+        for (int g = 0; g < glyphCount; g++) {
+            final int from = firsts[g];
+            final int to = firsts[g + 1];
+            final int iSeqMin = runSeqs[sorted[from]];
+            final int iSeqMax = runSeqs[sorted[to - 1]];
+            int startMin = Integer.MAX_VALUE;
+            int stopMax = 0;
+
+            for (int i = from; i < to; i++) {
+                startMin = Math.min(startMin, runStarts[sorted[i]]);
+                stopMax = Math.max(stopMax, runStops[sorted[i]]);
+            }
+
+            final boolean vertical = runTable.getOrientation() == VERTICAL;
+            final int dx = vertical ? iSeqMin : startMin;
+            final int dy = vertical ? startMin : iSeqMin;
+            final int width = vertical ? (iSeqMax - iSeqMin + 1) : (stopMax - startMin + 1);
+            final int height = vertical ? (stopMax - startMin + 1) : (iSeqMax - iSeqMin + 1);
+            final RunTable table = new RunTable(runTable.getOrientation(), width, height);
+
+            if (pairs.length < (2 * (to - from))) {
+                pairs = new int[2 * (to - from)];
+            }
+
+            // Populate table, sequence by sequence
+            for (int i = from; i < to;) {
+                final int iSeq = runSeqs[sorted[i]];
+                int count = 0;
+
+                for (; (i < to) && (runSeqs[sorted[i]] == iSeq); i++) {
+                    final int r = sorted[i];
+                    pairs[2 * count] = runStarts[r] - startMin;
+                    pairs[(2 * count) + 1] = runStops[r] - runStarts[r] + 1;
+                    count++;
+                }
+
+                table.setSequence(iSeq - iSeqMin, pairs, count);
+            }
+
+            // Store created glyph
+            final Glyph glyph = new Glyph(offset.x + dx, offset.y + dy, table);
+            glyph.addGroup(group);
+            created.add(glyph);
+        }
+    }
+
+    /**
+     * Copy all runs of table into primitive arrays, and make each run its own root.
+     */
+    private void collectRuns ()
+    {
+        final int size = runTable.getSize();
+        final int total = runTable.getTotalRunCount();
+        runStarts = new int[total];
+        runStops = new int[total];
+        runSeqs = new int[total];
+        parents = new int[total];
+        seqFirsts = new int[size + 1];
+
+        int r = 0;
+
+        for (int iSeq = 0; iSeq < size; iSeq++) {
+            seqFirsts[iSeq] = r;
+
+            for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
+                final Run run = it.next();
+                runStarts[r] = run.getStart();
+                runStops[r] = run.getStop();
+                runSeqs[r] = iSeq;
+                parents[r] = r;
+                r++;
+            }
+        }
+
+        seqFirsts[size] = r;
+    }
+
     /**
      * Build a LUT to provide, for any run mark, the mark of its containing ancestor.
      */
@@ -221,6 +366,112 @@ public class GlyphFactory
         }
     }
 
+    /**
+     * Report the root of provided run, while halving the path to it.
+     *
+     * @param r rank of run
+     * @return rank of root run
+     */
+    private int find (int r)
+    {
+        while (parents[r] != r) {
+            parents[r] = parents[parents[r]];
+            r = parents[r];
+        }
+
+        return r;
+    }
+
+    /**
+     * Label the runs of a band of consecutive sequences.
+     * <p>
+     * Only runs of the band are modified, so that distinct bands can be processed concurrently.
+     *
+     * @param iSeqMin first sequence of band
+     * @param iSeqMax sequence past the last one of band
+     */
+    private void labelBand (int iSeqMin,
+                            int iSeqMax)
+    {
+        for (int iSeq = iSeqMin + 1; iSeq < iSeqMax; iSeq++) {
+            link(iSeq);
+        }
+    }
+
+    /**
+     * Label all runs, band by band, then stitch the bands together.
+     */
+    private void labelRuns ()
+    {
+        final int size = runTable.getSize();
+        final int band = Math.max(
+                constants.minBandSize.getValue(),
+                (size + OmrExecutors.getNumberOfCpus() - 1) / OmrExecutors.getNumberOfCpus());
+
+        if ((size <= band) || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            labelBand(0, size);
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+
+                for (int i = 0; i < size; i += band) {
+                    final int iSeqMin = i;
+                    final int iSeqMax = Math.min(size, i + band);
+                    tasks.add(() -> {
+                        labelBand(iSeqMin, iSeqMax);
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("GlyphFactory got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in GlyphFactory", ex);
+                throw new RuntimeException(ex);
+            }
+
+            // Stitch bands
+            for (int iSeq = band; iSeq < size; iSeq += band) {
+                link(iSeq);
+            }
+        }
+    }
+
+    /**
+     * Unite each run of provided sequence with the overlapping runs of previous sequence.
+     *
+     * @param iSeq index of provided sequence (iSeq > 0)
+     */
+    private void link (int iSeq)
+    {
+        final int pEnd = seqFirsts[iSeq];
+        int p = seqFirsts[iSeq - 1]; // Active run in previous sequence
+
+        for (int n = pEnd, nEnd = seqFirsts[iSeq + 1]; n < nEnd; n++) {
+            final int nextStart = runStarts[n];
+            final int nextStop = runStops[n];
+
+            // Skip previous runs located before current run (hence before the next ones as well)
+            while ((p < pEnd) && (runStops[p] < nextStart)) {
+                p++;
+            }
+
+            for (int q = p; (q < pEnd) && (runStarts[q] <= nextStop); q++) {
+                union(q, n);
+            }
+        }
+    }
+
     /**
      * Remember that runs marked with 'max' or 'min' values belong to the same glyph.
      * This equivalence is recorded only in the max => min direction.
@@ -250,23 +501,17 @@ public class GlyphFactory
      */
     private List<Glyph> process ()
     {
-        //        StopWatch watch = new StopWatch("GlyphFactory");
-        //
-        //        try {
-        //            watch.start("scan");
-        scanTable();
-        //
-        //            watch.start("lut");
-        createLut();
-        //
-        //            watch.start("glyphs");
-        buildAllGlyphs();
+        if (constants.useUnionFind.isSet()) {
+            collectRuns();
+            labelRuns();
+            buildLabeledGlyphs();
+        } else {
+            scanTable();
+            createLut();
+            buildAllGlyphs();
+        }
 
         return created;
-
-        //        } finally {
-        //            watch.print();
-        //        }
     }
 
     /**
@@ -278,6 +523,13 @@ public class GlyphFactory
      */
     private void scanTable ()
     {
+        // Allocate & initialize markedTable
+        markedTable = new ArrayList<>(runTable.getSize());
+
+        for (int iseq = 0, size = runTable.getSize(); iseq < size; iseq++) {
+            markedTable.add(new ArrayList<MarkedRun>());
+        }
+
         // Scan each pair of consecutive sequences
         for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
             final List<MarkedRun> prevSeq = (iSeq > 0) ? markedTable.get(iSeq - 1) : null;
@@ -328,6 +580,25 @@ public class GlyphFactory
         }
     }
 
+    /**
+     * Unite the glyphs of the two provided runs, the larger root being linked to the smaller.
+     *
+     * @param a rank of a run
+     * @param b rank of another run
+     */
+    private void union (int a,
+                        int b)
+    {
+        final int ra = find(a);
+        final int rb = find(b);
+
+        if (ra < rb) {
+            parents[rb] = ra;
+        } else if (rb < ra) {
+            parents[ra] = rb;
+        }
+    }
+
     //------------//
     // buildGlyph //
     //------------//
@@ -386,6 +657,32 @@ public class GlyphFactory
         return new GlyphFactory(runTable, offset, group).process();
     }
 
+    //-----------------//
+    // isUnionFindUsed //
+    //-----------------//
+    /**
+     * Report whether runs are labelled via union-find on primitive arrays.
+     *
+     * @return true if so, false if former labeling is used
+     */
+    public static boolean isUnionFindUsed ()
+    {
+        return constants.useUnionFind.isSet();
+    }
+
+    //-----------------//
+    // setUseUnionFind //
+    //-----------------//
+    /**
+     * Set whether runs should be labelled via union-find on primitive arrays.
+     *
+     * @param bool true for union-find, false for former labeling
+     */
+    public static void setUseUnionFind (boolean bool)
+    {
+        constants.useUnionFind.setValue(bool);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //----------//
     // Sequence //
@@ -406,6 +703,23 @@ public class GlyphFactory
             this.iSeq = iSeq;
         }
     }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useUnionFind = new Constant.Boolean(
+                true,
+                "Should we label runs via union-find on primitive arrays?");
+
+        private final Constant.Integer minBandSize = new Constant.Integer(
+                "Sequences",
+                64,
+                "Minimum number of sequences per band labelled in parallel");
+    }
 }
 //
 //        private void dumpTable (String title)
@@ -28,6 +28,7 @@ import org.audiveris.omr.util.BasicIndex;
 import org.audiveris.omr.util.ClassUtil;
 import org.audiveris.omr.util.Entities;
 import org.audiveris.omr.util.EntityIndex;
+import org.audiveris.omr.util.SpatialIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -96,6 +97,10 @@ public class GlyphIndex
     @Override
     public List<Glyph> getContainedEntities (Rectangle rectangle)
     {
+        if (weakIndex.getSpatialIndex() != null) {
+            return glyphsOf(weakIndex.getContainedEntities(rectangle));
+        }
+
         return Entities.containedEntities(iterator(), rectangle);
     }
 
@@ -105,6 +110,10 @@ public class GlyphIndex
     @Override
     public List<Glyph> getContainingEntities (Point point)
     {
+        if (weakIndex.getSpatialIndex() != null) {
+            return glyphsOf(weakIndex.getContainingEntities(point));
+        }
+
         return Entities.containingEntities(iterator(), point);
     }
 
@@ -182,6 +191,10 @@ public class GlyphIndex
     @Override
     public List<Glyph> getIntersectedEntities (Rectangle rectangle)
     {
+        if (weakIndex.getSpatialIndex() != null) {
+            return glyphsOf(weakIndex.getIntersectedEntities(rectangle));
+        }
+
         return Entities.intersectedEntities(iterator(), rectangle);
     }
 
@@ -209,6 +222,19 @@ public class GlyphIndex
         return "glyphIndex";
     }
 
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index on weak glyphs, if any, notably for its query statistics.
+     *
+     * @return the spatial index, or null
+     */
+    public SpatialIndex<WeakGlyph> getSpatialIndex ()
+    {
+        return weakIndex.getSpatialIndex();
+    }
+
     //------------------//
     // getSelectedGlyph //
     //------------------//
@@ -357,6 +383,30 @@ public class GlyphIndex
         return ClassUtil.nameOf(this);
     }
 
+    //----------//
+    // glyphsOf //
+    //----------//
+    /**
+     * Report the glyphs still referenced by the provided weak glyphs.
+     *
+     * @param weaks the provided weak glyphs
+     * @return the live glyphs, in the same order
+     */
+    private static List<Glyph> glyphsOf (List<WeakGlyph> weaks)
+    {
+        final List<Glyph> glyphs = new ArrayList<>(weaks.size());
+
+        for (WeakGlyph weak : weaks) {
+            final Glyph glyph = weak.get();
+
+            if (glyph != null) {
+                glyphs.add(glyph);
+            }
+        }
+
+        return glyphs;
+    }
+
     //-----------------//
     // privateRegister //
     //-----------------//
@@ -463,6 +513,12 @@ public class GlyphIndex
             extends BasicIndex<WeakGlyph>
     {
 
+        /** Glyph bounds never change, so they can be spatially indexed. */
+        WeakGlyphIndex ()
+        {
+            enableSpatialIndex();
+        }
+
         @Override
         public void insert (WeakGlyph weak)
         {
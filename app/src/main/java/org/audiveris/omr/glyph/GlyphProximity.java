@@ -0,0 +1,282 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  G l y p h P r o x i m i t y                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.image.ChamferDistance;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTables;
+
+import org.jgrapht.graph.SimpleGraph;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Class {@code GlyphProximity} builds the graph of glyphs located at acceptable distance
+ * from one another.
+ * <p>
+ * Candidate pairs are found by a sweep line on glyphs sorted by abscissa, the sweep for a glyph
+ * stopping at the first glyph located beyond its fat box.
+ * <p>
+ * The distance between two glyphs is the smallest chamfer distance between a pixel of one glyph
+ * and a pixel of the other, as measured by {@link GlyphDistances} on a 3x3 chamfer mask.
+ * With this mask, the distance between two pixels has the closed form
+ * {@code (3 * max(|dx|, |dy|) + min(|dx|, |dy|)) / 3}, so the distance between two glyphs is
+ * computed directly on their runs, column against column, with no distance table.
+ * <p>
+ * The resulting graph is identical to the graph built on per-glyph distance tables, with
+ * vertices and edges inserted in the same order.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class GlyphProximity
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Chamfer cost of a horizontal or vertical step. */
+    private static final int STRAIGHT = ChamferDistance.chamfer3[0][2];
+
+    /** Chamfer cost of a diagonal step. */
+    private static final int DIAGONAL = ChamferDistance.chamfer3[1][2];
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /** Not meant to be instantiated. */
+    private GlyphProximity ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // buildLinks //
+    //------------//
+    /**
+     * Build the graph of acceptable links within the provided collection of glyphs.
+     *
+     * @param glyphs the provided glyphs
+     * @param maxGap maximum acceptable gap between glyphs
+     * @return the populated graph
+     */
+    public static SimpleGraph<Glyph, GlyphLink> buildLinks (Collection<Glyph> glyphs,
+                                                            double maxGap)
+    {
+        final int gapInt = (int) Math.ceil(maxGap);
+        final List<Glyph> sortedGlyphs = new ArrayList<>(glyphs);
+        Collections.sort(sortedGlyphs, Glyphs.byAbscissa);
+
+        final List<Item> items = new ArrayList<>(sortedGlyphs.size());
+        final SimpleGraph<Glyph, GlyphLink> graph = new SimpleGraph<>(GlyphLink.class);
+
+        // Populate graph with all glyphs as vertices
+        for (Glyph glyph : sortedGlyphs) {
+            graph.addVertex(glyph);
+            items.add(new Item(glyph));
+        }
+
+        // Populate edges (glyph to glyph distances) when applicable
+        for (int i = 0; i < items.size(); i++) {
+            final Item item = items.get(i);
+            final Rectangle fatBox = item.glyph.getBounds();
+            fatBox.grow(gapInt, gapInt);
+
+            final int xBreak = fatBox.x + fatBox.width; // Glyphs are sorted by abscissa
+
+            for (int j = i + 1; j < items.size(); j++) {
+                final Item other = items.get(j);
+
+                if (other.box.x >= xBreak) {
+                    break; // Since all following glyphs are located even further
+                }
+
+                // Rough filtering, using fat box intersection
+                if (!fatBox.intersects(other.box)) {
+                    continue;
+                }
+
+                // Precise distance from glyph to other
+                final double dist = (double) item.distanceTo(other, gapInt) / STRAIGHT;
+
+                if ((dist <= maxGap) && !item.glyph.equals(other.glyph)) {
+                    graph.addEdge(item.glyph, other.glyph, new GlyphLink.Nearby(dist));
+                }
+            }
+        }
+
+        return graph;
+    }
+
+    //-----------//
+    // gapOfRuns //
+    //-----------//
+    /**
+     * Report the smallest gap between a run of one column and a run of another column.
+     *
+     * @param one   runs of one column, as (start, stop) pairs of absolute ordinates
+     * @param two   runs of another column, as (start, stop) pairs of absolute ordinates
+     * @param limit gap value beyond which the precise gap is not needed
+     * @return the smallest gap in pixels (0 for overlapping runs), or a value larger than limit
+     */
+    private static int gapOfRuns (int[] one,
+                                  int[] two,
+                                  int limit)
+    {
+        int best = limit + 1;
+        int i = 0;
+        int j = 0;
+
+        // Runs being sorted, only runs consecutive in ordinate order need to be compared
+        while ((i < one.length) && (j < two.length)) {
+            final int gap = Math.max(one[i], two[j]) - Math.min(one[i + 1], two[j + 1]);
+
+            if (gap <= 0) {
+                return 0;
+            }
+
+            best = Math.min(best, gap);
+
+            if (one[i + 1] < two[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+
+        return best;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------//
+    // Item //
+    //------//
+    /**
+     * A glyph, together with its bounds and its runs organized by column.
+     */
+    private static class Item
+    {
+
+        final Glyph glyph;
+
+        final Rectangle box;
+
+        /** Runs per column, as (start, stop) pairs of absolute ordinates. Lazily computed. */
+        int[][] columns;
+
+        Item (Glyph glyph)
+        {
+            this.glyph = glyph;
+            box = glyph.getBounds();
+        }
+
+        /**
+         * Report the chamfer distance from this glyph to the other glyph.
+         *
+         * @param that   the other glyph
+         * @param gapInt maximum gap of interest, in pixels
+         * @return the distance, in chamfer units, precise only up to STRAIGHT * gapInt
+         */
+        int distanceTo (Item that,
+                        int gapInt)
+        {
+            final int[][] cols = getColumns();
+            final int[][] thatCols = that.getColumns();
+            final int limit = STRAIGHT * gapInt;
+            int best = Integer.MAX_VALUE;
+
+            for (int ix = 0; ix < cols.length; ix++) {
+                if (cols[ix].length == 0) {
+                    continue;
+                }
+
+                final int x = box.x + ix;
+                final int xbMin = Math.max(that.box.x, x - gapInt);
+                final int xbMax = Math.min((that.box.x + that.box.width) - 1, x + gapInt);
+
+                for (int xb = xbMin; xb <= xbMax; xb++) {
+                    final int dx = Math.abs(x - xb);
+
+                    if ((STRAIGHT * dx) >= best) {
+                        continue; // Cannot improve
+                    }
+
+                    final int dy = gapOfRuns(cols[ix], thatCols[xb - that.box.x], gapInt);
+
+                    if (dy > gapInt) {
+                        continue;
+                    }
+
+                    // Path made of min(dx, dy) diagonal steps and of straight steps
+                    final int dist = (STRAIGHT * Math.max(dx, dy))
+                                             + ((DIAGONAL - STRAIGHT) * Math.min(dx, dy));
+                    best = Math.min(best, dist);
+
+                    if (best == 0) {
+                        return 0;
+                    }
+                }
+            }
+
+            return (best <= limit) ? best : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Report the runs of the glyph, per column.
+         *
+         * @return for each column, the (start, stop) pairs of absolute ordinates
+         */
+        int[][] getColumns ()
+        {
+            if (columns == null) {
+                RunTable table = glyph.getRunTable();
+
+                if (!table.getOrientation().isVertical()) {
+                    table = RunTables.transposed(table);
+                }
+
+                columns = new int[table.getSize()][];
+
+                for (int iSeq = 0; iSeq < columns.length; iSeq++) {
+                    final List<Run> runs = new ArrayList<>();
+
+                    for (Iterator<Run> it = table.iterator(iSeq); it.hasNext();) {
+                        runs.add(it.next());
+                    }
+
+                    final int[] col = new int[2 * runs.size()];
+
+                    for (int k = 0; k < runs.size(); k++) {
+                        final Run run = runs.get(k);
+                        col[2 * k] = box.y + run.getStart();
+                        col[(2 * k) + 1] = box.y + run.getStop();
+                    }
+
+                    columns[iSeq] = col;
+                }
+            }
+
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  G l y p h S i g n a t u r e                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.run.RunTable;
+
+/**
+ * Class {@code GlyphSignature} is a cache key built on the pixels of a glyph.
+ * <p>
+ * Two glyphs share the same signature if they have identical run tables, located at the same
+ * origin, and considered with the same interline.
+ * <p>
+ * The origin is part of the signature because geometric moments are computed on absolute point
+ * coordinates, so identical pixels located elsewhere may lead to slightly different values.
+ * A zero interline can be used for data independent of interline.
+ * <p>
+ * Hash code is based on {@link RunTable#persistentHashCode()}, which is cheap but weak, the
+ * run tables being fully compared only when hash codes are equal.
+ *
+ * @author Hervé Bitteur
+ */
+public class GlyphSignature
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Glyph run table. */
+    private final RunTable table;
+
+    /** Abscissa of table origin. */
+    private final int left;
+
+    /** Ordinate of table origin. */
+    private final int top;
+
+    /** Relevant interline, or zero. */
+    private final int interline;
+
+    /** Pre-computed hash code. */
+    private final int hash;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code GlyphSignature} object.
+     *
+     * @param glyph     the glyph at hand
+     * @param interline the relevant interline, or zero
+     */
+    public GlyphSignature (Glyph glyph,
+                           int interline)
+    {
+        this.table = glyph.getRunTable();
+        this.left = glyph.getLeft();
+        this.top = glyph.getTop();
+        this.interline = interline;
+
+        int h = table.persistentHashCode();
+        h = (71 * h) + left;
+        h = (71 * h) + top;
+        h = (71 * h) + interline;
+        hash = h;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // equals //
+    //--------//
+    @Override
+    public boolean equals (Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof GlyphSignature)) {
+            return false;
+        }
+
+        final GlyphSignature that = (GlyphSignature) obj;
+
+        return (hash == that.hash) && (left == that.left) && (top == that.top)
+                       && (interline == that.interline) && table.equals(that.table);
+    }
+
+    //--------------//
+    // getFootprint //
+    //--------------//
+    /**
+     * Report the approximate number of bytes retained by this signature, mainly its run
+     * table.
+     *
+     * @return the approximate footprint in bytes
+     */
+    public long getFootprint ()
+    {
+        // Signature and table objects, a run sequence object and array per table sequence,
+        // two ints per run in sequence arrays and one int per run in sequence indices
+        return 96L + (40L * table.getSize()) + (12L * table.getTotalRunCount());
+    }
+
+    //----------//
+    // hashCode //
+    //----------//
+    @Override
+    public int hashCode ()
+    {
+        return hash;
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return new StringBuilder(getClass().getSimpleName())
+                .append('{')
+                .append(left).append(',').append(top)
+                .append(' ').append(table.getWidth()).append('x').append(table.getHeight())
+                .append(" w:").append(table.getWeight())
+                .append(" il:").append(interline)
+                .append('}')
+                .toString();
+    }
+}
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.glyph;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.util.Entities;
 import org.audiveris.omr.util.Table;
 
@@ -51,6 +53,8 @@ public abstract class Glyphs
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(Glyphs.class);
 
     /**
@@ -152,6 +156,9 @@ public abstract class Glyphs
     //------------//
     /**
      * Build the graph of acceptable links within the provided collection of glyphs.
+     * <p>
+     * Unless disabled (see {@link #setUseProximity(boolean)}), the graph is built by
+     * {@link GlyphProximity}, with no distance table.
      *
      * @param glyphs the provided glyphs
      * @param maxGap maximum acceptable gap between glyphs
@@ -160,6 +167,10 @@ public abstract class Glyphs
     public static SimpleGraph<Glyph, GlyphLink> buildLinks (Collection<Glyph> glyphs,
                                                             double maxGap)
     {
+        if (constants.useProximity.isSet()) {
+            return GlyphProximity.buildLinks(glyphs, maxGap);
+        }
+
         final int gapInt = (int) Math.ceil(maxGap);
         final List<Glyph> sortedGlyphs = new ArrayList<>(glyphs);
         Collections.sort(sortedGlyphs, byAbscissa);
@@ -184,11 +195,13 @@ public abstract class Glyphs
             for (Glyph other : sortedGlyphs.subList(i + 1, sortedGlyphs.size())) {
                 Rectangle otherBox = other.getBounds();
 
+                if (otherBox.x >= xBreak) {
+                    break;
+                }
+
                 // Rough filtering, using fat box intersection
                 if (!fatBox.intersects(otherBox)) {
                     continue;
-                } else if (otherBox.x > xBreak) {
-                    break;
                 }
 
                 // We now need the glyph distance table, if not yet computed
@@ -571,6 +584,19 @@ public abstract class Glyphs
         return set;
     }
 
+    //-----------------//
+    // isProximityUsed //
+    //-----------------//
+    /**
+     * Report whether glyph links are built by {@link GlyphProximity}.
+     *
+     * @return true if so, false if per-glyph distance tables are used
+     */
+    public static boolean isProximityUsed ()
+    {
+        return constants.useProximity.isSet();
+    }
+
     //-------//
     // purge //
     //-------//
@@ -596,6 +622,19 @@ public abstract class Glyphs
         }
     }
 
+    //-----------------//
+    // setUseProximity //
+    //-----------------//
+    /**
+     * Set whether glyph links should be built by {@link GlyphProximity}.
+     *
+     * @param bool true for proximity builder, false for per-glyph distance tables
+     */
+    public static void setUseProximity (boolean bool)
+    {
+        constants.useProximity.setValue(bool);
+    }
+
     //----------//
     // weightOf //
     //----------//
@@ -617,6 +656,19 @@ public abstract class Glyphs
 
         return total;
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useProximity = new Constant.Boolean(
+                true,
+                "Should glyph links be built without per-glyph distance tables?");
+    }
 }
 //    //-------------//
 //    // LinkAdapter //
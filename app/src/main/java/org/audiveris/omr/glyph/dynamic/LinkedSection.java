@@ -363,6 +363,24 @@ public class LinkedSection
         return section.getRunCount();
     }
 
+    @Override
+    public int getRunLength (int index)
+    {
+        return section.getRunLength(index);
+    }
+
+    @Override
+    public int getRunStart (int index)
+    {
+        return section.getRunStart(index);
+    }
+
+    @Override
+    public int getRunStop (int index)
+    {
+        return section.getRunStop(index);
+    }
+
     @Override
     public List<Run> getRuns ()
     {
@@ -87,6 +87,10 @@ public class AdaptiveDescriptor
     @Override
     public PixelFilter getFilter (ByteProcessor source)
     {
+        if (constants.useParallelFilter.isSet()) {
+            return new ParallelFilter(source, meanCoeff, stdDevCoeff);
+        }
+
         return new VerticalFilter(source, meanCoeff, stdDevCoeff);
     }
 
@@ -227,5 +231,9 @@ public class AdaptiveDescriptor
         private final Constant.Ratio stdDevCoeff = new Constant.Ratio(
                 0.9,
                 "Threshold formula coefficient for pixel standard deviation");
+
+        private final Constant.Boolean useParallelFilter = new Constant.Boolean(
+                true,
+                "Should we binarize by parallel horizontal bands rather than by vertical tile?");
     }
 }
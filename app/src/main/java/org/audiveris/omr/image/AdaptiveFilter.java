@@ -190,15 +190,35 @@ public abstract class AdaptiveFilter
     {
         double mean = tile.getMean(x, y);
         double sqrMean = sqrTile.getMean(x, y);
+
+        return isFore(source.get(x, y), mean, sqrMean);
+    }
+
+    // -------//
+    // isFore //
+    // -------//
+    /**
+     * Apply the Sauvola formula on a pixel value, knowing mean and mean of squares in
+     * pixel neighborhood.
+     * <p>
+     * This is the single decision point shared by all adaptive engines, so that they all provide
+     * the very same output.
+     *
+     * @param pixValue the pixel value
+     * @param mean     mean of pixel values in neighborhood
+     * @param sqrMean  mean of squared pixel values in neighborhood
+     * @return true for a foreground pixel
+     */
+    protected final boolean isFore (int pixValue,
+                                    double mean,
+                                    double sqrMean)
+    {
         double var = Math.abs(sqrMean - (mean * mean));
         double stdDev = Math.sqrt(var);
 
         double threshold = getThreshold(mean, stdDev);
 
-        int pixValue = source.get(x, y);
-        boolean isFore = pixValue <= threshold;
-
-        return isFore;
+        return pixValue <= threshold;
     }
 
     //--------------//
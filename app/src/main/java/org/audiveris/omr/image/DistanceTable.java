@@ -87,6 +87,17 @@ public interface DistanceTable
             return new DistanceTable.Integer(table.getView(roi), normalizer);
         }
 
+        /**
+         * Report the underlying array of raw values, row by row.
+         *
+         * @return the raw values
+         * @throws UnsupportedOperationException if this table is a view
+         */
+        public int[] getValues ()
+        {
+            return table.getValues();
+        }
+
         @Override
         public void dump (String title)
         {
@@ -136,6 +147,17 @@ public interface DistanceTable
             return new DistanceTable.Short(table.getView(roi), normalizer);
         }
 
+        /**
+         * Report the underlying array of raw values, row by row.
+         *
+         * @return the raw values
+         * @throws UnsupportedOperationException if this table is a view
+         */
+        public short[] getValues ()
+        {
+            return table.getValues();
+        }
+
         @Override
         public void dump (String title)
         {
@@ -0,0 +1,565 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               E u c l i d e a n D i s t a n c e                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import static org.audiveris.omr.image.ChamferDistance.VALUE_TARGET;
+import static org.audiveris.omr.image.ChamferDistance.VALUE_UNKNOWN;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code EuclideanDistance} computes the exact Euclidean distance transform of an
+ * image, in linear time, as an alternative to {@link ChamferDistance}.
+ * <p>
+ * The transform is separable (Meijster et al.):
+ * <ol>
+ * <li>A column pass computes, for each pixel, the vertical distance to the nearest reference pixel
+ * in the same column.</li>
+ * <li>A row pass computes, for each pixel, the lower envelope of the parabolas defined by the
+ * column distances of the same row, which gives the squared Euclidean distance.</li>
+ * </ol>
+ * Both passes process lines independently, hence lines are dispatched to parallel tasks.
+ * Column distances are kept in the output array itself, so no intermediate table is allocated.
+ * <p>
+ * Output values are scaled by the normalizer, so that they can be used in place of the values of a
+ * chamfer distance using the same normalizer:
+ * {@link ChamferDistance#VALUE_TARGET} for a reference pixel, and the rounded value of
+ * (distance * normalizer) otherwise.
+ * <p>
+ * Computation can be restricted to a list of regions of interest, each region being processed on
+ * its own: a distance is thus computed with respect to the reference pixels of the same region,
+ * and {@link ChamferDistance#VALUE_UNKNOWN} is assigned to any location outside all regions.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class EuclideanDistance
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(EuclideanDistance.class);
+
+    /** Infinite distance, in working lines. */
+    private static final int INFINITE = java.lang.Integer.MAX_VALUE;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Scaling of output distances. */
+    private final int normalizer;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code EuclideanDistance} object, with the normalizer of chamfer3 mask.
+     */
+    public EuclideanDistance ()
+    {
+        this(ChamferDistance.chamfer3[0][2]);
+    }
+
+    /**
+     * Creates a new {@code EuclideanDistance} object, with the provided normalizer.
+     *
+     * @param normalizer the scaling of output distances
+     */
+    public EuclideanDistance (int normalizer)
+    {
+        this.normalizer = normalizer;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // computeToFore //
+    //---------------//
+    /**
+     * Compute the distance transform to foreground pixels, on the whole image.
+     *
+     * @param input the input image, where foreground pixels are taken as reference pixels
+     * @return the distance transform image
+     */
+    public DistanceTable computeToFore (ByteProcessor input)
+    {
+        return computeToFore(input, null);
+    }
+
+    //---------------//
+    // computeToFore //
+    //---------------//
+    /**
+     * Compute the distance transform to foreground pixels, within the provided regions.
+     *
+     * @param input the input image, where foreground pixels are taken as reference pixels
+     * @param rois  the regions of interest, assumed not to overlap, or null for the whole image
+     * @return the distance transform image, with VALUE_UNKNOWN outside regions
+     */
+    public DistanceTable computeToFore (ByteProcessor input,
+                                        List<Rectangle> rois)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final byte[] pixels = (byte[]) input.getPixels();
+        final DistanceTable output = allocateOutput(width, height, normalizer);
+        final Rectangle full = new Rectangle(0, 0, width, height);
+
+        if (rois == null) {
+            rois = Collections.singletonList(full);
+        } else {
+            output.fill(VALUE_UNKNOWN);
+        }
+
+        for (Rectangle r : rois) {
+            final Rectangle roi = r.intersection(full);
+
+            if (!roi.isEmpty()) {
+                // Column pass, then row pass
+                runPass(output, pixels, roi, true);
+                runPass(output, pixels, roi, false);
+            }
+        }
+
+        return output;
+    }
+
+    //----------------//
+    // allocateOutput //
+    //----------------//
+    /**
+     * Get Table instance of the proper type and size.
+     *
+     * @param width      desired width
+     * @param height     desired height
+     * @param normalizer the normalizing value
+     * @return the table of proper type and dimension
+     */
+    protected abstract DistanceTable allocateOutput (int width,
+                                                     int height,
+                                                     int normalizer);
+
+    //-------------//
+    // getMaxValue //
+    //-------------//
+    /**
+     * Report the maximum value the output table can hold.
+     *
+     * @return maximum value
+     */
+    protected abstract int getMaxValue ();
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Read a line of values from output table.
+     *
+     * @param output the output table
+     * @param line   (output) the values read
+     * @param start  index in table of first value
+     * @param step   index increment in table from one value to the next
+     * @param count  number of values
+     */
+    protected abstract void load (DistanceTable output,
+                                  int[] line,
+                                  int start,
+                                  int step,
+                                  int count);
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Write a line of values into output table.
+     *
+     * @param output the output table
+     * @param line   the values to write
+     * @param start  index in table of first value
+     * @param step   index increment in table from one value to the next
+     * @param count  number of values
+     */
+    protected abstract void store (DistanceTable output,
+                                   int[] line,
+                                   int start,
+                                   int step,
+                                   int count);
+
+    //----------------//
+    // processColumns //
+    //----------------//
+    /**
+     * Compute the vertical distances of a range of columns within roi.
+     *
+     * @param output the output table, where column distances are stored
+     * @param pixels the input pixels
+     * @param roi    the region of interest
+     * @param iMin   index of first column in roi
+     * @param iMax   index past last column in roi
+     */
+    private void processColumns (DistanceTable output,
+                                 byte[] pixels,
+                                 Rectangle roi,
+                                 int iMin,
+                                 int iMax)
+    {
+        final int width = output.getWidth();
+        final int n = roi.height;
+        final int[] g = new int[n];
+
+        for (int i = iMin; i < iMax; i++) {
+            final int start = (roi.y * width) + roi.x + i;
+
+            // Downwards
+            int prev = INFINITE;
+
+            for (int y = 0, p = start; y < n; y++, p += width) {
+                if (pixels[p] == 0) {
+                    prev = 0;
+                } else if (prev != INFINITE) {
+                    prev++;
+                }
+
+                g[y] = prev;
+            }
+
+            // Upwards
+            for (int y = n - 2; y >= 0; y--) {
+                final int below = g[y + 1];
+
+                if ((below != INFINITE) && ((below + 1) < g[y])) {
+                    g[y] = below + 1;
+                }
+            }
+
+            store(output, g, start, width, n);
+        }
+    }
+
+    //-------------//
+    // processRows //
+    //-------------//
+    /**
+     * Compute the distances of a range of rows within roi, from the column distances.
+     *
+     * @param output the output table, where column distances are replaced by final distances
+     * @param roi    the region of interest
+     * @param iMin   index of first row in roi
+     * @param iMax   index past last row in roi
+     */
+    private void processRows (DistanceTable output,
+                              Rectangle roi,
+                              int iMin,
+                              int iMax)
+    {
+        final int width = output.getWidth();
+        final int n = roi.width;
+        final int maxValue = getMaxValue();
+        final int[] g = new int[n]; // Column distances
+        final int[] d = new int[n]; // Final distances
+        final int[] s = new int[n]; // Envelope sites
+        final int[] t = new int[n]; // Envelope segment starts
+
+        for (int i = iMin; i < iMax; i++) {
+            final int start = ((roi.y + i) * width) + roi.x;
+            load(output, g, start, 1, n);
+
+            // Lower envelope of parabolas, built on finite sites only
+            int q = -1;
+
+            for (int u = 0; u < n; u++) {
+                if (g[u] == INFINITE) {
+                    continue;
+                }
+
+                while ((q >= 0) && (f(t[q], s[q], g) > f(t[q], u, g))) {
+                    q--;
+                }
+
+                if (q < 0) {
+                    q = 0;
+                    s[0] = u;
+                    t[0] = 0;
+                } else {
+                    final long w = 1 + sep(s[q], u, g);
+
+                    if (w < n) {
+                        q++;
+                        s[q] = u;
+                        t[q] = (int) w;
+                    }
+                }
+            }
+
+            if (q < 0) {
+                // No reference pixel at all in roi
+                for (int u = 0; u < n; u++) {
+                    d[u] = maxValue;
+                }
+            } else {
+                for (int u = n - 1; u >= 0; u--) {
+                    final long d2 = f(u, s[q], g);
+                    d[u] = (d2 == 0) ? VALUE_TARGET
+                            : (int) Math.min(maxValue, Math.rint(Math.sqrt(d2) * normalizer));
+
+                    if (u == t[q]) {
+                        q--;
+                    }
+                }
+            }
+
+            store(output, d, start, 1, n);
+        }
+    }
+
+    //---------//
+    // runPass //
+    //---------//
+    /**
+     * Run the column pass or the row pass on the provided roi, using parallel tasks if
+     * worthwhile.
+     *
+     * @param output  the output table
+     * @param pixels  the input pixels
+     * @param roi     the region of interest
+     * @param columns true for column pass, false for row pass
+     */
+    private void runPass (final DistanceTable output,
+                          final byte[] pixels,
+                          final Rectangle roi,
+                          final boolean columns)
+    {
+        final int lineCount = columns ? roi.width : roi.height;
+        final int band = Math.max(
+                constants.minLinesPerTask.getValue(),
+                (lineCount + OmrExecutors.getNumberOfCpus() - 1) / OmrExecutors.getNumberOfCpus());
+
+        if ((lineCount <= band) || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            if (columns) {
+                processColumns(output, pixels, roi, 0, lineCount);
+            } else {
+                processRows(output, roi, 0, lineCount);
+            }
+        } else {
+            // Parallel
+            try {
+                final List<Callable<Void>> tasks = new ArrayList<>();
+
+                for (int i = 0; i < lineCount; i += band) {
+                    final int iMin = i;
+                    final int iMax = Math.min(lineCount, i + band);
+                    tasks.add(() -> {
+                        if (columns) {
+                            processColumns(output, pixels, roi, iMin, iMax);
+                        } else {
+                            processRows(output, roi, iMin, iMax);
+                        }
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.invokeShared(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("EuclideanDistance got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+
+                throw (cause instanceof RuntimeException) ? (RuntimeException) cause
+                        : new RuntimeException(cause);
+            }
+        }
+    }
+
+    //---//
+    // f //
+    //---//
+    /**
+     * Report the squared distance from location x to the reference pixel of site i.
+     */
+    private static long f (int x,
+                           int i,
+                           int[] g)
+    {
+        final long dx = x - i;
+        final long gi = g[i];
+
+        return (dx * dx) + (gi * gi);
+    }
+
+    //-----//
+    // sep //
+    //-----//
+    /**
+     * Report the last location where site i is not farther than site u (i &lt; u).
+     */
+    private static long sep (int i,
+                             int u,
+                             int[] g)
+    {
+        final long gi = g[i];
+        final long gu = g[u];
+        final long num = (((long) u * u) - ((long) i * i)) + (gu * gu) - (gi * gi);
+
+        return Math.floorDiv(num, 2L * (u - i));
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer minLinesPerTask = new Constant.Integer(
+                "Lines",
+                128,
+                "Minimum number of lines processed by a parallel task");
+    }
+
+    //---------//
+    // Integer //
+    //---------//
+    /**
+     * Integer-based Euclidean distance.
+     */
+    public static class Integer
+            extends EuclideanDistance
+    {
+
+        @Override
+        protected DistanceTable allocateOutput (int width,
+                                                int height,
+                                                int normalizer)
+        {
+            return new DistanceTable.Integer(width, height, normalizer);
+        }
+
+        @Override
+        protected int getMaxValue ()
+        {
+            return java.lang.Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected void load (DistanceTable output,
+                             int[] line,
+                             int start,
+                             int step,
+                             int count)
+        {
+            final int[] values = ((DistanceTable.Integer) output).getValues();
+
+            for (int i = 0, p = start; i < count; i++, p += step) {
+                line[i] = values[p];
+            }
+        }
+
+        @Override
+        protected void store (DistanceTable output,
+                              int[] line,
+                              int start,
+                              int step,
+                              int count)
+        {
+            final int[] values = ((DistanceTable.Integer) output).getValues();
+
+            for (int i = 0, p = start; i < count; i++, p += step) {
+                values[p] = line[i];
+            }
+        }
+    }
+
+    //-------//
+    // Short //
+    //-------//
+    /**
+     * Short-based Euclidean distance.
+     * <p>
+     * Column distances are stored as short values, hence a roi height is assumed to be less
+     * than Short.MAX_VALUE.
+     */
+    public static class Short
+            extends EuclideanDistance
+    {
+
+        @Override
+        protected DistanceTable allocateOutput (int width,
+                                                int height,
+                                                int normalizer)
+        {
+            return new DistanceTable.Short(width, height, normalizer);
+        }
+
+        @Override
+        protected int getMaxValue ()
+        {
+            return java.lang.Short.MAX_VALUE;
+        }
+
+        @Override
+        protected void load (DistanceTable output,
+                             int[] line,
+                             int start,
+                             int step,
+                             int count)
+        {
+            final short[] values = ((DistanceTable.Short) output).getValues();
+
+            for (int i = 0, p = start; i < count; i++, p += step) {
+                final int v = values[p];
+                line[i] = (v == java.lang.Short.MAX_VALUE) ? INFINITE : v;
+            }
+        }
+
+        @Override
+        protected void store (DistanceTable output,
+                              int[] line,
+                              int start,
+                              int step,
+                              int count)
+        {
+            final short[] values = ((DistanceTable.Short) output).getValues();
+
+            for (int i = 0, p = start; i < count; i++, p += step) {
+                values[p] = (short) Math.min(line[i], java.lang.Short.MAX_VALUE);
+            }
+        }
+    }
+}
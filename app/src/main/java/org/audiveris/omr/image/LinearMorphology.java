@@ -0,0 +1,685 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                L i n e a r M o r p h o l o g y                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code LinearMorphology} performs gray-level morphology with flat structuring
+ * elements decomposed into line segments, each line pass costing O(1) per pixel whatever the
+ * segment length, thanks to van Herk / Gil-Werman running min/max.
+ * <p>
+ * A structuring element is handled as a union of components, each component being the Minkowski
+ * sum of line segments (horizontal, vertical or diagonal).
+ * Dilation by the union is the maximum of dilations by each component, and dilation by a
+ * component is the sequence of dilations by its segments (similarly for erosion with minimum).
+ * <p>
+ * When built upon a {@link StructureElement}, the element mask is decomposed exactly into a
+ * union of rectangles, each rectangle being a vertical segment followed by a horizontal one.
+ * Conventions of {@link MorphoProcessor} are kept: same offsets for dilation and erosion,
+ * pixels outside image being 0 for dilation and 255 for erosion.
+ * Results are thus pixel-for-pixel identical.
+ * <p>
+ * The {@link #polygonalDisk(double)} approximation is a single component, an octagon made of
+ * 4 segments, whose cost does not depend on radius.
+ * <p>
+ * Within a pass, lines are independent and thus processed in parallel on the high OMR executor
+ * if parallelism is allowed.
+ *
+ * @author Hervé Bitteur
+ */
+public class LinearMorphology
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(LinearMorphology.class);
+
+    //~ Enumerations -------------------------------------------------------------------------------
+    /**
+     * Direction of a line segment.
+     */
+    private static enum Direction
+    {
+        HORIZONTAL(1, 0),
+        VERTICAL(0, 1),
+        DIAGONAL(1, 1),
+        ANTI_DIAGONAL(1, -1);
+
+        /** Abscissa step. */
+        final int dx;
+
+        /** Ordinate step. */
+        final int dy;
+
+        Direction (int dx,
+                   int dy)
+        {
+            this.dx = dx;
+            this.dy = dy;
+        }
+    }
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Components of structuring element, each as a sequence of segments. */
+    private final List<Segment[]> components;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code LinearMorphology} object, as an exact equivalent of the
+     * provided structuring element.
+     *
+     * @param se the structuring element to decompose
+     */
+    public LinearMorphology (StructureElement se)
+    {
+        this(decompose(se.getVect()));
+    }
+
+    private LinearMorphology (List<Segment[]> components)
+    {
+        if (components.isEmpty()) {
+            throw new IllegalArgumentException("Empty structuring element");
+        }
+
+        this.components = components;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Performs gray level dilation followed by gray level erosion.
+     *
+     * @param ip the image to process in place
+     */
+    public void close (ByteProcessor ip)
+    {
+        dilate(ip);
+        erode(ip);
+    }
+
+    //--------//
+    // dilate //
+    //--------//
+    /**
+     * Performs gray level dilation.
+     *
+     * @param ip the image to process in place
+     */
+    public void dilate (ByteProcessor ip)
+    {
+        apply(ip, true);
+    }
+
+    //-------//
+    // erode //
+    //-------//
+    /**
+     * Performs gray level erosion.
+     *
+     * @param ip the image to process in place
+     */
+    public void erode (ByteProcessor ip)
+    {
+        apply(ip, false);
+    }
+
+    //--------------//
+    // getPassCount //
+    //--------------//
+    /**
+     * Report the number of line passes needed by a dilation or an erosion.
+     *
+     * @return number of line passes
+     */
+    public int getPassCount ()
+    {
+        int count = 0;
+
+        for (Segment[] component : components) {
+            count += component.length;
+        }
+
+        return count;
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Performs gray level erosion followed by gray level dilation.
+     *
+     * @param ip the image to process in place
+     */
+    public void open (ByteProcessor ip)
+    {
+        erode(ip);
+        dilate(ip);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        final StringBuilder sb = new StringBuilder(getClass().getSimpleName()).append('{');
+
+        for (Segment[] component : components) {
+            sb.append(Arrays.toString(component));
+        }
+
+        return sb.append('}').toString();
+    }
+
+    //--------//
+    // isUsed //
+    //--------//
+    /**
+     * Report whether closing of spots uses linear morphology rather than
+     * {@link MorphoProcessor}.
+     *
+     * @return true if linear morphology is used
+     */
+    public static boolean isUsed ()
+    {
+        return constants.useLinearMorphology.isSet();
+    }
+
+    //---------------//
+    // polygonalDisk //
+    //---------------//
+    /**
+     * Build an octagonal approximation of a disk, as the sum of horizontal, vertical and
+     * diagonal segments.
+     *
+     * @param radius disk radius
+     * @return the morphology for the octagon
+     */
+    public static LinearMorphology polygonalDisk (double radius)
+    {
+        // Regular octagon: axis half side = diagonal half side * sqrt(2)
+        final int d = (int) Math.rint(radius / (2 + Math.sqrt(2)));
+        final int a = (int) Math.rint(radius - (2 * d));
+        final List<Segment> segments = new ArrayList<>();
+
+        if (a > 0) {
+            segments.add(new Segment(Direction.HORIZONTAL, -a, a));
+            segments.add(new Segment(Direction.VERTICAL, -a, a));
+        }
+
+        if (d > 0) {
+            segments.add(new Segment(Direction.DIAGONAL, -d, d));
+            segments.add(new Segment(Direction.ANTI_DIAGONAL, -d, d));
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(new Segment(Direction.HORIZONTAL, 0, 0));
+        }
+
+        final List<Segment[]> components = new ArrayList<>();
+        components.add(segments.toArray(new Segment[segments.size()]));
+
+        return new LinearMorphology(components);
+    }
+
+    //-----------//
+    // rectangle //
+    //-----------//
+    /**
+     * Build a rectangular structuring element, centered as {@link StructureElement} would do.
+     *
+     * @param width  rectangle width
+     * @param height rectangle height
+     * @return the morphology for the rectangle
+     */
+    public static LinearMorphology rectangle (int width,
+                                              int height)
+    {
+        final int a = -(width / 2);
+        final int c = -(height / 2);
+        final List<Segment[]> components = new ArrayList<>();
+        components.add(new Segment[]{
+            new Segment(Direction.VERTICAL, c, (c + height) - 1),
+            new Segment(Direction.HORIZONTAL, a, (a + width) - 1)});
+
+        return new LinearMorphology(components);
+    }
+
+    //--------//
+    // setUse //
+    //--------//
+    /**
+     * Set whether closing of spots uses linear morphology rather than
+     * {@link MorphoProcessor}.
+     *
+     * @param bool true to use linear morphology
+     */
+    public static void setUse (boolean bool)
+    {
+        constants.useLinearMorphology.setValue(bool);
+    }
+
+    //-------//
+    // apply //
+    //-------//
+    /**
+     * Apply dilation or erosion, component by component.
+     *
+     * @param ip       the image to process in place
+     * @param dilation true for dilation, false for erosion
+     */
+    private void apply (ByteProcessor ip,
+                        boolean dilation)
+    {
+        final int width = ip.getWidth();
+        final int height = ip.getHeight();
+        final byte[] pixels = (byte[]) ip.getPixels();
+        byte[] result = null;
+
+        for (Segment[] component : components) {
+            final byte[] buf = (components.size() == 1) ? pixels : pixels.clone();
+
+            for (Segment segment : component) {
+                pass(buf, width, height, segment, dilation);
+            }
+
+            if (result == null) {
+                result = buf;
+            } else {
+                for (int i = 0; i < result.length; i++) {
+                    final int v = result[i] & 0xFF;
+                    final int b = buf[i] & 0xFF;
+
+                    if (dilation ? (b > v) : (b < v)) {
+                        result[i] = buf[i];
+                    }
+                }
+            }
+        }
+
+        if (result != pixels) {
+            System.arraycopy(result, 0, pixels, 0, pixels.length);
+        }
+    }
+
+    //-----------//
+    // decompose //
+    //-----------//
+    /**
+     * Decompose a flat structuring element into a union of rectangles.
+     * <p>
+     * Each horizontal run of the element is extended vertically as long as rows contain it.
+     * Rectangles contained in another one are discarded.
+     *
+     * @param vect the element offsets, as provided by {@link StructureElement#getVect()}
+     * @return the rectangle components
+     */
+    private static List<Segment[]> decompose (int[][] vect)
+    {
+        // Abscissa offsets per ordinate offset
+        final Map<Integer, TreeSet<Integer>> rows = new TreeMap<>();
+
+        for (int[] v : vect) {
+            if (v[2] != 255) {
+                throw new IllegalArgumentException("Non-flat structuring element");
+            }
+
+            TreeSet<Integer> row = rows.get(v[0]);
+
+            if (row == null) {
+                rows.put(v[0], row = new TreeSet<>());
+            }
+
+            row.add(v[1]);
+        }
+
+        // Maximal rectangles, one per horizontal run
+        final Set<Rectangle> rects = new LinkedHashSet<>();
+
+        for (Map.Entry<Integer, TreeSet<Integer>> entry : rows.entrySet()) {
+            final int dy = entry.getKey();
+            final List<Integer> xs = new ArrayList<>(entry.getValue());
+
+            for (int i = 0; i < xs.size();) {
+                final int a = xs.get(i);
+                int b = a;
+
+                while ((++i < xs.size()) && (xs.get(i) == (b + 1))) {
+                    b++;
+                }
+
+                int c = dy;
+
+                while (rowContains(rows, c - 1, a, b)) {
+                    c--;
+                }
+
+                int d = dy;
+
+                while (rowContains(rows, d + 1, a, b)) {
+                    d++;
+                }
+
+                rects.add(new Rectangle(a, c, (b - a) + 1, (d - c) + 1));
+            }
+        }
+
+        final List<Segment[]> components = new ArrayList<>();
+
+        for (Rectangle rect : rects) {
+            boolean dominated = false;
+
+            for (Rectangle other : rects) {
+                if ((other != rect) && other.contains(rect)) {
+                    dominated = true;
+
+                    break;
+                }
+            }
+
+            if (!dominated) {
+                components.add(new Segment[]{
+                    new Segment(Direction.VERTICAL, rect.y, (rect.y + rect.height) - 1),
+                    new Segment(Direction.HORIZONTAL, rect.x, (rect.x + rect.width) - 1)});
+            }
+        }
+
+        return components;
+    }
+
+    //------//
+    // pass //
+    //------//
+    /**
+     * Apply one segment on all lines of segment direction.
+     *
+     * @param pixels   the image pixels, processed in place
+     * @param width    image width
+     * @param height   image height
+     * @param segment  the segment to apply
+     * @param dilation true for dilation, false for erosion
+     */
+    private static void pass (final byte[] pixels,
+                              final int width,
+                              final int height,
+                              final Segment segment,
+                              final boolean dilation)
+    {
+        if ((segment.from == 0) && (segment.to == 0)) {
+            return; // Identity
+        }
+
+        final int lineCount;
+
+        switch (segment.dir) {
+        case HORIZONTAL:
+            lineCount = height;
+
+            break;
+
+        case VERTICAL:
+            lineCount = width;
+
+            break;
+
+        default:
+            lineCount = (width + height) - 1;
+        }
+
+        final int band = Math.max(
+                constants.minLinesPerTask.getValue(),
+                (lineCount + OmrExecutors.getNumberOfCpus() - 1) / OmrExecutors.getNumberOfCpus());
+
+        if ((lineCount <= band) || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            processLines(pixels, width, height, segment, dilation, 0, lineCount);
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+
+                for (int i = 0; i < lineCount; i += band) {
+                    final int iMin = i;
+                    final int iMax = Math.min(lineCount, i + band);
+                    tasks.add(() -> {
+                        processLines(pixels, width, height, segment, dilation, iMin, iMax);
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("LinearMorphology got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in LinearMorphology", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //--------------//
+    // processLines //
+    //--------------//
+    /**
+     * Apply the segment on a range of lines.
+     * <p>
+     * For a window of length L, the extended line is split into blocks of L values.
+     * Within each block, a prefix and a suffix running extremum are computed, and the extremum of
+     * any window is given by the suffix value at window start combined with the prefix value at
+     * window stop.
+     *
+     * @param pixels   the image pixels, processed in place
+     * @param width    image width
+     * @param height   image height
+     * @param segment  the segment to apply
+     * @param dilation true for dilation, false for erosion
+     * @param iMin     index of first line
+     * @param iMax     index past last line
+     */
+    private static void processLines (byte[] pixels,
+                                      int width,
+                                      int height,
+                                      Segment segment,
+                                      boolean dilation,
+                                      int iMin,
+                                      int iMax)
+    {
+        final Direction dir = segment.dir;
+        final int step = dir.dx + (dir.dy * width);
+        final int from = segment.from;
+        final int len = (segment.to - from) + 1;
+        final int pad = dilation ? 0 : 255;
+        final int maxSize = Math.max(width, height) + len;
+        final int[] ext = new int[maxSize];
+        final int[] pre = new int[maxSize];
+        final int[] suf = new int[maxSize];
+
+        for (int i = iMin; i < iMax; i++) {
+            // Line start and length
+            final int x0;
+            final int y0;
+            final int n;
+
+            switch (dir) {
+            case HORIZONTAL:
+                x0 = 0;
+                y0 = i;
+                n = width;
+
+                break;
+
+            case VERTICAL:
+                x0 = i;
+                y0 = 0;
+                n = height;
+
+                break;
+
+            case DIAGONAL:
+                x0 = (i < width) ? i : 0;
+                y0 = (i < width) ? 0 : ((i - width) + 1);
+                n = Math.min(width - x0, height - y0);
+
+                break;
+
+            default: // ANTI_DIAGONAL
+                x0 = (i < width) ? i : 0;
+                y0 = (i < width) ? (height - 1) : (i - width);
+                n = Math.min(width - x0, y0 + 1);
+            }
+
+            final int start = x0 + (y0 * width);
+            final int m = (n + len) - 1;
+
+            // Extended line
+            for (int k = 0; k < m; k++) {
+                final int p = k + from;
+                ext[k] = ((p >= 0) && (p < n)) ? (pixels[start + (p * step)] & 0xFF) : pad;
+            }
+
+            // Running extrema per block
+            for (int b0 = 0; b0 < m; b0 += len) {
+                final int b1 = Math.min(m, b0 + len) - 1;
+                pre[b0] = ext[b0];
+                suf[b1] = ext[b1];
+
+                if (dilation) {
+                    for (int k = b0 + 1; k <= b1; k++) {
+                        pre[k] = Math.max(pre[k - 1], ext[k]);
+                    }
+
+                    for (int k = b1 - 1; k >= b0; k--) {
+                        suf[k] = Math.max(suf[k + 1], ext[k]);
+                    }
+                } else {
+                    for (int k = b0 + 1; k <= b1; k++) {
+                        pre[k] = Math.min(pre[k - 1], ext[k]);
+                    }
+
+                    for (int k = b1 - 1; k >= b0; k--) {
+                        suf[k] = Math.min(suf[k + 1], ext[k]);
+                    }
+                }
+            }
+
+            // Window extrema
+            for (int p = 0; p < n; p++) {
+                final int v = dilation ? Math.max(suf[p], pre[(p + len) - 1])
+                        : Math.min(suf[p], pre[(p + len) - 1]);
+                pixels[start + (p * step)] = (byte) v;
+            }
+        }
+    }
+
+    //-------------//
+    // rowContains //
+    //-------------//
+    private static boolean rowContains (Map<Integer, TreeSet<Integer>> rows,
+                                        int dy,
+                                        int a,
+                                        int b)
+    {
+        final TreeSet<Integer> row = rows.get(dy);
+
+        return (row != null) && (row.subSet(a, true, b, true).size() == ((b - a) + 1));
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useLinearMorphology = new Constant.Boolean(
+                true,
+                "Should spots closing use linear morphology rather than MorphoProcessor?");
+
+        private final Constant.Integer minLinesPerTask = new Constant.Integer(
+                "Lines",
+                64,
+                "Minimum number of lines processed by a parallel task");
+    }
+
+    //---------//
+    // Segment //
+    //---------//
+    /**
+     * A line segment of offsets, from 'from' to 'to' steps along direction.
+     */
+    private static class Segment
+    {
+
+        final Direction dir;
+
+        final int from;
+
+        final int to;
+
+        Segment (Direction dir,
+                 int from,
+                 int to)
+        {
+            this.dir = dir;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return dir + "[" + from + ".." + to + "]";
+        }
+    }
+}
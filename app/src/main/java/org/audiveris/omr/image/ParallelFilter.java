@@ -0,0 +1,300 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  P a r a l l e l F i l t e r                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Class {@code ParallelFilter} is a specialization of {@link AdaptiveFilter} meant for
+ * the binarization of a whole image.
+ * <p>
+ * Rather than sliding a vertical tile column by column, the image is split into horizontal bands
+ * which are processed row by row, independently of each other, and thus in parallel on the high
+ * OMR executor if parallelism is allowed.
+ * <p>
+ * For each band, tables of integrals (plain and squared values) are built in primitive long arrays
+ * for the band rows extended by the window half size above and below.
+ * These integrals are relative to the band top row rather than to image top row, which makes no
+ * difference on rectangle sums while keeping the memory footprint proportional to band size.
+ * Both tables use an additional leading row and column of zeros, so that no border test is needed
+ * when reading them.
+ * <pre>
+ * 0---------------------------------------------+
+ * |                                             |
+ * +---------------------------------------------+ band top - HALF_WINDOW_SIZE - 1
+ * |                  integrals                  |
+ * +=============================================+ band top
+ * |                    BAND                     |
+ * +=============================================+ band bottom
+ * |                                             |
+ * +---------------------------------------------+ band bottom + HALF_WINDOW_SIZE
+ * |                                             |
+ * +---------------------------------------------+
+ * </pre>
+ * The threshold formula is the one of {@link AdaptiveFilter}, applied on the same window
+ * definition, hence the output is pixel-for-pixel identical to {@link VerticalFilter} and
+ * {@link RandomFilter} output.
+ * <p>
+ * Bands can also be consumed one at a time, via {@link #binarizeBand}, which allows to build runs
+ * without allocating a whole binary image (see
+ * {@link org.audiveris.omr.run.RunTableFactory#createTable(ParallelFilter)}).
+ * <p>
+ * Random access via {@link #isFore(int, int)} is supported but not efficient, it is meant for
+ * occasional use only.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class ParallelFilter
+        extends AdaptiveFilter
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelFilter.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Image width. */
+    protected final int width;
+
+    /** Image height. */
+    protected final int height;
+
+    /** Raw source pixels. */
+    protected final byte[] pixels;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Create an adaptive wrapper on a raw pixel source.
+     *
+     * @param source      the underlying source of raw pixels
+     * @param meanCoeff   the coefficient for mean value
+     * @param stdDevCoeff the coefficient for standard deviation value
+     */
+    public ParallelFilter (ByteProcessor source,
+                           double meanCoeff,
+                           double stdDevCoeff)
+    {
+        super(source, meanCoeff, stdDevCoeff);
+
+        width = source.getWidth();
+        height = source.getHeight();
+        pixels = (byte[]) source.getPixels();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // filteredImage //
+    //---------------//
+    @Override
+    public ByteProcessor filteredImage ()
+    {
+        final ByteProcessor ip = new ByteProcessor(width, height);
+        final byte[] out = (byte[]) ip.getPixels();
+        final int bandHeight = getBandHeight();
+        final int bandCount = (height + bandHeight - 1) / bandHeight;
+
+        if ((bandCount <= 1) || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            for (int y0 = 0; y0 < height; y0 += bandHeight) {
+                binarizeBand(y0, Math.min(height, y0 + bandHeight), out, 0);
+            }
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>(bandCount);
+
+                for (int y = 0; y < height; y += bandHeight) {
+                    final int y0 = y;
+                    final int y1 = Math.min(height, y0 + bandHeight);
+                    tasks.add(() -> {
+                        binarizeBand(y0, y1, out, 0);
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                OmrExecutors.getHighExecutor().invokeAll(tasks);
+            } catch (InterruptedException ex) {
+                logger.warn("ParallelFilter got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in ParallelFilter", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+
+        return ip;
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Window sums are computed from scratch, so this is meant for occasional use only.
+     */
+    @Override
+    public boolean isFore (int x,
+                           int y)
+    {
+        final int x1 = Math.max(-1, x - HALF_WINDOW_SIZE - 1);
+        final int x2 = Math.min(width - 1, x + HALF_WINDOW_SIZE);
+        final int y1 = Math.max(-1, y - HALF_WINDOW_SIZE - 1);
+        final int y2 = Math.min(height - 1, y + HALF_WINDOW_SIZE);
+        long sum = 0;
+        long sqrSum = 0;
+
+        for (int iy = y1 + 1; iy <= y2; iy++) {
+            for (int ix = x1 + 1, i = (iy * width) + ix; ix <= x2; ix++, i++) {
+                final long pix = pixels[i] & 0xff;
+                sum += pix;
+                sqrSum += pix * pix;
+            }
+        }
+
+        final int area = (y2 - y1) * (x2 - x1);
+
+        return isFore(pixels[(y * width) + x] & 0xff, (double) sum / area, (double) sqrSum / area);
+    }
+
+    //---------------//
+    // getBandHeight //
+    //---------------//
+    /**
+     * Report the height of horizontal bands.
+     *
+     * @return band height, in pixels
+     */
+    public int getBandHeight ()
+    {
+        return Math.max(1, constants.bandHeight.getValue());
+    }
+
+    //--------------//
+    // binarizeBand //
+    //--------------//
+    /**
+     * Binarize the horizontal band of rows [y0, y1[ into the provided output buffer.
+     * <p>
+     * Output row y is written at offset (y - outY0) * width in output buffer.
+     *
+     * @param y0    first image row of band
+     * @param y1    image row past the last row of band
+     * @param out   output buffer of FOREGROUND / BACKGROUND values
+     * @param outY0 image row corresponding to first row of output buffer
+     */
+    public void binarizeBand (int y0,
+                              int y1,
+                              byte[] out,
+                              int outY0)
+    {
+        final int half = HALF_WINDOW_SIZE;
+
+        // Rows covered by integrals
+        final int yTop = Math.max(0, y0 - half - 1);
+        final int yBot = Math.min(height - 1, (y1 - 1) + half);
+
+        // Integrals, with an additional leading row and column of zeros
+        final int stride = width + 1;
+        final int rows = yBot - yTop + 1;
+        final long[] sums = new long[(rows + 1) * stride];
+        final long[] sqrSums = new long[(rows + 1) * stride];
+
+        for (int r = 0; r < rows; r++) {
+            final int src = (yTop + r) * width;
+            final int prev = (r * stride) + 1;
+            final int cur = prev + stride;
+            long rowSum = 0;
+            long sqrRowSum = 0;
+
+            for (int x = 0; x < width; x++) {
+                final long pix = pixels[src + x] & 0xff;
+                rowSum += pix;
+                sqrRowSum += pix * pix;
+                sums[cur + x] = sums[prev + x] + rowSum;
+                sqrSums[cur + x] = sqrSums[prev + x] + sqrRowSum;
+            }
+        }
+
+        // Thresholds
+        for (int y = y0; y < y1; y++) {
+            final int wy1 = Math.max(-1, y - half - 1);
+            final int wy2 = Math.min(height - 1, y + half);
+            final int above = (wy1 - yTop + 1) * stride;
+            final int below = (wy2 - yTop + 1) * stride;
+            final int dy = wy2 - wy1;
+            final int src = y * width;
+            final int dst = (y - outY0) * width;
+
+            for (int x = 0; x < width; x++) {
+                final int cx1 = Math.max(-1, x - half - 1) + 1;
+                final int cx2 = Math.min(width - 1, x + half) + 1;
+                final int area = dy * (cx2 - cx1);
+
+                final long sum = (sums[above + cx1] + sums[below + cx2])
+                                         - sums[above + cx2] - sums[below + cx1];
+                final long sqrSum = (sqrSums[above + cx1] + sqrSums[below + cx2])
+                                            - sqrSums[above + cx2] - sqrSums[below + cx1];
+
+                final boolean fore = isFore(
+                        pixels[src + x] & 0xff,
+                        (double) sum / area,
+                        (double) sqrSum / area);
+                out[dst + x] = (byte) (fore ? FOREGROUND : BACKGROUND);
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer bandHeight = new Constant.Integer(
+                "Pixels",
+                256,
+                "Height of horizontal bands processed in parallel");
+    }
+}
@@ -63,6 +63,11 @@ import java.util.Map.Entry;
  * </dl>
  * <p>
  * <img alt="Template diagram" src="doc-files/Template.png">
+ * <p>
+ * For matching evaluation, key points are compiled once into parallel primitive arrays (offsets,
+ * weight, expected color), so that a location can be evaluated by a plain loop.
+ * Evaluation can be abandoned as soon as the distance is known to exceed a provided limit, and a
+ * whole horizontal strip of locations can be evaluated in one pass, key point by key point.
  *
  * @author Hervé Bitteur
  */
@@ -78,6 +83,9 @@ public class Template
     /** Ratio applied to small symbols (cue / grace). */
     public static final double smallRatio = constants.smallRatio.getValue();
 
+    /** Relative margin on distance limit, to absorb rounding in early abandon test. */
+    private static final double ABANDON_MARGIN = 1e-9;
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Template shape. */
     private final Shape shape;
@@ -88,6 +96,27 @@ public class Template
     /** Collection of key points defined for this template. */
     private final List<PixelDistance> keyPoints;
 
+    // Compiled key points, in keyPoints order
+    //----------------------------------------
+    //
+    /** Key point abscissa offsets WRT template upper left. */
+    private final int[] dxs;
+
+    /** Key point ordinate offsets WRT template upper left. */
+    private final int[] dys;
+
+    /** Key point weights. */
+    private final double[] weights;
+
+    /** Key point expected as foreground. */
+    private final boolean[] expectedFores;
+
+    /** Key point expected as hole. */
+    private final boolean[] expectedHoles;
+
+    /** Sum of weights of key points from index i to the end. */
+    private final double[] remainingWeights;
+
     /** Template width. (perhaps larger than symbol width) */
     private final int width;
 
@@ -128,6 +157,31 @@ public class Template
         this.width = width;
         this.height = height;
         this.slimBounds = slimBounds;
+
+        // Compile key points
+        final int count = keyPoints.size();
+        final double foreWeight = constants.foreWeight.getValue();
+        final double backWeight = constants.backWeight.getValue();
+        final double holeWeight = constants.holeWeight.getValue();
+        dxs = new int[count];
+        dys = new int[count];
+        weights = new double[count];
+        expectedFores = new boolean[count];
+        expectedHoles = new boolean[count];
+        remainingWeights = new double[count + 1];
+
+        for (int i = 0; i < count; i++) {
+            final PixelDistance pix = keyPoints.get(i);
+            dxs[i] = pix.x;
+            dys[i] = pix.y;
+            weights[i] = (pix.d == 0) ? foreWeight : ((pix.d > 0) ? backWeight : holeWeight);
+            expectedFores[i] = pix.d == 0;
+            expectedHoles[i] = pix.d < 0;
+        }
+
+        for (int i = count - 1; i >= 0; i--) {
+            remainingWeights[i] = remainingWeights[i + 1] + weights[i];
+        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -190,49 +244,72 @@ public class Template
                             int y,
                             Anchor anchor,
                             DistanceTable distances)
+    {
+        return evaluate(x, y, anchor, distances, Double.MAX_VALUE);
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate this template at location (x,y) in provided distances table, abandoning
+     * evaluation as soon as distance is known to exceed the provided limit.
+     *
+     * @param x         pivot location abscissa
+     * @param y         pivot location ordinate
+     * @param anchor    pivot offset if any, WRT template upper left
+     * @param distances the distance table to use
+     * @param maxDist   limit beyond which the precise distance is of no interest
+     * @return the weighted average distance computed on all template key positions,
+     *         or Double.MAX_VALUE if evaluation was abandoned
+     */
+    public double evaluate (int x,
+                            int y,
+                            Anchor anchor,
+                            DistanceTable distances,
+                            double maxDist)
     {
         final Point ul = upperLeft(x, y, anchor);
 
-        // Loop through template key positions and read related distance.
-        // Compute the mean value on all distances read
+        if (!constants.useKernel.isSet()) {
+            return evaluateKeyPoints(ul, distances);
+        }
+
         final int imgWidth = distances.getWidth();
         final int imgHeight = distances.getHeight();
-        final double foreWeight = constants.foreWeight.getValue();
-        final double backWeight = constants.backWeight.getValue();
-        final double holeWeight = constants.holeWeight.getValue();
-        double weights = 0; // Sum of weights
+        final double limit = maxDist * (1 + ABANDON_MARGIN);
+        double weightSum = 0; // Sum of weights
         double total = 0; // Sum of weighted distances
 
-        for (PixelDistance pix : keyPoints) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0, count = dxs.length; i < count; i++) {
+            final int nx = ul.x + dxs[i];
+            final int ny = ul.y + dys[i];
 
             // Ignore tested point if located out of image
             if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
-                int actualDist = distances.getValue(nx, ny);
+                final int actualDist = distances.getValue(nx, ny);
 
                 // Ignore neutralized locations in distance table
                 if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
-                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
-                    // pix.d == 0 for expected foreground, 0 distance
-                    // pix.d > 0 for expected background, expected distance to nearest foreground
-                    double weight = (pix.d == 0) ? foreWeight : ((pix.d > 0) ? backWeight
-                            : holeWeight);
-                    double expected = (pix.d == 0) ? 0 : 1;
-                    double actual = (actualDist == 0) ? 0 : 1;
-                    double dist = Math.abs(actual - expected);
+                    if ((actualDist == 0) != expectedFores[i]) {
+                        total += weights[i];
 
-                    total += (weight * dist);
-                    weights += weight;
+                        // Even if all remaining points were matching, limit would be exceeded
+                        if (total > (limit * (weightSum + remainingWeights[i]))) {
+                            return Double.MAX_VALUE;
+                        }
+                    }
+
+                    weightSum += weights[i];
                 }
             }
         }
 
-        if (weights == 0) {
+        if (weightSum == 0) {
             return Double.MAX_VALUE; // Safer
         }
 
-        return total / weights;
+        return total / weightSum;
     }
 
     //--------------//
@@ -255,39 +332,144 @@ public class Template
     {
         final Point ul = upperLeft(x, y, anchor);
 
-        // Loop through template key positions and read related distance.
-        // Compute the mean value on all distances read
+        // Loop through template hole positions and read related distance.
         final int imgWidth = distances.getWidth();
         final int imgHeight = distances.getHeight();
-        int expectedHoles = 0; // Expected number of white pixels in hole
-        int actualHoles = 0; // Actual number of white pixels in hole
+        int expectedHoleCount = 0; // Expected number of white pixels in hole
+        int actualHoleCount = 0; // Actual number of white pixels in hole
 
-        for (PixelDistance pix : keyPoints) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0, count = dxs.length; i < count; i++) {
+            if (!expectedHoles[i]) {
+                continue;
+            }
+
+            final int nx = ul.x + dxs[i];
+            final int ny = ul.y + dys[i];
 
             // Ignore tested point if located out of image
             if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
-                int actualDist = distances.getValue(nx, ny);
+                final int actualDist = distances.getValue(nx, ny);
 
                 // Ignore neutralized locations in distance table
                 if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
-                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
-                    if (pix.d < 0) {
-                        expectedHoles++;
+                    expectedHoleCount++;
 
-                        if (actualDist != 0) {
-                            actualHoles++;
-                        }
+                    if (actualDist != 0) {
+                        actualHoleCount++;
                     }
                 }
             }
         }
 
-        if (expectedHoles == 0) {
+        if (expectedHoleCount == 0) {
             return 0;
         } else {
-            return (double) actualHoles / expectedHoles;
+            return (double) actualHoleCount / expectedHoleCount;
+        }
+    }
+
+    //---------------//
+    // evaluateStrip //
+    //---------------//
+    /**
+     * Evaluate this template at a horizontal strip of locations, from (x,y) to
+     * (x + dists.length - 1, y), in provided distances table.
+     * <p>
+     * The strip is processed key point by key point, each key point reading a contiguous
+     * segment of distance table row.
+     * For each location, distances are cumulated in the same order as {@link #evaluate}, hence
+     * with identical results, and evaluation is abandoned as soon as distance is known to exceed
+     * the provided limit.
+     *
+     * @param x         pivot abscissa of first location
+     * @param y         pivot ordinate of all locations
+     * @param anchor    pivot offset if any, WRT template upper left
+     * @param distances the distance table to use
+     * @param maxDist   limit beyond which the precise distance is of no interest
+     * @param skips     locations not to evaluate, if any
+     * @param dists     (output) for each location, the weighted average distance, or
+     *                  Double.MAX_VALUE if location was skipped or its evaluation abandoned
+     */
+    public void evaluateStrip (int x,
+                               int y,
+                               Anchor anchor,
+                               DistanceTable distances,
+                               double maxDist,
+                               boolean[] skips,
+                               double[] dists)
+    {
+        final int locCount = dists.length;
+
+        if (!constants.useKernel.isSet()) {
+            for (int p = 0; p < locCount; p++) {
+                dists[p] = ((skips != null) && skips[p]) ? Double.MAX_VALUE
+                        : evaluate(x + p, y, anchor, distances, maxDist);
+            }
+
+            return;
+        }
+
+        final Point ul = upperLeft(x, y, anchor);
+        final int imgWidth = distances.getWidth();
+        final int imgHeight = distances.getHeight();
+        final double limit = maxDist * (1 + ABANDON_MARGIN);
+        final double[] weightSums = new double[locCount];
+        final double[] totals = new double[locCount];
+        final boolean[] abandons = new boolean[locCount];
+        int alive = locCount;
+
+        if (skips != null) {
+            for (int p = 0; p < locCount; p++) {
+                if (skips[p]) {
+                    abandons[p] = true;
+                    alive--;
+                }
+            }
+        }
+
+        for (int i = 0, count = dxs.length; (i < count) && (alive > 0); i++) {
+            final int ny = ul.y + dys[i];
+
+            if ((ny < 0) || (ny >= imgHeight)) {
+                continue;
+            }
+
+            // Range of locations for which this key point lies within image
+            final int nx0 = ul.x + dxs[i];
+            final int pStart = Math.max(0, -nx0);
+            final int pStop = Math.min(locCount, imgWidth - nx0);
+            final double weight = weights[i];
+            final boolean expectedFore = expectedFores[i];
+            final double remaining = remainingWeights[i];
+
+            for (int p = pStart; p < pStop; p++) {
+                if (abandons[p]) {
+                    continue;
+                }
+
+                final int actualDist = distances.getValue(nx0 + p, ny);
+
+                // Ignore neutralized locations in distance table
+                if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                    if ((actualDist == 0) != expectedFore) {
+                        totals[p] += weight;
+
+                        if (totals[p] > (limit * (weightSums[p] + remaining))) {
+                            abandons[p] = true;
+                            alive--;
+
+                            continue;
+                        }
+                    }
+
+                    weightSums[p] += weight;
+                }
+            }
+        }
+
+        for (int p = 0; p < locCount; p++) {
+            dists[p] = (abandons[p] || (weightSums[p] == 0)) ? Double.MAX_VALUE
+                    : (totals[p] / weightSums[p]);
         }
     }
 
@@ -599,6 +781,61 @@ public class Template
         return sb.append("}").toString();
     }
 
+    //-------------------//
+    // evaluateKeyPoints //
+    //-------------------//
+    /**
+     * Former evaluation, directly on the list of key points, kept for comparison purpose.
+     *
+     * @param ul        template upper left location
+     * @param distances the distance table to use
+     * @return the weighted average distance computed on all template key positions
+     */
+    private double evaluateKeyPoints (Point ul,
+                                      DistanceTable distances)
+    {
+        // Loop through template key positions and read related distance.
+        // Compute the mean value on all distances read
+        final int imgWidth = distances.getWidth();
+        final int imgHeight = distances.getHeight();
+        final double foreWeight = constants.foreWeight.getValue();
+        final double backWeight = constants.backWeight.getValue();
+        final double holeWeight = constants.holeWeight.getValue();
+        double weights = 0; // Sum of weights
+        double total = 0; // Sum of weighted distances
+
+        for (PixelDistance pix : keyPoints) {
+            int nx = ul.x + pix.x;
+            int ny = ul.y + pix.y;
+
+            // Ignore tested point if located out of image
+            if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
+                int actualDist = distances.getValue(nx, ny);
+
+                // Ignore neutralized locations in distance table
+                if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
+                    // pix.d == 0 for expected foreground, 0 distance
+                    // pix.d > 0 for expected background, expected distance to nearest foreground
+                    double weight = (pix.d == 0) ? foreWeight : ((pix.d > 0) ? backWeight
+                            : holeWeight);
+                    double expected = (pix.d == 0) ? 0 : 1;
+                    double actual = (actualDist == 0) ? 0 : 1;
+                    double dist = Math.abs(actual - expected);
+
+                    total += (weight * dist);
+                    weights += weight;
+                }
+            }
+        }
+
+        if (weights == 0) {
+            return Double.MAX_VALUE; // Safer
+        }
+
+        return total / weights;
+    }
+
     //-----------//
     // upperLeft //
     //-----------//
@@ -624,6 +861,32 @@ public class Template
         return new Point(x, y);
     }
 
+    //--------------//
+    // isKernelUsed //
+    //--------------//
+    /**
+     * Report whether evaluation uses compiled key points.
+     *
+     * @return true if so, false if former evaluation on key points list is used
+     */
+    public static boolean isKernelUsed ()
+    {
+        return constants.useKernel.isSet();
+    }
+
+    //--------------//
+    // setUseKernel //
+    //--------------//
+    /**
+     * Set whether evaluation should use compiled key points.
+     *
+     * @param bool true for compiled key points, false for former evaluation
+     */
+    public static void setUseKernel (boolean bool)
+    {
+        constants.useKernel.setValue(bool);
+    }
+
     //----------//
     // impactOf //
     //----------//
@@ -719,5 +982,9 @@ public class Template
                 "distance",
                 1.0,
                 "Really bad matching distance");
+
+        private final Constant.Boolean useKernel = new Constant.Boolean(
+                true,
+                "Should we evaluate templates on compiled key points?");
     }
 }
@@ -54,6 +54,9 @@ public class BasicLag
     /** Underlying runs table. */
     private RunTable runTable;
 
+    /** Storage of section runs. */
+    private final RunStore runStore = new RunStore();
+
     /** Lag name. */
     private final String name;
 
@@ -122,6 +125,15 @@ public class BasicLag
     //---------------//
 
 
+    //-------------//
+    // getRunStore //
+    //-------------//
+    @Override
+    public RunStore getRunStore ()
+    {
+        return runStore;
+    }
+
     //-------------//
     // getRunTable //
     //-------------//
@@ -184,6 +196,7 @@ public class BasicLag
     {
         super.reset(); // To clear sections & last ID
         runTable = null;
+        runStore.reset();
     }
 
     //---------//
@@ -45,12 +45,15 @@ import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -60,6 +63,11 @@ import javax.xml.bind.annotation.adapters.XmlAdapter;
 
 /**
  * Class {@code BasicSection} is a basic implementation of {@link Section}.
+ * <p>
+ * Section runs are not kept as {@link Run} objects, but as a contiguous slice of start and length
+ * arrays, generally provided by the {@link RunStore} of the containing lag.
+ * {@link #getRuns()}, {@link #getFirstRun()} and {@link #getLastRun()} provide {@link Run} views
+ * on these arrays.
  *
  * @author Hervé Bitteur
  */
@@ -73,6 +81,9 @@ public class BasicSection
 
     private static final Logger logger = LoggerFactory.getLogger(BasicSection.class);
 
+    /** Empty run arrays. */
+    protected static final int[] NO_RUNS = new int[0];
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Position of first run */
     @XmlAttribute(name = "first-pos")
@@ -82,9 +93,21 @@ public class BasicSection
     @XmlAttribute(name = "orientation")
     protected Orientation orientation;
 
-    /** The collection of runs that make up the section */
+    /** Runs, only meant for JAXB. */
     @XmlElement(name = "run")
-    protected final List<Run> runs = new ArrayList<>();
+    private List<Run> xmlRuns;
+
+    /** Start coordinate of each run, beginning at offset. */
+    protected int[] starts = NO_RUNS;
+
+    /** Length of each run, beginning at offset. */
+    protected int[] lengths = NO_RUNS;
+
+    /** Index of first run in starts and lengths arrays. */
+    protected int offset;
+
+    /** Number of runs that make up the section. */
+    protected int runCount;
 
     /** Containing lag, if any. */
     protected Lag lag;
@@ -124,10 +147,36 @@ public class BasicSection
      * @param ds the provided dynamic section instance
      */
     public BasicSection (DynamicSection ds)
+    {
+        this(ds, null);
+    }
+
+    /**
+     * Creates a new {@code BasicSection} object from a {@link DynamicSection} instance,
+     * with its runs copied to a slice of the provided store.
+     *
+     * @param ds    the provided dynamic section instance
+     * @param store the store to host section runs, if null section gets arrays of its own
+     */
+    public BasicSection (DynamicSection ds,
+                         RunStore store)
     {
         orientation = ds.getOrientation();
         firstPos = ds.getFirstPos();
-        runs.addAll(ds.getRuns());
+        runCount = ds.getRunCount();
+
+        if (store != null) {
+            final RunStore.Slice slice = store.allocate(runCount);
+            starts = slice.starts;
+            lengths = slice.lengths;
+            offset = slice.offset;
+        } else {
+            starts = new int[runCount];
+            lengths = new int[runCount];
+        }
+
+        System.arraycopy(ds.starts, ds.offset, starts, offset, runCount);
+        System.arraycopy(ds.lengths, ds.offset, lengths, offset, runCount);
         lag = ds.getLag();
         orientedBounds = ds.getOrientedBounds();
         centroid = ds.getCentroid();
@@ -172,14 +221,15 @@ public class BasicSection
             // Take all run pixels
             int pos = firstPos - 1;
 
-            for (Run run : runs) {
-                double coord = run.getStart() + (run.getLength() / 2d);
+            for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+                final int length = lengths[i];
+                double coord = starts[i] + (length / 2d);
                 pos++;
 
                 if (orientation == HORIZONTAL) {
-                    barycenter.include(run.getLength(), coord, pos);
+                    barycenter.include(length, coord, pos);
                 } else {
-                    barycenter.include(run.getLength(), pos, coord);
+                    barycenter.include(length, pos, coord);
                 }
             }
         } else {
@@ -187,10 +237,10 @@ public class BasicSection
 
             // Take only the pixels contained by the oriented roi
             int pos = firstPos - 1;
-            int posMax = Math.min(firstPos + runs.size(), oRoi.y + oRoi.height) - 1;
+            int posMax = Math.min(firstPos + runCount, oRoi.y + oRoi.height) - 1;
             int coordMax = (oRoi.x + oRoi.width) - 1;
 
-            for (Run run : runs) {
+            for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
                 pos++;
 
                 if (pos < oRoi.y) {
@@ -201,8 +251,8 @@ public class BasicSection
                     break;
                 }
 
-                final int roiStart = Math.max(run.getStart(), oRoi.x);
-                final int roiStop = Math.min(run.getStop(), coordMax);
+                final int roiStart = Math.max(starts[i], oRoi.x);
+                final int roiStop = Math.min((starts[i] + lengths[i]) - 1, coordMax);
 
                 for (int coord = roiStart; coord <= roiStop; coord++) {
                     if (orientation == HORIZONTAL) {
@@ -226,10 +276,10 @@ public class BasicSection
         if (roi == null) {
             int p = firstPos;
 
-            for (Run run : runs) {
-                final int start = run.getStart();
+            for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+                final int start = starts[i];
 
-                for (int ic = run.getLength() - 1; ic >= 0; ic--) {
+                for (int ic = lengths[i] - 1; ic >= 0; ic--) {
                     if (orientation == HORIZONTAL) {
                         collector.include(start + ic, p);
                     } else {
@@ -243,12 +293,12 @@ public class BasicSection
             // Take only the pixels contained by the absolute roi
             Rectangle oRoi = orientation.oriented(roi);
             final int pMin = oRoi.y;
-            final int pMax = -1 + Math.min(firstPos + runs.size(), oRoi.y + oRoi.height);
+            final int pMax = -1 + Math.min(firstPos + runCount, oRoi.y + oRoi.height);
             final int cMin = oRoi.x;
             final int cMax = (oRoi.x + oRoi.width) - 1;
             int p = firstPos - 1;
 
-            for (Run run : runs) {
+            for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
                 p++;
 
                 if (p < pMin) {
@@ -259,8 +309,8 @@ public class BasicSection
                     break;
                 }
 
-                final int roiStart = Math.max(run.getStart(), cMin);
-                final int roiStop = Math.min(run.getStop(), cMax);
+                final int roiStart = Math.max(starts[i], cMin);
+                final int roiStop = Math.min((starts[i] + lengths[i]) - 1, cMax);
                 final int length = roiStop - roiStart + 1;
 
                 if (length > 0) {
@@ -315,8 +365,10 @@ public class BasicSection
         if (isVertical()) {
             int x = getFirstPos() - offset.x;
 
-            for (Run run : runs) {
-                for (int y = run.getStart(); y <= run.getStop(); y++) {
+            for (int i = this.offset, iBreak = this.offset + runCount; i < iBreak; i++) {
+                final int stop = (starts[i] + lengths[i]) - 1;
+
+                for (int y = starts[i]; y <= stop; y++) {
                     buffer.set(x, y - offset.y, 0);
                 }
 
@@ -325,8 +377,10 @@ public class BasicSection
         } else {
             int y = getFirstPos() - offset.y;
 
-            for (Run run : runs) {
-                for (int x = run.getStart(); x <= run.getStop(); x++) {
+            for (int i = this.offset, iBreak = this.offset + runCount; i < iBreak; i++) {
+                final int stop = (starts[i] + lengths[i]) - 1;
+
+                for (int x = starts[i]; x <= stop; x++) {
                     buffer.set(x - offset.x, y, 0);
                 }
 
@@ -443,10 +497,10 @@ public class BasicSection
         Point2D.Double orientedPoint = new Point2D.Double(0, 0);
         int y = firstPos;
 
-        for (Run run : runs) {
-            final int length = run.getLength();
+        for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+            final int length = lengths[i];
             orientedPoint.y += (length * (2 * y));
-            orientedPoint.x += (length * ((2 * run.getStart()) + length));
+            orientedPoint.x += (length * ((2 * starts[i]) + length));
             y++;
         }
 
@@ -474,7 +528,7 @@ public class BasicSection
     @Override
     public Run getFirstRun ()
     {
-        return runs.get(0);
+        return new Run(getRunStart(0), getRunLength(0));
     }
 
     //-----------//
@@ -523,7 +577,9 @@ public class BasicSection
     @Override
     public Run getLastRun ()
     {
-        return runs.get(runs.size() - 1);
+        final int last = runCount - 1;
+
+        return new Run(getRunStart(last), getRunLength(last));
     }
 
     //-----------//
@@ -646,7 +702,36 @@ public class BasicSection
     @Override
     public int getRunCount ()
     {
-        return runs.size();
+        return runCount;
+    }
+
+    //--------------//
+    // getRunLength //
+    //--------------//
+    @Override
+    public int getRunLength (int index)
+    {
+        return lengths[checkedIndex(index)];
+    }
+
+    //-------------//
+    // getRunStart //
+    //-------------//
+    @Override
+    public int getRunStart (int index)
+    {
+        return starts[checkedIndex(index)];
+    }
+
+    //------------//
+    // getRunStop //
+    //------------//
+    @Override
+    public int getRunStop (int index)
+    {
+        final int i = checkedIndex(index);
+
+        return (starts[i] + lengths[i]) - 1;
     }
 
     //---------//
@@ -655,7 +740,7 @@ public class BasicSection
     @Override
     public List<Run> getRuns ()
     {
-        return Collections.unmodifiableList(runs);
+        return new RunView();
     }
 
     //---------------//
@@ -730,11 +815,11 @@ public class BasicSection
     {
         int pos = getFirstPos();
 
-        for (Run run : runs) {
-            final int start = run.getStart();
+        for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+            final int start = starts[i];
             final Rectangle runBox = (orientation == HORIZONTAL)
-                    ? new Rectangle(start, pos, run.getLength(), 1)
-                    : new Rectangle(pos, start, 1, run.getLength());
+                    ? new Rectangle(start, pos, lengths[i], 1)
+                    : new Rectangle(pos, start, 1, lengths[i]);
 
             if (shape.intersects(runBox)) {
                 return true;
@@ -854,19 +939,19 @@ public class BasicSection
 
         int pos = getFirstPos();
 
-        for (Run run : runs) {
-            final int start = run.getStart();
+        for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+            final int start = starts[i];
             final Rectangle r1 = (orientation == HORIZONTAL)
-                    ? new Rectangle(start, pos, run.getLength(), 1)
-                    : new Rectangle(pos, start, 1, run.getLength());
+                    ? new Rectangle(start, pos, lengths[i], 1)
+                    : new Rectangle(pos, start, 1, lengths[i]);
 
             if (thatFatBox.intersects(r1)) {
                 // Check contact between this run and one of that runs
                 int thatPos = that.getFirstPos();
 
-                for (Run thatRun : that.getRuns()) {
-                    final int thatStart = thatRun.getStart();
-                    final int thatLength = thatRun.getLength();
+                for (int j = 0, jBreak = that.getRunCount(); j < jBreak; j++) {
+                    final int thatStart = that.getRunStart(j);
+                    final int thatLength = that.getRunLength(j);
                     final Rectangle r2 = (that.getOrientation() == HORIZONTAL)
                             ? new Rectangle(thatStart, thatPos, thatLength, 1)
                             : new Rectangle(thatPos, thatStart, 1, thatLength);
@@ -897,8 +982,8 @@ public class BasicSection
 
         firstPos += dp;
 
-        for (Run run : runs) {
-            run.translate(dc);
+        for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+            starts[i] += dc;
         }
 
         if (centroid != null) {
@@ -929,10 +1014,10 @@ public class BasicSection
 
         int y = getFirstPos();
 
-        for (Run run : runs) {
-            int stop = run.getStop();
+        for (int i = offset, iBreak = offset + runCount; i < iBreak; i++) {
+            int stop = (starts[i] + lengths[i]) - 1;
 
-            for (int x = run.getStart(); x <= stop; x++) {
+            for (int x = starts[i]; x <= stop; x++) {
                 oLine.includePoint(x, y);
             }
 
@@ -951,6 +1036,65 @@ public class BasicSection
         return orientation.isVertical() ? "V" : "H";
     }
 
+    //--------------//
+    // afterMarshal //
+    //--------------//
+    @SuppressWarnings("unused")
+    private void afterMarshal (Marshaller m)
+    {
+        xmlRuns = null;
+    }
+
+    //----------------//
+    // afterUnmarshal //
+    //----------------//
+    @SuppressWarnings("unused")
+    private void afterUnmarshal (Unmarshaller um,
+                                 Object parent)
+    {
+        if (xmlRuns != null) {
+            runCount = xmlRuns.size();
+            starts = new int[runCount];
+            lengths = new int[runCount];
+            offset = 0;
+
+            for (int i = 0; i < runCount; i++) {
+                final Run run = xmlRuns.get(i);
+                starts[i] = run.getStart();
+                lengths[i] = run.getLength();
+            }
+
+            xmlRuns = null;
+        }
+    }
+
+    //---------------//
+    // beforeMarshal //
+    //---------------//
+    @SuppressWarnings("unused")
+    private void beforeMarshal (Marshaller m)
+    {
+        xmlRuns = new ArrayList<>(getRuns());
+    }
+
+    //--------------//
+    // checkedIndex //
+    //--------------//
+    /**
+     * Check the provided run index and convert it to an index in run arrays.
+     *
+     * @param index run index within section
+     * @return index in starts and lengths arrays
+     */
+    private int checkedIndex (int index)
+    {
+        if ((index < 0) || (index >= runCount)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Runs: " + runCount);
+        }
+
+        return offset + index;
+    }
+
     //---------------//
     // allocateTable //
     //---------------//
@@ -1029,4 +1173,30 @@ public class BasicSection
             return s;
         }
     }
+
+    //---------//
+    // RunView //
+    //---------//
+    /**
+     * Unmodifiable view on section runs, each run being provided as a fresh {@link Run}.
+     */
+    private class RunView
+            extends AbstractList<Run>
+            implements RandomAccess
+    {
+
+        @Override
+        public Run get (int index)
+        {
+            final int i = checkedIndex(index);
+
+            return new Run(starts[i], lengths[i]);
+        }
+
+        @Override
+        public int size ()
+        {
+            return runCount;
+        }
+    }
 }
@@ -31,10 +31,13 @@ import org.slf4j.LoggerFactory;
 import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.util.Arrays;
 
 /**
  * Class {@code DynamicSection} is a section that can evolve by adding runs or
  * translating its location.
+ * <p>
+ * Its runs are kept in arrays of its own, beginning at index 0.
  *
  * @author Hervé Bitteur
  */
@@ -69,9 +72,11 @@ public class DynamicSection
      */
     public void append (Run run)
     {
-        run = new Run(run);
-        runs.add(run);
-        addRun(run);
+        ensureCapacity(runCount + 1);
+        starts[runCount] = run.getStart();
+        lengths[runCount] = run.getLength();
+        runCount++;
+        addRun(run.getLength());
 
         logger.debug("Appended {} to {}", run, this);
     }
@@ -151,12 +156,16 @@ public class DynamicSection
      */
     public void prepend (Run run)
     {
-        run = new Run(run);
         logger.debug("Prepending {} to {}", run, this);
 
+        ensureCapacity(runCount + 1);
+        System.arraycopy(starts, 0, starts, 1, runCount);
+        System.arraycopy(lengths, 0, lengths, 1, runCount);
+        starts[0] = run.getStart();
+        lengths[0] = run.getLength();
+        runCount++;
         firstPos--;
-        runs.add(0, run);
-        addRun(run);
+        addRun(run.getLength());
 
         logger.debug("Prepended {}", this);
     }
@@ -193,8 +202,8 @@ public class DynamicSection
         // Apply the needed modifications
         firstPos += dp;
 
-        for (Run run : runs) {
-            run.translate(dc);
+        for (int i = 0; i < runCount; i++) {
+            starts[i] += dc;
         }
 
         // Force update
@@ -207,15 +216,15 @@ public class DynamicSection
     /**
      * Compute incrementally the cached parameters.
      *
-     * @param run the run to be processed
+     * @param length the length of the run to be processed
      */
-    protected void addRun (Run run)
+    protected void addRun (int length)
     {
         // Invalidate cached data
         invalidateCache();
 
         // Compute contribution of this run
-        computeRunContribution(run);
+        computeRunContribution(length);
     }
 
     //-----------------//
@@ -231,10 +240,10 @@ public class DynamicSection
         Point orientedPoint = new Point(0, 0);
         int y = firstPos;
 
-        for (Run run : runs) {
-            final int length = run.getLength();
+        for (int i = 0; i < runCount; i++) {
+            final int length = lengths[i];
             orientedPoint.y += (length * (2 * y));
-            orientedPoint.x += (length * ((2 * run.getStart()) + length));
+            orientedPoint.x += (length * ((2 * starts[i]) + length));
             y++;
         }
 
@@ -257,8 +266,8 @@ public class DynamicSection
         maxRunLength = 0;
 
         // maxRunLength
-        for (Run run : runs) {
-            computeRunContribution(run);
+        for (int i = 0; i < runCount; i++) {
+            computeRunContribution(lengths[i]);
         }
 
         // Invalidate cached data
@@ -300,11 +309,10 @@ public class DynamicSection
     /**
      * Compute the contribution of provided run to section data.
      *
-     * @param run provided run
+     * @param length provided run length
      */
-    protected void computeRunContribution (Run run)
+    protected void computeRunContribution (int length)
     {
-        final int length = run.getLength();
         weight += length;
         maxRunLength = Math.max(maxRunLength, length);
     }
@@ -348,7 +356,6 @@ public class DynamicSection
         int xPrev = -1;
 
         for (int i = iStart; i != iBreak; i += dir) {
-            Run run = runs.get(i);
 
             // +----------------------------+
             // +--+-------------------------+
@@ -359,7 +366,7 @@ public class DynamicSection
             // Vertical lag:    Horizontal lag:
             //     1 2              1 4
             //     4 3              2 3
-            int x = (dir > 0) ? run.getStart() : (run.getStop() + 1);
+            int x = (dir > 0) ? starts[i] : (starts[i] + lengths[i]);
 
             if (x != xPrev) {
                 if (xPrev != -1) {
@@ -386,11 +393,28 @@ public class DynamicSection
 
         if (dir < 0) {
             // Finish with starting point
-            xpoints[index] = runs.get(0).getStart();
+            xpoints[index] = starts[0];
             ypoints[index] = getFirstPos();
             index++;
         }
 
         return index;
     }
+
+    //----------------//
+    // ensureCapacity //
+    //----------------//
+    /**
+     * Make sure the run arrays can hold the provided number of runs.
+     *
+     * @param capacity the needed number of runs
+     */
+    private void ensureCapacity (int capacity)
+    {
+        if (capacity > starts.length) {
+            final int newLength = Math.max(capacity, Math.max(4, 2 * starts.length));
+            starts = Arrays.copyOf(starts, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+        }
+    }
 }
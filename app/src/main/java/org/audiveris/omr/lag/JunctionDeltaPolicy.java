@@ -69,9 +69,9 @@ public class JunctionDeltaPolicy
                                   Section section)
     {
         // Check based on absolute differences between the two runs
-        Run last = section.getLastRun();
+        final int last = section.getRunCount() - 1;
 
-        return Math.abs(run.getLength() - last.getLength()) <= maxDeltaLength;
+        return Math.abs(run.getLength() - section.getRunLength(last)) <= maxDeltaLength;
     }
 
     //----------//
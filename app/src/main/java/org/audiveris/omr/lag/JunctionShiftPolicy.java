@@ -67,10 +67,10 @@ public class JunctionShiftPolicy
                                   Section section)
     {
         // Check based on positions of the two runs
-        Run last = section.getLastRun();
+        final int last = section.getRunCount() - 1;
 
-        return (Math.abs(run.getStart() - last.getStart()) <= maxShift)
-                       && (Math.abs(run.getStop() - last.getStop()) <= maxShift);
+        return (Math.abs(run.getStart() - section.getRunStart(last)) <= maxShift)
+                       && (Math.abs(run.getStop() - section.getRunStop(last)) <= maxShift);
     }
 
     //----------//
@@ -67,6 +67,13 @@ public interface Lag
     Run getRunAt (int x,
                   int y);
 
+    /**
+     * Report the primitive storage shared by the runs of lag sections.
+     *
+     * @return the lag run store
+     */
+    RunStore getRunStore ();
+
     /**
      * Report the underlying runs table, if any.
      *
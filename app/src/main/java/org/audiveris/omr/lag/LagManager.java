@@ -28,7 +28,7 @@ import org.audiveris.omr.run.Orientation;
 import static org.audiveris.omr.run.Orientation.*;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
-import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.run.RunTables;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.util.IntUtil;
@@ -164,10 +164,9 @@ public class LagManager
         RunTable shortVertTable = sourceTable.copy().purge(
                 (Run run) -> run.getLength() >= minVerticalRunLength,
                 vertTable);
-        RunTableFactory runFactory = new RunTableFactory(HORIZONTAL);
-        RunTable horiTable = runFactory.createTable(shortVertTable.getBuffer());
 
-        return horiTable;
+        // Switch to horizontal runs, with no rasterization
+        return RunTables.transposed(shortVertTable);
     }
 
     //------------//
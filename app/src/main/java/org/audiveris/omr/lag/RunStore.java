@@ -0,0 +1,157 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                        R u n S t o r e                                         //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.lag;
+
+/**
+ * Class {@code RunStore} is a primitive storage of runs, meant to be shared by all sections
+ * of a lag.
+ * <p>
+ * Runs are kept as parallel arrays of start and length values, indexed by run position in store,
+ * rather than as individual {@link org.audiveris.omr.run.Run} objects.
+ * A section gets a contiguous slice of these arrays, which holds its runs in position order.
+ * <p>
+ * Storage is organized in chunks which are never re-allocated, so that a section can safely keep a
+ * direct reference to the arrays of its chunk.
+ * A section larger than the standard chunk size gets a chunk of its own.
+ * Slices of removed sections are not reclaimed, their room is recovered only when the whole store
+ * is reset.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunStore
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Standard number of runs per chunk. */
+    public static final int CHUNK_SIZE = 1 << 14;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Start values of current chunk. */
+    private int[] starts;
+
+    /** Length values of current chunk. */
+    private int[] lengths;
+
+    /** Number of runs used in current chunk. */
+    private int used;
+
+    /** Total number of runs allocated. */
+    private long total;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // allocate //
+    //----------//
+    /**
+     * Allocate a contiguous slice for the provided number of runs.
+     *
+     * @param count the number of runs
+     * @return the allocated slice, whose values are to be written by the caller
+     */
+    public synchronized Slice allocate (int count)
+    {
+        total += count;
+
+        if (count > CHUNK_SIZE) {
+            return new Slice(new int[count], new int[count], 0);
+        }
+
+        if ((starts == null) || ((used + count) > starts.length)) {
+            starts = new int[CHUNK_SIZE];
+            lengths = new int[CHUNK_SIZE];
+            used = 0;
+        }
+
+        final Slice slice = new Slice(starts, lengths, used);
+        used += count;
+
+        return slice;
+    }
+
+    //----------//
+    // getTotal //
+    //----------//
+    /**
+     * Report the total number of runs allocated so far.
+     *
+     * @return the number of runs
+     */
+    public synchronized long getTotal ()
+    {
+        return total;
+    }
+
+    //-------//
+    // reset //
+    //-------//
+    /**
+     * Forget about all slices allocated so far.
+     * <p>
+     * Existing slices remain valid, they are simply no longer referenced by the store.
+     */
+    public synchronized void reset ()
+    {
+        starts = null;
+        lengths = null;
+        used = 0;
+        total = 0;
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return new StringBuilder(getClass().getSimpleName()).append("{runs:").append(getTotal())
+                .append('}').toString();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Slice //
+    //-------//
+    /**
+     * A contiguous portion of store arrays.
+     */
+    public static class Slice
+    {
+
+        /** Start values. */
+        public final int[] starts;
+
+        /** Length values. */
+        public final int[] lengths;
+
+        /** Index of first run in arrays. */
+        public final int offset;
+
+        Slice (int[] starts,
+               int[] lengths,
+               int offset)
+        {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.offset = offset;
+        }
+    }
+}
@@ -360,6 +360,30 @@ public interface Section
      */
     public int getRunCount ();
 
+    /**
+     * Report the length of the run at provided index, without creating any {@link Run}.
+     *
+     * @param index run index within section (0 for first run)
+     * @return the run length
+     */
+    public int getRunLength (int index);
+
+    /**
+     * Report the starting coordinate of the run at provided index.
+     *
+     * @param index run index within section (0 for first run)
+     * @return the run start
+     */
+    public int getRunStart (int index);
+
+    /**
+     * Report the stopping coordinate of the run at provided index.
+     *
+     * @param index run index within section (0 for first run)
+     * @return the run stop
+     */
+    public int getRunStop (int index);
+
     /**
      * Return an unmodifiable list of all runs in this section.
      *
@@ -191,6 +191,9 @@ public class SectionFactory
     //---------------//
     /**
      * Report immutable version of sections.
+     * <p>
+     * The runs of each immutable section are copied to a contiguous slice of the lag run store,
+     * or of a store shared by these sections if there is no lag.
      *
      * @param dynSections (mutable) sections
      * @return immutable sections
@@ -198,9 +201,10 @@ public class SectionFactory
     private List<Section> getImmutables (List<DynamicSection> dynSections)
     {
         final List<Section> sections = new ArrayList<>(dynSections.size());
+        final RunStore store = (lag != null) ? lag.getRunStore() : new RunStore();
 
         for (DynamicSection dynSection : dynSections) {
-            sections.add(new BasicSection(dynSection));
+            sections.add(new BasicSection(dynSection, store));
         }
 
         return sections;
@@ -376,14 +380,14 @@ public class SectionFactory
             overlappingSections.clear();
 
             for (DynamicSection dynSection : prevActives) {
-                Run lastRun = dynSection.getLastRun();
+                final int last = dynSection.getRunCount() - 1;
 
-                if (lastRun.getStart() > nextStop) {
+                if (dynSection.getRunStart(last) > nextStop) {
                     break;
                 }
 
-                if (lastRun.getStop() >= nextStart) {
-                    logger.debug("Overlap from {} to {}", lastRun, run);
+                if (dynSection.getRunStop(last) >= nextStart) {
+                    logger.debug("Overlap from {} to {}", dynSection, run);
                     overlappingSections.add(dynSection);
                 }
             }
@@ -434,9 +438,9 @@ public class SectionFactory
                                       RunTable runTable,
                                       int nextCol)
         {
-            Run lastRun = dynSection.getLastRun();
-            int prevStart = lastRun.getStart();
-            int prevStop = lastRun.getStop();
+            final int last = dynSection.getRunCount() - 1;
+            int prevStart = dynSection.getRunStart(last);
+            int prevStop = dynSection.getRunStop(last);
             logger.debug("processPrevSide for section {}", dynSection);
 
             // Check if overlap with a run in next sequence
@@ -451,7 +455,7 @@ public class SectionFactory
                 }
 
                 if (run.getStop() >= prevStart) {
-                    logger.debug("Overlap from {} to {}", lastRun, run);
+                    logger.debug("Overlap from {} to {}", dynSection, run);
                     overlapNb++;
                     overlapRun = new Run(run);
                 }
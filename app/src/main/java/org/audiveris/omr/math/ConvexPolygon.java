@@ -0,0 +1,605 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   C o n v e x P o l y g o n                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Class {@code ConvexPolygon} is a lightweight convex polygon, meant for the parallelograms
+ * and straight ribbons built by {@link AreaUtil}.
+ * <p>
+ * It answers the usual geometric questions (intersection with another polygon or with a rectangle,
+ * point containment, bounds of intersection with a rectangle) directly on the polygon vertices,
+ * without the curve machinery of {@link Area} and without any allocation for the boolean tests.
+ * <p>
+ * Results are meant to be identical to those of the equivalent {@link Area} (as returned by
+ * {@link #toArea()}):
+ * <ul>
+ * <li>Intersection means an intersection with non-empty interior, hence touching shapes do not
+ * intersect (separating axis test with strict overlap on every axis).</li>
+ * <li>Point containment follows the {@link java.awt.Shape} insideness rule, a point on the
+ * left or top border being inside and a point on the right or bottom border being outside.</li>
+ * </ul>
+ *
+ * @author Hervé Bitteur
+ */
+public class ConvexPolygon
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Vertices abscissae. */
+    private final double[] xs;
+
+    /** Vertices ordinates. */
+    private final double[] ys;
+
+    /** Bounds left. */
+    private final double minX;
+
+    /** Bounds top. */
+    private final double minY;
+
+    /** Bounds width. */
+    private final double width;
+
+    /** Bounds height. */
+    private final double height;
+
+    /** True if polygon has no interior. */
+    private final boolean empty;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code ConvexPolygon} object.
+     *
+     * @param xs vertices abscissae, in polygon order
+     * @param ys vertices ordinates, in polygon order
+     */
+    public ConvexPolygon (double[] xs,
+                          double[] ys)
+    {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("ConvexPolygon: abscissae and ordinates differ");
+        }
+
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+
+        double x1 = xs[0];
+        double y1 = ys[0];
+        double x2 = x1;
+        double y2 = y1;
+        double area2 = 0;
+
+        for (int i = 0, n = xs.length; i < n; i++) {
+            final int j = (i + 1) % n;
+            x1 = Math.min(x1, xs[i]);
+            y1 = Math.min(y1, ys[i]);
+            x2 = Math.max(x2, xs[i]);
+            y2 = Math.max(y2, ys[i]);
+            area2 += ((xs[i] * ys[j]) - (xs[j] * ys[i]));
+        }
+
+        minX = x1;
+        minY = y1;
+        width = x2 - x1;
+        height = y2 - y1;
+        empty = area2 == 0;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // clipBounds //
+    //------------//
+    /**
+     * Report the bounds of the intersection of this polygon with the provided rectangle.
+     * <p>
+     * The intersection is convex, hence its vertices are the polygon edges ends clipped by the
+     * rectangle and the rectangle corners located within the polygon.
+     *
+     * @param rect the clipping rectangle
+     * @return the bounds of intersection, or null if there is no intersection
+     */
+    public Rectangle2D clipBounds (Rectangle2D rect)
+    {
+        if (!intersects(rect)) {
+            return null;
+        }
+
+        final double rx1 = rect.getMinX();
+        final double ry1 = rect.getMinY();
+        final double rx2 = rect.getMaxX();
+        final double ry2 = rect.getMaxY();
+        double x1 = Double.POSITIVE_INFINITY;
+        double y1 = Double.POSITIVE_INFINITY;
+        double x2 = Double.NEGATIVE_INFINITY;
+        double y2 = Double.NEGATIVE_INFINITY;
+
+        // Polygon edges, clipped by rectangle (Liang-Barsky)
+        for (int i = 0, n = xs.length; i < n; i++) {
+            final int j = (i + 1) % n;
+            final double dx = xs[j] - xs[i];
+            final double dy = ys[j] - ys[i];
+            final double[] ps = {-dx, dx, -dy, dy};
+            final double[] qs = {xs[i] - rx1, rx2 - xs[i], ys[i] - ry1, ry2 - ys[i]};
+            double t1 = 0;
+            double t2 = 1;
+            boolean visible = true;
+
+            for (int k = 0; k < 4; k++) {
+                if (ps[k] == 0) {
+                    if (qs[k] < 0) {
+                        visible = false;
+
+                        break;
+                    }
+                } else {
+                    final double t = qs[k] / ps[k];
+
+                    if (ps[k] < 0) {
+                        t1 = Math.max(t1, t);
+                    } else {
+                        t2 = Math.min(t2, t);
+                    }
+                }
+            }
+
+            if (visible && (t1 <= t2)) {
+                for (double t : new double[]{t1, t2}) {
+                    final double x = Math.min(rx2, Math.max(rx1, xs[i] + (t * dx)));
+                    final double y = Math.min(ry2, Math.max(ry1, ys[i] + (t * dy)));
+                    x1 = Math.min(x1, x);
+                    y1 = Math.min(y1, y);
+                    x2 = Math.max(x2, x);
+                    y2 = Math.max(y2, y);
+                }
+            }
+        }
+
+        // Rectangle corners, within polygon
+        for (double x : new double[]{rx1, rx2}) {
+            for (double y : new double[]{ry1, ry2}) {
+                if (covers(x, y)) {
+                    x1 = Math.min(x1, x);
+                    y1 = Math.min(y1, y);
+                    x2 = Math.max(x2, x);
+                    y2 = Math.max(y2, y);
+                }
+            }
+        }
+
+        return new Rectangle2D.Double(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Check whether the provided point lies within this polygon.
+     *
+     * @param x point abscissa
+     * @param y point ordinate
+     * @return true if point is inside
+     */
+    public boolean contains (double x,
+                             double y)
+    {
+        if (empty
+                    || (x < minX) || (y < minY)
+                    || (x >= (minX + width)) || (y >= (minY + height))) {
+            return false;
+        }
+
+        // Count crossings with edges on right side of point, as Area does
+        boolean inside = false;
+
+        for (int i = 0, n = xs.length; i < n; i++) {
+            final int j = (i + 1) % n;
+            final double x0;
+            final double y0;
+            final double x1;
+            final double y1;
+
+            if (ys[i] < ys[j]) {
+                x0 = xs[i];
+                y0 = ys[i];
+                x1 = xs[j];
+                y1 = ys[j];
+            } else if (ys[i] > ys[j]) {
+                x0 = xs[j];
+                y0 = ys[j];
+                x1 = xs[i];
+                y1 = ys[i];
+            } else {
+                continue; // Horizontal edge
+            }
+
+            if ((y >= y0) && (y < y1)) {
+                if ((x < x0) && (x < x1)) {
+                    inside = !inside;
+                } else if ((x < x0) || (x < x1)) {
+                    final double xAtY = (x0 == x1) ? x0
+                            : (x0 + ((y - y0) * ((x1 - x0) / (y1 - y0))));
+
+                    if (x < xAtY) {
+                        inside = !inside;
+                    }
+                }
+            }
+        }
+
+        return inside;
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Check whether the provided point lies within this polygon.
+     *
+     * @param point the provided point
+     * @return true if point is inside
+     */
+    public boolean contains (Point2D point)
+    {
+        return contains(point.getX(), point.getY());
+    }
+
+    //-----------//
+    // getBounds //
+    //-----------//
+    /**
+     * Report the integer bounds of this polygon, as {@link Area#getBounds()} does.
+     *
+     * @return the bounding rectangle
+     */
+    public Rectangle getBounds ()
+    {
+        return getBounds2D().getBounds();
+    }
+
+    //-------------//
+    // getBounds2D //
+    //-------------//
+    /**
+     * Report the precise bounds of this polygon.
+     *
+     * @return the bounding rectangle
+     */
+    public Rectangle2D getBounds2D ()
+    {
+        if (empty) {
+            return new Rectangle2D.Double();
+        }
+
+        return new Rectangle2D.Double(minX, minY, width, height);
+    }
+
+    //------------//
+    // intersects //
+    //------------//
+    /**
+     * Check whether this polygon and the provided one have an intersection with
+     * non-empty interior.
+     *
+     * @param that the other polygon
+     * @return true if they intersect
+     */
+    public boolean intersects (ConvexPolygon that)
+    {
+        if (this.empty || that.empty) {
+            return false;
+        }
+
+        // Bounds prefilter
+        if (((this.minX + this.width) <= that.minX)
+                    || ((that.minX + that.width) <= this.minX)
+                    || ((this.minY + this.height) <= that.minY)
+                    || ((that.minY + that.height) <= this.minY)) {
+            return false;
+        }
+
+        return !this.separates(that) && !that.separates(this);
+    }
+
+    //------------//
+    // intersects //
+    //------------//
+    /**
+     * Check whether this polygon and the provided rectangle have an intersection with
+     * non-empty interior.
+     *
+     * @param x rectangle left
+     * @param y rectangle top
+     * @param w rectangle width
+     * @param h rectangle height
+     * @return true if they intersect
+     */
+    public boolean intersects (double x,
+                               double y,
+                               double w,
+                               double h)
+    {
+        if (empty || (w <= 0) || (h <= 0)) {
+            return false;
+        }
+
+        // Bounds prefilter, which also tests the rectangle axes
+        if (((x + w) <= minX) || ((minX + width) <= x)
+                    || ((y + h) <= minY) || ((minY + height) <= y)) {
+            return false;
+        }
+
+        // Polygon axes
+        for (int i = 0, n = xs.length; i < n; i++) {
+            final int j = (i + 1) % n;
+            final double ax = ys[i] - ys[j];
+            final double ay = xs[j] - xs[i];
+
+            if ((ax == 0) && (ay == 0)) {
+                continue; // Duplicated vertex
+            }
+
+            final double ref = (ax * xs[i]) + (ay * ys[i]);
+            double pMin = ref;
+            double pMax = ref;
+
+            for (int k = 0; k < n; k++) {
+                final double p = (ax * xs[k]) + (ay * ys[k]);
+                pMin = Math.min(pMin, p);
+                pMax = Math.max(pMax, p);
+            }
+
+            final double px = ax * x;
+            final double pxw = ax * (x + w);
+            final double py = ay * y;
+            final double pyh = ay * (y + h);
+            final double rMin = Math.min(px, pxw) + Math.min(py, pyh);
+            final double rMax = Math.max(px, pxw) + Math.max(py, pyh);
+
+            if ((rMax <= pMin) || (pMax <= rMin)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //------------//
+    // intersects //
+    //------------//
+    /**
+     * Check whether this polygon and the provided rectangle have an intersection with
+     * non-empty interior.
+     *
+     * @param rect the provided rectangle
+     * @return true if they intersect
+     */
+    public boolean intersects (Rectangle2D rect)
+    {
+        return intersects(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+    }
+
+    //--------//
+    // toArea //
+    //--------//
+    /**
+     * Build the equivalent area.
+     *
+     * @return the area
+     */
+    public Area toArea ()
+    {
+        return new Area(toPath());
+    }
+
+    //--------//
+    // toPath //
+    //--------//
+    /**
+     * Build the equivalent closed path.
+     *
+     * @return the path
+     */
+    public Path2D toPath ()
+    {
+        final Path2D path = new Path2D.Double();
+        path.moveTo(xs[0], ys[0]);
+
+        for (int i = 1; i < xs.length; i++) {
+            path.lineTo(xs[i], ys[i]);
+        }
+
+        path.closePath();
+
+        return path;
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        final StringBuilder sb = new StringBuilder(getClass().getSimpleName()).append('{');
+
+        for (int i = 0; i < xs.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+
+            sb.append(String.format("(%.1f,%.1f)", xs[i], ys[i]));
+        }
+
+        return sb.append('}').toString();
+    }
+
+    //-------------------------//
+    // horizontalParallelogram //
+    //-------------------------//
+    /**
+     * Create a parallelogram mostly horizontal, where left and right sides are short and
+     * vertical.
+     *
+     * @param left   left point of median line
+     * @param right  right point of median line
+     * @param height total height
+     * @return the created polygon, equivalent to
+     *         {@link AreaUtil#horizontalParallelogram(Point2D, Point2D, double)}
+     */
+    public static ConvexPolygon horizontalParallelogram (Point2D left,
+                                                         Point2D right,
+                                                         double height)
+    {
+        final double dy = height / 2; // Half height
+
+        return new ConvexPolygon(
+                new double[]{left.getX(), right.getX(), right.getX(), left.getX()},
+                new double[]{left.getY() - dy, right.getY() - dy, right.getY() + dy,
+                             left.getY() + dy});
+    }
+
+    //-----------------------//
+    // verticalParallelogram //
+    //-----------------------//
+    /**
+     * Create a parallelogram mostly vertical, where top and bottom sides are short and
+     * horizontal.
+     *
+     * @param top    top point of median line
+     * @param bottom bottom point of median line
+     * @param width  total width
+     * @return the created polygon, equivalent to
+     *         {@link AreaUtil#verticalParallelogram(Point2D, Point2D, double)}
+     */
+    public static ConvexPolygon verticalParallelogram (Point2D top,
+                                                       Point2D bottom,
+                                                       double width)
+    {
+        final double dx = width / 2; // Half width
+
+        return new ConvexPolygon(
+                new double[]{top.getX() - dx, top.getX() + dx, bottom.getX() + dx,
+                             bottom.getX() - dx},
+                new double[]{top.getY(), top.getY(), bottom.getY(), bottom.getY()});
+    }
+
+    //----------------//
+    // verticalRibbon //
+    //----------------//
+    /**
+     * Create a ribbon mostly vertical around a straight median line.
+     *
+     * @param median the defining vertical line
+     * @param width  ribbon width
+     * @return the created polygon, equivalent to
+     *         {@link AreaUtil#verticalRibbon(java.awt.Shape, double)} on the same line
+     */
+    public static ConvexPolygon verticalRibbon (Line2D median,
+                                                double width)
+    {
+        final double dx = width / 2; // Half width
+
+        return new ConvexPolygon(
+                new double[]{median.getX1() - dx, median.getX2() - dx, median.getX2() + dx,
+                             median.getX1() + dx},
+                new double[]{median.getY1(), median.getY2(), median.getY2(), median.getY1()});
+    }
+
+    //--------//
+    // covers //
+    //--------//
+    /**
+     * Check whether the provided point lies within this polygon or on its border.
+     */
+    private boolean covers (double x,
+                            double y)
+    {
+        int sign = 0;
+
+        for (int i = 0, n = xs.length; i < n; i++) {
+            final int j = (i + 1) % n;
+            final double cross = ((xs[j] - xs[i]) * (y - ys[i])) - ((ys[j] - ys[i]) * (x - xs[i]));
+
+            if (cross != 0) {
+                final int s = (cross > 0) ? 1 : (-1);
+
+                if (sign == 0) {
+                    sign = s;
+                } else if (s != sign) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    //-----------//
+    // separates //
+    //-----------//
+    /**
+     * Check whether one of the edges of this polygon defines a separating axis with the
+     * other polygon.
+     */
+    private boolean separates (ConvexPolygon that)
+    {
+        for (int i = 0, n = xs.length; i < n; i++) {
+            final int j = (i + 1) % n;
+            final double ax = ys[i] - ys[j];
+            final double ay = xs[j] - xs[i];
+
+            if ((ax == 0) && (ay == 0)) {
+                continue; // Duplicated vertex
+            }
+
+            double aMin = Double.POSITIVE_INFINITY;
+            double aMax = Double.NEGATIVE_INFINITY;
+
+            for (int k = 0; k < n; k++) {
+                final double p = (ax * xs[k]) + (ay * ys[k]);
+                aMin = Math.min(aMin, p);
+                aMax = Math.max(aMax, p);
+            }
+
+            double bMin = Double.POSITIVE_INFINITY;
+            double bMax = Double.NEGATIVE_INFINITY;
+
+            for (int k = 0, m = that.xs.length; k < m; k++) {
+                final double p = (ax * that.xs[k]) + (ay * that.ys[k]);
+                bMin = Math.min(bMin, p);
+                bMax = Math.max(bMax, p);
+            }
+
+            if ((aMax <= bMin) || (bMax <= aMin)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -71,6 +71,12 @@ public class NeuralNetwork
     /** Un/marshalling context for use with JAXB. */
     private static volatile JAXBContext jaxbContext;
 
+    /** Number of input vectors processed together, so that each weight row is reused. */
+    private static final int BLOCK_SIZE = 32;
+
+    /** Per-thread buffer for hidden values of a block of input vectors. */
+    private static final ThreadLocal<double[]> blockHiddens = new ThreadLocal<>();
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Size of input layer. */
     @XmlAttribute(name = "input-size")
@@ -420,6 +426,61 @@ public class NeuralNetwork
         return outputs;
     }
 
+    //-----//
+    // run //
+    //-----//
+    /**
+     * Run the neural network on a range of input vectors, stored as rows of a flat matrix,
+     * and write the computed output values as rows of another flat matrix.
+     * <p>
+     * Input vectors are processed by blocks, each block being pushed through a layer as a
+     * matrix-matrix product, so that each weight row is reused across the block.
+     * Computations are performed in the same order as {@link #run(double[], double[], double[])}
+     * and thus provide the very same output values.
+     * <p>
+     * This method is re-entrant, distinct ranges can be processed concurrently.
+     *
+     * @param inputs  flat matrix of input values (inputSize values per row)
+     * @param outputs flat matrix of output values (outputSize values per row)
+     * @param from    index of first row to process
+     * @param to      index past the last row to process
+     */
+    public void run (double[] inputs,
+                     double[] outputs,
+                     int from,
+                     int to)
+    {
+        // Check size consistencies.
+        if (inputs.length < (to * inputSize)) {
+            logger.error(
+                    "run method. inputs length {} too small for {} rows of {}",
+                    inputs.length,
+                    to,
+                    inputSize);
+        } else if (outputs.length < (to * outputSize)) {
+            logger.error(
+                    "run method. outputs length {} too small for {} rows of {}",
+                    outputs.length,
+                    to,
+                    outputSize);
+        }
+
+        double[] hiddens = blockHiddens.get();
+
+        if ((hiddens == null) || (hiddens.length < (BLOCK_SIZE * hiddenSize))) {
+            hiddens = new double[BLOCK_SIZE * hiddenSize];
+            blockHiddens.set(hiddens);
+        }
+
+        for (int row = from; row < to; row += BLOCK_SIZE) {
+            final int rows = Math.min(BLOCK_SIZE, to - row);
+
+            // Compute the hidden values, then the output values
+            forward(inputs, row * inputSize, inputSize, rows, hiddenWeights, hiddens, 0);
+            forward(hiddens, 0, hiddenSize, rows, outputWeights, outputs, row * outputSize);
+        }
+    }
+
     //-----------//
     // setEpochs //
     //-----------//
@@ -674,6 +735,49 @@ public class NeuralNetwork
         }
     }
 
+    //---------//
+    // forward //
+    //---------//
+    /**
+     * Re-entrant method, working on a block of rows.
+     *
+     * @param ins       flat matrix of input cells
+     * @param inOffset  offset in ins of first input row
+     * @param inSize    number of input cells per row
+     * @param rows      number of rows in block
+     * @param weights   applied weights
+     * @param outs      flat matrix of output cells
+     * @param outOffset offset in outs of first output row
+     */
+    private void forward (double[] ins,
+                          int inOffset,
+                          int inSize,
+                          int rows,
+                          double[][] weights,
+                          double[] outs,
+                          int outOffset)
+    {
+        final int outSize = weights.length;
+
+        for (int o = outSize - 1; o >= 0; o--) {
+            final double[] ws = weights[o];
+
+            for (int r = 0; r < rows; r++) {
+                final int in = inOffset + (r * inSize);
+                double sum = 0;
+
+                for (int i = inSize - 1; i >= 0; i--) {
+                    sum += (ws[i + 1] * ins[in + i]);
+                }
+
+                // Bias
+                sum += ws[0];
+
+                outs[outOffset + (r * outSize) + o] = sigmoid(sum);
+            }
+        }
+    }
+
     private double relu (double val)
     {
         return Math.max(0, val);
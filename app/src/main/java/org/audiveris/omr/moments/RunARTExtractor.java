@@ -0,0 +1,305 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 R u n A R T E x t r a c t o r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import static org.audiveris.omr.moments.ARTMoments.*;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+
+import java.awt.geom.Point2D;
+import java.util.Iterator;
+
+/**
+ * Class {@code RunARTExtractor} is an implementation of ART Moments extraction, meant to
+ * provide the same results as {@link BasicARTExtractor} at a much lower cost.
+ * <p>
+ * The bilinear interpolation performed for a point is linear in the values of the 4 surrounding
+ * LUT nodes, so rather than interpolating each of the ANGULAR * RADIAL basis functions for each
+ * point, we first cumulate the interpolation weights of all points on LUT nodes, and then combine
+ * each touched node once with all basis functions.
+ * Per point, the cost is thus reduced to 4 weight additions.
+ * <p>
+ * Basis values are stored in a single flattened array, node by node, to allow a fused primitive
+ * loop on all basis functions.
+ * <p>
+ * Foreground points can be provided as usual via {@link #extract(int[], int[], int)}, or directly
+ * as the runs of a {@link RunTable} via {@link #extract(RunTable)}, which avoids the building of
+ * points arrays.
+ * <p>
+ * Results differ from {@link BasicARTExtractor} results only by floating-point summation order,
+ * each moment staying within {@link #TOLERANCE} of its BasicARTExtractor counterpart.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunARTExtractor
+        extends AbstractExtractor<ARTMoments>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Maximum absolute difference with moments provided by BasicARTExtractor. */
+    public static final double TOLERANCE = 1e-9;
+
+    // Zernike basis function radius (same as BasicARTExtractor)
+    private static final int LUT_RADIUS = 50;
+
+    /** Number of LUT nodes along each LUT side. */
+    private static final int LUT_SIZE = 1 + (2 * LUT_RADIUS);
+
+    /** Number of nodes along each side, including an additional trailing node of zeros. */
+    private static final int SIDE = LUT_SIZE + 1;
+
+    /** Number of basis functions. */
+    private static final int COUNT = ANGULAR * RADIAL;
+
+    /**
+     * Flattened basis values.
+     * For node (x,y), at offset ((x * SIDE) + y) * 2 * COUNT, we find COUNT real values followed by
+     * COUNT imaginary values, with basis function (p,r) at index (p * RADIAL) + r.
+     */
+    private static final double[] basis = new double[SIDE * SIDE * 2 * COUNT];
+
+    /** Nodes located within unit circle, the only ones with non-zero basis values. */
+    private static final boolean[] inCircle = new boolean[SIDE * SIDE];
+
+    static {
+        initBasis();
+    }
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new RunARTExtractor object.
+     */
+    public RunARTExtractor ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // extract //
+    //---------//
+    /**
+     * Extract moments from the foreground runs of provided table and save the results
+     * into the target descriptor.
+     *
+     * @param table the table of runs, non-empty
+     */
+    public void extract (RunTable table)
+    {
+        if (table == null) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " cannot process a null table");
+        }
+
+        if (descriptor == null) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " has no target descriptor");
+        }
+
+        final boolean vertical = table.getOrientation() == Orientation.VERTICAL;
+        final int size = table.getSize();
+
+        // Mass, center of mass and extrema
+        long m = 0;
+        long mSeq = 0; // Sum of sequence index for all points
+        long mRun = 0; // Sum of start..stop for all points
+        int seqMin = Integer.MAX_VALUE;
+        int seqMax = Integer.MIN_VALUE;
+        int runMin = Integer.MAX_VALUE;
+        int runMax = Integer.MIN_VALUE;
+
+        for (int iSeq = 0; iSeq < size; iSeq++) {
+            for (Iterator<Run> it = table.iterator(iSeq); it.hasNext();) {
+                final Run run = it.next();
+                final int start = run.getStart();
+                final int stop = run.getStop();
+                final int length = run.getLength();
+                m += length;
+                mSeq += (long) iSeq * length;
+                mRun += (((long) start + stop) * length) / 2;
+                seqMin = Math.min(seqMin, iSeq);
+                seqMax = Math.max(seqMax, iSeq);
+                runMin = Math.min(runMin, start);
+                runMax = Math.max(runMax, stop);
+            }
+        }
+
+        if (m <= 0) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " on empty table");
+        }
+
+        mass = (int) m;
+
+        final double cSeq = mSeq / (double) mass;
+        final double cRun = mRun / (double) mass;
+        final double dSeqMax = Math.max(Double.MIN_VALUE, Math.max(cSeq - seqMin, seqMax - cSeq));
+        final double dRunMax = Math.max(Double.MIN_VALUE, Math.max(cRun - runMin, runMax - cRun));
+        center = vertical ? new Point2D.Double(cSeq, cRun) : new Point2D.Double(cRun, cSeq);
+        radius = Math.hypot(dSeqMax, dRunMax);
+
+        // Cumulate point weights, run by run
+        final double[] weights = new double[SIDE * SIDE];
+
+        for (int iSeq = 0; iSeq < size; iSeq++) {
+            final double ls = (((iSeq - cSeq) * LUT_RADIUS) / radius) + LUT_RADIUS;
+
+            for (Iterator<Run> it = table.iterator(iSeq); it.hasNext();) {
+                final Run run = it.next();
+
+                for (int c = run.getStart(), stop = run.getStop(); c <= stop; c++) {
+                    final double lc = (((c - cRun) * LUT_RADIUS) / radius) + LUT_RADIUS;
+
+                    if (vertical) {
+                        cumulate(weights, ls, lc);
+                    } else {
+                        cumulate(weights, lc, ls);
+                    }
+                }
+            }
+        }
+
+        store(weights);
+    }
+
+    //----------------//
+    // extractMoments //
+    //----------------//
+    @Override
+    protected void extractMoments ()
+    {
+        final double centerX = center.getX();
+        final double centerY = center.getY();
+        final double[] weights = new double[SIDE * SIDE];
+
+        for (int i = 0; i < mass; i++) {
+            // Map image coordinates to LUT coordinates
+            double x = xx[i] - centerX;
+            double y = yy[i] - centerY;
+            double lx = ((x * LUT_RADIUS) / radius) + LUT_RADIUS;
+            double ly = ((y * LUT_RADIUS) / radius) + LUT_RADIUS;
+            cumulate(weights, lx, ly);
+        }
+
+        store(weights);
+    }
+
+    //----------//
+    // cumulate //
+    //----------//
+    /**
+     * Distribute the bilinear interpolation weights of a point onto the 4 surrounding nodes.
+     *
+     * @param weights the node weights to update
+     * @param lx      point abscissa in LUT
+     * @param ly      point ordinate in LUT
+     */
+    private static void cumulate (double[] weights,
+                                  double lx,
+                                  double ly)
+    {
+        if ((lx < 0) || (lx >= LUT_SIZE) || (ly < 0) || (ly >= LUT_SIZE)) {
+            return;
+        }
+
+        final int x = (int) lx;
+        final int y = (int) ly;
+        final double ix = lx - x;
+        final double iy = ly - y;
+        final int node = (x * SIDE) + y;
+
+        weights[node] += (1 - ix) * (1 - iy);
+        weights[node + 1] += (1 - ix) * iy;
+        weights[node + SIDE] += ix * (1 - iy);
+        weights[node + SIDE + 1] += ix * iy;
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Combine node weights with basis values, and save the results into the descriptor.
+     *
+     * @param weights the cumulated node weights
+     */
+    private void store (double[] weights)
+    {
+        final int stride = 2 * COUNT;
+        final double[] coeffs = new double[stride]; // Real parts, then imaginary parts
+
+        for (int node = 0, nodes = weights.length; node < nodes; node++) {
+            final double w = weights[node];
+
+            if ((w != 0) && inCircle[node]) {
+                for (int k = 0, b = node * stride; k < stride; k++, b++) {
+                    coeffs[k] += w * basis[b];
+                }
+            }
+        }
+
+        // Save to descriptor
+        for (int p = 0; p < ANGULAR; p++) {
+            for (int r = 0; r < RADIAL; r++) {
+                final int k = (p * RADIAL) + r;
+                double real = coeffs[k] / mass;
+                double imag = -coeffs[COUNT + k] / mass;
+                descriptor.setMoment(p, r, Math.hypot(imag, real));
+            }
+        }
+    }
+
+    //-----------//
+    // initBasis //
+    //-----------//
+    /**
+     * Compute, once for all, the flattened basis values.
+     * Nodes on or outside unit circle, as well as the trailing nodes, are left to zero.
+     */
+    private static void initBasis ()
+    {
+        for (int x = 0; x < LUT_SIZE; x++) {
+            double tx = (x - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+
+            for (int y = 0; y < LUT_SIZE; y++) {
+                double ty = (y - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+                double rad = Math.hypot(tx, ty); // [0..sqrt(2)]
+
+                if (rad < 1) {
+                    // We are within unit circle
+                    final double angle = Math.atan2(ty, tx);
+                    final int node = (x * SIDE) + y;
+                    final int base = node * 2 * COUNT;
+                    inCircle[node] = true;
+
+                    for (int p = 0; p < ANGULAR; p++) {
+                        for (int r = 0; r < RADIAL; r++) {
+                            final int k = (p * RADIAL) + r;
+                            double temp = Math.cos(rad * Math.PI * r);
+                            basis[base + k] = temp * Math.cos(angle * p);
+                            basis[base + COUNT + k] = temp * Math.sin(angle * p);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -23,6 +23,8 @@ package org.audiveris.omr.run;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.image.PixelSource.BACKGROUND;
 import org.audiveris.omr.math.PointUtil;
@@ -31,6 +33,7 @@ import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.BasicARTExtractor;
 import org.audiveris.omr.moments.BasicARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.RunARTExtractor;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
 import org.audiveris.omr.util.Jaxb;
@@ -46,6 +49,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -105,6 +109,8 @@ public class RunTable
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(RunTable.class);
 
     /** Un/marshalling context for use with JAXB. */
@@ -219,6 +225,8 @@ public class RunTable
             sequences[index] = sequence = new RunSequence();
         }
 
+        sequence.invalidateIndex();
+
         int[] rle = sequence.rle;
         Itr it = new Itr(index);
 
@@ -312,6 +320,8 @@ public class RunTable
     //-------------------//
     /**
      * Compute the Angular Radial Transform moments for this runTable
+     * <p>
+     * Unless disabled, moments are extracted directly from runs, see {@link RunARTExtractor}.
      *
      * @param left abscissa of topLeft corner (TODO: useful?)
      * @param top  ordinate of topLeft corner (TODO: useful?)
@@ -320,6 +330,15 @@ public class RunTable
     public ARTMoments computeArtMoments (int left,
                                          int top)
     {
+        if (constants.useRunArtExtractor.isSet()) {
+            ARTMoments artMoments = new BasicARTMoments();
+            RunARTExtractor extractor = new RunARTExtractor();
+            extractor.setDescriptor(artMoments);
+            extractor.extract(this);
+
+            return artMoments;
+        }
+
         // Retrieve glyph foreground points
         final PointsCollector collector = new PointsCollector(null, getWeight());
         cumulate(collector, new Point(left, top));
@@ -452,6 +471,32 @@ public class RunTable
         return clone;
     }
 
+    //-----------------//
+    // countForeground //
+    //-----------------//
+    /**
+     * Count the foreground pixels of a sequence, within the provided coordinate range.
+     * <p>
+     * This browses the sequence runs, with no pixel access and no allocation.
+     *
+     * @param index index of sequence (abscissa for vertical runs, ordinate for horizontal runs)
+     * @param from  first coordinate of range
+     * @param to    last coordinate of range
+     * @return the count of foreground pixels in [from..to]
+     */
+    public int countForeground (int index,
+                                int from,
+                                int to)
+    {
+        if ((index < 0) || (index >= sequences.length)) {
+            return 0;
+        }
+
+        final RunSequence seq = sequences[index];
+
+        return (seq != null) ? seq.countForeground(from, to) : 0;
+    }
+
     //----------//
     // cumulate //
     //----------//
@@ -760,7 +805,10 @@ public class RunTable
     /**
      * {@inheritDoc}
      * <p>
-     * <b>Beware</b>, this implementation is not efficient enough for bulk operations.
+     * Unless disabled, this implementation uses the index of the sequence starts, and thus
+     * performs a binary search with no allocation.
+     * <p>
+     * <b>Beware</b>, this is still not as efficient as a buffer for bulk operations.
      * For such needs, a much more efficient way is to first retrieve a full buffer, via {@link
      * #getBuffer()} method, then use this temporary buffer as the {@link PixelSource} instead of
      * this table.
@@ -773,6 +821,24 @@ public class RunTable
     public final int get (int x,
                           int y)
     {
+        if (constants.useSequenceIndex.isSet()) {
+            final int iSeq = (orientation == HORIZONTAL) ? y : x;
+
+            if ((iSeq < 0) || (iSeq >= sequences.length)) {
+                return BACKGROUND;
+            }
+
+            final RunSequence seq = sequences[iSeq];
+
+            if (seq == null) {
+                return BACKGROUND;
+            }
+
+            final int coord = (orientation == HORIZONTAL) ? x : y;
+
+            return (seq.indexOf(coord) != -1) ? 0 : BACKGROUND;
+        }
+
         Run run = getRunAt(x, y);
 
         return (run != null) ? 0 : BACKGROUND;
@@ -893,6 +959,18 @@ public class RunTable
 
         final int coord = (orientation == HORIZONTAL) ? x : y;
 
+        if (constants.useSequenceIndex.isSet()) {
+            final RunSequence seq = sequences[iSeq];
+
+            if (seq == null) {
+                return null;
+            }
+
+            final int i = seq.indexOf(coord);
+
+            return (i != -1) ? new Run(seq.getStart(i), seq.getLength(i)) : null;
+        }
+
         for (Itr it = new Itr(iSeq); it.hasNext();) {
             Run run = it.next();
 
@@ -994,7 +1072,7 @@ public class RunTable
     // unmarshal //
     //-----------//
     /**
-     * Unmarshal a RunTable from a file.
+     * Unmarshal a RunTable from a file, written either in XML or in binary format.
      *
      * @param path path to file
      * @return unmarshalled run table
@@ -1004,8 +1082,7 @@ public class RunTable
         logger.debug("RunTable unmarshalling {}", path);
 
         try (InputStream is = Files.newInputStream(path, StandardOpenOption.READ)) {
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-            RunTable runTable = (RunTable) um.unmarshal(is);
+            RunTable runTable = unmarshal(is);
             logger.debug("Unmarshalled {}", runTable);
 
             return runTable;
@@ -1017,6 +1094,32 @@ public class RunTable
         }
     }
 
+    //-----------//
+    // unmarshal //
+    //-----------//
+    /**
+     * Unmarshal a RunTable from an input stream, written either in XML or in binary format.
+     *
+     * @param is the input stream, read until its end
+     * @return unmarshalled run table
+     * @throws IOException   on IO error or corrupted binary data
+     * @throws JAXBException on JAXB error
+     */
+    public static RunTable unmarshal (InputStream is)
+            throws IOException,
+                   JAXBException
+    {
+        final byte[] bytes = RunTableCodec.readFully(is);
+
+        if (RunTableCodec.isBinary(bytes)) {
+            return RunTableCodec.decode(bytes);
+        }
+
+        final Unmarshaller um = getJaxbContext().createUnmarshaller();
+
+        return (RunTable) um.unmarshal(new ByteArrayInputStream(bytes));
+    }
+
     //----------//
     // getWidth //
     //----------//
@@ -1055,10 +1158,11 @@ public class RunTable
      * Include the content of the provided table into this one.
      * <p>
      * The tables must have the same dimension and orientation.
+     * Sequences are merged directly at RLE level, see {@link RunTables}.
      *
      * @param that the table of runs to include into this one
      */
-    public void include (RunTable that)
+    public void include (final RunTable that)
     {
         if (that == null) {
             throw new IllegalArgumentException("Cannot include a null RunTable");
@@ -1077,12 +1181,9 @@ public class RunTable
             throw new IllegalArgumentException("Cannot include a RunTable of different height");
         }
 
-        for (int row = 0, size = getSize(); row < size; row++) {
-            for (Itr it = that.new Itr(row); it.hasNext();) {
-                Run thatRun = it.next();
-                addRun(row, thatRun);
-            }
-        }
+        RunTables.forEachSequence(
+                getSize(),
+                i -> setSequence(i, RunTables.union(sequences[i], that.sequences[i])));
     }
 
     //------------//
@@ -1249,16 +1350,46 @@ public class RunTable
             }
         }
 
+        // Each sequence is re-encoded at most once
+        final Run run = new Run(-1, -1); // Reusable run structure
+
         for (int i = 0, size = getSize(); i < size; i++) {
-            for (Itr it = new Itr(i); it.hasNext();) {
-                Run run = it.next();
+            final RunSequence seq = sequences[i];
+
+            if (seq == null) {
+                continue;
+            }
+
+            final int[] runs = seq.toRuns();
+            final int count = runs.length / 2;
+            final int[] purged = new int[runs.length];
+            int kept = 0;
+            int nPurged = 0;
+
+            for (int k = 0; k < count; k++) {
+                final int start = runs[2 * k];
+                final int length = runs[(2 * k) + 1];
+                run.setStart(start);
+                run.setLength(length);
 
                 if (predicate.test(run)) {
-                    it.remove();
+                    purged[2 * nPurged] = start;
+                    purged[(2 * nPurged) + 1] = length;
+                    nPurged++;
+                } else {
+                    runs[2 * kept] = start;
+                    runs[(2 * kept) + 1] = length;
+                    kept++;
+                }
+            }
 
-                    if (removed != null) {
-                        removed.addRun(i, run);
-                    }
+            if (nPurged > 0) {
+                setSequence(i, encode(runs, kept));
+
+                if (removed != null) {
+                    removed.setSequence(
+                            i,
+                            RunTables.union(removed.sequences[i], encode(purged, nPurged)));
                 }
             }
         }
@@ -1420,6 +1551,23 @@ public class RunTable
         sequences[index] = encode(list);
     }
 
+    //-------------//
+    // setSequence //
+    //-------------//
+    /**
+     * Set a whole run sequence, from flat primitive data.
+     *
+     * @param index position in sequences list
+     * @param runs  (start, length) pairs of the runs, sorted by increasing start
+     * @param count number of runs to consider in runs array
+     */
+    public void setSequence (int index,
+                             int[] runs,
+                             int count)
+    {
+        setSequence(index, encode(runs, count));
+    }
+
     //----------//
     // toString //
     //----------//
@@ -1565,6 +1713,32 @@ public class RunTable
         }
     }
 
+    //---------------------//
+    // isSequenceIndexUsed //
+    //---------------------//
+    /**
+     * Report whether random access to runs uses the index of run starts.
+     *
+     * @return true if so
+     */
+    public static boolean isSequenceIndexUsed ()
+    {
+        return constants.useSequenceIndex.isSet();
+    }
+
+    //---------------------//
+    // setUseSequenceIndex //
+    //---------------------//
+    /**
+     * Set whether random access to runs should use the index of run starts.
+     *
+     * @param bool true to use index, false to iterate through sequences
+     */
+    public static void setUseSequenceIndex (boolean bool)
+    {
+        constants.useSequenceIndex.setValue(bool);
+    }
+
     //----------------//
     // getJaxbContext //
     //----------------//
@@ -1629,6 +1803,54 @@ public class RunTable
         return new RunSequence(rle);
     }
 
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * (Package-private) method to encode an array of runs into a table sequence.
+     * <p>
+     * This is a variant of {@link #encode(List)} working on flat primitive data, with no Run
+     * instance to be allocated.
+     *
+     * @param runs  (start, length) pairs of the runs, sorted by increasing start
+     * @param count number of runs (not the number of cells) to consider in runs array
+     * @return the sequence ready to be inserted into table
+     */
+    static RunSequence encode (int[] runs,
+                               int count)
+    {
+        if (count == 0) {
+            return null;
+        }
+
+        final int firstStart = runs[0];
+        final boolean injectZero = firstStart != 0;
+        final int[] rle = new int[((2 * count) - 1) + (injectZero ? 2 : 0)];
+        int cursor = 0;
+        int length = 0;
+
+        if (injectZero) {
+            // Insert an empty foreground length
+            rle[cursor++] = 0;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final int start = runs[2 * i];
+            final int runLength = runs[(2 * i) + 1];
+
+            if (cursor > 0) {
+                // Inject background
+                rle[cursor++] = start - length;
+            }
+
+            // Inject foreground
+            rle[cursor++] = runLength;
+            length = start + runLength;
+        }
+
+        return new RunSequence(rle);
+    }
+
     //-------------//
     // getSequence //
     //-------------//
@@ -1656,6 +1878,7 @@ public class RunTable
                             RunSequence seq)
     {
         sequences[index] = seq;
+        weight = null; // Invalidate cached data
     }
 
     //--------------//
@@ -1716,6 +1939,10 @@ public class RunTable
     //-------------//
     /**
      * (package private) Sequence of runs, using run-length encoding.
+     * <p>
+     * For random access, a secondary index can be lazily built, which records the start of each
+     * foreground run.
+     * Any modification of rle content must invalidate this index.
      */
     @XmlAccessorType(XmlAccessType.FIELD)
     @XmlRootElement(name = "runs")
@@ -1725,6 +1952,12 @@ public class RunTable
         @XmlValue
         private int[] rle;
 
+        /** Lazily built index: start of each foreground run. */
+        private transient volatile int[] starts;
+
+        /** Position in rle of first foreground run (0 or 2). */
+        private transient int first;
+
         RunSequence (int[] rle)
         {
             this.rle = rle;
@@ -1759,6 +1992,193 @@ public class RunTable
             return hash;
         }
 
+        /**
+         * Report a deep copy of this sequence.
+         *
+         * @return a copy, or null if sequence is empty
+         */
+        RunSequence copy ()
+        {
+            if ((rle == null) || (size() == 0)) {
+                return null;
+            }
+
+            return new RunSequence(Arrays.copyOf(rle, rle.length));
+        }
+
+        /**
+         * Count the foreground pixels within the provided coordinate range.
+         *
+         * @param from first coordinate of range
+         * @param to   last coordinate of range
+         * @return the count of foreground pixels in [from..to]
+         */
+        int countForeground (int from,
+                             int to)
+        {
+            if (rle == null) {
+                return 0;
+            }
+
+            int count = 0;
+            int loc = 0;
+
+            for (int c = 0; (c < rle.length) && (loc <= to); c += 2) {
+                final int lo = Math.max(loc, from);
+                final int hi = Math.min((loc + rle[c]) - 1, to);
+
+                if (hi >= lo) {
+                    count += (hi - lo + 1);
+                }
+
+                loc += rle[c];
+
+                if ((c + 1) < rle.length) {
+                    loc += rle[c + 1];
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * Report the underlying rle array (not a copy).
+         *
+         * @return the rle values, perhaps null
+         */
+        int[] getRle ()
+        {
+            return rle;
+        }
+
+        /**
+         * Report the foreground runs of this sequence, as flat (start, length) pairs.
+         *
+         * @return a new array of 2 * size() cells
+         */
+        int[] toRuns ()
+        {
+            final int count = size();
+            final int[] runs = new int[2 * count];
+
+            if (count > 0) {
+                int c = (rle[0] == 0) ? 2 : 0;
+                int loc = (c == 2) ? rle[1] : 0;
+
+                for (int i = 0; i < count; i++, c += 2) {
+                    runs[2 * i] = loc;
+                    runs[(2 * i) + 1] = rle[c];
+                    loc += rle[c];
+
+                    if ((c + 1) < rle.length) {
+                        loc += rle[c + 1];
+                    }
+                }
+            }
+
+            return runs;
+        }
+
+        /**
+         * Report the length of foreground run at provided index.
+         * Index must have been built beforehand.
+         *
+         * @param i index of foreground run in sequence
+         * @return run length
+         */
+        int getLength (int i)
+        {
+            return rle[first + (2 * i)];
+        }
+
+        /**
+         * Report the start of foreground run at provided index.
+         * Index must have been built beforehand.
+         *
+         * @param i index of foreground run in sequence
+         * @return run start
+         */
+        int getStart (int i)
+        {
+            return starts[i];
+        }
+
+        /**
+         * Report the index of the foreground run that contains the provided coordinate.
+         * <p>
+         * This is a binary search on the index of run starts, built if needed.
+         *
+         * @param coord provided coordinate
+         * @return index of containing run, or -1 if coordinate is in background
+         */
+        int indexOf (int coord)
+        {
+            final int[] st = getStarts();
+
+            // Look for last run starting at or before coord
+            int lo = 0;
+            int hi = st.length - 1;
+
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+
+                if (st[mid] <= coord) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+
+            if ((hi >= 0) && (coord < (st[hi] + rle[first + (2 * hi)]))) {
+                return hi;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Discard the index of run starts, since rle has been modified.
+         */
+        void invalidateIndex ()
+        {
+            starts = null;
+        }
+
+        /**
+         * Report the index of run starts, building it if needed.
+         *
+         * @return the starts of foreground runs
+         */
+        private int[] getStarts ()
+        {
+            int[] st = starts;
+
+            if (st == null) {
+                final int count = size();
+                st = new int[count];
+
+                if (count > 0) {
+                    final int f = (rle[0] == 0) ? 2 : 0;
+                    int loc = (f == 2) ? rle[1] : 0;
+
+                    for (int i = 0, c = f; i < count; i++, c += 2) {
+                        st[i] = loc;
+                        loc += rle[c];
+
+                        if ((c + 1) < rle.length) {
+                            loc += rle[c + 1];
+                        }
+                    }
+
+                    first = f;
+                }
+
+                starts = st;
+            }
+
+            return st;
+        }
+
         /**
          * Report the number of foreground runs in this sequence
          *
@@ -1911,6 +2331,7 @@ public class RunTable
                     // (FB)F... -> 0(B')F...
                     rle[1] = rle[0] + rle[1];
                     rle[0] = 0;
+                    sequences[index].invalidateIndex();
                 }
             } else {
                 final int[] newRle = new int[rle.length - 2];
@@ -1935,4 +2356,20 @@ public class RunTable
             }
         }
     }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useSequenceIndex = new Constant.Boolean(
+                true,
+                "Should we use an index of run starts for random access to sequences?");
+
+        private final Constant.Boolean useRunArtExtractor = new Constant.Boolean(
+                true,
+                "Should we extract ART moments directly from runs?");
+    }
 }
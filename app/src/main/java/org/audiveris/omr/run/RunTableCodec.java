@@ -0,0 +1,487 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R u n T a b l e C o d e c                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.RunTable.RunSequence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Class {@code RunTableCodec} handles the binary format of a {@link RunTable}.
+ * <p>
+ * This format is much more compact and much faster to read than the XML format, since each
+ * RLE integer is written as a variable-length integer (7 bits per byte, least significant group
+ * first) rather than as text.
+ * <pre>
+ * magic       4 bytes  'O' 'R' 'T' 'B'
+ * version     1 byte   (currently 1)
+ * flags       1 byte   (bit 0: offset table present)
+ * orientation 1 byte   (ordinal of Orientation)
+ * width       varint
+ * height      varint
+ * count       varint   (number of sequences)
+ * offsets     count * 4 bytes (optional, big-endian offset of each sequence within payload)
+ * payload     for each sequence: rle length as varint, then each rle value as varint
+ * checksum    4 bytes  (big-endian CRC32 of all preceding bytes)
+ * </pre>
+ * An empty sequence is written with a zero rle length.
+ * <p>
+ * The offset table allows to read any sequence directly from the encoded bytes
+ * (see {@link #readSequence(byte[], int)}), without decoding the whole table.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTableCodec
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    /** Magic bytes at beginning of binary format. */
+    private static final byte[] MAGIC = new byte[]{'O', 'R', 'T', 'B'};
+
+    /** Current format version. */
+    public static final int VERSION = 1;
+
+    /** Flag for presence of offset table. */
+    private static final int OFFSETS_FLAG = 0x01;
+
+    /** Size of fixed header part: magic, version, flags, orientation. */
+    private static final int FIXED_HEADER = MAGIC.length + 3;
+
+    /** Size of checksum. */
+    private static final int CHECKSUM_SIZE = 4;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /** Not meant to be instantiated. */
+    private RunTableCodec ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // decode //
+    //--------//
+    /**
+     * Decode a run table from the provided bytes.
+     *
+     * @param bytes the encoded bytes
+     * @return the decoded table
+     * @throws IOException if format is not recognized or if data is corrupted
+     */
+    public static RunTable decode (byte[] bytes)
+            throws IOException
+    {
+        final Reader reader = new Reader(bytes);
+        final RunTable table = new RunTable(reader.orientation, reader.width, reader.height);
+
+        for (int i = 0; i < reader.count; i++) {
+            final int[] rle = reader.nextRle();
+
+            if (rle.length > 0) {
+                table.setSequence(i, new RunSequence(rle));
+            }
+        }
+
+        return table;
+    }
+
+    //--------//
+    // decode //
+    //--------//
+    /**
+     * Decode a run table from the provided input stream, read until its end.
+     *
+     * @param is the input stream
+     * @return the decoded table
+     * @throws IOException if format is not recognized or if data is corrupted
+     */
+    public static RunTable decode (InputStream is)
+            throws IOException
+    {
+        return decode(readFully(is));
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * Encode the provided run table.
+     *
+     * @param table      the table to encode
+     * @param withOffset true for an offset table to be included
+     * @return the encoded bytes
+     */
+    public static byte[] encode (RunTable table,
+                                 boolean withOffset)
+    {
+        final int count = table.getSize();
+        final int[] offsets = withOffset ? new int[count] : null;
+        final Buffer payload = new Buffer();
+
+        for (int i = 0; i < count; i++) {
+            if (offsets != null) {
+                offsets[i] = payload.size();
+            }
+
+            final RunSequence seq = table.getSequence(i);
+            final int[] rle = (seq != null) ? seq.getRle() : null;
+
+            if (rle == null) {
+                payload.writeVarint(0);
+            } else {
+                payload.writeVarint(rle.length);
+
+                for (int val : rle) {
+                    payload.writeVarint(val);
+                }
+            }
+        }
+
+        final Buffer out = new Buffer();
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        out.write(withOffset ? OFFSETS_FLAG : 0);
+        out.write(table.getOrientation().ordinal());
+        out.writeVarint(table.getWidth());
+        out.writeVarint(table.getHeight());
+        out.writeVarint(count);
+
+        if (offsets != null) {
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+        }
+
+        payload.writeTo(out);
+
+        final CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.size());
+        out.writeInt((int) crc.getValue());
+
+        return out.toByteArray();
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * Encode the provided run table to the provided output stream.
+     *
+     * @param table the table to encode
+     * @param os    the output stream
+     * @throws IOException on IO error
+     */
+    public static void encode (RunTable table,
+                               OutputStream os)
+            throws IOException
+    {
+        os.write(encode(table, constants.writeOffsets.isSet()));
+    }
+
+    //----------//
+    // isBinary //
+    //----------//
+    /**
+     * Report whether the provided bytes begin with the binary format magic.
+     *
+     * @param bytes the bytes to check
+     * @return true if binary format
+     */
+    public static boolean isBinary (byte[] bytes)
+    {
+        if (bytes.length < MAGIC.length) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //--------//
+    // isUsed //
+    //--------//
+    /**
+     * Report whether tables are persisted in binary format.
+     *
+     * @return true if binary format is used
+     */
+    public static boolean isUsed ()
+    {
+        return constants.useBinaryFormat.isSet();
+    }
+
+    //-----------//
+    // readFully //
+    //-----------//
+    /**
+     * Read all the bytes of the provided input stream.
+     *
+     * @param is the input stream
+     * @return all the bytes until end of stream
+     * @throws IOException on IO error
+     */
+    public static byte[] readFully (InputStream is)
+            throws IOException
+    {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream(1 << 16);
+        final byte[] chunk = new byte[1 << 16];
+
+        for (int n; (n = is.read(chunk)) != -1;) {
+            bos.write(chunk, 0, n);
+        }
+
+        return bos.toByteArray();
+    }
+
+    //--------------//
+    // readSequence //
+    //--------------//
+    /**
+     * Read just one sequence from encoded bytes, using their offset table.
+     *
+     * @param bytes the encoded bytes, which must include an offset table
+     * @param index index of desired sequence
+     * @return the rle values of the sequence, perhaps an empty array
+     * @throws IOException if bytes are corrupted or have no offset table
+     */
+    public static int[] readSequence (byte[] bytes,
+                                      int index)
+            throws IOException
+    {
+        final Reader reader = new Reader(bytes);
+
+        if (!reader.hasOffsets) {
+            throw new IOException("No offset table");
+        }
+
+        if ((index < 0) || (index >= reader.count)) {
+            throw new IndexOutOfBoundsException("Sequence index " + index);
+        }
+
+        reader.pos = reader.payload + reader.readIntAt(reader.offsets + (4 * index));
+
+        if ((reader.pos < reader.payload) || (reader.pos >= reader.limit)) {
+            throw new IOException("Corrupted run table, illegal offset for sequence " + index);
+        }
+
+        return reader.nextRle();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //--------//
+    // Buffer //
+    //--------//
+    /**
+     * Growable byte buffer, with direct access to its content.
+     */
+    private static class Buffer
+            extends ByteArrayOutputStream
+    {
+
+        Buffer ()
+        {
+            super(1 << 16);
+        }
+
+        byte[] array ()
+        {
+            return buf;
+        }
+
+        void writeInt (int val)
+        {
+            write(val >>> 24);
+            write(val >>> 16);
+            write(val >>> 8);
+            write(val);
+        }
+
+        void writeVarint (int val)
+        {
+            while ((val & ~0x7F) != 0) {
+                write((val & 0x7F) | 0x80);
+                val >>>= 7;
+            }
+
+            write(val);
+        }
+
+        void writeTo (Buffer other)
+        {
+            other.write(buf, 0, count);
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useBinaryFormat = new Constant.Boolean(
+                true,
+                "Should run tables be persisted in binary format rather than XML?");
+
+        private final Constant.Boolean writeOffsets = new Constant.Boolean(
+                false,
+                "Should binary run tables include an offset table for random sequence access?");
+    }
+
+    //--------//
+    // Reader //
+    //--------//
+    /**
+     * Sequential reader on encoded bytes, which checks header and checksum.
+     */
+    private static class Reader
+    {
+
+        final byte[] bytes;
+
+        final Orientation orientation;
+
+        final int width;
+
+        final int height;
+
+        final int count;
+
+        final boolean hasOffsets;
+
+        /** Position of offset table. */
+        final int offsets;
+
+        /** Position of payload. */
+        final int payload;
+
+        /** Limit of payload. */
+        final int limit;
+
+        /** Current position. */
+        int pos;
+
+        Reader (byte[] bytes)
+                throws IOException
+        {
+            this.bytes = bytes;
+
+            if (!isBinary(bytes) || (bytes.length < (FIXED_HEADER + CHECKSUM_SIZE))) {
+                throw new IOException("Not a binary run table");
+            }
+
+            final int version = bytes[MAGIC.length] & 0xFF;
+
+            if (version > VERSION) {
+                throw new IOException("Unsupported run table version " + version);
+            }
+
+            limit = bytes.length - CHECKSUM_SIZE;
+
+            final CRC32 crc = new CRC32();
+            crc.update(bytes, 0, limit);
+
+            if ((int) crc.getValue() != readIntAt(limit)) {
+                throw new IOException("Corrupted run table, checksum mismatch");
+            }
+
+            hasOffsets = (bytes[MAGIC.length + 1] & OFFSETS_FLAG) != 0;
+
+            final int ordinal = bytes[MAGIC.length + 2] & 0xFF;
+
+            if (ordinal >= Orientation.values().length) {
+                throw new IOException("Illegal run table orientation " + ordinal);
+            }
+
+            orientation = Orientation.values()[ordinal];
+            pos = FIXED_HEADER;
+            width = nextVarint();
+            height = nextVarint();
+            count = nextVarint();
+
+            if (count != (orientation.isVertical() ? width : height)) {
+                throw new IOException("Inconsistent run table sequence count " + count);
+            }
+
+            offsets = pos;
+            payload = hasOffsets ? (offsets + (4 * count)) : offsets;
+            pos = payload;
+        }
+
+        int[] nextRle ()
+                throws IOException
+        {
+            final int length = nextVarint();
+
+            if (length > (limit - pos)) {
+                throw new IOException("Corrupted run table, illegal sequence length " + length);
+            }
+
+            final int[] rle = new int[length];
+
+            for (int i = 0; i < length; i++) {
+                rle[i] = nextVarint();
+            }
+
+            return rle;
+        }
+
+        int nextVarint ()
+                throws IOException
+        {
+            int val = 0;
+
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= limit) {
+                    throw new IOException("Corrupted run table, unexpected end of data");
+                }
+
+                final int b = bytes[pos++];
+                val |= (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return val;
+                }
+            }
+
+            throw new IOException("Corrupted run table, illegal varint");
+        }
+
+        int readIntAt (int at)
+        {
+            return ((bytes[at] & 0xFF) << 24) | ((bytes[at + 1] & 0xFF) << 16)
+                           | ((bytes[at + 2] & 0xFF) << 8) | (bytes[at + 3] & 0xFF);
+        }
+    }
+}
@@ -26,12 +26,21 @@ import ij.process.ByteProcessor;
 import net.jcip.annotations.NotThreadSafe;
 import net.jcip.annotations.ThreadSafe;
 
+import org.audiveris.omr.image.ParallelFilter;
+import org.audiveris.omr.run.RunTables.RunLists;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code RunTableFactory} retrieves the runs structure out of a given pixel
@@ -120,6 +129,225 @@ public class RunTableFactory
         return table;
     }
 
+    // ------------//
+    // createTable //
+    // ------------//
+    /**
+     * Report the RunTable created directly from the binarization of the provided filter.
+     * <p>
+     * The filter is consumed band per band, each band being binarized into a small buffer whose
+     * foreground runs are immediately extracted.
+     * No binary image of the whole source is ever allocated.
+     * <p>
+     * For horizontal runs, each band provides complete row sequences.
+     * For vertical runs, each band provides pieces of column sequences, which are stitched at band
+     * borders once all bands have been processed.
+     * The provided run filter, if any, is applied on complete runs only.
+     *
+     * @param source the binarization filter
+     * @return a populated RunTable, identical to the one built from filtered image
+     */
+    public RunTable createTable (final ParallelFilter source)
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final RunTable table = new RunTable(orientation, width, height);
+        final int bandHeight = source.getBandHeight();
+        final int bandCount = (height + bandHeight - 1) / bandHeight;
+        final RunLists[] bands = new RunLists[bandCount];
+
+        if ((bandCount <= 1) || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            for (int b = 0; b < bandCount; b++) {
+                bands[b] = processBand(source, table, b * bandHeight, bandHeight);
+            }
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>(bandCount);
+
+                for (int b = 0; b < bandCount; b++) {
+                    final int bb = b;
+                    tasks.add(() -> {
+                        bands[bb] = processBand(source, table, bb * bandHeight, bandHeight);
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Band runs retrieval got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in band runs retrieval", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+
+        if (orientation.isVertical()) {
+            stitchColumns(table, bands);
+        }
+
+        return table;
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Binarize one horizontal band and extract its foreground runs.
+     *
+     * @param source     the binarization filter
+     * @param table      the table to populate (directly for horizontal runs)
+     * @param y0         first row of band
+     * @param bandHeight nominal band height
+     * @return the column runs found in band (for vertical runs), null otherwise
+     */
+    private RunLists processBand (ParallelFilter source,
+                                  RunTable table,
+                                  int y0,
+                                  int bandHeight)
+    {
+        final int width = source.getWidth();
+        final int y1 = Math.min(source.getHeight(), y0 + bandHeight);
+        final byte[] buf = new byte[(y1 - y0) * width];
+        source.binarizeBand(y0, y1, buf, y0);
+
+        if (orientation.isVertical()) {
+            // Row-major browsing, with one pending run start per column
+            final RunLists bandRuns = new RunLists(width);
+            final int[] starts = new int[width];
+            Arrays.fill(starts, -1);
+
+            for (int y = y0; y < y1; y++) {
+                final int offset = (y - y0) * width;
+
+                for (int x = 0; x < width; x++) {
+                    if (buf[offset + x] == 0) {
+                        if (starts[x] == -1) {
+                            starts[x] = y;
+                        }
+                    } else if (starts[x] != -1) {
+                        bandRuns.add(x, starts[x], y - starts[x]);
+                        starts[x] = -1;
+                    }
+                }
+            }
+
+            // Runs still open at band bottom
+            for (int x = 0; x < width; x++) {
+                if (starts[x] != -1) {
+                    bandRuns.add(x, starts[x], y1 - starts[x]);
+                }
+            }
+
+            return bandRuns;
+        } else {
+            // Each row is a complete sequence
+            int[] runs = new int[16];
+
+            for (int y = y0; y < y1; y++) {
+                final int offset = (y - y0) * width;
+                int count = 0;
+                int start = -1;
+
+                for (int x = 0; x <= width; x++) {
+                    if ((x < width) && (buf[offset + x] == 0)) {
+                        if (start == -1) {
+                            start = x;
+                        }
+                    } else if (start != -1) {
+                        final int length = x - start;
+
+                        if ((filter == null) || filter.check(start, y, length)) {
+                            if ((2 * count) == runs.length) {
+                                runs = Arrays.copyOf(runs, 2 * runs.length);
+                            }
+
+                            runs[2 * count] = start;
+                            runs[(2 * count) + 1] = length;
+                            count++;
+                        }
+
+                        start = -1;
+                    }
+                }
+
+                table.setSequence(y, RunTable.encode(runs, count));
+            }
+
+            return null;
+        }
+    }
+
+    //---------------//
+    // stitchColumns //
+    //---------------//
+    /**
+     * Assemble the column sequences of the table, out of the runs found in each band.
+     * <p>
+     * Runs that touch a band border are merged with the adjacent run of next band, if any.
+     *
+     * @param table the vertical table to populate
+     * @param bands the runs found in each band, ordered by band ordinate
+     */
+    private void stitchColumns (RunTable table,
+                                RunLists[] bands)
+    {
+        int[] runs = new int[16];
+
+        for (int x = 0, width = table.getWidth(); x < width; x++) {
+            int count = 0;
+
+            for (RunLists band : bands) {
+                final int[] bandRuns = band.getRuns(x);
+
+                for (int i = 0, iBreak = band.getCount(x); i < iBreak; i++) {
+                    final int start = bandRuns[2 * i];
+                    final int length = bandRuns[(2 * i) + 1];
+
+                    if ((count > 0) && ((runs[2 * (count - 1)] + runs[(2 * count) - 1]) == start)) {
+                        // Continuation of previous run across band border
+                        runs[(2 * count) - 1] += length;
+                    } else {
+                        if ((2 * count) == runs.length) {
+                            runs = Arrays.copyOf(runs, 2 * runs.length);
+                        }
+
+                        runs[2 * count] = start;
+                        runs[(2 * count) + 1] = length;
+                        count++;
+                    }
+                }
+            }
+
+            if (filter != null) {
+                int kept = 0;
+
+                for (int i = 0; i < count; i++) {
+                    final int start = runs[2 * i];
+                    final int length = runs[(2 * i) + 1];
+
+                    if (filter.check(x, start, length)) {
+                        runs[2 * kept] = start;
+                        runs[(2 * kept) + 1] = length;
+                        kept++;
+                    }
+                }
+
+                count = kept;
+            }
+
+            table.setSequence(x, RunTable.encode(runs, count));
+        }
+    }
+
     //~ Inner Interfaces ---------------------------------------------------------------------------
     //--------//
     // Filter //
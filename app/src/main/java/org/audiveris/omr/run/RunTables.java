@@ -0,0 +1,784 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                       R u n T a b l e s                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.run.RunTable.RunSequence;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Class {@code RunTables} gathers operations performed directly on the run-length
+ * encoded sequences of {@link RunTable} instances, with no rasterization of pixels.
+ * <p>
+ * Set operations (union, intersection, subtraction) and morphological operations along the runs
+ * orientation (dilation, erosion) work sequence per sequence, in time linear with the number of
+ * runs of the sequence(s).
+ * Sequences being independent, they are processed in parallel on the high OMR executor, if
+ * parallelism is allowed.
+ * <p>
+ * Transposition (from HORIZONTAL to VERTICAL runs or vice versa) sweeps the sequences in order,
+ * in time linear with the number of runs plus the number of pixels where consecutive sequences
+ * differ.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTables
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTables.class);
+
+    /** Minimum number of sequences processed by a parallel task. */
+    private static final int MIN_CHUNK = 64;
+
+    /** Empty array of runs. */
+    private static final int[] NO_RUNS = new int[0];
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /** Not meant to be instantiated. */
+    private RunTables ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // dilation //
+    //----------//
+    /**
+     * Report the dilation of provided table along its runs orientation, that is each run
+     * being extended by radius on both sides.
+     *
+     * @param table  the table to dilate
+     * @param radius the extension on each run side
+     * @return the dilated table
+     */
+    public static RunTable dilation (final RunTable table,
+                                     final int radius)
+    {
+        final RunTable result = emptyCopy(table);
+        final int length = table.getOrientation().isVertical() ? table.getHeight()
+                : table.getWidth();
+
+        forEachSequence(table.getSize(), i -> {
+            final int[] runs = runsOf(table.getSequence(i));
+            final int count = runs.length / 2;
+            final int[] out = new int[runs.length];
+            int n = 0;
+
+            for (int k = 0; k < count; k++) {
+                final int start = Math.max(0, runs[2 * k] - radius);
+                final int stop = Math.min(length, runs[2 * k] + runs[(2 * k) + 1] + radius);
+                n = append(out, n, start, stop);
+            }
+
+            result.setSequence(i, RunTable.encode(out, n));
+        });
+
+        return result;
+    }
+
+    //---------//
+    // erosion //
+    //---------//
+    /**
+     * Report the erosion of provided table along its runs orientation, that is each run
+     * being shortened by radius on both sides.
+     * <p>
+     * Pixels outside the table are considered as background, so runs touching the table borders
+     * get shortened as well.
+     *
+     * @param table  the table to erode
+     * @param radius the reduction on each run side
+     * @return the eroded table
+     */
+    public static RunTable erosion (final RunTable table,
+                                    final int radius)
+    {
+        final RunTable result = emptyCopy(table);
+
+        forEachSequence(table.getSize(), i -> {
+            final int[] runs = runsOf(table.getSequence(i));
+            final int count = runs.length / 2;
+            int n = 0;
+
+            for (int k = 0; k < count; k++) {
+                final int start = runs[2 * k] + radius;
+                final int stop = (runs[2 * k] + runs[(2 * k) + 1]) - radius;
+
+                if (start < stop) {
+                    runs[2 * n] = start;
+                    runs[(2 * n) + 1] = stop - start;
+                    n++;
+                }
+            }
+
+            result.setSequence(i, RunTable.encode(runs, n));
+        });
+
+        return result;
+    }
+
+    //---------//
+    // include //
+    //---------//
+    /**
+     * Include the runs of source table, located at provided offset, into the target table.
+     * <p>
+     * Source table may have a different orientation and dimension than target table, source
+     * pixels that fall outside target table are ignored.
+     *
+     * @param target the table to be augmented
+     * @param source the table to include
+     * @param offset location of source top-left corner WRT target top-left corner
+     */
+    public static void include (RunTable target,
+                                RunTable source,
+                                Point offset)
+    {
+        final Orientation orientation = target.getOrientation();
+
+        if (source.getOrientation() != orientation) {
+            source = transposed(source);
+        }
+
+        final boolean vertical = orientation.isVertical();
+        final int dPos = vertical ? offset.x : offset.y;
+        final int dCoord = vertical ? offset.y : offset.x;
+        final int length = vertical ? target.getHeight() : target.getWidth();
+
+        for (int i = 0, size = source.getSize(); i < size; i++) {
+            final int pos = i + dPos;
+
+            if ((pos < 0) || (pos >= target.getSize())) {
+                continue;
+            }
+
+            final int[] runs = runsOf(source.getSequence(i));
+            final int count = runs.length / 2;
+            int n = 0;
+
+            for (int k = 0; k < count; k++) {
+                final int start = Math.max(0, runs[2 * k] + dCoord);
+                final int stop = Math.min(length, runs[2 * k] + runs[(2 * k) + 1] + dCoord);
+
+                if (start < stop) {
+                    runs[2 * n] = start;
+                    runs[(2 * n) + 1] = stop - start;
+                    n++;
+                }
+            }
+
+            if (n > 0) {
+                target.setSequence(
+                        pos,
+                        union(target.getSequence(pos), RunTable.encode(runs, n)));
+            }
+        }
+    }
+
+    //--------------//
+    // intersection //
+    //--------------//
+    /**
+     * Report the intersection of two tables.
+     *
+     * @param one a table
+     * @param two another table, of same orientation and dimension
+     * @return the pixels that belong to both tables
+     */
+    public static RunTable intersection (final RunTable one,
+                                         final RunTable two)
+    {
+        checkCompatible(one, two);
+
+        final RunTable result = emptyCopy(one);
+
+        forEachSequence(one.getSize(), i -> {
+            result.setSequence(
+                    i,
+                    intersection(one.getSequence(i), two.getSequence(i)));
+        });
+
+        return result;
+    }
+
+    //-------------//
+    // subtraction //
+    //-------------//
+    /**
+     * Report the subtraction of a table from another one.
+     *
+     * @param one a table
+     * @param two the table to remove from 'one', of same orientation and dimension
+     * @return the pixels of 'one' that don't belong to 'two'
+     */
+    public static RunTable subtraction (final RunTable one,
+                                        final RunTable two)
+    {
+        checkCompatible(one, two);
+
+        final RunTable result = emptyCopy(one);
+
+        forEachSequence(one.getSize(), i -> {
+            result.setSequence(
+                    i,
+                    subtraction(one.getSequence(i), two.getSequence(i)));
+        });
+
+        return result;
+    }
+
+    //------------//
+    // transposed //
+    //------------//
+    /**
+     * Report a table with the same pixels as the provided table, but with the other
+     * runs orientation.
+     *
+     * @param table the provided table
+     * @return the equivalent table with switched orientation
+     */
+    public static RunTable transposed (RunTable table)
+    {
+        final boolean vertical = table.getOrientation().isVertical();
+        final Orientation newOrientation = vertical ? Orientation.HORIZONTAL
+                : Orientation.VERTICAL;
+        final RunTable result = new RunTable(newOrientation, table.getWidth(), table.getHeight());
+        final int newSize = result.getSize();
+        final RunLists lists = new RunLists(newSize);
+        final int[] opens = new int[newSize]; // Where each pending new run started
+        int[] prev = NO_RUNS;
+
+        for (int p = 0, size = table.getSize(); p <= size; p++) {
+            final int[] cur = (p < size) ? runsOf(table.getSequence(p)) : NO_RUNS;
+
+            // Coordinates starting a new run
+            final int[] starting = subtraction(cur, prev);
+
+            for (int k = 0, count = starting.length / 2; k < count; k++) {
+                for (int c = starting[2 * k], stop = c + starting[(2 * k) + 1]; c < stop; c++) {
+                    opens[c] = p;
+                }
+            }
+
+            // Coordinates ending a run
+            final int[] ending = subtraction(prev, cur);
+
+            for (int k = 0, count = ending.length / 2; k < count; k++) {
+                for (int c = ending[2 * k], stop = c + ending[(2 * k) + 1]; c < stop; c++) {
+                    lists.add(c, opens[c], p - opens[c]);
+                }
+            }
+
+            prev = cur;
+        }
+
+        for (int i = 0; i < newSize; i++) {
+            result.setSequence(i, RunTable.encode(lists.getRuns(i), lists.getCount(i)));
+        }
+
+        return result;
+    }
+
+    //-------//
+    // union //
+    //-------//
+    /**
+     * Report the union of two tables.
+     *
+     * @param one a table
+     * @param two another table, of same orientation and dimension
+     * @return the pixels that belong to at least one table
+     */
+    public static RunTable union (final RunTable one,
+                                  final RunTable two)
+    {
+        checkCompatible(one, two);
+
+        final RunTable result = emptyCopy(one);
+
+        forEachSequence(one.getSize(), i -> {
+            result.setSequence(i, union(one.getSequence(i), two.getSequence(i)));
+        });
+
+        return result;
+    }
+
+    //-------//
+    // union //
+    //-------//
+    /**
+     * Report the union of two tables located at different offsets within a common
+     * rectangle, such as the parts of a compound glyph.
+     * <p>
+     * The result is computed sequentially, since it is meant for small tables.
+     *
+     * @param one       a table
+     * @param oneOffset location of 'one' top-left corner, relative to result top-left corner
+     * @param two       another table, of same orientation
+     * @param twoOffset location of 'two' top-left corner, relative to result top-left corner
+     * @param width     result width, large enough to contain both tables at their offset
+     * @param height    result height, large enough to contain both tables at their offset
+     * @return the pixels that belong to at least one table
+     */
+    public static RunTable union (RunTable one,
+                                  Point oneOffset,
+                                  RunTable two,
+                                  Point twoOffset,
+                                  int width,
+                                  int height)
+    {
+        if (two.getOrientation() != one.getOrientation()) {
+            throw new IllegalArgumentException(
+                    "Cannot combine with a RunTable of different orientation");
+        }
+
+        final boolean vertical = one.getOrientation().isVertical();
+        final RunTable result = new RunTable(one.getOrientation(), width, height);
+
+        // Shift of sequence index and of run start, for each table
+        final int oneIndexShift = vertical ? oneOffset.x : oneOffset.y;
+        final int oneStartShift = vertical ? oneOffset.y : oneOffset.x;
+        final int twoIndexShift = vertical ? twoOffset.x : twoOffset.y;
+        final int twoStartShift = vertical ? twoOffset.y : twoOffset.x;
+
+        for (int i = 0; i < result.getSize(); i++) {
+            final int iOne = i - oneIndexShift;
+            final int iTwo = i - twoIndexShift;
+            final int[] a = ((iOne >= 0) && (iOne < one.getSize()))
+                    ? runsOf(one.getSequence(iOne)) : NO_RUNS;
+            final int[] b = ((iTwo >= 0) && (iTwo < two.getSize()))
+                    ? runsOf(two.getSequence(iTwo)) : NO_RUNS;
+            final int[] out = new int[a.length + b.length];
+            int n = 0;
+            int k = 0;
+            int j = 0;
+
+            while ((k < a.length) || (j < b.length)) {
+                final int aStart = (k < a.length) ? (a[k] + oneStartShift) : Integer.MAX_VALUE;
+                final int bStart = (j < b.length) ? (b[j] + twoStartShift) : Integer.MAX_VALUE;
+
+                if (aStart <= bStart) {
+                    n = append(out, n, aStart, aStart + a[k + 1]);
+                    k += 2;
+                } else {
+                    n = append(out, n, bStart, bStart + b[j + 1]);
+                    j += 2;
+                }
+            }
+
+            result.setSequence(i, RunTable.encode(out, n));
+        }
+
+        return result;
+    }
+
+    //-----------------//
+    // checkCompatible //
+    //-----------------//
+    /**
+     * (package private) Check that the two tables have same orientation and dimension.
+     *
+     * @param one a table
+     * @param two another table
+     */
+    static void checkCompatible (RunTable one,
+                                 RunTable two)
+    {
+        if (two == null) {
+            throw new IllegalArgumentException("Cannot combine with a null RunTable");
+        }
+
+        if (two.getOrientation() != one.getOrientation()) {
+            throw new IllegalArgumentException(
+                    "Cannot combine with a RunTable of different orientation");
+        }
+
+        if ((two.getWidth() != one.getWidth()) || (two.getHeight() != one.getHeight())) {
+            throw new IllegalArgumentException(
+                    "Cannot combine with a RunTable of different dimension");
+        }
+    }
+
+    //-----------------//
+    // forEachSequence //
+    //-----------------//
+    /**
+     * (package private) Apply the provided action on every sequence index, in parallel
+     * chunks when allowed.
+     * Action must only modify data related to the sequence index at hand.
+     *
+     * @param size   number of sequences
+     * @param action the action to apply on each index
+     */
+    static void forEachSequence (final int size,
+                                 final IntConsumer action)
+    {
+        final int chunk = Math.max(
+                MIN_CHUNK,
+                (size + OmrExecutors.getNumberOfCpus() - 1) / OmrExecutors.getNumberOfCpus());
+
+        if ((size <= chunk) || !OmrExecutors.defaultParallelism.getValue()) {
+            // Sequential
+            for (int i = 0; i < size; i++) {
+                action.accept(i);
+            }
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+
+                for (int i = 0; i < size; i += chunk) {
+                    final int iMin = i;
+                    final int iMax = Math.min(size, i + chunk);
+                    tasks.add(() -> {
+                        for (int j = iMin; j < iMax; j++) {
+                            action.accept(j);
+                        }
+
+                        return null;
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Run sequences processing got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in run sequences processing", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //--------------//
+    // intersection //
+    //--------------//
+    /**
+     * (package private) Report the intersection of two sequences.
+     *
+     * @param one a sequence, perhaps null
+     * @param two another sequence, perhaps null
+     * @return the resulting (new) sequence, perhaps null
+     */
+    static RunSequence intersection (RunSequence one,
+                                     RunSequence two)
+    {
+        if ((one == null) || (two == null)) {
+            return null;
+        }
+
+        final int[] a = runsOf(one);
+        final int[] b = runsOf(two);
+        final int[] out = new int[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+
+        while ((i < a.length) && (j < b.length)) {
+            final int aStop = a[i] + a[i + 1];
+            final int bStop = b[j] + b[j + 1];
+            final int start = Math.max(a[i], b[j]);
+            final int stop = Math.min(aStop, bStop);
+
+            if (start < stop) {
+                out[2 * n] = start;
+                out[(2 * n) + 1] = stop - start;
+                n++;
+            }
+
+            if (aStop < bStop) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+
+        return RunTable.encode(out, n);
+    }
+
+    //--------//
+    // runsOf //
+    //--------//
+    /**
+     * (package private) Report the runs of a sequence, as (start, length) pairs.
+     *
+     * @param seq the sequence, perhaps null
+     * @return the runs, perhaps empty but never null
+     */
+    static int[] runsOf (RunSequence seq)
+    {
+        return (seq != null) ? seq.toRuns() : NO_RUNS;
+    }
+
+    //-------------//
+    // subtraction //
+    //-------------//
+    /**
+     * (package private) Report the subtraction of a sequence from another one.
+     *
+     * @param one a sequence, perhaps null
+     * @param two the sequence to remove from 'one', perhaps null
+     * @return the resulting (new) sequence, perhaps null
+     */
+    static RunSequence subtraction (RunSequence one,
+                                    RunSequence two)
+    {
+        if ((one == null) || (two == null)) {
+            return (one != null) ? one.copy() : null;
+        }
+
+        final int[] out = subtraction(runsOf(one), runsOf(two));
+
+        return RunTable.encode(out, out.length / 2);
+    }
+
+    //-------//
+    // union //
+    //-------//
+    /**
+     * (package private) Report the union of two sequences.
+     *
+     * @param one a sequence, perhaps null
+     * @param two another sequence, perhaps null
+     * @return the resulting (new) sequence, perhaps null
+     */
+    static RunSequence union (RunSequence one,
+                              RunSequence two)
+    {
+        if (two == null) {
+            return (one != null) ? one.copy() : null;
+        }
+
+        if (one == null) {
+            return two.copy();
+        }
+
+        final int[] a = runsOf(one);
+        final int[] b = runsOf(two);
+        final int[] out = new int[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+
+        while ((i < a.length) || (j < b.length)) {
+            final int[] src;
+            final int k;
+
+            if ((j >= b.length) || ((i < a.length) && (a[i] <= b[j]))) {
+                src = a;
+                k = i;
+                i += 2;
+            } else {
+                src = b;
+                k = j;
+                j += 2;
+            }
+
+            n = append(out, n, src[k], src[k] + src[k + 1]);
+        }
+
+        return RunTable.encode(out, n);
+    }
+
+    //--------//
+    // append //
+    //--------//
+    /**
+     * Append a run [start, stop[ to the provided runs, merging it with last run if they
+     * overlap or touch each other.
+     * Runs must be appended by increasing start value.
+     *
+     * @param runs  (start, length) pairs
+     * @param count current number of runs
+     * @param start run start
+     * @param stop  run stop (exclusive)
+     * @return the new number of runs
+     */
+    private static int append (int[] runs,
+                               int count,
+                               int start,
+                               int stop)
+    {
+        if (count > 0) {
+            final int last = 2 * (count - 1);
+            final int lastStop = runs[last] + runs[last + 1];
+
+            if (start <= lastStop) {
+                runs[last + 1] = Math.max(lastStop, stop) - runs[last];
+
+                return count;
+            }
+        }
+
+        runs[2 * count] = start;
+        runs[(2 * count) + 1] = stop - start;
+
+        return count + 1;
+    }
+
+    //-----------//
+    // emptyCopy //
+    //-----------//
+    private static RunTable emptyCopy (RunTable table)
+    {
+        return new RunTable(table.getOrientation(), table.getWidth(), table.getHeight());
+    }
+
+    //-------------//
+    // subtraction //
+    //-------------//
+    /**
+     * Report the runs of 'a' minus the runs of 'b'.
+     *
+     * @param a (start, length) pairs
+     * @param b (start, length) pairs to remove
+     * @return the resulting (start, length) pairs, in an array of exact size
+     */
+    private static int[] subtraction (int[] a,
+                                      int[] b)
+    {
+        if ((a.length == 0) || (b.length == 0)) {
+            return a;
+        }
+
+        // Each run of 'b' can split at most one run of 'a' into two pieces
+        final int[] out = new int[a.length + b.length];
+        int n = 0;
+        int j = 0; // First run of 'b' which may intersect current run of 'a'
+
+        for (int i = 0; i < a.length; i += 2) {
+            final int stop = a[i] + a[i + 1];
+            int cur = a[i];
+
+            while ((j < b.length) && ((b[j] + b[j + 1]) <= cur)) {
+                j += 2;
+            }
+
+            for (int k = j; (k < b.length) && (b[k] < stop); k += 2) {
+                if (b[k] > cur) {
+                    out[2 * n] = cur;
+                    out[(2 * n) + 1] = b[k] - cur;
+                    n++;
+                }
+
+                cur = Math.max(cur, b[k] + b[k + 1]);
+            }
+
+            if (cur < stop) {
+                out[2 * n] = cur;
+                out[(2 * n) + 1] = stop - cur;
+                n++;
+            }
+        }
+
+        return Arrays.copyOf(out, 2 * n);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //----------//
+    // RunLists //
+    //----------//
+    /**
+     * (package private) Growable lists of runs, one list per sequence index, meant for
+     * the incremental building of table sequences.
+     */
+    static class RunLists
+    {
+
+        /** For each index, the (start, length) pairs of runs, null if none. */
+        private final int[][] runs;
+
+        /** For each index, the number of runs. */
+        private final int[] counts;
+
+        RunLists (int size)
+        {
+            runs = new int[size][];
+            counts = new int[size];
+        }
+
+        /**
+         * Append a run at provided index.
+         * Runs must be appended by increasing start value.
+         *
+         * @param index  sequence index
+         * @param start  run start
+         * @param length run length
+         */
+        void add (int index,
+                  int start,
+                  int length)
+        {
+            int[] list = runs[index];
+            final int count = counts[index];
+
+            if (list == null) {
+                runs[index] = list = new int[8];
+            } else if ((2 * count) == list.length) {
+                runs[index] = list = Arrays.copyOf(list, 2 * list.length);
+            }
+
+            list[2 * count] = start;
+            list[(2 * count) + 1] = length;
+            counts[index] = count + 1;
+        }
+
+        /**
+         * Report the number of runs at provided index.
+         *
+         * @param index sequence index
+         * @return runs count
+         */
+        int getCount (int index)
+        {
+            return counts[index];
+        }
+
+        /**
+         * Report the (start, length) pairs at provided index.
+         *
+         * @param index sequence index
+         * @return the runs, perhaps null if none
+         */
+        int[] getRuns (int index)
+        {
+            return runs[index];
+        }
+    }
+}
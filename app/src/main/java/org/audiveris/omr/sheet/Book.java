@@ -48,6 +48,7 @@ import static org.audiveris.omr.sheet.Sheet.INTERNALS_RADIX;
 
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
+import org.audiveris.omr.step.StepPipeline;
 import org.audiveris.omr.text.Language;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
@@ -57,6 +58,7 @@ import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.Version;
 import org.audiveris.omr.util.ZipFileSystem;
+import org.audiveris.omr.util.ZipFileSystemPool;
 import org.audiveris.omr.util.param.Param;
 import org.audiveris.omr.util.param.StringParam;
 
@@ -142,6 +144,7 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
  * <li>{@link #openBookFile}</li>
  * <li>{@link #openBookFile(Path)}</li>
  * <li>{@link #openSheetFolder}</li>
+ * <li>{@link #acquireSheetFolder}</li>
  * <li>{@link #isUpgraded}</li>
  * <li>{@link #batchUpgradeBooks}</li>
  * <li>{@link #getVersion}</li>
@@ -484,6 +487,9 @@ public class Book
         // Remove from OMR instances
         OMR.engine.removeBook(this, sheetNumber);
 
+        // Release book file if kept open
+        ZipFileSystemPool.flush(bookPath);
+
         // Time for some cleanup...
         Memory.gc();
 
@@ -1445,13 +1451,14 @@ public class Book
     {
         StopWatch watch = new StopWatch("loadBook " + bookPath);
         Book book = null;
+        Path rootPath = null;
 
         try {
             logger.info("Loading book {}", bookPath);
             watch.start("book");
 
             // Open book file
-            Path rootPath = ZipFileSystem.open(bookPath);
+            rootPath = ZipFileSystemPool.acquire(bookPath);
 
             // Load book internals (just the stubs) out of book.xml
             Path internalsPath = rootPath.resolve(BOOK_INTERNALS);
@@ -1462,7 +1469,8 @@ public class Book
                 book = (Book) um.unmarshal(is);
                 LogUtil.start(book);
                 book.getLock().lock();
-                rootPath.getFileSystem().close(); // Close book file
+                ZipFileSystemPool.release(rootPath); // Release book file
+                rootPath = null;
 
                 boolean ok = book.initTransients(null, bookPath);
 
@@ -1487,6 +1495,8 @@ public class Book
                 watch.print();
             }
 
+            ZipFileSystemPool.release(rootPath); // In case of error
+
             if (book != null) {
                 book.getLock().unlock();
             }
@@ -1572,6 +1582,7 @@ public class Book
 
         try {
             logger.debug("Book file system opened");
+            ZipFileSystemPool.flush(bookPath);
 
             FileSystem fileSystem = FileSystems.newFileSystem(bookPath, (ClassLoader) null);
 
@@ -1585,6 +1596,29 @@ public class Book
         return null;
     }
 
+    //--------------------//
+    // acquireSheetFolder //
+    //--------------------//
+    /**
+     * Report (in the book zipped file) the folder for provided sheet number, using the
+     * book file system shared via {@link ZipFileSystemPool}.
+     * <p>
+     * Several sheets can thus be read concurrently, without opening the book file each time.
+     * When IO operations are finished, the folder must be released via
+     * {@link ZipFileSystemPool#release(java.nio.file.Path)}
+     *
+     * @param number sheet number (1-based) within the book
+     * @return the path to sheet folder
+     * @throws IOException if anything goes wrong
+     */
+    public Path acquireSheetFolder (int number)
+            throws IOException
+    {
+        Path root = ZipFileSystemPool.acquire(bookPath);
+
+        return root.resolve(INTERNALS_RADIX + number);
+    }
+
     //-----------------//
     // openSheetFolder //
     //-----------------//
@@ -1654,7 +1688,14 @@ public class Book
 
                 if (isMultiSheet() && constants.processAllStubsInParallel.isSet()
                             && (OmrExecutors.defaultParallelism.getValue() == true)) {
+                    if (StepPipeline.isUsed()) {
+                        // Process all stubs through the pipeline of steps
+                        return new StepPipeline(theStubs, target, force).process();
+                    }
+
                     // Process all stubs in parallel
+                    final SheetAdmission admission = SheetAdmission.isUsed()
+                            ? SheetAdmission.getInstance() : null;
                     List<Callable<Boolean>> tasks = new ArrayList<>();
 
                     for (final SheetStub stub : theStubs) {
@@ -1670,14 +1711,19 @@ public class Book
 
                                 return ok;
                             } finally {
+                                if (admission != null) {
+                                    admission.release(stub);
+                                }
+
                                 LogUtil.stopStub();
                             }
                         });
                     }
 
                     try {
-                        List<Future<Boolean>> futures = OmrExecutors.getCachedLowExecutor()
-                                .invokeAll(tasks);
+                        List<Future<Boolean>> futures = (admission != null)
+                                ? submitAdmitted(admission, theStubs, tasks, target)
+                                : OmrExecutors.getCachedLowExecutor().invokeAll(tasks);
 
                         for (Future<Boolean> future : futures) {
                             try {
@@ -1859,6 +1905,7 @@ public class Book
         }
 
         Path root = null; // Root of the zip file system
+        boolean pooled = false; // Is root shared via ZipFileSystemPool?
 
         try {
             getLock().lock();
@@ -1871,7 +1918,8 @@ public class Book
                     root = ZipFileSystem.create(bookPath);
                     diskWritten = true;
                 } else {
-                    root = ZipFileSystem.open(bookPath);
+                    root = ZipFileSystemPool.acquire(bookPath);
+                    pooled = true;
                 }
 
                 if (isModified() || isUpgraded()) {
@@ -1900,24 +1948,27 @@ public class Book
                 storeBookInfo(root); // Book info (book.xml)
 
                 // Contained sheets
-                final Path oldRoot = openBookFile(this.bookPath);
+                final Path oldRoot = ZipFileSystemPool.acquire(this.bookPath);
 
-                for (SheetStub stub : stubs) {
-                    final Path oldSheetFolder = oldRoot.resolve(INTERNALS_RADIX + stub.getNumber());
-                    final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
+                try {
+                    for (SheetStub stub : stubs) {
+                        final Path oldSheetFolder = oldRoot.resolve(
+                                INTERNALS_RADIX + stub.getNumber());
+                        final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
 
-                    // By default, copy existing sheet files
-                    if (Files.exists(oldSheetFolder)) {
-                        FileUtil.copyTree(oldSheetFolder, sheetFolder);
-                    }
+                        // By default, copy existing sheet files
+                        if (Files.exists(oldSheetFolder)) {
+                            FileUtil.copyTree(oldSheetFolder, sheetFolder);
+                        }
 
-                    // Update modified sheet files
-                    if (stub.isModified() || stub.isUpgraded()) {
-                        stub.getSheet().store(sheetFolder, oldSheetFolder);
+                        // Update modified sheet files
+                        if (stub.isModified() || stub.isUpgraded()) {
+                            stub.getSheet().store(sheetFolder, oldSheetFolder);
+                        }
                     }
+                } finally {
+                    ZipFileSystemPool.release(oldRoot); // Release old book file, even on error
                 }
-
-                oldRoot.getFileSystem().close(); // Close old book file
             }
 
             this.bookPath = bookPath;
@@ -1928,7 +1979,11 @@ public class Book
         } catch (Exception ex) {
             logger.warn("Error storing " + this + " to " + bookPath + " ex:" + ex, ex);
         } finally {
-            if (root != null) {
+            if (pooled) {
+                // Persist modifications, later readers will re-open the book file
+                ZipFileSystemPool.release(root);
+                ZipFileSystemPool.flush(bookPath);
+            } else if (root != null) {
                 try {
                     root.getFileSystem().close();
                 } catch (IOException ignored) {
@@ -2176,6 +2231,7 @@ public class Book
         final Set<SheetStub> found = new LinkedHashSet<>();
         final Lock bookLock = getLock();
         bookLock.lock();
+        Path root = null;
 
         try {
             final Path theBookPath = BookManager.getDefaultSavePath(this);
@@ -2185,7 +2241,8 @@ public class Book
                 return found;
             }
 
-            final Path root = ZipFileSystem.open(theBookPath);
+            root = ZipFileSystemPool.acquire(theBookPath);
+
             for (SheetStub stub : stubs) {
                 final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
 
@@ -2199,11 +2256,10 @@ public class Book
                     }
                 }
             }
-
-            root.getFileSystem().close();
         } catch (Exception ex) {
             logger.warn("Error browsing project file of {} {}", this, ex.toString(), ex);
         } finally {
+            ZipFileSystemPool.release(root);
             bookLock.unlock();
         }
 
@@ -2539,6 +2595,68 @@ public class Book
         return impacted;
     }
 
+    //----------------//
+    // submitAdmitted //
+    //----------------//
+    /**
+     * Submit the sheet tasks one after the other, each as soon as its sheet is admitted with
+     * respect to memory budget, and wait for their completion.
+     *
+     * @param admission the admission control
+     * @param theStubs  the stubs to process
+     * @param tasks     the corresponding tasks
+     * @param target    the targeted step
+     * @return the futures of all submitted tasks, all done
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private List<Future<Boolean>> submitAdmitted (SheetAdmission admission,
+                                                  List<SheetStub> theStubs,
+                                                  List<Callable<Boolean>> tasks,
+                                                  Step target)
+            throws InterruptedException
+    {
+        final List<Future<Boolean>> futures = new ArrayList<>(tasks.size());
+
+        for (SheetStub stub : theStubs) {
+            admission.enqueue(stub);
+        }
+
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                final SheetStub stub = theStubs.get(i);
+                admission.acquire(stub, target);
+                logger.debug("{} submitted, {}", stub, admission);
+
+                try {
+                    futures.add(OmrExecutors.getCachedLowExecutor().submit(tasks.get(i)));
+                } catch (RuntimeException ex) {
+                    admission.release(stub);
+                    throw ex;
+                }
+            }
+
+            for (Future<Boolean> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ignored) {
+                    // Reported by caller
+                }
+            }
+        } catch (InterruptedException ex) {
+            for (Future<Boolean> future : futures) {
+                future.cancel(true);
+            }
+
+            throw ex;
+        } finally {
+            for (SheetStub stub : theStubs) {
+                admission.dequeue(stub);
+            }
+        }
+
+        return futures;
+    }
+
     //------------//
     // checkAlias //
     //------------//
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.util.ZipFileSystemPool;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +71,7 @@ public abstract class DataHolder<T>
     //---------------
     //
     /** Direct access to data, if any. */
-    protected T data;
+    protected volatile T data;
 
     /** To avoid useless marshalling to disk. */
     protected boolean modified = false;
@@ -119,8 +121,11 @@ public abstract class DataHolder<T>
     //---------//
     /**
      * Return the handled data.
+     * <p>
+     * Data is loaded from the book file system shared via {@link ZipFileSystemPool}, so that
+     * holders of different sheets can be loaded concurrently.
      *
-     * @param stub the related sheet stub instance (to use book lock)
+     * @param stub the related sheet stub instance
      * @return the data, ready to use
      */
     public T getData (SheetStub stub)
@@ -132,37 +137,38 @@ public abstract class DataHolder<T>
 
             final Book book = stub.getBook();
 
-            try {
-                book.getLock().lock();
-
-                if (data == null) {
-                    if (book.getBookPath() != null) {
-                        // Open book file system
-                        Path path = book.openSheetFolder(stub.getNumber()).resolve(pathString);
-                        logger.debug("path: {}", path);
-
-                        if (Files.exists(path)) {
-                            try (InputStream is = Files
-                                    .newInputStream(path, StandardOpenOption.READ)) {
-                                data = load(is);
-                                logger.debug("Loaded {}", path);
+            synchronized (this) {
+                Path path = null;
+
+                try {
+                    if (data == null) {
+                        if (book.getBookPath() != null) {
+                            // Use shared book file system
+                            path = book.acquireSheetFolder(stub.getNumber()).resolve(pathString);
+                            logger.debug("path: {}", path);
+
+                            if (Files.exists(path)) {
+                                try (InputStream is = Files
+                                        .newInputStream(path, StandardOpenOption.READ)) {
+                                    data = load(is);
+                                    logger.debug("Loaded {}", path);
+                                }
+                            } else {
+                                logger.debug("No {}", path);
+                                hasNoData = true;
                             }
+
+                            setModified(false);
                         } else {
-                            logger.debug("No {}", path);
+                            logger.debug("No bookpath for{}", book);
                             hasNoData = true;
                         }
-
-                        path.getFileSystem().close(); // Close book file system
-                        setModified(false);
-                    } else {
-                        logger.debug("No bookpath for{}", book);
-                        hasNoData = true;
                     }
+                } catch (Exception ex) {
+                    logger.warn("Error reading data from " + pathString, ex);
+                } finally {
+                    ZipFileSystemPool.release(path); // Release book file system
                 }
-            } catch (Exception ex) {
-                logger.warn("Error reading data from " + pathString, ex);
-            } finally {
-                book.getLock().unlock();
             }
         }
 
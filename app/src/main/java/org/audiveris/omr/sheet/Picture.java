@@ -38,7 +38,9 @@ import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.run.RunTables;
 import org.audiveris.omr.sheet.grid.LineInfo;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.StopWatch;
@@ -59,6 +61,7 @@ import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
@@ -173,10 +176,9 @@ public class Picture
     @XmlAttribute(name = "height")
     private final int height;
 
-    /** Old map of all handled run tables. */
-    @Deprecated
+    /** Map of persisted run tables. */
     @XmlElementWrapper(name = "tables")
-    private EnumMap<TableKey, RunTableHolder> oldTables = new EnumMap<>(TableKey.class);
+    private EnumMap<TableKey, RunTableHolder> tableHolders = new EnumMap<>(TableKey.class);
 
     /** Map of all handled images. */
     @XmlElementWrapper(name = "images")
@@ -263,18 +265,48 @@ public class Picture
     //-------------------//
     /**
      * Build the table without staff lines.
+     * <p>
+     * This is computed at runs level, as the BINARY table minus the runs of staff line glyphs,
+     * with no rasterization of NO_STAFF source.
      *
      * @return the no-staff table
      */
     public RunTable buildNoStaffTable ()
     {
-        ByteProcessor source = getSource(SourceKey.NO_STAFF);
+        final RunTable binary = getTable(TableKey.BINARY);
+
+        if (binary == null) {
+            return null;
+        }
+
+        final RunTable lines = new RunTable(VERTICAL, width, height);
+        boolean linesErased = false;
+
+        for (SystemInfo system : sheet.getSystems()) {
+            for (Staff staff : system.getStaves()) {
+                for (LineInfo li : staff.getLines()) {
+                    StaffLine line = (StaffLine) li;
+                    Glyph glyph = line.getGlyph();
+
+                    if (glyph == null) {
+                        logger.warn("glyph is null for line " + line + " staff:" + staff);
+                    } else if (glyph.getRunTable() == null) {
+                        logger.warn("glyph runtable is null");
+                    } else {
+                        RunTables.include(lines, glyph.getRunTable(), glyph.getTopLeft());
+                        linesErased = true;
+                    }
+                }
+            }
+        }
+
+        if (!linesErased) {
+            logger.warn("No system lines to build NO_STAFF table"); // Should not happen!
 
-        if (source == null) {
             return null;
         }
 
-        return new RunTableFactory(VERTICAL).createTable(source);
+        return RunTables.subtraction(binary, lines);
     }
 
     //---------------------------//
@@ -312,6 +344,12 @@ public class Picture
         if (holder != null) {
             holder.discard();
         }
+
+        final RunTableHolder tableHolder = getTableHolder(key.toTableKey());
+
+        if (tableHolder != null) {
+            tableHolder.discard();
+        }
     }
 
     //---------------//
@@ -453,6 +491,15 @@ public class Picture
      */
     public BufferedImage getImage (ImageKey key)
     {
+        final TableKey tKey = key.toTableKey();
+
+        if (getTableHolder(tKey) != null) {
+            // Image derived from persisted table
+            final RunTable table = getTable(tKey);
+
+            return (table != null) ? table.getBufferedImage() : null;
+        }
+
         ImageHolder holder = images.get(key);
 
         if (holder == null) {
@@ -645,16 +692,23 @@ public class Picture
         RunTable tbl = getStrongRef(key);
 
         if (tbl == null) {
-            switch (key) {
-            case BINARY:
-                tbl = tableOf(ImageKey.BINARY);
+            final RunTableHolder holder = getTableHolder(key);
 
-                break;
+            if (holder != null) {
+                // Persisted table
+                tbl = holder.getData(sheet.getStub());
+            } else {
+                switch (key) {
+                case BINARY:
+                    tbl = tableOf(ImageKey.BINARY);
 
-            case HEAD_SPOTS:
-                tbl = tableOf(ImageKey.HEAD_SPOTS);
+                    break;
 
-                break;
+                case HEAD_SPOTS:
+                    tbl = tableOf(ImageKey.HEAD_SPOTS);
+
+                    break;
+                }
             }
 
             if (tbl != null) {
@@ -687,11 +741,11 @@ public class Picture
      * Report whether the desired image is known
      *
      * @param key key of desired image
-     * @return true if we have an ImageHolder, false otherwise
+     * @return true if we have an ImageHolder or a persisted table, false otherwise
      */
     public boolean hasImage (ImageKey key)
     {
-        return images.get(key) != null;
+        return (images.get(key) != null) || (getTableHolder(key.toTableKey()) != null);
     }
 
     //---------------//
@@ -701,10 +755,16 @@ public class Picture
      * Report whether the desired image is known and loaded.
      *
      * @param key key of desired image
-     * @return true if we have an ImageHolder with loaded data
+     * @return true if we have an ImageHolder or a persisted table with loaded data
      */
     public boolean hasImageReady (ImageKey key)
     {
+        final RunTableHolder tableHolder = getTableHolder(key.toTableKey());
+
+        if (tableHolder != null) {
+            return tableHolder.hasDataReady();
+        }
+
         ImageHolder holder = images.get(key);
 
         if (holder == null) {
@@ -798,6 +858,10 @@ public class Picture
     //----------//
     /**
      * Register a table (and its related image).
+     * <p>
+     * If run tables are persisted in binary format, the table itself is persisted and any former
+     * related image is discarded.
+     * Otherwise, the related image is persisted.
      *
      * @param key      table key
      * @param table    table to register
@@ -809,7 +873,20 @@ public class Picture
     {
         if (table != null) {
             tables.put(key, new WeakReference<>(table));
-            setImage(key.toImageKey(), table.getBufferedImage(), modified);
+
+            if (RunTableCodec.isUsed()) {
+                final RunTableHolder holder = new RunTableHolder(key);
+                holder.setData(table, modified);
+                getTableHolders().put(key, holder);
+
+                final ImageHolder imageHolder = images.get(key.toImageKey());
+
+                if (imageHolder != null) {
+                    imageHolder.discard();
+                }
+            } else {
+                setImage(key.toImageKey(), table.getBufferedImage(), modified);
+            }
         }
     }
 
@@ -821,7 +898,8 @@ public class Picture
      * <p>
      * If we have the gray image while related switch is off, we remove this image.
      * <p>
-     * Tables are no longer stored on disk, but their related images are.
+     * Tables are stored on disk in binary format if so used, otherwise their related images are.
+     * Entries made obsolete by a successful store are removed.
      *
      * @param sheetFolder    target sheet folder
      * @param oldSheetFolder optional source sheet folder (or null)
@@ -846,19 +924,26 @@ public class Picture
                     final TableKey tKey = iKey.toTableKey();
 
                     if (tKey != null) {
-                        final Path tablePath = sheetFolder.resolve(tKey + ".xml");
-
-                        try {
-                            if (Files.deleteIfExists(tablePath)) {
-                                logger.info("Washed {}", tablePath);
-                            }
-                        } catch (IOException ex) {
-                            logger.warn("Error deleting {} {}", tablePath, ex);
-                        }
+                        wash(sheetFolder.resolve(tKey + RunTableHolder.XML_EXTENSION));
                     }
                 }
             }
         }
+
+        // Each persisted table
+        if (tableHolders != null) {
+            for (Entry<TableKey, RunTableHolder> entry : tableHolders.entrySet()) {
+                final TableKey tKey = entry.getKey();
+                final RunTableHolder holder = entry.getValue();
+
+                if (holder.isDiscarded()) {
+                    holder.removeData(sheetFolder);
+                } else if (holder.storeData(sheetFolder, oldSheetFolder) && holder.isBinary()) {
+                    // Delete corresponding XML table if any
+                    wash(sheetFolder.resolve(tKey + RunTableHolder.XML_EXTENSION));
+                }
+            }
+        }
     }
 
     //---------//
@@ -989,23 +1074,62 @@ public class Picture
         return null;
     }
 
+    //----------------//
+    // getTableHolder //
+    //----------------//
+    /**
+     * Report the holder of persisted table, if any, for the provided key.
+     *
+     * @param key the table key, perhaps null
+     * @return the table holder, or null
+     */
+    private RunTableHolder getTableHolder (TableKey key)
+    {
+        if ((key == null) || (tableHolders == null)) {
+            return null;
+        }
+
+        return tableHolders.get(key);
+    }
+
+    //-----------------//
+    // getTableHolders //
+    //-----------------//
+    private EnumMap<TableKey, RunTableHolder> getTableHolders ()
+    {
+        if (tableHolders == null) {
+            tableHolders = new EnumMap<>(TableKey.class);
+        }
+
+        return tableHolders;
+    }
+
     //------------------//
     // convertOldTables //
     //------------------//
     /**
-     * Migrate from tables as .xml files to images as .png files.
+     * Migrate tables stored in XML format.
+     * <p>
+     * If binary format is used, XML tables are re-registered to be stored in binary format.
+     * Otherwise, they are migrated to images as .png files.
      */
     private void convertOldTables ()
     {
-        if (oldTables != null) {
-            for (Entry<TableKey, RunTableHolder> entry : oldTables.entrySet()) {
+        if (tableHolders != null) {
+            for (Entry<TableKey, RunTableHolder> entry : new ArrayList<>(tableHolders.entrySet())) {
                 final RunTableHolder holder = entry.getValue();
-                final RunTable table = holder.getData(sheet.getStub());
-                setTable(entry.getKey(), table, true); // Sets related image as well
-                sheet.getStub().setUpgraded(true);
+
+                if (!holder.isBinary() || !RunTableCodec.isUsed()) {
+                    final RunTable table = holder.getData(sheet.getStub());
+                    tableHolders.remove(entry.getKey());
+                    setTable(entry.getKey(), table, true); // Sets related holder or image
+                    sheet.getStub().setUpgraded(true);
+                }
             }
 
-            oldTables = null;
+            if (tableHolders.isEmpty()) {
+                tableHolders = null;
+            }
         }
     }
 
@@ -1022,7 +1146,7 @@ public class Picture
     {
         this.sheet = sheet;
 
-        // Convert oldTables to images
+        // Migrate tables stored in XML format
         convertOldTables();
     }
 
@@ -1050,6 +1174,25 @@ public class Picture
         return null;
     }
 
+    //------//
+    // wash //
+    //------//
+    /**
+     * Delete the provided obsolete entry, if any.
+     *
+     * @param path path to entry
+     */
+    private static void wash (Path path)
+    {
+        try {
+            if (Files.deleteIfExists(path)) {
+                logger.info("Washed {}", path);
+            }
+        } catch (IOException ex) {
+            logger.warn("Error deleting {} {}", path, ex);
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
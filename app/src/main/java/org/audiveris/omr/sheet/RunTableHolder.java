@@ -22,6 +22,7 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.sheet.Picture.TableKey;
 import org.audiveris.omr.util.Jaxb;
 
@@ -39,6 +40,10 @@ import javax.xml.bind.annotation.XmlAccessorType;
 /**
  * Class {@code RunTableHolder} holds the reference to a run table, at least the path
  * to its marshalled data on disk, and (on demand) the unmarshalled run table itself.
+ * <p>
+ * Data is written in binary format (see {@link RunTableCodec}) for a ".bin" path, and in XML
+ * format for a ".xml" path.
+ * It is read from either format, whatever its path.
  *
  * @author Hervé Bitteur
  */
@@ -50,17 +55,23 @@ public class RunTableHolder
 
     private static final Logger logger = LoggerFactory.getLogger(RunTableHolder.class);
 
+    /** Extension of binary table entries: {@value}. */
+    public static final String BINARY_EXTENSION = ".bin";
+
+    /** Extension of XML table entries: {@value}. */
+    public static final String XML_EXTENSION = ".xml";
+
     private static JAXBContext jaxbContext;
 
     //~ Constructors -------------------------------------------------------------------------------
     /**
-     * Creates a new {@code RunTableHolder} object.
+     * Creates a new {@code RunTableHolder} object, in binary format if used.
      *
      * @param key table key
      */
     public RunTableHolder (TableKey key)
     {
-        super(key + ".xml");
+        super(key + (RunTableCodec.isUsed() ? BINARY_EXTENSION : XML_EXTENSION));
     }
 
     /** No-arg constructor needed for JAXB. */
@@ -70,6 +81,19 @@ public class RunTableHolder
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // isBinary //
+    //----------//
+    /**
+     * Report whether this holder writes its table in binary format.
+     *
+     * @return true if binary
+     */
+    public boolean isBinary ()
+    {
+        return pathString.endsWith(BINARY_EXTENSION);
+    }
+
     //------//
     // load //
     //------//
@@ -77,7 +101,7 @@ public class RunTableHolder
     protected RunTable load (InputStream is)
             throws Exception
     {
-        return (RunTable) Jaxb.unmarshal(is, getJaxbContext());
+        return RunTable.unmarshal(is); // Either XML or binary
     }
 
     //-------//
@@ -87,7 +111,11 @@ public class RunTableHolder
     protected void store (OutputStream os)
             throws Exception
     {
-        Jaxb.marshal(data, os, getJaxbContext());
+        if (isBinary()) {
+            RunTableCodec.encode(data, os);
+        } else {
+            Jaxb.marshal(data, os, getJaxbContext());
+        }
     }
 
     //----------------//
@@ -0,0 +1,370 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  S h e e t A d m i s s i o n                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Class {@code SheetAdmission} controls how many sheets can be processed in parallel, based
+ * on their estimated memory footprint against a heap budget.
+ * <p>
+ * The footprint of a sheet is estimated as its image dimensions times the number of image
+ * buffers held up to the targeted step, plus a fixed overhead.
+ * Dimensions are known once the sheet has been loaded, otherwise the dimensions of the latest
+ * sheet seen are used, or a default value.
+ * <p>
+ * A sheet is first queued, then admitted as soon as its footprint fits in the remaining budget.
+ * A sheet is always admitted when no other sheet is in flight, so that a single sheet larger than
+ * the whole budget can still be processed.
+ * Budget is released when the sheet material is swapped (see {@link SheetStub#swapSheet()}), or
+ * when processing ends without swap.
+ * <p>
+ * There is a single admission instance for the application, since heap is global.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetAdmission
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetAdmission.class);
+
+    /** The single instance. */
+    private static final SheetAdmission INSTANCE = new SheetAdmission();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Sheets waiting for admission. */
+    private final Set<SheetStub> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Admitted sheets, with their reserved footprint. */
+    private final Map<SheetStub, Long> inFlight = new IdentityHashMap<>();
+
+    /** Known number of pixels per sheet. */
+    private final Map<SheetStub, Long> pixels = new WeakHashMap<>();
+
+    /** Number of pixels of latest sheet seen, if any. */
+    private long lastPixels;
+
+    /** Sum of reserved footprints. */
+    private long reserved;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private SheetAdmission ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // acquire //
+    //---------//
+    /**
+     * Wait until the provided sheet can be admitted, and reserve its footprint.
+     *
+     * @param stub   the sheet to admit
+     * @param target the step to reach on this sheet
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire (SheetStub stub,
+                                      Step target)
+            throws InterruptedException
+    {
+        if (inFlight.containsKey(stub)) {
+            return;
+        }
+
+        final long footprint = estimate(stub, target);
+        queued.add(stub);
+
+        try {
+            while (!inFlight.isEmpty() && ((reserved + footprint) > getBudget())) {
+                wait();
+            }
+        } finally {
+            queued.remove(stub);
+        }
+
+        inFlight.put(stub, footprint);
+        reserved += footprint;
+        logger.debug("{} admitted for {} MB, {}", stub, footprint >> 20, this);
+    }
+
+    //---------//
+    // dequeue //
+    //---------//
+    /**
+     * Remove the provided sheet from the queue, when it will not be processed.
+     *
+     * @param stub the sheet to remove
+     */
+    public synchronized void dequeue (SheetStub stub)
+    {
+        queued.remove(stub);
+    }
+
+    //---------//
+    // enqueue //
+    //---------//
+    /**
+     * Declare the provided sheet as waiting for admission.
+     *
+     * @param stub the sheet to queue
+     */
+    public synchronized void enqueue (SheetStub stub)
+    {
+        if (!inFlight.containsKey(stub)) {
+            queued.add(stub);
+        }
+    }
+
+    //----------//
+    // estimate //
+    //----------//
+    /**
+     * Estimate the memory footprint of the provided sheet, processed until target step.
+     *
+     * @param stub   the sheet at hand
+     * @param target the step to reach
+     * @return the estimated footprint, in bytes
+     */
+    public synchronized long estimate (SheetStub stub,
+                                       Step target)
+    {
+        Long count = null;
+
+        if (stub.hasSheet()) {
+            final Sheet sheet = stub.getSheet();
+
+            if (sheet.hasPicture()) {
+                count = recordPixels(stub, sheet);
+            }
+        }
+
+        if (count == null) {
+            count = pixels.get(stub);
+        }
+
+        if (count == null) {
+            count = (lastPixels != 0) ? lastPixels : constants.defaultSheetPixels.getValue();
+        }
+
+        return (count * buffersHeld(target)) + ((long) constants.sheetOverhead.getValue() << 20);
+    }
+
+    //-----------//
+    // getBudget //
+    //-----------//
+    /**
+     * Report the heap budget for sheets processed in parallel.
+     *
+     * @return the budget, in bytes
+     */
+    public long getBudget ()
+    {
+        return (long) (Runtime.getRuntime().maxMemory() * constants.heapBudgetRatio.getValue());
+    }
+
+    //-------------//
+    // getInFlight //
+    //-------------//
+    /**
+     * Report the number of sheets currently admitted.
+     *
+     * @return the number of sheets in flight
+     */
+    public synchronized int getInFlight ()
+    {
+        return inFlight.size();
+    }
+
+    //---------------//
+    // getQueueDepth //
+    //---------------//
+    /**
+     * Report the number of sheets waiting for admission.
+     *
+     * @return the queue depth
+     */
+    public synchronized int getQueueDepth ()
+    {
+        return queued.size();
+    }
+
+    //-------------//
+    // getReserved //
+    //-------------//
+    /**
+     * Report the sum of footprints reserved by sheets in flight.
+     *
+     * @return the budget usage, in bytes
+     */
+    public synchronized long getReserved ()
+    {
+        return reserved;
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Release the footprint reserved for the provided sheet, if any.
+     *
+     * @param stub the sheet at hand
+     */
+    public synchronized void release (SheetStub stub)
+    {
+        if (stub.hasSheet()) {
+            final Sheet sheet = stub.getSheet();
+
+            if (sheet.hasPicture()) {
+                recordPixels(stub, sheet);
+            }
+        }
+
+        final Long footprint = inFlight.remove(stub);
+
+        if (footprint != null) {
+            reserved -= footprint;
+            logger.debug("{} released {} MB, {}", stub, footprint >> 20, this);
+            notifyAll();
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return new StringBuilder(getClass().getSimpleName())
+                .append("{queued:").append(queued.size())
+                .append(" inFlight:").append(inFlight.size())
+                .append(" reserved:").append(reserved >> 20)
+                .append('/').append(getBudget() >> 20).append(" MB}")
+                .toString();
+    }
+
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the single admission instance.
+     *
+     * @return the instance
+     */
+    public static SheetAdmission getInstance ()
+    {
+        return INSTANCE;
+    }
+
+    //--------//
+    // isUsed //
+    //--------//
+    /**
+     * Report whether parallel processing of book sheets is subject to admission.
+     *
+     * @return true if admission is used
+     */
+    public static boolean isUsed ()
+    {
+        return constants.useAdmission.isSet();
+    }
+
+    //-------------//
+    // buffersHeld //
+    //-------------//
+    /**
+     * Report the typical number of one-byte image buffers held by a sheet until the
+     * provided step.
+     *
+     * @param target the targeted step
+     * @return the number of buffers
+     */
+    private static int buffersHeld (Step target)
+    {
+        if (target.compareTo(Step.BINARY) < 0) {
+            return 2; // Initial image, gray
+        }
+
+        if (target.compareTo(Step.GRID) < 0) {
+            return 3; // Plus binary
+        }
+
+        if (target.compareTo(Step.BEAMS) < 0) {
+            return 5; // Plus no-staff, runs and lags
+        }
+
+        return 8; // Plus spots buffers (median, gaussian, closed)
+    }
+
+    //--------------//
+    // recordPixels //
+    //--------------//
+    private long recordPixels (SheetStub stub,
+                               Sheet sheet)
+    {
+        final long count = (long) sheet.getWidth() * sheet.getHeight();
+        pixels.put(stub, count);
+        lastPixels = count;
+
+        return count;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useAdmission = new Constant.Boolean(
+                true,
+                "Should parallel processing of book sheets be subject to memory admission?");
+
+        private final Constant.Ratio heapBudgetRatio = new Constant.Ratio(
+                0.6,
+                "Ratio of maximum heap usable by sheets processed in parallel");
+
+        private final Constant.Integer sheetOverhead = new Constant.Integer(
+                "MB",
+                64,
+                "Estimated memory used by a sheet besides its image buffers");
+
+        private final Constant.Integer defaultSheetPixels = new Constant.Integer(
+                "Pixels",
+                9_000_000,
+                "Number of pixels assumed for a sheet not yet loaded");
+    }
+}
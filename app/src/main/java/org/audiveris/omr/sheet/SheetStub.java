@@ -24,11 +24,16 @@ package org.audiveris.omr.sheet;
 import org.audiveris.omr.Main;
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.classifier.AbstractClassifier;
+import org.audiveris.omr.classifier.Classifier;
+import org.audiveris.omr.classifier.ShapeClassifier;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.image.FilterParam;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.score.PageRef;
 import org.audiveris.omr.sheet.Picture.ImageKey;
 import org.audiveris.omr.sheet.Picture.TableKey;
@@ -38,13 +43,15 @@ import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
 import org.audiveris.omr.step.StepPause;
+import org.audiveris.omr.step.StepPipeline;
 import org.audiveris.omr.util.Jaxb;
 import org.audiveris.omr.util.Memory;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.OmrExecutors;
+import org.audiveris.omr.util.SpatialIndex;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.Version;
-import org.audiveris.omr.util.ZipFileSystem;
+import org.audiveris.omr.util.ZipFileSystemPool;
 import org.audiveris.omr.util.param.Param;
 import org.audiveris.omr.util.param.StringParam;
 
@@ -632,10 +639,9 @@ public class SheetStub
                             Path sheetFile = null;
                             watch.start("unmarshal");
 
-                            // Open the book file system
+                            // Use the shared book file system
                             try {
-                                book.getLock().lock();
-                                sheetFile = book.openSheetFolder(number).resolve(
+                                sheetFile = book.acquireSheetFolder(number).resolve(
                                         Sheet.getSheetFileName(number));
 
                                 try (InputStream is = Files.newInputStream(
@@ -643,10 +649,8 @@ public class SheetStub
                                         StandardOpenOption.READ)) {
                                     this.sheet = sh = Sheet.unmarshal(is);
                                 }
-
-                                sheetFile.getFileSystem().close();
                             } finally {
-                                book.getLock().unlock();
+                                ZipFileSystemPool.release(sheetFile);
                             }
 
                             // Complete sheet reload
@@ -850,6 +854,25 @@ public class SheetStub
      */
     public boolean reachStep (Step target,
                               boolean force)
+    {
+        return reachStep(target, force, null);
+    }
+
+    //-----------//
+    // reachStep //
+    //-----------//
+    /**
+     * Make sure the provided step has been reached on this sheet stub, each needed step
+     * being performed within the provided gate.
+     *
+     * @param target the step to check
+     * @param force  if true and step already reached, stub is reset and processed until step
+     * @param gate   the gate to enter before and to exit after each step, perhaps null
+     * @return true if OK, false if not OK (including when a step paused)
+     */
+    public boolean reachStep (Step target,
+                              boolean force,
+                              StepPipeline.Gate gate)
     {
         final StopWatch watch = new StopWatch("reachStep " + target);
         EnumSet<Step> neededSteps = null;
@@ -880,7 +903,18 @@ public class SheetStub
             for (final Step step : neededSteps) {
                 watch.start(step.name());
                 logger.debug("reachStep {} towards {}", step, target);
-                doOneStep(step);
+
+                if (gate != null) {
+                    gate.enter(step);
+                }
+
+                try {
+                    doOneStep(step);
+                } finally {
+                    if (gate != null) {
+                        gate.exit(step);
+                    }
+                }
             }
 
             ok = true;
@@ -990,15 +1024,22 @@ public class SheetStub
             final Lock bookLock = book.getLock();
             bookLock.lock();
 
+            final Path bookPath = BookManager.getDefaultSavePath(book);
+            Path root = null;
+
             try {
-                Path bookPath = BookManager.getDefaultSavePath(book);
-                Path root = ZipFileSystem.open(bookPath);
+                root = ZipFileSystemPool.acquire(bookPath);
                 book.storeBookInfo(root); // Book info (book.xml)
 
                 Path sheetFolder = root.resolve(INTERNALS_RADIX + getNumber());
                 sheet.store(sheetFolder, null);
-                root.getFileSystem().close();
             } finally {
+                if (root != null) {
+                    // Persist modifications, later readers will re-open the book file
+                    ZipFileSystemPool.release(root);
+                    ZipFileSystemPool.flush(bookPath);
+                }
+
                 bookLock.unlock();
             }
         }
@@ -1011,6 +1052,7 @@ public class SheetStub
      * Swap sheet material.
      * <p>
      * If modified or upgraded, sheet material will be stored before being disposed of.
+     * Memory budget reserved for this sheet, if any, is released.
      */
     public void swapSheet ()
     {
@@ -1022,6 +1064,7 @@ public class SheetStub
 
             if (sheet != null) {
                 logger.info("Disposed sheet{}", sheet.getStub().getNum());
+                SheetAdmission.getInstance().release(this);
                 sheet = null;
                 Memory.gc(); // Trigger a garbage collection...
             }
@@ -1126,6 +1169,8 @@ public class SheetStub
 
                     try {
                         step.doit(sheet); // Standard processing on an existing sheet
+                        logSpatialQueries(step);
+                        logCaches(step);
                         done(step); // Full completion
                     } catch (StepPause sp) {
                         done(step);throw sp;
@@ -1195,7 +1240,7 @@ public class SheetStub
     {
         // Avoid loading sheet just to reset to binary:
         // If sheet is available, use its picture.getTable()
-        // Otherwise, load binary image from disk and convert to RunTable
+        // Otherwise, load binary table from disk, or binary image and convert it to RunTable
         RunTable binaryTable = null;
 
         if (hasSheet()) {
@@ -1203,6 +1248,11 @@ public class SheetStub
             binaryTable = getSheet().getPicture().getTable(TableKey.BINARY);
         }
 
+        if ((binaryTable == null) && RunTableCodec.isUsed()) {
+            logger.debug("Sheet#{} loading BINARY table from disk", number);
+            binaryTable = new RunTableHolder(TableKey.BINARY).getData(this);
+        }
+
         if (binaryTable == null) {
             logger.debug("Sheet#{} loading BINARY image from disk", number);
             final BufferedImage binaryImg = new ImageHolder(ImageKey.BINARY).getData(this);
@@ -1249,6 +1299,70 @@ public class SheetStub
         }
     }
 
+    //-----------//
+    // logCaches //
+    //-----------//
+    /**
+     * Report (at debug level) the status of glyph moments and classifier grades caches,
+     * at the end of the provided step.
+     *
+     * @param step the step just performed
+     */
+    private void logCaches (Step step)
+    {
+        if (logger.isDebugEnabled()) {
+            final Classifier classifier = ShapeClassifier.getInstance();
+            final Object grades = (classifier instanceof AbstractClassifier)
+                    ? ((AbstractClassifier<?>) classifier).getGradesCache() : "no grades cache";
+            logger.debug("{} caches: {} {}", step, Glyph.getMomentsCacheStatus(), grades);
+        }
+    }
+
+    //-------------------//
+    // logSpatialQueries //
+    //-------------------//
+    /**
+     * Report (at debug level) and reset the statistics of spatial indexes queried during
+     * the provided step.
+     *
+     * @param step the step just performed
+     */
+    private void logSpatialQueries (Step step)
+    {
+        final List<SpatialIndex<?>> indexes = new ArrayList<>();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            indexes.add(system.getSig().getSpatialIndex());
+        }
+
+        final SpatialIndex<?> glyphSpatialIndex = sheet.getGlyphIndex().getSpatialIndex();
+
+        if (glyphSpatialIndex != null) {
+            indexes.add(glyphSpatialIndex);
+        }
+
+        long queries = 0;
+        long candidates = 0;
+        long results = 0;
+
+        for (SpatialIndex<?> index : indexes) {
+            final long[] stats = index.getStatistics();
+            queries += stats[0];
+            candidates += stats[1];
+            results += stats[2];
+            index.resetStatistics();
+        }
+
+        if (queries > 0) {
+            logger.debug(
+                    "{} spatial queries: {}, candidates: {}, filtered: {}",
+                    step,
+                    queries,
+                    candidates,
+                    candidates - results);
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
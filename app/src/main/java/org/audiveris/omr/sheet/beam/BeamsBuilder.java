@@ -1378,7 +1378,7 @@ public class BeamsBuilder
         for (Inter inter : beams) {
             AbstractBeamInter beam = (AbstractBeamInter) inter;
 
-            if (beam.getArea().contains(itemCenter)) {
+            if (beam.getPolygon().contains(itemCenter)) {
                 return true;
             }
         }
@@ -29,6 +29,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphFactory;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.glyph.Glyphs;
+import org.audiveris.omr.image.LinearMorphology;
 import org.audiveris.omr.image.MorphoProcessor;
 import org.audiveris.omr.image.StructureElement;
 import org.audiveris.omr.math.Population;
@@ -48,6 +49,7 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Class {@code BlackHeadSizer}
@@ -101,7 +103,8 @@ public class BlackHeadSizer
 
         final int[] seOffset = {0, 0};
         final StructureElement se = new StructureElement(0, 1, radius, seOffset);
-        final MorphoProcessor mp = new MorphoProcessor(se);
+        final Consumer<ByteProcessor> closing = LinearMorphology.isUsed()
+                ? new LinearMorphology(se)::close : new MorphoProcessor(se)::close;
 
         // Filter the spots based on typical weight, width and height.
         // Then derive main width and main height.
@@ -116,7 +119,7 @@ public class BlackHeadSizer
             }
 
             // Perform blackHead-oriented closing
-            glyph = closeBlackHead(mp, glyph);
+            glyph = closeBlackHead(closing, glyph);
 
             // Re-check glyph which may have dramatically changed
             if ((glyph == null) || !checkSpot(glyph)) {
@@ -175,14 +178,15 @@ public class BlackHeadSizer
     /**
      * On the provided (beam-oriented) spot, perform a blackHead-oriented closing.
      *
-     * @param spot raw beam-oriented spot
+     * @param closing the closing operation
+     * @param spot    raw beam-oriented spot
      * @return head-oriented glyph
      */
-    private Glyph closeBlackHead (MorphoProcessor mp,
+    private Glyph closeBlackHead (Consumer<ByteProcessor> closing,
                                   Glyph spot)
     {
         ByteProcessor buffer = spot.getBuffer();
-        mp.close(buffer);
+        closing.accept(buffer);
 
         buffer.threshold(params.binarizationThreshold);
 
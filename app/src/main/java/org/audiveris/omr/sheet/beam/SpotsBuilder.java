@@ -31,6 +31,7 @@ import org.audiveris.omr.glyph.GlyphFactory;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.glyph.GlyphIndex;
 import org.audiveris.omr.image.ImageUtil;
+import org.audiveris.omr.image.LinearMorphology;
 import org.audiveris.omr.image.MorphoProcessor;
 import org.audiveris.omr.image.StructureElement;
 import org.audiveris.omr.lag.Lag;
@@ -159,17 +160,14 @@ public class SpotsBuilder
             eraseHeaderAreas(buffer);
         }
 
-        final double diameter = beam * constants.beamCircleDiameterRatio.getValue();
-        final float radius = (float) (diameter - 1) / 2;
+        final double diameter = getSpotDiameter(beam);
         logger.debug(
                 "Spots retrieval beam: {}, diameter: {} ...",
                 String.format("%.1f", beam),
                 String.format("%.1f", diameter));
 
-        final int[] seOffset = {0, 0};
-        StructureElement se = new StructureElement(0, 1, radius, seOffset);
         watch.start("close");
-        new MorphoProcessor(se).close(buffer);
+        closeSpots(buffer, beam);
 
         // For visual check
         watch.start("visualCheck");
@@ -219,6 +217,44 @@ public class SpotsBuilder
         return glyphs;
     }
 
+    //------------//
+    // closeSpots //
+    //------------//
+    /**
+     * Perform the beam-oriented closing of the provided buffer, with a disk whose diameter
+     * is based on beam height.
+     *
+     * @param buffer provided buffer (it will be modified)
+     * @param beam   typical beam height
+     */
+    public void closeSpots (ByteProcessor buffer,
+                            double beam)
+    {
+        final float radius = (float) (getSpotDiameter(beam) - 1) / 2;
+        final int[] seOffset = {0, 0};
+        final StructureElement se = new StructureElement(0, 1, radius, seOffset);
+
+        if (LinearMorphology.isUsed()) {
+            new LinearMorphology(se).close(buffer);
+        } else {
+            new MorphoProcessor(se).close(buffer);
+        }
+    }
+
+    //-----------------//
+    // getSpotDiameter //
+    //-----------------//
+    /**
+     * Report the diameter of the disk used to close beam spots.
+     *
+     * @param beam typical beam height
+     * @return the disk diameter
+     */
+    public double getSpotDiameter (double beam)
+    {
+        return beam * constants.beamCircleDiameterRatio.getValue();
+    }
+
     //--------------------//
     // dispatchSheetSpots //
     //--------------------//
@@ -296,7 +332,7 @@ public class SpotsBuilder
      *
      * @return the buffer to be used
      */
-    private ByteProcessor getBuffer ()
+    public ByteProcessor getBuffer ()
     {
         StopWatch watch = new StopWatch("SpotsBuilder.getBuffer");
 
@@ -253,15 +253,28 @@ public class ClefBuilder
 
         // Best inter per clef kind
         Map<ClefKind, ClefInter> bestMap = new EnumMap<>(ClefKind.class);
+        List<ClefAdapter> adapters = new ArrayList<>();
+        List<GlyphCluster> clusters = new ArrayList<>();
 
         for (Set<Glyph> set : sets) {
             // Use only the subgraph for this set
             SimpleGraph<Glyph, GlyphLink> subGraph = GlyphCluster.getSubGraph(set, graph, false);
             ClefAdapter adapter = new ClefAdapter(subGraph, bestMap);
-            new GlyphCluster(adapter, null).decompose();
+            adapters.add(adapter);
+            clusters.add(new GlyphCluster(adapter, null));
+        }
 
-            int trials = adapter.trials;
-            logger.debug("Staff#{} clef parts:{} trials:{}", staff.getId(), set.size(), trials);
+        // Clusters are evaluated one after the other, in sets order
+        GlyphCluster.decompose(clusters);
+
+        for (int i = 0; i < sets.size(); i++) {
+            int trials = adapters.get(i).trials;
+            logger.debug(
+                    "Staff#{} clef parts:{} trials:{} explored:{}",
+                    staff.getId(),
+                    sets.get(i).size(),
+                    trials,
+                    clusters.get(i).getExplored());
         }
 
         // Discard poor candidates as much as possible
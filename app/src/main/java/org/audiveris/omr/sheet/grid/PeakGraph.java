@@ -29,6 +29,7 @@ import org.audiveris.omr.glyph.dynamic.Filament;
 import org.audiveris.omr.lag.Lag;
 import org.audiveris.omr.lag.Lags;
 import org.audiveris.omr.lag.Section;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.LineUtil;
@@ -42,12 +43,14 @@ import org.audiveris.omr.sheet.StaffManager;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.SystemManager;
 import static org.audiveris.omr.sheet.grid.StaffPeak.Attribute.BRACE;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.StepException;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.LEFT;
 import static org.audiveris.omr.util.HorizontalSide.RIGHT;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.VerticalSide;
 import static org.audiveris.omr.util.VerticalSide.BOTTOM;
@@ -74,6 +77,9 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code PeakGraph} handles the graph of all StaffPeak instances in a sheet,
@@ -802,14 +808,64 @@ public class PeakGraph
     //--------------//
     /**
      * Use individual staff projections to retrieve bar peaks.
+     * <p>
+     * Staves are analyzed in parallel if so desired, and their peaks are then inserted in graph
+     * in staff order.
      */
     private void findBarPeaks ()
     {
-        // Analysis staff per staff
+        final List<StaffProjector> staffProjectors = new ArrayList<>();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final Thread caller = Thread.currentThread();
+
         for (Staff staff : staffManager.getStaves()) {
-            StaffProjector projector = new StaffProjector(sheet, staff, this);
+            final StaffProjector projector = new StaffProjector(sheet, staff, this);
+            staffProjectors.add(projector);
+            tasks.add(() -> {
+                final boolean helper = Thread.currentThread() != caller;
+
+                try {
+                    if (helper) {
+                        LogUtil.start(sheet.getStub());
+                    }
+
+                    projector.process();
+                } finally {
+                    if (helper) {
+                        LogUtil.stopStub();
+                    }
+                }
+
+                return null;
+            });
+        }
+
+        // Analysis staff per staff
+        try {
+            if (constants.processStavesInParallel.isSet() && (tasks.size() > 1)) {
+                for (Future<Void> future : OmrExecutors.invokeShared(tasks)) {
+                    future.get();
+                }
+            } else {
+                for (Callable<Void> task : tasks) {
+                    task.call();
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause
+                    : new RuntimeException(cause);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+
+        for (StaffProjector projector : staffProjectors) {
             projectors.add(projector);
-            projector.process();
             Graphs.addAllVertices(this, projector.getPeaks());
         }
     }
@@ -1395,6 +1451,10 @@ public class PeakGraph
                 false,
                 "Should we print out the stop watch?");
 
+        private final Constant.Boolean processStavesInParallel = new Constant.Boolean(
+                true,
+                "Should we analyze staff projections in parallel?");
+
         private final Constant.Ratio maxAlignmentSlope = new Constant.Ratio(
                 0.06,
                 "Max slope for bar alignment");
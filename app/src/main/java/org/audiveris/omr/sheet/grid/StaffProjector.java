@@ -30,6 +30,8 @@ import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.AreaUtil.CoreData;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.Projection;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Scale.InterlineScale;
@@ -141,6 +143,9 @@ public class StaffProjector
     /** Pixel source. */
     private final ByteProcessor pixelFilter;
 
+    /** Table of vertical runs, if available, to compute projection. */
+    private final RunTable verticalRuns;
+
     /** Sequence of all blank regions found, whatever their width. */
     private final List<Blank> allBlanks = new ArrayList<>();
 
@@ -184,6 +189,11 @@ public class StaffProjector
         Picture picture = sheet.getPicture();
         pixelFilter = picture.getSource(Picture.SourceKey.BINARY);
 
+        final RunTable binaryTable = picture.getTable(Picture.TableKey.BINARY);
+        verticalRuns = ((binaryTable != null)
+                                && (binaryTable.getOrientation() == Orientation.VERTICAL))
+                ? binaryTable : null;
+
         scale = sheet.getScale();
         params = new Parameters(sheet, staff.getSpecificInterline());
     }
@@ -448,6 +458,9 @@ public class StaffProjector
     //---------//
     /**
      * Process the staff projection on x-axis to retrieve peaks that may represent bars.
+     * <p>
+     * This method does not modify the sheet graph of peaks, so that several staves can be
+     * processed in parallel. The resulting peaks are to be inserted in graph by the caller.
      */
     public void process ()
     {
@@ -737,13 +750,15 @@ public class StaffProjector
      * <p>
      * For a OneLineStaff, we extrapolate ordinates based on a standard 5-line staff.
      * <p>
+     * Pixels are counted on the vertical runs of the binary table if available, by intersecting
+     * the runs of each abscissa with the staff ordinate range.
+     * <p>
      * We also compute derivative threshold for this staff.
      */
     private void computeProjection ()
     {
         projection = new Projection.Short(0, sheet.getWidth() - 1);
 
-        final ArrayList<Integer> derivatives = new ArrayList<>();
         final LineInfo firstLine = staff.getFirstLine();
         final LineInfo lastLine = staff.getLastLine();
         final int dx = params.staffAbscissaMargin;
@@ -753,35 +768,35 @@ public class StaffProjector
         // Correction for ordinates of a 1-line staff
         final int dy = staff.isOneLineStaff() ? (2 * scale.getInterline()) : 0;
 
+        final int[] derivatives = new int[Math.max(0, xMax - xMin)];
+        int size = 0;
+
         // Populating projection data
         for (int x = xMin; x <= xMax; x++) {
             int yMin = firstLine.yAt(x) - dy;
             int yMax = lastLine.yAt(x) - 1 + dy;
             short count = 0;
 
-            for (int y = yMin; y <= yMax; y++) {
-                if (pixelFilter.get(x, y) == 0) {
-                    count++;
+            if (verticalRuns != null) {
+                count = (short) verticalRuns.countForeground(x, yMin, yMax);
+            } else {
+                for (int y = yMin; y <= yMax; y++) {
+                    if (pixelFilter.get(x, y) == 0) {
+                        count++;
+                    }
                 }
             }
 
             projection.increment(x, count);
 
             if (x > xMin) {
-                derivatives.add(Math.abs(projection.getDerivative(x)));
+                derivatives[size++] = Math.abs(projection.getDerivative(x));
             }
         }
 
         // Computing minDerivative from observed top values
-        Collections.sort(derivatives);
-
-        final int size = derivatives.size();
         final int top = constants.topDerivativeNumber.getValue();
-        int derCumul = 0;
-
-        for (int i = 1; i <= top; i++) {
-            derCumul += derivatives.get(size - i);
-        }
+        final int derCumul = sumOfLargest(derivatives, size, top);
 
         final double eliteDer = (double) derCumul / top;
         derivativeThreshold = (int) Math.rint(eliteDer * constants.minDerivativeRatio.getValue());
@@ -1034,7 +1049,6 @@ public class StaffProjector
             } else if (start != -1) {
                 for (StaffPeak peak : browseRange(start, stop, halfMode)) {
                     peaks.add(peak);
-                    peakGraph.addVertex(peak);
 
                     // Make sure peaks do not overlap
                     x = Math.max(x, peak.getStop());
@@ -1050,7 +1064,6 @@ public class StaffProjector
 
             if (peak != null) {
                 peaks.add(peak);
-                peakGraph.addVertex(peak);
             }
         }
 
@@ -1260,6 +1273,74 @@ public class StaffProjector
         return x;
     }
 
+    //--------------//
+    // sumOfLargest //
+    //--------------//
+    /**
+     * Report the sum of the n largest values among the first size cells of provided array.
+     * <p>
+     * This uses a partial selection (quickselect) rather than a full sort, and reorders the
+     * array cells.
+     *
+     * @param values the values to select from (modified)
+     * @param size   the number of relevant values
+     * @param n      the number of largest values to sum up
+     * @return the sum of the n largest values
+     */
+    private static int sumOfLargest (int[] values,
+                                     int size,
+                                     int n)
+    {
+        n = Math.min(n, size);
+
+        if (n <= 0) {
+            return 0;
+        }
+
+        // Move the n largest values to [size - n .. size - 1]
+        final int k = size - n;
+        int lo = 0;
+        int hi = size - 1;
+
+        while (lo < hi) {
+            final int pivot = values[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+
+                while (values[j] > pivot) {
+                    j--;
+                }
+
+                if (i <= j) {
+                    final int tmp = values[i];
+                    values[i++] = values[j];
+                    values[j--] = tmp;
+                }
+            }
+
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                break;
+            }
+        }
+
+        int sum = 0;
+
+        for (int i = k; i < size; i++) {
+            sum += values[i];
+        }
+
+        return sum;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-------//
     // Blank //
@@ -357,6 +357,8 @@ public class KeyExtractor
         logger.debug("Staff#{} sets:{}", id, sets.size());
 
         List<Candidate> allCandidates = new ArrayList<>();
+        List<MultipleAdapter> adapters = new ArrayList<>();
+        List<GlyphCluster> clusters = new ArrayList<>();
 
         for (Set<Glyph> set : sets) {
             // Use only the subgraph for this set
@@ -367,8 +369,21 @@ public class KeyExtractor
                     subGraph,
                     shapes,
                     Grades.keyAlterMinGrade1);
-            new GlyphCluster(adapter, null).decompose();
-            logger.debug("Staff#{} set:{} trials:{}", id, set.size(), adapter.trials);
+            adapters.add(adapter);
+            clusters.add(new GlyphCluster(adapter, null));
+        }
+
+        // Clusters are evaluated one after the other, in sets order
+        GlyphCluster.decompose(clusters);
+
+        for (int i = 0; i < sets.size(); i++) {
+            MultipleAdapter adapter = adapters.get(i);
+            logger.debug(
+                    "Staff#{} set:{} trials:{} explored:{}",
+                    id,
+                    sets.get(i).size(),
+                    adapter.trials,
+                    clusters.get(i).getExplored());
             allCandidates.addAll(adapter.candidates);
         }
 
@@ -29,6 +29,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.image.ChamferDistance;
 import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.image.EuclideanDistance;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Sheet;
@@ -43,13 +44,19 @@ import static org.audiveris.omr.util.HorizontalSide.RIGHT;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Rectangle;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedMap;
 
 /**
  * Class {@code DistancesBuilder} provides the distance table to be used for notes
  * retrieval.
+ * <p>
+ * The table is computed either by the former chamfer distance on the whole sheet, or by the exact
+ * Euclidean distance restricted to the bands around staves and ledgers, since note heads are looked
+ * up only there (see constant {@code useEuclidean}).
  *
  * @author Hervé Bitteur
  */
@@ -93,7 +100,12 @@ public class DistancesBuilder
         // Compute the distance-to-foreground transform image
         Picture picture = sheet.getPicture();
         ByteProcessor buffer = picture.getSource(Picture.SourceKey.BINARY);
-        table = new ChamferDistance.Short().computeToFore(buffer);
+
+        if (constants.useEuclidean.isSet()) {
+            table = new EuclideanDistance.Short().computeToFore(buffer, getStaffBands());
+        } else {
+            table = new ChamferDistance.Short().computeToFore(buffer);
+        }
 
         // "Erase" staff lines, ledgers, stems
         paintLines();
@@ -104,6 +116,81 @@ public class DistancesBuilder
         return table;
     }
 
+    //-----------------//
+    // isEuclideanUsed //
+    //-----------------//
+    /**
+     * Report whether distances are computed by the Euclidean distance on staff bands.
+     *
+     * @return true if so, false if chamfer distance on whole sheet is used
+     */
+    public static boolean isEuclideanUsed ()
+    {
+        return constants.useEuclidean.isSet();
+    }
+
+    //-----------------//
+    // setUseEuclidean //
+    //-----------------//
+    /**
+     * Set whether distances should be computed by the Euclidean distance on staff bands.
+     *
+     * @param bool true for Euclidean distance, false for chamfer distance
+     */
+    public static void setUseEuclidean (boolean bool)
+    {
+        constants.useEuclidean.setValue(bool);
+    }
+
+    //---------------//
+    // getStaffBands //
+    //---------------//
+    /**
+     * Report the regions where note heads can be looked up.
+     * <p>
+     * Each region covers a staff, with its ledgers, plus a margin.
+     * Overlapping regions (such as the regions of staves close to each other) are merged.
+     *
+     * @return the list of non-overlapping regions
+     */
+    private List<Rectangle> getStaffBands ()
+    {
+        final List<Rectangle> bands = new ArrayList<>();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            for (Staff staff : system.getStaves()) {
+                if (staff.isTablature()) {
+                    continue;
+                }
+
+                final Rectangle box = new Rectangle(staff.getFirstLine().getBounds());
+                box.add(staff.getLastLine().getBounds());
+
+                for (List<LedgerInter> ledgers : staff.getLedgerMap().values()) {
+                    for (LedgerInter ledger : ledgers) {
+                        box.add(ledger.getBounds());
+                    }
+                }
+
+                final int margin = (int) Math.ceil(
+                        constants.bandMargin.getValue() * staff.getSpecificInterline());
+                box.grow(margin, margin);
+
+                // Merge with any overlapping band
+                for (int i = bands.size() - 1; i >= 0; i--) {
+                    if (bands.get(i).intersects(box)) {
+                        box.add(bands.remove(i));
+                        i = bands.size();
+                    }
+                }
+
+                bands.add(box);
+            }
+        }
+
+        return bands;
+    }
+
     //------------//
     // paintGlyph //
     //------------//
@@ -185,5 +272,13 @@ public class DistancesBuilder
         private final Constant.Boolean displayTemplates = new Constant.Boolean(
                 false,
                 "Should we display the templates tab?");
+
+        private final Constant.Boolean useEuclidean = new Constant.Boolean(
+                true,
+                "Should we use Euclidean distance on staff bands rather than chamfer on sheet?");
+
+        private final Constant.Ratio bandMargin = new Constant.Ratio(
+                3.0,
+                "Margin around staff and ledgers, specified in staff interline");
     }
 }
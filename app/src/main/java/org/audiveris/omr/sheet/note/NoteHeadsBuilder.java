@@ -38,6 +38,7 @@ import org.audiveris.omr.image.PixelDistance;
 import org.audiveris.omr.image.Template;
 import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.image.TemplateFactory.Catalog;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.LineUtil;
@@ -170,7 +171,7 @@ public class NoteHeadsBuilder
     private List<Inter> systemCompetitors;
 
     /** The forbidden areas around connectors and frozen barlines. */
-    private List<Area> systemBarAreas;
+    private List<ConvexPolygon> systemBarAreas;
 
     /** The vertical (stem) seeds for the system. */
     private List<Glyph> systemSeeds;
@@ -181,6 +182,9 @@ public class NoteHeadsBuilder
     /** Offsets tried around a given (stem-based) abscissa. */
     private final int[] xOffsets;
 
+    /** Minimum value in xOffsets. */
+    private final int xOffsetMin;
+
     /** All note templates for this sheet. */
     private final EnumSet<Shape> sheetTemplateNotes;
 
@@ -234,6 +238,14 @@ public class NoteHeadsBuilder
         // Compute window in x
         xOffsets = computeXOffsets();
 
+        int min = 0;
+
+        for (int xOffset : xOffsets) {
+            min = Math.min(min, xOffset);
+        }
+
+        xOffsetMin = min;
+
         // Compute a reasonable minTemplateWidth
         minTemplateWidth = computeMinTemplateWidth();
     }
@@ -570,9 +582,9 @@ public class NoteHeadsBuilder
     //-------------------//
     // getSystemBarAreas //
     //-------------------//
-    private List<Area> getSystemBarAreas ()
+    private List<ConvexPolygon> getSystemBarAreas ()
     {
-        final List<Area> areas = new ArrayList<>();
+        final List<ConvexPolygon> areas = new ArrayList<>();
         final List<Inter> inters = sig.inters(inter
                 -> inter.isFrozen() && (inter instanceof BarlineInter
                                                 || inter instanceof BarConnectorInter));
@@ -580,7 +592,7 @@ public class NoteHeadsBuilder
 
         for (Inter inter : inters) {
             AbstractVerticalInter vertical = (AbstractVerticalInter) inter;
-            areas.add(vertical.getArea());
+            areas.add(vertical.getPolygon());
         }
 
         return areas;
@@ -645,7 +657,11 @@ public class NoteHeadsBuilder
                 continue;
             }
 
-            if (comp.getArea() != null) {
+            if (comp.getPolygon() != null) {
+                if (comp.getPolygon().intersects(box)) {
+                    return true;
+                }
+            } else if (comp.getArea() != null) {
                 if (comp.getArea().intersects(box)) {
                     return true;
                 }
@@ -942,7 +958,7 @@ public class NoteHeadsBuilder
         for (Iterator<Inter> itb = smallBeams.iterator(); itb.hasNext();) {
             final Inter iBeam = itb.next();
             sig.computeContextualGrade(iBeam);
-            final Area beamArea = iBeam.getArea();
+            final ConvexPolygon beamArea = iBeam.getPolygon();
             final double beamGrade = iBeam.getContextualGrade();
             final Rectangle beamBox = iBeam.getBounds();
             final int beamBottom = beamBox.y + beamBox.height - 1;
@@ -1124,7 +1140,7 @@ public class NoteHeadsBuilder
 
         private final List<Inter> competitors;
 
-        private final List<Area> barAreas;
+        private final List<ConvexPolygon> barAreas;
 
         private final List<LedgerAdapter> ledgers;
 
@@ -1135,6 +1151,12 @@ public class NoteHeadsBuilder
         /** Offsets tried around a given ordinate. */
         private final int[] yOffsets;
 
+        /** Locations to skip in current strip, indexed by xOffset - xOffsetMin. */
+        private final boolean[] stripSkips = new boolean[xOffsets.length];
+
+        /** Distances measured in current strip, indexed by xOffset - xOffsetMin. */
+        private final double[] stripDists = new double[xOffsets.length];
+
         /**
          * Create a Scanner.
          *
@@ -1214,7 +1236,7 @@ public class NoteHeadsBuilder
          */
         private boolean barInvolved (Rectangle rect)
         {
-            for (Area a : barAreas) {
+            for (ConvexPolygon a : barAreas) {
                 if (a.intersects(rect)) {
                     return true;
                 }
@@ -1283,44 +1305,28 @@ public class NoteHeadsBuilder
         /**
          * Evaluate shape template when applied at provided anchor location.
          *
-         * @param shape  shape to evaluate
-         * @param x      pivot abscissa
-         * @param y      pivot ordinate
-         * @param anchor find of pivot WRT template
-         * @return measured distance
+         * @param shape   shape to evaluate
+         * @param x       pivot abscissa
+         * @param y       pivot ordinate
+         * @param anchor  find of pivot WRT template
+         * @param maxDist limit beyond which the precise distance is of no interest
+         * @return measured distance (perhaps Double.MAX_VALUE if beyond maxDist) or null
          */
         private PixelDistance eval (Shape shape,
                                     int x,
                                     int y,
-                                    Anchor anchor)
+                                    Anchor anchor,
+                                    double maxDist)
         {
             final Template template = catalog.getTemplate(shape);
-            final Rectangle slimBox = template.getSlimBoundsAt(x, y, anchor);
-
-            // Skip if frozen barline/connector is too close
-            if (barInvolved(slimBox)) {
-                if (useSeeds) {
-                    seedsPerf.bars++;
-                } else {
-                    rangePerf.bars++;
-                }
-
-                return null;
-            }
-
-            // Skip if location already used by really good object (beam, etc)
-            if (overlap(slimBox, competitors)) {
-                if (useSeeds) {
-                    seedsPerf.overlaps++;
-                } else {
-                    rangePerf.overlaps++;
-                }
 
+            // Skip if frozen barline/connector is too close or location already used
+            if (isBlocked(template, x, y, anchor)) {
                 return null;
             }
 
             // Then try (all variants for) the shape and keep the best dist
-            double dist = template.evaluate(x, y, anchor, distances);
+            double dist = template.evaluate(x, y, anchor, distances, rawMaxDist(shape, maxDist));
 
             // Trick to boost cross heads
             if (shape == Shape.NOTEHEAD_CROSS) {
@@ -1362,6 +1368,59 @@ public class NoteHeadsBuilder
             }
         }
 
+        //-----------//
+        // evalStrip //
+        //-----------//
+        /**
+         * Evaluate shape template when applied at a horizontal strip of anchor locations,
+         * from (x0 + xOffsetMin, y) to (x0 + xOffsetMin + stripDists.length - 1, y).
+         * <p>
+         * On input, stripSkips flags the locations not to evaluate at all.
+         * On output, stripDists contains the measured distance for each location, or
+         * Double.MAX_VALUE for a skipped, blocked or abandoned location.
+         *
+         * @param shape   shape to evaluate
+         * @param x0      pivot abscissa of strip center
+         * @param y       pivot ordinate
+         * @param anchor  find of pivot WRT template
+         * @param maxDist limit beyond which the precise distance is of no interest
+         */
+        private void evalStrip (Shape shape,
+                                int x0,
+                                int y,
+                                Anchor anchor,
+                                double maxDist)
+        {
+            final Template template = catalog.getTemplate(shape);
+            final int xMin = x0 + xOffsetMin;
+
+            for (int p = 0; p < stripSkips.length; p++) {
+                if (!stripSkips[p]) {
+                    stripSkips[p] = isBlocked(template, xMin + p, y, anchor);
+                }
+            }
+
+            template.evaluateStrip(
+                    xMin,
+                    y,
+                    anchor,
+                    distances,
+                    rawMaxDist(shape, maxDist),
+                    stripSkips,
+                    stripDists);
+
+            for (int p = 0; p < stripDists.length; p++) {
+                if (!stripSkips[p]) {
+                    // Trick to boost cross heads
+                    if (shape == Shape.NOTEHEAD_CROSS) {
+                        stripDists[p] *= (1 - constants.crossBoost.getValue());
+                    }
+
+                    seedsPerf.evals++;
+                }
+            }
+        }
+
         //-------------//
         // getBarAreas //
         //-------------//
@@ -1370,10 +1429,10 @@ public class NoteHeadsBuilder
          *
          * @return the bar-centered areas
          */
-        private List<Area> getBarAreas (Area area)
+        private List<ConvexPolygon> getBarAreas (Area area)
         {
-            List<Area> kept = new ArrayList<>();
-            for (Area r : systemBarAreas) {
+            List<ConvexPolygon> kept = new ArrayList<>();
+            for (ConvexPolygon r : systemBarAreas) {
                 if (area.intersects(r.getBounds())) {
                     kept.add(r);
                 }
@@ -1458,6 +1517,51 @@ public class NoteHeadsBuilder
             }
         }
 
+        //-----------//
+        // isBlocked //
+        //-----------//
+        /**
+         * Check whether shape template at provided anchor location would be too close to
+         * a frozen barline/connector or would overlap a really good object (beam, etc).
+         *
+         * @param template template of shape to evaluate
+         * @param x        pivot abscissa
+         * @param y        pivot ordinate
+         * @param anchor   find of pivot WRT template
+         * @return true if location cannot be used
+         */
+        private boolean isBlocked (Template template,
+                                   int x,
+                                   int y,
+                                   Anchor anchor)
+        {
+            final Rectangle slimBox = template.getSlimBoundsAt(x, y, anchor);
+
+            // Skip if frozen barline/connector is too close
+            if (barInvolved(slimBox)) {
+                if (useSeeds) {
+                    seedsPerf.bars++;
+                } else {
+                    rangePerf.bars++;
+                }
+
+                return true;
+            }
+
+            // Skip if location already used by really good object (beam, etc)
+            if (overlap(slimBox, competitors)) {
+                if (useSeeds) {
+                    seedsPerf.overlaps++;
+                } else {
+                    rangePerf.overlaps++;
+                }
+
+                return true;
+            }
+
+            return false;
+        }
+
         //-------------//
         // lookupRange //
         //-------------//
@@ -1502,7 +1606,9 @@ public class NoteHeadsBuilder
 
                     for (int yOffset : yOffsets) {
                         final int y = y0 + yOffset;
-                        PixelDistance loc = eval(shape, x0, y, MIDDLE_LEFT);
+                        final double maxDist = (y == y0) ? params.maxFirstDistance
+                                : params.maxDistanceLow;
+                        PixelDistance loc = eval(shape, x0, y, MIDDLE_LEFT, maxDist);
 
                         if ((loc != null) && (loc.d <= params.maxDistanceLow)) {
                             if ((bestLoc == null) || (bestLoc.d > loc.d)) {
@@ -1597,29 +1703,40 @@ public class NoteHeadsBuilder
                 for (Anchor anchor : anchors) {
                     // For each stem side and for each possible shape,
                     // keep the best match (if acceptable) among all locations tried.
-                    ShapeLoop:
                     for (Shape shape : sheetStemTemplateNotes) {
                         PixelDistance bestLoc = null;
 
-                        // Brute force: explore the whole rectangle around (x0, y0)
+                        // This is the very first (best guess) location tried.
+                        // If eval is really bad, stop immediately
+                        final PixelDistance loc0 = eval(
+                                shape, x0, y0, anchor, params.maxFirstDistance);
+
+                        if ((loc0 != null) && (loc0.d <= params.maxDistanceLow)) {
+                            bestLoc = loc0;
+                        } else if ((loc0 == null) || (loc0.d >= params.reallyBadDistance)) {
+                            seedsPerf.abandons++;
+
+                            continue;
+                        }
+
+                        // Brute force: explore the whole rectangle around (x0, y0), strip by strip
                         for (int yOffset : yOffsets) {
                             final int y = y0 + yOffset;
+                            Arrays.fill(stripSkips, false);
 
-                            for (int xOffset : xOffsets) {
-                                final int x = x0 + xOffset;
-                                PixelDistance loc = eval(shape, x, y, anchor);
+                            if (y == y0) {
+                                stripSkips[-xOffsetMin] = true; // Already evaluated
+                            }
 
-                                if ((loc != null) && (loc.d <= params.maxDistanceLow)) {
-                                    if ((bestLoc == null) || (bestLoc.d > loc.d)) {
-                                        bestLoc = loc;
-                                    }
-                                } else if ((x == x0) && (y == y0)) {
-                                    // This is the very first (best guess) location tried.
-                                    // If eval is really bad, stop immediately
-                                    if ((loc == null) || (loc.d >= params.reallyBadDistance)) {
-                                        seedsPerf.abandons++;
+                            evalStrip(shape, x0, y, anchor, params.maxDistanceLow);
 
-                                        continue ShapeLoop;
+                            for (int xOffset : xOffsets) {
+                                final int p = xOffset - xOffsetMin;
+
+                                if (!stripSkips[p] && (stripDists[p] <= params.maxDistanceLow)) {
+                                    if ((bestLoc == null) || (bestLoc.d > stripDists[p])) {
+                                        bestLoc = new PixelDistance(
+                                                x0 + xOffset, y, stripDists[p]);
                                     }
                                 }
                             }
@@ -1671,6 +1788,26 @@ public class NoteHeadsBuilder
 
             return heads;
         }
+
+        //------------//
+        // rawMaxDist //
+        //------------//
+        /**
+         * Report the distance limit to apply on template evaluation, before any boost.
+         *
+         * @param shape   shape to evaluate
+         * @param maxDist limit on boosted distance
+         * @return limit on raw distance
+         */
+        private double rawMaxDist (Shape shape,
+                                   double maxDist)
+        {
+            if (shape == Shape.NOTEHEAD_CROSS) {
+                return maxDist / (1 - constants.crossBoost.getValue());
+            }
+
+            return maxDist;
+        }
     }
 
     //------------------//
@@ -1921,6 +2058,8 @@ public class NoteHeadsBuilder
 
         final double reallyBadDistance;
 
+        final double maxFirstDistance;
+
         final int maxTemplateDx;
 
         final int maxClosedDy;
@@ -1943,6 +2082,7 @@ public class NoteHeadsBuilder
             maxDistanceLow = Template.maxDistanceLow();
             maxDistanceHigh = Template.maxDistanceHigh();
             reallyBadDistance = Template.reallyBadDistance();
+            maxFirstDistance = Math.max(maxDistanceLow, reallyBadDistance);
 
             maxTemplateDx = scale.toPixels(constants.maxTemplateDx);
             maxClosedDy = Math.max(1, scale.toPixels(constants.maxClosedDy));
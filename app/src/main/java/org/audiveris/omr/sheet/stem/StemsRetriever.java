@@ -28,7 +28,7 @@ import org.audiveris.omr.glyph.Glyphs;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.glyph.Grades;
 import org.audiveris.omr.glyph.ShapeSet;
-import org.audiveris.omr.math.AreaUtil;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.sheet.Profiles;
@@ -68,7 +68,6 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.geom.Area;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -189,7 +188,7 @@ public class StemsRetriever
     private final HashMap<Glyph, StemInter> systemStems = new HashMap<>();
 
     /** Areas forbidden to stem candidates. */
-    private final List<Area> noStemAreas;
+    private final List<ConvexPolygon> noStemAreas;
 
     /** For stem validation. */
     private StemChecker stemChecker;
@@ -389,7 +388,7 @@ public class StemsRetriever
     /**
      * @return the noStemAreas
      */
-    List<Area> getNoStemAreas ()
+    List<ConvexPolygon> getNoStemAreas ()
     {
         return noStemAreas;
     }
@@ -796,12 +795,11 @@ public class StemsRetriever
             final Rectangle seedBox = seed.getBounds();
             final double seedSize = seedBox.width * seedBox.height;
 
-            for (Area noStem : noStemAreas) {
-                if (noStem.intersects(seedBox)) {
-                    // Compute intersection over noStem area
-                    Area intersection = new Area(seedBox);
-                    intersection.intersect(noStem);
-                    Rectangle2D interBox = intersection.getBounds2D();
+            for (ConvexPolygon noStem : noStemAreas) {
+                // Compute intersection over noStem area
+                final Rectangle2D interBox = noStem.clipBounds(seedBox);
+
+                if (interBox != null) {
                     double interSize = interBox.getWidth() * interBox.getHeight();
 
                     Rectangle2D barBox = noStem.getBounds2D();
@@ -829,9 +827,9 @@ public class StemsRetriever
      *
      * @return list of no-stem areas, sorted by abscissa
      */
-    private List<Area> retrieveNoStemAreas ()
+    private List<ConvexPolygon> retrieveNoStemAreas ()
     {
-        final List<Area> areas = new ArrayList<>();
+        final List<ConvexPolygon> areas = new ArrayList<>();
 
         for (Inter barline : sig.inters(BarlineInter.class)) {
             Set<Relation> connections = sig.getRelations(barline, BarConnectionRelation.class);
@@ -841,26 +839,29 @@ public class StemsRetriever
 
                 if (source == barline) {
                     // Top area
-                    areas.add(barline.getArea());
+                    areas.add(barline.getPolygon());
 
                     // Bottom area
                     BarlineInter target = (BarlineInter) sig.getEdgeTarget(connection);
-                    areas.add(target.getArea());
+                    areas.add(target.getPolygon());
 
                     // Middle area
                     Line2D median = new Line2D.Double(
                             source.getMedian().getP2(),
                             target.getMedian().getP1());
                     double width = 0.5 * (source.getWidth() + target.getWidth());
-                    Area middle = AreaUtil.verticalRibbon(median, width);
+                    ConvexPolygon middle = ConvexPolygon.verticalRibbon(median, width);
                     areas.add(middle);
                 }
             }
         }
 
         // Sort by abscissa
-        Collections.sort(areas, (Area a1, Area a2) -> Double.compare(a1.getBounds2D().getMinX(),
-                                                                     a2.getBounds2D().getMinX()));
+        Collections.sort(
+                areas,
+                (ConvexPolygon a1, ConvexPolygon a2) -> Double.compare(
+                        a1.getBounds2D().getMinX(),
+                        a2.getBounds2D().getMinX()));
 
         return areas;
     }
@@ -97,6 +97,12 @@ public class SymbolsBuilder
     /** Scale-dependent global constants. */
     private final Parameters params;
 
+    /** Glyphs waiting for evaluation. */
+    private final List<Glyph> pendingGlyphs = new ArrayList<>();
+
+    /** Closest staff of each glyph waiting for evaluation. */
+    private final List<Staff> pendingStaves = new ArrayList<>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SymbolsBuilder object.
@@ -129,13 +135,14 @@ public class SymbolsBuilder
      * - getSymbolsGlyphs()                             // Retrieve all glyphs usable for symbols
      * - buildLinks()                                   // Build graph with distances
      * - processClusters():                             // Group connected glyphs into clusters
-     *    + FOREACH cluster of connected glyphs:
+     *    + FOREACH cluster of connected glyphs (in parallel):
      *       + cluster.decompose()                      // Decompose cluster into all subsets
      *       + FOREACH subset process(subset):
      *          - build compound glyph                  // Build one compound glyph per subset
-     *          - evaluateGlyph(compound)               // Run shape classifier on compound
-     *          - FOREACH acceptable evaluation
-     *             + interFactory.create(eval, glyph) // Create inter(s) related to evaluation
+     *          - evaluateGlyph(compound)               // Record compound for evaluation
+     * - evaluatePendings():                            // Run shape classifier on all compounds
+     *    + FOREACH compound with acceptable evaluation
+     *       + interFactory.create(eval, glyph)         // Create inter related to evaluation
      * </pre>
      *
      * @param optionalsMap the optional (weak) glyphs per system
@@ -172,7 +179,9 @@ public class SymbolsBuilder
     // evaluateGlyph //
     //---------------//
     /**
-     * Evaluate a provided glyph and create all acceptable inter instances.
+     * Record a provided glyph for later evaluation.
+     * <p>
+     * Actual evaluation is performed by {@link #evaluatePendings()}, on all system glyphs at once.
      *
      * @param glyph the glyph to evaluate
      */
@@ -195,42 +204,50 @@ public class SymbolsBuilder
             return;
         }
 
+        pendingGlyphs.add(glyph);
+        pendingStaves.add(closestStaff);
+    }
+
+    //------------------//
+    // evaluatePendings //
+    //------------------//
+    /**
+     * Evaluate all pending glyphs at once, and create the acceptable inter instances,
+     * in glyph recording order.
+     * <p>
+     * Glyph checks depend only on system geometry, so they can be run before any inter creation.
+     */
+    private void evaluatePendings ()
+    {
+        if (pendingGlyphs.isEmpty()) {
+            return;
+        }
+
         // TODO: checks should be run only AFTER both classifiers have been run
-        Evaluation[] evals = classifier.evaluate(
-                glyph,
+        final Evaluation[][] evalsArray = classifier.evaluate(
+                pendingGlyphs,
                 system,
                 2,
                 Grades.symbolMinGrade,
                 EnumSet.of(Classifier.Condition.CHECKED));
 
-        //        Evaluation[] evals2 = classifier2.evaluate(
-        //                glyph,
-        //                system,
-        //                2,
-        //                Grades.symbolMinGrade, // Not OK for deep classifier!
-        //                EnumSet.of(Classifier.Condition.CHECKED));
-        //
-        if (evals.length > 0) {
-            //            // Create one interpretation for each acceptable evaluation
-            //            for (Evaluation eval : evals) {
-            //                try {
-            //                    factory.create(eval, glyph, closestStaff);
-            //                } catch (Exception ex) {
-            //                    logger.warn("Error in glyph evaluation " + ex, ex);
-            //                }
-            //            }
-            //
-            Evaluation eval = evals[0];
-
-            ///if (evals2.length > 0 && eval.shape == evals2[0].shape) {
-            try {
-                factory.create(eval, glyph, closestStaff);
-            } catch (Exception ex) {
-                logger.warn("Error in glyph evaluation " + ex, ex);
-            }
+        for (int i = 0; i < evalsArray.length; i++) {
+            final Evaluation[] evals = evalsArray[i];
+
+            if (evals.length > 0) {
+                final Glyph glyph = pendingGlyphs.get(i);
+                Evaluation eval = evals[0];
 
-            ///}
+                try {
+                    factory.create(eval, glyph, pendingStaves.get(i));
+                } catch (Exception ex) {
+                    logger.warn("Error in glyph evaluation " + ex, ex);
+                }
+            }
         }
+
+        pendingGlyphs.clear();
+        pendingStaves.clear();
     }
 
     //------------------//
@@ -322,6 +339,7 @@ public class SymbolsBuilder
 
         final int interline = sheet.getInterline();
         final int maxPartCount = constants.maxPartCount.getValue();
+        final List<GlyphCluster> clusters = new ArrayList<>();
 
         for (Set<Glyph> set : sets) {
             final int setSize = set.size();
@@ -343,7 +361,7 @@ public class SymbolsBuilder
                 // Use just the subgraph for this (sub)set
                 final SimpleGraph<Glyph, GlyphLink> subGraph;
                 subGraph = GlyphCluster.getSubGraph(subSet, systemGraph, true);
-                new GlyphCluster(new SymbolAdapter(subGraph), GlyphGroup.SYMBOL).decompose();
+                clusters.add(new GlyphCluster(new SymbolAdapter(subGraph), GlyphGroup.SYMBOL));
             } else {
                 // The set is just an isolated glyph, to be evaluated directly
                 final Glyph glyph = set.iterator().next();
@@ -353,6 +371,12 @@ public class SymbolsBuilder
                 }
             }
         }
+
+        // Decompose all clusters, which are independent of each other
+        GlyphCluster.decompose(clusters);
+
+        // Evaluate all recorded glyphs at once
+        evaluatePendings();
     }
 
     //-------------------//
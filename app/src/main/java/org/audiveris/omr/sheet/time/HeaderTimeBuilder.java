@@ -58,6 +58,7 @@ import org.slf4j.LoggerFactory;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.ListIterator;
@@ -232,6 +233,13 @@ public class HeaderTimeBuilder
         browseProjection();
 
         if (range.hasStart() && (range.getWidth() >= params.minTimeWidth)) {
+            // The 3 clusters are independent, hence decomposed together
+            GlyphCluster.decompose(
+                    Arrays.asList(
+                            new GlyphCluster(createWholeAdapter(), null),
+                            new GlyphCluster(createHalfAdapter(NUM), null),
+                            new GlyphCluster(createHalfAdapter(DEN), null)));
+
             processWhole(); //   Look for whole time sigs (common, cut or combo like 6/8)
             processHalf(NUM); // Look for top halves      (like 6/)
             processHalf(DEN); // Look for bottom halves   (like /8)
@@ -402,19 +410,17 @@ public class HeaderTimeBuilder
         return spaces;
     }
 
-    //-------------//
-    // processHalf //
-    //-------------//
+    //-------------------//
+    // createHalfAdapter //
+    //-------------------//
     /**
-     * Lookup staff header for half time-sig candidates.
-     * Populates 'nums' or 'dens' and sig.
+     * Create the adapter to lookup staff header for half time-sig candidates.
      *
      * @param half which half (top or bottom) is being searched for
+     * @return the created adapter, also registered in 'adapters'
      */
-    private void processHalf (TimeKind half)
+    private TimeAdapter createHalfAdapter (TimeKind half)
     {
-        final List<Inter> inters = (half == NUM) ? nums : dens;
-
         // Define proper rectangular search area for this side
         int top = roi.y + ((half == NUM) ? 0 : (roi.height - (roi.height / 2)));
         Rectangle rect = new Rectangle(range.getStart(), top, range.getWidth(), roi.height / 2);
@@ -426,12 +432,51 @@ public class HeaderTimeBuilder
         List<Glyph> parts = getParts(rect);
         HalfAdapter adapter = new HalfAdapter(half, parts);
         adapters.put(half, adapter);
-        new GlyphCluster(adapter, null).decompose();
+
+        return adapter;
+    }
+
+    //--------------------//
+    // createWholeAdapter //
+    //--------------------//
+    /**
+     * Create the adapter to lookup staff header for whole time-sig candidates.
+     *
+     * @return the created adapter, also registered in 'adapters'
+     */
+    private TimeAdapter createWholeAdapter ()
+    {
+        // Define proper rectangular search area for a whole time-sig
+        Rectangle rect = new Rectangle(range.getStart(), roi.y, range.getWidth(), roi.height);
+        rect.grow(0, -params.yMargin);
+        staff.addAttachment("TF", rect);
+
+        List<Glyph> parts = getParts(rect);
+        TimeAdapter wholeAdapter = new WholeAdapter(parts);
+        adapters.put(WHOLE, wholeAdapter);
+
+        return wholeAdapter;
+    }
+
+    //-------------//
+    // processHalf //
+    //-------------//
+    /**
+     * Lookup staff header for half time-sig candidates, once the half cluster has been
+     * decomposed.
+     * Populates 'nums' or 'dens' and sig.
+     *
+     * @param half which half (top or bottom) is being searched for
+     */
+    private void processHalf (TimeKind half)
+    {
+        final List<Inter> inters = (half == NUM) ? nums : dens;
+        final TimeAdapter adapter = adapters.get(half);
         logger.debug(
                 "Staff#{} {} {} trials:{}",
                 staff.getId(),
                 half,
-                Glyphs.ids("parts", parts),
+                Glyphs.ids("parts", adapter.getParts()),
                 adapter.trials);
 
         if (!adapter.bestMap.isEmpty()) {
@@ -453,24 +498,17 @@ public class HeaderTimeBuilder
     // processWhole //
     //--------------//
     /**
-     * Lookup staff header for whole time-sig candidates.
+     * Lookup staff header for whole time-sig candidates, once the whole cluster has been
+     * decomposed.
      * Populates 'wholes' and sig.
      */
     private void processWhole ()
     {
-        // Define proper rectangular search area for a whole time-sig
-        Rectangle rect = new Rectangle(range.getStart(), roi.y, range.getWidth(), roi.height);
-        rect.grow(0, -params.yMargin);
-        staff.addAttachment("TF", rect);
-
-        List<Glyph> parts = getParts(rect);
-        TimeAdapter wholeAdapter = new WholeAdapter(parts);
-        adapters.put(WHOLE, wholeAdapter);
-        new GlyphCluster(wholeAdapter, null).decompose();
+        final TimeAdapter wholeAdapter = adapters.get(WHOLE);
         logger.debug(
                 "Staff#{} WHOLE {} trials:{}",
                 staff.getId(),
-                Glyphs.ids("parts", parts),
+                Glyphs.ids("parts", wholeAdapter.getParts()),
                 wholeAdapter.trials);
 
         if (!wholeAdapter.bestMap.isEmpty()) {
@@ -0,0 +1,235 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  E x c l u s i o n Q u e u e                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Relation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Class {@code ExclusionQueue} is a priority queue of exclusions, meant to pick up,
+ * exclusion after exclusion, the one whose higher inter has the highest best grade.
+ * <p>
+ * Each exclusion is keyed by the maximum best grade of its source and target inters.
+ * Ties are broken on the exclusion rank in the initial collection, so that the exclusion picked
+ * up is always the first one a plain scan of the collection would select.
+ * <p>
+ * When the grade of an inter changes, all the exclusions this inter is involved in get re-keyed,
+ * by pushing a new heap node and making the former node obsolete.
+ * Obsolete nodes are simply skipped when they reach the heap top.
+ * As a safety net, the key of the top node is checked against current grades before the
+ * exclusion is picked up.
+ *
+ * @author Hervé Bitteur
+ */
+class ExclusionQueue
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** The sig which hosts the exclusions. */
+    private final SIGraph sig;
+
+    /** Heap of nodes, highest key first. */
+    private final PriorityQueue<Node> heap = new PriorityQueue<>(Node.byPriority);
+
+    /** Current node of each pending exclusion. */
+    private final Map<Relation, Node> nodes = new IdentityHashMap<>();
+
+    /** Pending exclusions of each inter. */
+    private final Map<Inter, List<Relation>> interExclusions = new IdentityHashMap<>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code ExclusionQueue} object.
+     *
+     * @param sig        the hosting sig
+     * @param exclusions the exclusions to queue, in the order a scan would browse them
+     */
+    ExclusionQueue (SIGraph sig,
+                    Collection<? extends Relation> exclusions)
+    {
+        this.sig = sig;
+
+        int rank = 0;
+
+        for (Relation rel : exclusions) {
+            if (!nodes.containsKey(rel) && sig.containsEdge(rel)) {
+                push(rel, rank);
+                register(sig.getEdgeSource(rel), rel);
+                register(sig.getEdgeTarget(rel), rel);
+            }
+
+            rank++;
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------//
+    // poll //
+    //------//
+    /**
+     * Pick up the pending exclusion whose higher inter has the highest best grade.
+     *
+     * @return the chosen exclusion, or null if no exclusion with a positive grade is left
+     */
+    Relation poll ()
+    {
+        while (!heap.isEmpty()) {
+            final Node node = heap.poll();
+            final Relation rel = node.rel;
+
+            if (nodes.get(rel) != node) {
+                continue; // Obsolete node
+            }
+
+            if (!sig.containsEdge(rel)) {
+                nodes.remove(rel); // Exclusion no longer exists
+                continue;
+            }
+
+            final double key = keyOf(rel);
+
+            if (key != node.key) {
+                push(rel, node.rank); // Stale key, not reported by any grade notification
+                continue;
+            }
+
+            if (!(key > 0)) {
+                return null;
+            }
+
+            nodes.remove(rel);
+
+            return rel;
+        }
+
+        return null;
+    }
+
+    //-------//
+    // rekey //
+    //-------//
+    /**
+     * Update the keys of all pending exclusions the provided inter is involved in.
+     *
+     * @param inter the inter whose grade may have changed
+     */
+    void rekey (Inter inter)
+    {
+        final List<Relation> rels = interExclusions.get(inter);
+
+        if (rels == null) {
+            return;
+        }
+
+        for (Relation rel : rels) {
+            final Node node = nodes.get(rel);
+
+            if ((node != null) && sig.containsEdge(rel)) {
+                final double key = keyOf(rel);
+
+                if (key != node.key) {
+                    push(rel, node.rank);
+                }
+            }
+        }
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private double keyOf (Relation rel)
+    {
+        final double cp = Math.max(
+                sig.getEdgeSource(rel).getBestGrade(),
+                sig.getEdgeTarget(rel).getBestGrade());
+
+        // NaN must never be preferred, just like in a plain scan
+        return Double.isNaN(cp) ? Double.NEGATIVE_INFINITY : cp;
+    }
+
+    //------//
+    // push //
+    //------//
+    private void push (Relation rel,
+                       int rank)
+    {
+        final Node node = new Node(rel, keyOf(rel), rank);
+        nodes.put(rel, node);
+        heap.add(node);
+    }
+
+    //----------//
+    // register //
+    //----------//
+    private void register (Inter inter,
+                           Relation rel)
+    {
+        List<Relation> rels = interExclusions.get(inter);
+
+        if (rels == null) {
+            interExclusions.put(inter, rels = new ArrayList<>());
+        }
+
+        rels.add(rel);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------//
+    // Node //
+    //------//
+    /**
+     * A heap node, which records the exclusion key when the node was pushed.
+     */
+    private static class Node
+    {
+
+        /** Highest key first, then lowest rank first. */
+        static final Comparator<Node> byPriority = (n1, n2) -> {
+            final int cmp = Double.compare(n2.key, n1.key);
+
+            return (cmp != 0) ? cmp : Integer.compare(n1.rank, n2.rank);
+        };
+
+        final Relation rel;
+
+        final double key;
+
+        final int rank;
+
+        Node (Relation rel,
+              double key,
+              int rank)
+        {
+            this.rel = rel;
+            this.key = key;
+            this.rank = rank;
+        }
+    }
+}
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.sig;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Grades;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.sheet.Staff;
@@ -38,6 +40,7 @@ import org.audiveris.omr.sig.relation.Relations;
 import org.audiveris.omr.sig.relation.Relations.RelationClassPredicate;
 import org.audiveris.omr.sig.relation.Support;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.SpatialIndex;
 
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.Graphs;
@@ -55,6 +58,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -79,6 +83,8 @@ public class SIGraph
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(SIGraph.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -89,6 +95,26 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Spatial index on inters bounds. */
+    private final SpatialIndex<Inter> spatialIndex = new SpatialIndex<>();
+
+    /** Queue of exclusions being reduced, if any. */
+    private ExclusionQueue exclusionQueue;
+
+    /** Indexes on inters class, shape and staff. */
+    private final VertexIndex vertexIndex = new VertexIndex();
+
+    /** Comparator on vertex set order. */
+    private final Comparator<Inter> vertexOrder = (i1, i2) -> Long.compare(
+            vertexIndex.seqOf(i1),
+            vertexIndex.seqOf(i2));
+
+    /** Worklist of impacted inters, if any. */
+    private SigWorklist worklist;
+
+    /** Inter whose contextual grade is being set, if any. */
+    private Inter contextualized;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SIGraph object at system level.
@@ -149,6 +175,8 @@ public class SIGraph
 
         if (added) {
             inter.setSig(this);
+            spatialIndex.add(inter);
+            vertexIndex.add(inter);
 
             // Additional actions
             inter.added();
@@ -182,6 +210,23 @@ public class SIGraph
         }
     }
 
+    //---------------//
+    // boundsChanged //
+    //---------------//
+    /**
+     * Notify that the bounds of the provided inter may have changed.
+     *
+     * @param inter the inter at hand
+     */
+    public void boundsChanged (Inter inter)
+    {
+        spatialIndex.update(inter);
+
+        if (worklist != null) {
+            worklist.modified();
+        }
+    }
+
     //------------------------//
     // computeContextualGrade //
     //------------------------//
@@ -196,7 +241,18 @@ public class SIGraph
         final List<Support> supports = getSupports(inter);
         final double cg = supports.isEmpty() ? inter.getGrade()
                 : computeContextualGrade(inter, supports);
-        inter.setContextualGrade(cg);
+        final Double oldCg = inter.getContextualGrade();
+        contextualized = inter;
+
+        try {
+            inter.setContextualGrade(cg);
+        } finally {
+            contextualized = null;
+        }
+
+        if (worklist != null) {
+            worklist.gradeChanged(inter, true, (oldCg == null) || (oldCg != cg));
+        }
 
         return cg;
     }
@@ -213,6 +269,10 @@ public class SIGraph
      */
     public List<Inter> containedInters (Rectangle rect)
     {
+        if (SpatialIndex.isUsed()) {
+            return new ArrayList<>(spatialIndex.containedEntities(rect));
+        }
+
         List<Inter> found = new ArrayList<>();
 
         for (Inter inter : vertexSet()) {
@@ -238,18 +298,17 @@ public class SIGraph
      */
     public List<Inter> containingInters (Point point)
     {
+        if (SpatialIndex.isUsed()) {
+            return new ArrayList<>(spatialIndex.lookup(
+                    new Rectangle(point.x, point.y, 1, 1),
+                    inter -> isContaining(inter, point)));
+        }
+
         List<Inter> found = new ArrayList<>();
 
         for (Inter inter : vertexSet()) {
-            Rectangle bounds = inter.getBounds();
-
-            if ((bounds != null) && bounds.contains(point)) {
-                // More precise test if we know inter area
-                Area area = inter.getArea();
-
-                if ((area == null) || area.contains(point)) {
-                    found.add(inter);
-                }
+            if (isContaining(inter, point)) {
+                found.add(inter);
             }
         }
 
@@ -269,6 +328,35 @@ public class SIGraph
         }
     }
 
+    //--------------------//
+    // contextualizeStale //
+    //--------------------//
+    /**
+     * (Re)compute the contextual grade of the inters impacted by sig modifications since
+     * the previous call.
+     * <p>
+     * Without worklist, all inters are processed.
+     *
+     * @return the number of inters processed
+     * @see #startWorklist()
+     */
+    public int contextualizeStale ()
+    {
+        if (worklist == null) {
+            contextualize();
+
+            return vertexSet().size();
+        }
+
+        final List<Inter> stales = worklist.pollStale(vertexOrder);
+
+        for (Inter inter : stales) {
+            computeContextualGrade(inter);
+        }
+
+        return stales.size();
+    }
+
     //--------------//
     // deleteInters //
     //--------------//
@@ -294,10 +382,25 @@ public class SIGraph
      * @return the set of inter instances purged
      */
     public Set<Inter> deleteWeakInters ()
+    {
+        return deleteWeakInters(vertexSet());
+    }
+
+    //------------------//
+    // deleteWeakInters //
+    //------------------//
+    /**
+     * Purge, among the provided candidates, the inter instances for which the contextual
+     * grade is lower than minimum threshold.
+     *
+     * @param candidates the inters to check, in vertex set order
+     * @return the set of inter instances purged
+     */
+    public Set<Inter> deleteWeakInters (Collection<? extends Inter> candidates)
     {
         Set<Inter> removed = new LinkedHashSet<>();
 
-        for (Inter inter : vertexSet()) {
+        for (Inter inter : candidates) {
             // Skip frozen inters
             if (inter.isFrozen()) {
                 continue;
@@ -443,6 +546,22 @@ public class SIGraph
         return getRelations(inter, Exclusion.class);
     }
 
+    //-------------//
+    // getModCount //
+    //-------------//
+    /**
+     * Report the count of sig modifications recorded by the worklist.
+     * <p>
+     * Two equal counts mean that neither inters, relations, grades, shapes, staves nor bounds
+     * have been modified in between.
+     *
+     * @return the modification count, or -1 if no worklist is active
+     */
+    public long getModCount ()
+    {
+        return (worklist != null) ? worklist.getModCount() : -1;
+    }
+
     //------------------//
     // getOppositeInter //
     //------------------//
@@ -718,7 +837,10 @@ public class SIGraph
     public final void populateAllInters (Collection<? extends Inter> inters)
     {
         for (Inter inter : inters) {
-            super.addVertex(inter);
+            if (super.addVertex(inter)) {
+                spatialIndex.add(inter);
+                vertexIndex.add(inter);
+            }
         }
     }
 
@@ -746,6 +868,38 @@ public class SIGraph
         return found;
     }
 
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index on sig inters, notably for its query statistics.
+     *
+     * @return the spatial index
+     */
+    public SpatialIndex<Inter> getSpatialIndex ()
+    {
+        return spatialIndex;
+    }
+
+    //--------------//
+    // gradeChanged //
+    //--------------//
+    /**
+     * Notify that the grade or contextual grade of the provided inter has changed.
+     *
+     * @param inter the inter at hand
+     */
+    public void gradeChanged (Inter inter)
+    {
+        if (exclusionQueue != null) {
+            exclusionQueue.rekey(inter);
+        }
+
+        if ((worklist != null) && (inter != contextualized)) {
+            worklist.gradeChanged(inter, false, true);
+        }
+    }
+
     //-----------------//
     // insertExclusion //
     //-----------------//
@@ -897,6 +1051,10 @@ public class SIGraph
      */
     public List<Inter> inters (final Collection<Shape> shapes)
     {
+        if (isVertexIndexUsed()) {
+            return indexed(vertexIndex.ofShapes(shapes), new ShapesPredicate(shapes));
+        }
+
         return inters(new ShapesPredicate(shapes));
     }
 
@@ -911,6 +1069,10 @@ public class SIGraph
      */
     public List<Inter> inters (Staff staff)
     {
+        if (isVertexIndexUsed() && (staff != null)) {
+            return indexed(vertexIndex.ofStaff(staff), inter -> inter.getStaff() == staff);
+        }
+
         return Inters.inters(vertexSet(), staff);
     }
 
@@ -939,6 +1101,10 @@ public class SIGraph
      */
     public List<Inter> inters (final Class classe)
     {
+        if (isVertexIndexUsed()) {
+            return indexed(vertexIndex.ofClass(classe), new ClassPredicate(classe));
+        }
+
         return inters(new ClassPredicate(classe));
     }
 
@@ -953,6 +1119,10 @@ public class SIGraph
      */
     public List<Inter> inters (final Shape shape)
     {
+        if (isVertexIndexUsed()) {
+            return indexed(vertexIndex.ofShape(shape), new ShapePredicate(shape));
+        }
+
         return inters(new ShapePredicate(shape));
     }
 
@@ -967,6 +1137,10 @@ public class SIGraph
      */
     public List<Inter> inters (final Class[] classes)
     {
+        if (isVertexIndexUsed()) {
+            return indexed(vertexIndex.ofClasses(classes), new ClassesPredicate(classes));
+        }
+
         return inters(new ClassesPredicate(classes));
     }
 
@@ -983,6 +1157,15 @@ public class SIGraph
     public List<Inter> inters (final Staff staff,
                                final Class classe)
     {
+        if (isVertexIndexUsed()) {
+            final List<Inter> candidates = (staff != null) ? vertexIndex.ofStaff(staff)
+                    : ((classe != null) ? vertexIndex.ofClass(classe) : null);
+
+            if (candidates != null) {
+                return indexed(candidates, new StaffClassPredicate(staff, classe));
+            }
+        }
+
         return inters(new StaffClassPredicate(staff, classe));
     }
 
@@ -997,6 +1180,18 @@ public class SIGraph
      */
     public List<Inter> intersectedInters (Rectangle box)
     {
+        if (SpatialIndex.isUsed()) {
+            return new ArrayList<>(spatialIndex.lookup(box, inter -> {
+                if (inter.isRemoved()) {
+                    return false;
+                }
+
+                final Rectangle interBounds = inter.getBounds();
+
+                return (interBounds != null) && box.intersects(interBounds);
+            }));
+        }
+
         List<Inter> found = new ArrayList<>();
 
         for (Inter inter : vertexSet()) {
@@ -1055,6 +1250,8 @@ public class SIGraph
 
         for (Inter inter : oldSig.vertexSet()) {
             super.removeVertex(inter); // This removes related relations
+            spatialIndex.remove(inter);
+            vertexIndex.remove(inter);
         }
     }
 
@@ -1087,6 +1284,26 @@ public class SIGraph
         return true;
     }
 
+    //-------------//
+    // pollTouched //
+    //-------------//
+    /**
+     * Report the inters whose contextual grade may have changed since the previous call.
+     * <p>
+     * Without worklist, all inters are reported.
+     *
+     * @return the inters, in vertex set order
+     * @see #startWorklist()
+     */
+    public List<Inter> pollTouched ()
+    {
+        if (worklist == null) {
+            return new ArrayList<>(vertexSet());
+        }
+
+        return worklist.pollTouched(vertexOrder);
+    }
+
     //---------//
     // publish //
     //---------//
@@ -1112,77 +1329,34 @@ public class SIGraph
      * <li>Recompute all impacted contextual grades values,</li>
      * <li>Iterate until no more exclusion is left.</li>
      * </ol>
+     * Exclusions are kept in an {@link ExclusionQueue}, re-keyed as grades get modified, rather
+     * than fully scanned at each iteration. Removal order is not impacted.
      *
      * @param exclusions the collection of exclusions to process
      * @return the set of vertices removed
      */
     public Set<Inter> reduceExclusions (Collection<? extends Relation> exclusions)
     {
-        final Set<Inter> removed = new LinkedHashSet<>();
-        Relation bestRel;
-
-        do {
-            // Choose exclusion with the highest source or target grade
-            double bestCP = 0;
-            bestRel = null;
+        if (!isExclusionQueueUsed()) {
+            return reduceExclusionsByScan(exclusions);
+        }
 
-            for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
-                Relation rel = it.next();
+        final Set<Inter> removed = new LinkedHashSet<>();
+        final ExclusionQueue previousQueue = exclusionQueue;
+        exclusionQueue = new ExclusionQueue(this, exclusions);
 
-                if (containsEdge(rel)) {
-                    final double cp = Math.max(
-                            getEdgeSource(rel).getBestGrade(),
-                            getEdgeTarget(rel).getBestGrade());
+        try {
+            Relation bestRel;
 
-                    if (bestCP < cp) {
-                        bestCP = cp;
-                        bestRel = rel;
-                    }
-                } else {
-                    it.remove();
-                }
+            while ((bestRel = exclusionQueue.poll()) != null) {
+                removeWeaker(bestRel, removed);
             }
+        } finally {
+            exclusionQueue = previousQueue;
+        }
 
-            // Remove the weaker branch of the selected exclusion
-            if (bestRel != null) {
-                final Inter source = getEdgeSource(bestRel);
-                final double scp = source.getBestGrade();
-                final Inter target = getEdgeTarget(bestRel);
-                final double tcp = target.getBestGrade();
-                final Inter weaker = (scp < tcp) ? source : target;
-
-                if (weaker.isVip()) {
-                    logger.info(
-                            "VIP conflict {} deleting weaker {}",
-                            bestRel.toLongString(this),
-                            weaker);
-                }
-
-                // Which inters were involved in some support relation with this weaker inter?
-                final Set<Inter> involved = involvedInters(getSupports(weaker));
-                involved.remove(weaker);
-
-                final Set<Inter> weakerEnsembles = weaker.getAllEnsembles(); // Before weaker is deleted!
-
-                // Remove the weaker inter
-                removed.add(weaker);
-                weaker.remove();
-
-                // If removal of weaker has resulted in removal of an ensemble, count this ensemble
-                for (Inter ensemble : weakerEnsembles) {
-                    if (ensemble.isRemoved()) {
-                        removed.add(ensemble);
-                    }
-                }
-
-                // Update contextual values for all inters that were involved with 'weaker'
-                for (Inter inter : involved) {
-                    computeContextualGrade(inter);
-                }
-
-                exclusions.remove(bestRel);
-            }
-        } while (bestRel != null);
+        // Purge the processed exclusions, as a scan would do
+        exclusions.removeIf(rel -> !containsEdge(rel));
 
         return removed;
     }
@@ -1246,9 +1420,29 @@ public class SIGraph
             logger.info("VIP removeVertex {}", inter);
         }
 
+        spatialIndex.remove(inter);
+        vertexIndex.remove(inter);
+
         return super.removeVertex(inter);
     }
 
+    //--------------//
+    // shapeChanged //
+    //--------------//
+    /**
+     * Notify that the shape of the provided inter has been modified.
+     *
+     * @param inter the inter at hand
+     */
+    public void shapeChanged (Inter inter)
+    {
+        vertexIndex.shapeChanged(inter);
+
+        if (worklist != null) {
+            worklist.modified();
+        }
+    }
+
     //--------------//
     // sortBySource //
     //--------------//
@@ -1265,6 +1459,48 @@ public class SIGraph
                                            getEdgeSource(r1).getBestGrade()));
     }
 
+    //--------------//
+    // staffChanged //
+    //--------------//
+    /**
+     * Notify that the staff of the provided inter has been modified.
+     *
+     * @param inter the inter at hand
+     */
+    public void staffChanged (Inter inter)
+    {
+        vertexIndex.staffChanged(inter);
+
+        if (worklist != null) {
+            worklist.modified();
+        }
+    }
+
+    //---------------//
+    // startWorklist //
+    //---------------//
+    /**
+     * Start recording the inters impacted by sig modifications.
+     * <p>
+     * All current inters are considered as touched.
+     * Notifications are provided by {@link SigListener}.
+     */
+    public void startWorklist ()
+    {
+        worklist = new SigWorklist(this);
+    }
+
+    //--------------//
+    // stopWorklist //
+    //--------------//
+    /**
+     * Stop recording the inters impacted by sig modifications.
+     */
+    public void stopWorklist ()
+    {
+        worklist = null;
+    }
+
     //----------//
     // toString //
     //----------//
@@ -1286,6 +1522,60 @@ public class SIGraph
     //---------------//
 
 
+    //----------------------//
+    // isExclusionQueueUsed //
+    //----------------------//
+    /**
+     * Report whether exclusions are reduced via a priority queue rather than by
+     * repeated scans.
+     *
+     * @return true if queue is used
+     */
+    public static boolean isExclusionQueueUsed ()
+    {
+        return constants.useExclusionQueue.isSet();
+    }
+
+    //----------------------//
+    // setUseExclusionQueue //
+    //----------------------//
+    /**
+     * Set whether exclusions are reduced via a priority queue rather than by
+     * repeated scans.
+     *
+     * @param bool true to use queue
+     */
+    public static void setUseExclusionQueue (boolean bool)
+    {
+        constants.useExclusionQueue.setValue(bool);
+    }
+
+    //-------------------//
+    // isVertexIndexUsed //
+    //-------------------//
+    /**
+     * Report whether class, shape and staff lookups use the vertex indexes.
+     *
+     * @return true if indexes are used
+     */
+    public static boolean isVertexIndexUsed ()
+    {
+        return constants.useVertexIndex.isSet();
+    }
+
+    //-------------------//
+    // setUseVertexIndex //
+    //-------------------//
+    /**
+     * Set whether class, shape and staff lookups use the vertex indexes.
+     *
+     * @param bool true to use indexes
+     */
+    public static void setUseVertexIndex (boolean bool)
+    {
+        constants.useVertexIndex.setValue(bool);
+    }
+
     //------------------------//
     // computeContextualGrade //
     //------------------------//
@@ -1351,6 +1641,60 @@ public class SIGraph
         return bestCg;
     }
 
+    //-------------//
+    // edgeChanged //
+    //-------------//
+    /**
+     * Notify that a relation has been added to or removed from sig.
+     *
+     * @param source relation source
+     * @param target relation target
+     * @param rel    the relation
+     */
+    void edgeChanged (Inter source,
+                      Inter target,
+                      Relation rel)
+    {
+        if (worklist != null) {
+            worklist.edgeChanged(source, target, rel);
+        }
+    }
+
+    //---------//
+    // indexed //
+    //---------//
+    /**
+     * Filter the candidates provided by vertex indexes.
+     * <p>
+     * In check mode, the result is compared with the filtering of the whole vertex set, and the
+     * latter is returned.
+     *
+     * @param candidates the candidates from vertex indexes
+     * @param predicate  the precise test to apply
+     * @return the inters found, in vertex set order
+     */
+    private List<Inter> indexed (List<Inter> candidates,
+                                 Predicate<Inter> predicate)
+    {
+        final List<Inter> found = Inters.inters(candidates, predicate);
+
+        if (constants.checkVertexIndex.isSet()) {
+            final List<Inter> expected = Inters.inters(vertexSet(), predicate);
+
+            if (!found.equals(expected)) {
+                logger.warn(
+                        "{} vertex index mismatch, found: {} expected: {}",
+                        system,
+                        found,
+                        expected);
+            }
+
+            return expected;
+        }
+
+        return found;
+    }
+
     //----------------//
     // involvedInters //
     //----------------//
@@ -1366,6 +1710,117 @@ public class SIGraph
         return inters;
     }
 
+    //--------------//
+    // isContaining //
+    //--------------//
+    private static boolean isContaining (Inter inter,
+                                         Point point)
+    {
+        Rectangle bounds = inter.getBounds();
+
+        if ((bounds != null) && bounds.contains(point)) {
+            // More precise test if we know inter area
+            Area area = inter.getArea();
+
+            return (area == null) || area.contains(point);
+        }
+
+        return false;
+    }
+
+    //------------------------//
+    // reduceExclusionsByScan //
+    //------------------------//
+    /**
+     * Former reduction of exclusions, which scans all remaining exclusions at each
+     * iteration.
+     *
+     * @param exclusions the collection of exclusions to process
+     * @return the set of vertices removed
+     */
+    private Set<Inter> reduceExclusionsByScan (Collection<? extends Relation> exclusions)
+    {
+        final Set<Inter> removed = new LinkedHashSet<>();
+        Relation bestRel;
+
+        do {
+            // Choose exclusion with the highest source or target grade
+            double bestCP = 0;
+            bestRel = null;
+
+            for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
+                Relation rel = it.next();
+
+                if (containsEdge(rel)) {
+                    final double cp = Math.max(
+                            getEdgeSource(rel).getBestGrade(),
+                            getEdgeTarget(rel).getBestGrade());
+
+                    if (bestCP < cp) {
+                        bestCP = cp;
+                        bestRel = rel;
+                    }
+                } else {
+                    it.remove();
+                }
+            }
+
+            // Remove the weaker branch of the selected exclusion
+            if (bestRel != null) {
+                removeWeaker(bestRel, removed);
+                exclusions.remove(bestRel);
+            }
+        } while (bestRel != null);
+
+        return removed;
+    }
+
+    //--------------//
+    // removeWeaker //
+    //--------------//
+    /**
+     * Remove the weaker inter of the provided exclusion, and update the contextual
+     * grades of the inters it supported.
+     *
+     * @param exclusion the exclusion to process
+     * @param removed   (output) the set of removed inters, to be populated
+     */
+    private void removeWeaker (Relation exclusion,
+                               Set<Inter> removed)
+    {
+        final Inter source = getEdgeSource(exclusion);
+        final double scp = source.getBestGrade();
+        final Inter target = getEdgeTarget(exclusion);
+        final double tcp = target.getBestGrade();
+        final Inter weaker = (scp < tcp) ? source : target;
+
+        if (weaker.isVip()) {
+            logger.info("VIP conflict {} deleting weaker {}", exclusion.toLongString(this), weaker);
+        }
+
+        // Which inters were involved in some support relation with this weaker inter?
+        final Set<Inter> involved = involvedInters(getSupports(weaker));
+        involved.remove(weaker);
+
+        final Set<Inter> weakerEnsembles = weaker.getAllEnsembles(); // Before weaker is deleted!
+
+        // Remove the weaker inter
+        removed.add(weaker);
+        weaker.remove();
+
+        // If removal of weaker has resulted in removal of an ensemble, count this ensemble
+        for (Inter ensemble : weakerEnsembles) {
+            if (ensemble.isRemoved()) {
+                removed.add(ensemble);
+            }
+        }
+
+        // Update contextual values for all inters that were involved with 'weaker'
+        for (Inter inter : involved) {
+            computeContextualGrade(inter);
+        }
+    }
+
     //---------//
     // stemsOf //
     //---------//
@@ -1407,7 +1862,57 @@ public class SIGraph
         return sb.toString();
     }
 
+    //-------------//
+    // vertexAdded //
+    //-------------//
+    /**
+     * Notify that an inter has been added to sig.
+     *
+     * @param inter the added inter
+     */
+    void vertexAdded (Inter inter)
+    {
+        if (worklist != null) {
+            worklist.vertexAdded(inter);
+        }
+    }
+
+    //---------------//
+    // vertexRemoved //
+    //---------------//
+    /**
+     * Notify that an inter has been removed from sig.
+     *
+     * @param inter the removed inter
+     */
+    void vertexRemoved (Inter inter)
+    {
+        if (worklist != null) {
+            worklist.modified();
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useExclusionQueue = new Constant.Boolean(
+                true,
+                "Should exclusions be reduced via a priority queue?");
+
+        private final Constant.Boolean useVertexIndex = new Constant.Boolean(
+                true,
+                "Should class, shape and staff lookups use vertex indexes?");
+
+        private final Constant.Boolean checkVertexIndex = new Constant.Boolean(
+                false,
+                "(Debug) Should vertex indexes results be checked against full scans?");
+    }
+
     //----------//
     // Sequence //
     //----------//
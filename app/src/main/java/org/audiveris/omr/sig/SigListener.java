@@ -69,6 +69,7 @@ public class SigListener
         //         e.getEdgeTarget());
         //
         Inter source = e.getEdgeSource();
+        sig.edgeChanged(source, e.getEdgeTarget(), e.getEdge());
 
         if (source.getSig() == sig) {
             e.getEdge().added(e);
@@ -85,6 +86,7 @@ public class SigListener
         //         e.getEdgeTarget());
         //
         Inter source = e.getEdgeSource();
+        sig.edgeChanged(source, e.getEdgeTarget(), e.getEdge());
 
         if (source.getSig() == sig) {
             e.getEdge().removed(e);
@@ -94,6 +96,8 @@ public class SigListener
     @Override
     public void vertexAdded (GraphVertexChangeEvent<Inter> e)
     {
+        sig.vertexAdded(e.getVertex());
+
         //        logger.info(
         //                "GRAPH vertexAdded {} source:{} type:{}",
         //                e.getVertex(),
@@ -112,6 +116,8 @@ public class SigListener
     @Override
     public void vertexRemoved (GraphVertexChangeEvent<Inter> e)
     {
+        sig.vertexRemoved(e.getVertex());
+
         //        logger.info(
         //                "GRAPH vertexRemoved {} source:{} type:{}",
         //                e.getVertex(),
@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.sig;
 
+import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
@@ -92,12 +93,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.IntSupplier;
 import java.util.function.Predicate;
 
 /**
@@ -174,6 +177,15 @@ public class SigReducer
     /** Should we purge weak inter instances?. */
     private final boolean purgeWeaks;
 
+    /** Is current reduction driven by sig worklist?. */
+    private boolean incremental;
+
+    /** Sig modification count when each consistency check was last found idle. */
+    private final Map<String, Long> idleChecks = new HashMap<>();
+
+    /** Work counters for current epoch. */
+    private final EpochCounters counters = new EpochCounters();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code SigReducer} object.
@@ -217,6 +229,34 @@ public class SigReducer
         reduce(new AdapterForLinks());
     }
 
+    //----------------//
+    // isWorklistUsed //
+    //----------------//
+    /**
+     * Report whether reduction epochs focus on the inters impacted by sig modifications,
+     * rather than sweeping the whole sig.
+     *
+     * @return true if worklist is used
+     */
+    public static boolean isWorklistUsed ()
+    {
+        return constants.useWorklist.isSet();
+    }
+
+    //----------------//
+    // setUseWorklist //
+    //----------------//
+    /**
+     * Set whether reduction epochs focus on the inters impacted by sig modifications,
+     * rather than sweeping the whole sig.
+     *
+     * @param bool true to use worklist
+     */
+    public static void setUseWorklist (boolean bool)
+    {
+        constants.useWorklist.setValue(bool);
+    }
+
     //---------------//
     // analyzeChords //
     //---------------//
@@ -493,6 +533,49 @@ public class SigReducer
         }
     }
 
+    //-------//
+    // check //
+    //-------//
+    /**
+     * Run the provided consistency check, unless the sig has not changed since the check
+     * was last found idle.
+     * <p>
+     * A check is idle when it reports no modification and leaves the sig unchanged.
+     * Being deterministic, it would remain idle on the same sig.
+     *
+     * @param name  check name
+     * @param check the check to run
+     * @return the number of modifications
+     */
+    private int check (String name,
+                       IntSupplier check)
+    {
+        if (incremental) {
+            final Long idle = idleChecks.get(name);
+
+            if ((idle != null) && (idle == sig.getModCount())) {
+                counters.checksSkipped++;
+
+                return 0;
+            }
+        }
+
+        counters.checksRun++;
+
+        final long before = sig.getModCount();
+        final int modifs = check.getAsInt();
+
+        if (incremental) {
+            if ((modifs == 0) && (sig.getModCount() == before)) {
+                idleChecks.put(name, before);
+            } else {
+                idleChecks.remove(name);
+            }
+        }
+
+        return modifs;
+    }
+
     //-----------------------//
     // checkAugmentationDots //
     //-----------------------//
@@ -1223,15 +1306,23 @@ public class SigReducer
     /**
      * Update the contextual grade of each Inter in SIG, and remove the weak ones if so
      * desired.
+     * <p>
+     * With sig worklist, only the impacted inters are processed.
      *
      * @return the set of inters removed
      */
     private Set<Inter> contextualizeAndPurge ()
     {
-        sig.contextualize();
+        final int size = sig.vertexSet().size();
+        counters.sweepInters += size;
+        counters.contextualized += sig.contextualizeStale();
 
         if (purgeWeaks) {
-            return sig.deleteWeakInters();
+            final List<Inter> candidates = sig.pollTouched();
+            counters.sweepPurged += size;
+            counters.purgeCandidates += candidates.size();
+
+            return sig.deleteWeakInters(candidates);
         }
 
         return Collections.emptySet();
@@ -1653,53 +1744,68 @@ public class SigReducer
 
         logger.debug("S#{} reducing sig ...", system.getId());
 
-        // General exclusions based on overlap
-        List<Inter> inters = sig.inters(overlapPredicate);
-        inters.removeAll(getHeadersInters());
-        detectOverlaps(inters, adapter);
+        incremental = isWorklistUsed();
+        idleChecks.clear();
 
-        // Inters that conflict with frozen inters must be deleted
-        adapter.checkFrozens();
+        if (incremental) {
+            sig.startWorklist();
+        }
 
-        // Make sure all inters have their contextual grade up-to-date
-        sig.contextualize();
+        try {
+            // General exclusions based on overlap
+            List<Inter> inters = sig.inters(overlapPredicate);
+            inters.removeAll(getHeadersInters());
+            detectOverlaps(inters, adapter);
 
-        adapter.prolog();
+            // Inters that conflict with frozen inters must be deleted
+            adapter.checkFrozens();
 
-        Set<Inter> reduced = new LinkedHashSet<>(); // Reduced inters
-        Set<Inter> deleted = new LinkedHashSet<>(); // Deleted inters
+            // Make sure all inters have their contextual grade up-to-date
+            sig.contextualize();
 
-        int epoch = 0;
+            adapter.prolog();
 
-        do {
-            logger.debug("S#{} epoch: {}", system.getId(), ++epoch);
+            Set<Inter> reduced = new LinkedHashSet<>(); // Reduced inters
+            Set<Inter> deleted = new LinkedHashSet<>(); // Deleted inters
 
-            reduced.clear();
-            deleted.clear();
+            int epoch = 0;
 
-            // First, remove all inters with too low contextual grade
-            deleted.addAll(contextualizeAndPurge());
-            allRemoved.addAll(deleted);
+            do {
+                logger.debug("S#{} epoch: {}", system.getId(), ++epoch);
+                counters.reset();
 
-            deleted.addAll(adapter.checkSlurs());
-            allRemoved.addAll(deleted);
+                reduced.clear();
+                deleted.clear();
 
-            int modifs; // modifications done in current iteration
+                // First, remove all inters with too low contextual grade
+                deleted.addAll(contextualizeAndPurge());
+                allRemoved.addAll(deleted);
 
-            while ((modifs = adapter.checkConsistencies()) > 0) {
-                logger.trace("S#{} modifs: {}", system.getId(), modifs);
-            }
+                deleted.addAll(adapter.checkSlurs());
+                allRemoved.addAll(deleted);
 
-            // Remaining exclusions
-            reduced.addAll(sig.reduceExclusions());
-            allRemoved.addAll(reduced);
+                int modifs; // modifications done in current iteration
 
-            while ((modifs = adapter.checkLateConsistencies()) > 0) {
-                logger.trace("S#{} late modifs: {}", system.getId(), modifs);
-            }
+                while ((modifs = adapter.checkConsistencies()) > 0) {
+                    logger.trace("S#{} modifs: {}", system.getId(), modifs);
+                }
+
+                // Remaining exclusions
+                reduced.addAll(sig.reduceExclusions());
+                allRemoved.addAll(reduced);
 
-            logger.trace("S#{} reductions: {}", system.getId(), reduced);
-        } while (!reduced.isEmpty() || !deleted.isEmpty());
+                while ((modifs = adapter.checkLateConsistencies()) > 0) {
+                    logger.trace("S#{} late modifs: {}", system.getId(), modifs);
+                }
+
+                logger.trace("S#{} reductions: {}", system.getId(), reduced);
+                logger.debug("S#{} epoch: {} {}", system.getId(), epoch, counters);
+            } while (!reduced.isEmpty() || !deleted.isEmpty());
+        } finally {
+            if (incremental) {
+                sig.stopWorklist();
+            }
+        }
 
         return allRemoved;
     }
@@ -2021,6 +2127,56 @@ public class SigReducer
         private final Scale.Fraction maxTupletSlurWidth = new Scale.Fraction(
                 3,
                 "Maximum width for slur around tuplet");
+
+        private final Constant.Boolean useWorklist = new Constant.Boolean(
+                true,
+                "Should reduction epochs focus on inters impacted by sig modifications?");
+    }
+
+    //---------------//
+    // EpochCounters //
+    //---------------//
+    /**
+     * Work performed during a reduction epoch, compared with a sweep of the whole sig.
+     */
+    private static class EpochCounters
+    {
+
+        /** Inters a full sweep would contextualize. */
+        int sweepInters;
+
+        /** Inters actually contextualized. */
+        int contextualized;
+
+        /** Inters a full sweep would check for purge. */
+        int sweepPurged;
+
+        /** Inters actually checked for purge. */
+        int purgeCandidates;
+
+        /** Consistency checks run. */
+        int checksRun;
+
+        /** Consistency checks skipped, since sig had not changed. */
+        int checksSkipped;
+
+        void reset ()
+        {
+            sweepInters = contextualized = sweepPurged = purgeCandidates = 0;
+            checksRun = checksSkipped = 0;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return new StringBuilder("contextualized:").append(contextualized)
+                    .append('/').append(sweepInters)
+                    .append(" purgeCandidates:").append(purgeCandidates)
+                    .append('/').append(sweepPurged)
+                    .append(" checks run:").append(checksRun)
+                    .append(" skipped:").append(checksSkipped)
+                    .toString();
+        }
     }
 
     //-----------------------//
@@ -2037,22 +2193,22 @@ public class SigReducer
 
             int modifs = 0;
 
-            modifs += checkStemEndingHeads();
+            modifs += check("checkStemEndingHeads", () -> checkStemEndingHeads());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkHeads();
+            modifs += check("checkHeads", () -> checkHeads());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkHooksHaveStem();
+            modifs += check("checkHooksHaveStem", () -> checkHooksHaveStem());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkBeamsHaveBothStems();
+            modifs += check("checkBeamsHaveBothStems", () -> checkBeamsHaveBothStems());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkLedgers();
+            modifs += check("checkLedgers", () -> checkLedgers());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkStems();
+            modifs += check("checkStems", () -> checkStems());
             deleted.addAll(contextualizeAndPurge());
 
             return modifs;
@@ -2098,26 +2254,26 @@ public class SigReducer
         {
             int modifs = 0;
 
-            modifs += checkStemEndingHeads();
+            modifs += check("checkStemEndingHeads", () -> checkStemEndingHeads());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkHeads();
+            modifs += check("checkHeads", () -> checkHeads());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkDoubleAlters();
+            modifs += check("checkDoubleAlters", () -> checkDoubleAlters());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkTimeNumbers();
+            modifs += check("checkTimeNumbers", () -> checkTimeNumbers());
             checkTimeSignatures();
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkAugmentationDots();
-            modifs += checkAugmentedHeads();
-            modifs += checkAugmentedRests();
-            modifs += checkAugmentedDots();
+            modifs += check("checkAugmentationDots", () -> checkAugmentationDots());
+            modifs += check("checkAugmentedHeads", () -> checkAugmentedHeads());
+            modifs += check("checkAugmentedRests", () -> checkAugmentedRests());
+            modifs += check("checkAugmentedDots", () -> checkAugmentedDots());
             deleted.addAll(contextualizeAndPurge());
 
-            modifs += checkIsolatedAlters();
+            modifs += check("checkIsolatedAlters", () -> checkIsolatedAlters());
             deleted.addAll(contextualizeAndPurge());
 
             return modifs;
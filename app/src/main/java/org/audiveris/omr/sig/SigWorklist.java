@@ -0,0 +1,247 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     S i g W o r k l i s t                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Exclusion;
+import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.sig.relation.Support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class {@code SigWorklist} records, while a sig is being reduced, the inters impacted by the
+ * modifications of the sig, so that reduction can focus on them.
+ * <p>
+ * The contextual grade of an inter depends on its own grade, on its supporting relations, on the
+ * grade of its supporting partners and on the exclusions between these partners.
+ * Hence an inter is <i>stale</i>, that is its contextual grade must be recomputed, when:
+ * <ul>
+ * <li>it has just been added,
+ * <li>its grade or the grade of one of its supporting partners has changed,
+ * <li>one of its supporting relations has been added or removed,
+ * <li>an exclusion has been added or removed between one of its partners and another inter.
+ * </ul>
+ * An inter is <i>touched</i> when its contextual grade may have changed since the last purge of
+ * weak inters.
+ * <p>
+ * A modification count is also maintained, which allows to detect that a sig has not changed
+ * at all between two points in time.
+ *
+ * @author Hervé Bitteur
+ */
+class SigWorklist
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** The sig being tracked. */
+    private final SIGraph sig;
+
+    /** Inters whose contextual grade must be recomputed. */
+    private final Set<Inter> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Inters whose contextual grade may have changed since last purge. */
+    private final Set<Inter> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Count of modifications. */
+    private long modCount;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SigWorklist} object.
+     * <p>
+     * All current inters are considered as touched, since no purge has been performed on them yet.
+     *
+     * @param sig the sig to track
+     */
+    SigWorklist (SIGraph sig)
+    {
+        this.sig = sig;
+        touched.addAll(sig.vertexSet());
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // edgeChanged //
+    //-------------//
+    /**
+     * Notify that a relation has been added or removed.
+     *
+     * @param source relation source
+     * @param target relation target
+     * @param rel    the relation
+     */
+    void edgeChanged (Inter source,
+                      Inter target,
+                      Relation rel)
+    {
+        modCount++;
+
+        if (rel instanceof Support) {
+            markStale(source);
+            markStale(target);
+        } else if (rel instanceof Exclusion) {
+            // Partitions of their supporting partners may be modified
+            markPartners(source);
+            markPartners(target);
+        }
+    }
+
+    //-------------//
+    // getModCount //
+    //-------------//
+    /**
+     * Report the current count of modifications.
+     *
+     * @return the modification count
+     */
+    long getModCount ()
+    {
+        return modCount;
+    }
+
+    //--------------//
+    // gradeChanged //
+    //--------------//
+    /**
+     * Notify that the grade or the contextual grade of an inter has been modified.
+     *
+     * @param inter    the inter at hand
+     * @param computed true if this is the result of contextual grade computation
+     * @param modified false if value is known to be unchanged
+     */
+    void gradeChanged (Inter inter,
+                       boolean computed,
+                       boolean modified)
+    {
+        if (modified) {
+            modCount++;
+        }
+
+        if (computed) {
+            touched.add(inter);
+        } else {
+            // Grade may have changed, which impacts the inter and its partners
+            markStale(inter);
+            markPartners(inter);
+        }
+    }
+
+    //----------//
+    // modified //
+    //----------//
+    /**
+     * Notify a modification which does not impact contextual grades.
+     */
+    void modified ()
+    {
+        modCount++;
+    }
+
+    //-----------//
+    // pollStale //
+    //-----------//
+    /**
+     * Report and forget the stale inters still in sig.
+     *
+     * @param order comparator on vertex set order
+     * @return the stale inters, in vertex set order
+     */
+    List<Inter> pollStale (Comparator<Inter> order)
+    {
+        return poll(stale, order);
+    }
+
+    //-------------//
+    // pollTouched //
+    //-------------//
+    /**
+     * Report and forget the touched inters still in sig.
+     *
+     * @param order comparator on vertex set order
+     * @return the touched inters, in vertex set order
+     */
+    List<Inter> pollTouched (Comparator<Inter> order)
+    {
+        return poll(touched, order);
+    }
+
+    //-------------//
+    // vertexAdded //
+    //-------------//
+    /**
+     * Notify that an inter has been added.
+     *
+     * @param inter the added inter
+     */
+    void vertexAdded (Inter inter)
+    {
+        modCount++;
+        markStale(inter);
+    }
+
+    //--------------//
+    // markPartners //
+    //--------------//
+    private void markPartners (Inter inter)
+    {
+        if (sig.containsVertex(inter)) {
+            for (Support support : sig.getSupports(inter)) {
+                markStale(sig.getOppositeInter(inter, support));
+            }
+        }
+    }
+
+    //-----------//
+    // markStale //
+    //-----------//
+    private void markStale (Inter inter)
+    {
+        stale.add(inter);
+        touched.add(inter);
+    }
+
+    //------//
+    // poll //
+    //------//
+    private List<Inter> poll (Set<Inter> set,
+                              Comparator<Inter> order)
+    {
+        final List<Inter> list = new ArrayList<>(set.size());
+
+        for (Inter inter : set) {
+            if (!inter.isRemoved() && sig.containsVertex(inter)) {
+                list.add(inter);
+            }
+        }
+
+        set.clear();
+        Collections.sort(list, order);
+
+        return list;
+    }
+}
@@ -0,0 +1,434 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     V e r t e x I n d e x                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sig.inter.Inter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class {@code VertexIndex} maintains secondary indexes on the inters of a sig, by concrete
+ * class, by shape and by staff, to retrieve the candidates of a query without browsing the
+ * whole vertex set.
+ * <p>
+ * Candidates are reported in the order inters were added, which is the vertex set order.
+ * They are just candidates: the caller still applies its precise test on them.
+ * <p>
+ * Staff of an inter is often computed lazily, so an inter is first considered as unsettled and
+ * its staff is read only when the next staff query is performed.
+ * Once read, a non-null staff is kept until the inter notifies a staff change.
+ *
+ * @author Hervé Bitteur
+ */
+class VertexIndex
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Entry of each indexed inter. */
+    private final Map<Inter, Entry> entries = new IdentityHashMap<>();
+
+    /** Entries by concrete class. */
+    private final Map<Class<?>, Set<Entry>> byClass = new HashMap<>();
+
+    /** Cache of concrete classes compatible with a queried class. */
+    private final Map<Class<?>, List<Class<?>>> compatibles = new HashMap<>();
+
+    /** Entries by shape, perhaps null. */
+    private final Map<Shape, Set<Entry>> byShape = new HashMap<>();
+
+    /** Entries by settled staff. */
+    private final Map<Staff, Set<Entry>> byStaff = new IdentityHashMap<>();
+
+    /** Entries whose staff is not yet known. */
+    private final Set<Entry> unsettled = new HashSet<>();
+
+    /** Sequence number of next added inter. */
+    private long nextSeq;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Index a new inter.
+     *
+     * @param inter the inter added to sig
+     */
+    void add (Inter inter)
+    {
+        if (entries.containsKey(inter)) {
+            return;
+        }
+
+        final Entry entry = new Entry(inter, nextSeq++);
+        entries.put(inter, entry);
+
+        final Class<?> classe = inter.getClass();
+
+        if (!byClass.containsKey(classe)) {
+            compatibles.clear(); // New concrete class
+        }
+
+        bucket(byClass, classe).add(entry);
+
+        entry.shape = inter.getShape();
+        bucket(byShape, entry.shape).add(entry);
+
+        unsettled.add(entry);
+    }
+
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all inters.
+     */
+    void clear ()
+    {
+        entries.clear();
+        byClass.clear();
+        compatibles.clear();
+        byShape.clear();
+        byStaff.clear();
+        unsettled.clear();
+    }
+
+    //---------//
+    // ofClass //
+    //---------//
+    /**
+     * Report the inters which are instances of the provided class.
+     *
+     * @param classe the provided class (or interface)
+     * @return the candidates, in vertex set order
+     */
+    List<Inter> ofClass (Class<?> classe)
+    {
+        final List<Entry> found = new ArrayList<>();
+
+        for (Class<?> concrete : compatiblesOf(classe)) {
+            found.addAll(byClass.get(concrete));
+        }
+
+        return sorted(found);
+    }
+
+    //-----------//
+    // ofClasses //
+    //-----------//
+    /**
+     * Report the inters which are instances of at least one of the provided classes.
+     *
+     * @param classes the provided classes
+     * @return the candidates, in vertex set order
+     */
+    List<Inter> ofClasses (Class<?>[] classes)
+    {
+        final Set<Class<?>> concretes = new HashSet<>();
+
+        for (Class<?> classe : classes) {
+            concretes.addAll(compatiblesOf(classe));
+        }
+
+        final List<Entry> found = new ArrayList<>();
+
+        for (Class<?> concrete : concretes) {
+            found.addAll(byClass.get(concrete));
+        }
+
+        return sorted(found);
+    }
+
+    //---------//
+    // ofShape //
+    //---------//
+    /**
+     * Report the inters of the provided shape.
+     *
+     * @param shape the provided shape, perhaps null
+     * @return the candidates, in vertex set order
+     */
+    List<Inter> ofShape (Shape shape)
+    {
+        final Set<Entry> set = byShape.get(shape);
+
+        return (set != null) ? sorted(new ArrayList<>(set)) : Collections.emptyList();
+    }
+
+    //----------//
+    // ofShapes //
+    //----------//
+    /**
+     * Report the inters of the provided shapes.
+     *
+     * @param shapes the provided shapes
+     * @return the candidates, in vertex set order
+     */
+    List<Inter> ofShapes (Collection<Shape> shapes)
+    {
+        final List<Entry> found = new ArrayList<>();
+
+        for (Shape shape : new HashSet<>(shapes)) {
+            final Set<Entry> set = byShape.get(shape);
+
+            if (set != null) {
+                found.addAll(set);
+            }
+        }
+
+        return sorted(found);
+    }
+
+    //---------//
+    // ofStaff //
+    //---------//
+    /**
+     * Report the inters related to the provided staff.
+     *
+     * @param staff the provided staff, not null
+     * @return the candidates, in vertex set order
+     */
+    List<Inter> ofStaff (Staff staff)
+    {
+        settle();
+
+        final Set<Entry> set = byStaff.get(staff);
+
+        return (set != null) ? sorted(new ArrayList<>(set)) : Collections.emptyList();
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove an inter from the index.
+     *
+     * @param inter the inter removed from sig
+     */
+    void remove (Inter inter)
+    {
+        final Entry entry = entries.remove(inter);
+
+        if (entry != null) {
+            byClass.get(inter.getClass()).remove(entry);
+            byShape.get(entry.shape).remove(entry);
+            unsettle(entry);
+            unsettled.remove(entry);
+        }
+    }
+
+    //-------//
+    // seqOf //
+    //-------//
+    /**
+     * Report the sequence number of the provided inter, which reflects its rank in vertex set.
+     *
+     * @param inter the inter at hand
+     * @return the inter sequence number, or Long.MAX_VALUE if not indexed
+     */
+    long seqOf (Inter inter)
+    {
+        final Entry entry = entries.get(inter);
+
+        return (entry != null) ? entry.seq : Long.MAX_VALUE;
+    }
+
+    //--------------//
+    // shapeChanged //
+    //--------------//
+    /**
+     * Notify that the shape of an indexed inter has been modified.
+     *
+     * @param inter the inter at hand
+     */
+    void shapeChanged (Inter inter)
+    {
+        final Entry entry = entries.get(inter);
+
+        if ((entry != null) && (entry.shape != inter.getShape())) {
+            byShape.get(entry.shape).remove(entry);
+            entry.shape = inter.getShape();
+            bucket(byShape, entry.shape).add(entry);
+        }
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of indexed inters.
+     *
+     * @return the number of inters
+     */
+    int size ()
+    {
+        return entries.size();
+    }
+
+    //--------------//
+    // staffChanged //
+    //--------------//
+    /**
+     * Notify that the staff of an indexed inter has been modified.
+     *
+     * @param inter the inter at hand
+     */
+    void staffChanged (Inter inter)
+    {
+        final Entry entry = entries.get(inter);
+
+        if (entry != null) {
+            unsettle(entry);
+            unsettled.add(entry);
+        }
+    }
+
+    //--------//
+    // bucket //
+    //--------//
+    private static <K> Set<Entry> bucket (Map<K, Set<Entry>> map,
+                                          K key)
+    {
+        Set<Entry> set = map.get(key);
+
+        if (set == null) {
+            map.put(key, set = new HashSet<>());
+        }
+
+        return set;
+    }
+
+    //---------------//
+    // compatiblesOf //
+    //---------------//
+    /**
+     * Report the indexed concrete classes which are assignable to the provided class.
+     *
+     * @param classe the provided class
+     * @return the compatible concrete classes
+     */
+    private List<Class<?>> compatiblesOf (Class<?> classe)
+    {
+        List<Class<?>> list = compatibles.get(classe);
+
+        if (list == null) {
+            list = new ArrayList<>();
+
+            for (Class<?> concrete : byClass.keySet()) {
+                if (classe.isAssignableFrom(concrete)) {
+                    list.add(concrete);
+                }
+            }
+
+            compatibles.put(classe, list);
+        }
+
+        return list;
+    }
+
+    //--------//
+    // settle //
+    //--------//
+    /**
+     * Read the staff of unsettled inters, and index those with a known staff.
+     */
+    private void settle ()
+    {
+        for (Iterator<Entry> it = unsettled.iterator(); it.hasNext();) {
+            final Entry entry = it.next();
+            final Staff staff = entry.inter.getStaff();
+
+            if (staff != null) {
+                entry.staff = staff;
+                bucket(byStaff, staff).add(entry);
+                it.remove();
+            }
+        }
+    }
+
+    //--------//
+    // sorted //
+    //--------//
+    private static List<Inter> sorted (List<Entry> found)
+    {
+        Collections.sort(found, Entry.bySeq);
+
+        final List<Inter> inters = new ArrayList<>(found.size());
+
+        for (Entry entry : found) {
+            inters.add(entry.inter);
+        }
+
+        return inters;
+    }
+
+    //----------//
+    // unsettle //
+    //----------//
+    private void unsettle (Entry entry)
+    {
+        if (entry.staff != null) {
+            byStaff.get(entry.staff).remove(entry);
+            entry.staff = null;
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry
+    {
+
+        static final Comparator<Entry> bySeq = (e1, e2) -> Long.compare(e1.seq, e2.seq);
+
+        final Inter inter;
+
+        /** Sequence number, to report inters in vertex set order. */
+        final long seq;
+
+        /** Shape used for indexing. */
+        Shape shape;
+
+        /** Staff used for indexing, null if unsettled. */
+        Staff staff;
+
+        Entry (Inter inter,
+               long seq)
+        {
+            this.inter = inter;
+            this.seq = seq;
+        }
+    }
+}
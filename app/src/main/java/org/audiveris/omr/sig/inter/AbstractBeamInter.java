@@ -24,7 +24,7 @@ package org.audiveris.omr.sig.inter;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Grades;
 import org.audiveris.omr.glyph.Shape;
-import org.audiveris.omr.math.AreaUtil;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.math.PointUtil;
@@ -617,10 +617,11 @@ public abstract class AbstractBeamInter
      */
     protected final void computeArea ()
     {
-        setArea(AreaUtil.horizontalParallelogram(median.getP1(), median.getP2(), height));
+        setPolygon(ConvexPolygon.horizontalParallelogram(median.getP1(), median.getP2(), height));
 
         // Define precise bounds based on this path
         bounds = getArea().getBounds();
+        boundsChanged();
     }
 
     //----------------//
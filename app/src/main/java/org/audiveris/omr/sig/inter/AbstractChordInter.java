@@ -1074,6 +1074,7 @@ public abstract class AbstractChordInter
     {
         beams = null;
         bounds = null;
+        boundsChanged();
         headLocation = null;
         tailLocation = null;
 
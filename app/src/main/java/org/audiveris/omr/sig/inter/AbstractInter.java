@@ -26,6 +26,7 @@ import org.audiveris.omr.glyph.Glyphs;
 import org.audiveris.omr.glyph.Grades;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.math.AreaUtil;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.math.GeoUtil;
 import org.audiveris.omr.sheet.Part;
 import org.audiveris.omr.sheet.Sheet;
@@ -163,6 +164,9 @@ public abstract class AbstractInter
     /** Object precise area, if any. */
     protected Area area;
 
+    /** Convex polygon equivalent to area, if any. */
+    protected ConvexPolygon polygon;
+
     /** Details about grade. */
     protected GradeImpacts impacts;
 
@@ -276,6 +280,10 @@ public abstract class AbstractInter
             return glyph.contains(point);
         }
 
+        if (polygon != null) {
+            return polygon.contains(point);
+        }
+
         if (area != null) {
             return area.contains(point);
         }
@@ -410,6 +418,7 @@ public abstract class AbstractInter
     public void setArea (Area area)
     {
         this.area = area;
+        polygon = null;
     }
 
     //----------------//
@@ -456,6 +465,7 @@ public abstract class AbstractInter
     public void setBounds (Rectangle bounds)
     {
         this.bounds = (bounds != null) ? new Rectangle(bounds) : null;
+        boundsChanged();
     }
 
     //-----------//
@@ -543,6 +553,10 @@ public abstract class AbstractInter
     public void setContextualGrade (double value)
     {
         ctxGrade = value;
+
+        if (sig != null) {
+            sig.gradeChanged(this);
+        }
     }
 
     //---------------//
@@ -633,6 +647,7 @@ public abstract class AbstractInter
     public void setGlyph (Glyph glyph)
     {
         this.glyph = glyph;
+        boundsChanged();
     }
 
     //----------//
@@ -651,6 +666,10 @@ public abstract class AbstractInter
     public void setGrade (Double grade)
     {
         this.grade = grade;
+
+        if (sig != null) {
+            sig.gradeChanged(this);
+        }
     }
 
     //------------//
@@ -709,6 +728,29 @@ public abstract class AbstractInter
         return part;
     }
 
+    //------------//
+    // getPolygon //
+    //------------//
+    @Override
+    public ConvexPolygon getPolygon ()
+    {
+        return polygon;
+    }
+
+    //------------//
+    // setPolygon //
+    //------------//
+    /**
+     * Set the underlying convex polygon, together with the equivalent area.
+     *
+     * @param polygon the polygon to set
+     */
+    public void setPolygon (ConvexPolygon polygon)
+    {
+        this.polygon = polygon;
+        area = polygon.toArea();
+    }
+
     //------------//
     // getProfile //
     //------------//
@@ -818,6 +860,7 @@ public abstract class AbstractInter
     public void setStaff (Staff staff)
     {
         this.staff = staff;
+        staffChanged();
     }
 
     //-----------------//
@@ -1080,11 +1123,19 @@ public abstract class AbstractInter
         // Area <--> that?
         if (this.area != null) {
             if (that.getArea() != null) {
+                // Polygon <--> Polygon?
+                if ((this.polygon != null) && (that.getPolygon() != null)) {
+                    return this.polygon.intersects(that.getPolygon());
+                }
+
                 // Area <--> Area?
                 return AreaUtil.intersection(this.area, that.getArea());
             } else if (that.getGlyph() != null) {
                 // Area <--> Glyph?
                 return that.getGlyph().intersects(this.area);
+            } else if (this.polygon != null) {
+                // Polygon <--> Bounds
+                return this.polygon.intersects(that.getBounds());
             } else {
                 // Area <--> Bounds
                 return this.area.intersects(that.getBounds());
@@ -1291,6 +1342,47 @@ public abstract class AbstractInter
         return false; // By default
     }
 
+    //---------------//
+    // boundsChanged //
+    //---------------//
+    /**
+     * Notify the containing sig, if any, that the bounds of this inter may have changed.
+     * <p>
+     * This must be called by any method that modifies the data inter bounds depend upon.
+     */
+    protected void boundsChanged ()
+    {
+        if (sig != null) {
+            sig.boundsChanged(this);
+        }
+    }
+
+    //--------------//
+    // shapeChanged //
+    //--------------//
+    /**
+     * Notify the containing sig, if any, that the shape of this inter has been modified.
+     */
+    protected void shapeChanged ()
+    {
+        if (sig != null) {
+            sig.shapeChanged(this);
+        }
+    }
+
+    //--------------//
+    // staffChanged //
+    //--------------//
+    /**
+     * Notify the containing sig, if any, that the staff of this inter has been modified.
+     */
+    protected void staffChanged ()
+    {
+        if (sig != null) {
+            sig.staffChanged(this);
+        }
+    }
+
     //---------------//
     // beforeMarshal //
     //---------------//
@@ -298,6 +298,7 @@ public abstract class AbstractTimeInter
 
         this.shape = shape;
         this.timeRational = timeRational;
+        shapeChanged();
     }
 
     //--------//
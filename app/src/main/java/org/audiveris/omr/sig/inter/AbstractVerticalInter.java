@@ -23,7 +23,7 @@ package org.audiveris.omr.sig.inter;
 
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
-import org.audiveris.omr.math.AreaUtil;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.math.PointUtil;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.sig.GradeImpacts;
@@ -31,7 +31,6 @@ import org.audiveris.omr.util.Jaxb;
 
 import java.awt.Rectangle;
 import java.awt.geom.Line2D;
-import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 
 import javax.xml.bind.Unmarshaller;
@@ -342,10 +341,11 @@ public abstract class AbstractVerticalInter
     //-------------//
     protected void computeArea ()
     {
-        setArea(AreaUtil.verticalRibbon(new Path2D.Double(median), getWidth()));
+        setPolygon(ConvexPolygon.verticalRibbon(median, getWidth()));
 
         // Define precise bounds based on this path
         bounds = getArea().getBounds();
+        boundsChanged();
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
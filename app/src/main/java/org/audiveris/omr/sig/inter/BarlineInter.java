@@ -229,6 +229,7 @@ public class BarlineInter
     public void setShape (Shape shape)
     {
         this.shape = shape;
+        shapeChanged();
     }
 
     //-----------------//
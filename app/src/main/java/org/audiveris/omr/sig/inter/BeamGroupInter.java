@@ -679,6 +679,7 @@ public class BeamGroupInter
     public void invalidateCache ()
     {
         bounds = null;
+        boundsChanged();
     }
 
     //--------------//
@@ -375,6 +375,7 @@ public class EndingInter
 
         // Consider the staff just below the segment
         staff = system.getStaffAtOrBelow(line.getP1());
+        staffChanged();
 
         if (staff == null) {
             return links;
@@ -448,6 +449,7 @@ public class EndingInter
 
         if ((rightLeg != null) && (shape == Shape.ENDING)) {
             shape = Shape.ENDING_WRL;
+            shapeChanged();
             upgraded = true;
         }
 
@@ -206,6 +206,7 @@ public class FermataInter
     public void invalidateCache ()
     {
         bounds = null;
+        boundsChanged();
 
         setGrade(EnsembleHelper.computeMeanContextualGrade(this));
     }
@@ -23,6 +23,7 @@ package org.audiveris.omr.sig.inter;
 
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.sheet.Part;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.Staff;
@@ -265,6 +266,13 @@ public interface Inter
      */
     void setPart (Part part);
 
+    /**
+     * Report the convex polygon equivalent to the inter area, if any.
+     *
+     * @return the inter polygon, if any
+     */
+    ConvexPolygon getPolygon ();
+
     /**
      * Report the profile level for relations with this inter
      *
@@ -335,6 +335,7 @@ public class KeyInter
     public void invalidateCache ()
     {
         bounds = null;
+        boundsChanged();
         fifths = null;
 
         setGrade(EnsembleHelper.computeMeanContextualGrade(this));
@@ -25,7 +25,7 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
-import org.audiveris.omr.math.AreaUtil;
+import org.audiveris.omr.math.ConvexPolygon;
 import org.audiveris.omr.math.PointUtil;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.sheet.Scale;
@@ -367,10 +367,12 @@ public class LedgerInter
      */
     protected final void computeArea ()
     {
-        setArea(AreaUtil.horizontalParallelogram(median.getP1(), median.getP2(), thickness));
+        setPolygon(
+                ConvexPolygon.horizontalParallelogram(median.getP1(), median.getP2(), thickness));
 
         // Define precise bounds based on this path
         bounds = getArea().getBounds();
+        boundsChanged();
     }
 
     //----------------//
@@ -368,6 +368,7 @@ public class SentenceInter
     public void invalidateCache ()
     {
         bounds = null;
+        boundsChanged();
 
         if (meanFont == null) {
             List<Inter> members = getMembers();
@@ -689,6 +689,7 @@ public final class StaffBarlineInter
     public void invalidateCache ()
     {
         bounds = null;
+        boundsChanged();
         style = null;
 
         // Recompute ensemble grade
@@ -236,6 +236,7 @@ public class TimePairInter
     public void invalidateCache ()
     {
         bounds = null;
+        boundsChanged();
         timeRational = null;
 
         setGrade(EnsembleHelper.computeMeanContextualGrade(this));
@@ -32,7 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -161,14 +161,17 @@ public abstract class AbstractSystemStep<C>
     {
         try {
             final boolean parallel = Main.processSystemsInParallel();
-            final Collection<Callable<Void>> tasks = new ArrayList<>();
+            final Thread caller = Thread.currentThread();
+            final List<Callable<Void>> tasks = new ArrayList<>();
 
             for (final SystemInfo system : sheet.getSystems()) {
                 tasks.add(() -> {
                     // If run on a separate thread (case of parallel), we have to set/unset log
                     // If not, let's not unset log (it may be needed in following epilog)
+                    final boolean helper = parallel && (Thread.currentThread() != caller);
+
                     try {
-                        if (parallel) {
+                        if (helper) {
                             LogUtil.start(sheet.getStub());
                         }
 
@@ -181,7 +184,7 @@ public abstract class AbstractSystemStep<C>
                     } catch (StepException ex) {
                         logger.warn(system.getLogPrefix() + ex, ex);
                     } finally {
-                        if (parallel) {
+                        if (helper) {
                             LogUtil.stopStub();
                         }
                     }
@@ -192,8 +195,8 @@ public abstract class AbstractSystemStep<C>
 
             // Process all systems
             if (parallel) {
-                // In parallel
-                OmrExecutors.getLowExecutor().invokeAll(tasks);
+                // In parallel, within the global budget of cores
+                OmrExecutors.invokeShared(tasks);
             } else {
                 // In sequence
                 for (Callable<Void> task : tasks) {
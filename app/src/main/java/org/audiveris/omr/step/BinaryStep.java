@@ -26,6 +26,7 @@ import ij.process.ByteProcessor;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.FilterDescriptor;
+import org.audiveris.omr.image.ParallelFilter;
 import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.run.RunTable;
@@ -85,14 +86,22 @@ public class BinaryStep
         logger.debug("{}", "Binarization");
 
         PixelFilter filter = desc.getFilter(initial);
-        watch.start("Binarize source");
+        RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
+        RunTable wholeVertTable;
 
-        ByteProcessor binary = filter.filteredImage();
+        if (filter instanceof ParallelFilter) {
+            // Runs are retrieved band per band, with no intermediate binary image
+            watch.start("Binarize source into binary RunTable");
+            wholeVertTable = vertFactory.createTable((ParallelFilter) filter);
+        } else {
+            watch.start("Binarize source");
 
-        watch.start("Create binary RunTable");
+            ByteProcessor binary = filter.filteredImage();
+
+            watch.start("Create binary RunTable");
+            wholeVertTable = vertFactory.createTable(binary);
+        }
 
-        RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
-        RunTable wholeVertTable = vertFactory.createTable(binary);
         picture.setTable(Picture.TableKey.BINARY, wholeVertTable, true);
 
         // Dispose of GRAY source
@@ -0,0 +1,372 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S t e p P i p e l i n e                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.sheet.SheetAdmission;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Class {@code StepPipeline} processes several sheets of a book through the sequence of steps,
+ * each step acting as a pipeline stage.
+ * <p>
+ * Each sheet goes through its needed steps in order, but different sheets can be in different
+ * steps at the same time, so that the CPU-heavy steps of one sheet overlap with the other steps
+ * of the following sheets.
+ * <p>
+ * Each stage accepts a limited number of sheets at a time (see constants {@code sheetsPerStage}
+ * and {@code stageSheets}), and each step on a sheet takes one core from the global budget of
+ * {@link OmrExecutors}, which is also used by the per-system tasks of the step.
+ * <p>
+ * Sheets are admitted in the pipeline in their book order, subject to {@link SheetAdmission} if
+ * used, and their completion (sheet swap) is performed in the same order as sequential processing.
+ *
+ * @author Hervé Bitteur
+ */
+public class StepPipeline
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(StepPipeline.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Sheets to process, in book order. */
+    private final List<SheetStub> stubs;
+
+    /** Targeted step. */
+    private final Step target;
+
+    /** True for processing even already reached steps. */
+    private final boolean force;
+
+    /** Admission control, if any. */
+    private final SheetAdmission admission;
+
+    /** Sheet slots per stage. */
+    private final Map<Step, Semaphore> stages = new EnumMap<>(Step.class);
+
+    /** Completion signal per sheet. */
+    private final CountDownLatch[] completions;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code StepPipeline} object.
+     *
+     * @param stubs  the sheets to process, in book order
+     * @param target the step to reach on each sheet
+     * @param force  if true and step already reached, sheet is reset and processed until step
+     */
+    public StepPipeline (List<SheetStub> stubs,
+                         Step target,
+                         boolean force)
+    {
+        this.stubs = stubs;
+        this.target = target;
+        this.force = force;
+
+        admission = SheetAdmission.isUsed() ? SheetAdmission.getInstance() : null;
+        completions = new CountDownLatch[stubs.size()];
+
+        for (int i = 0; i < completions.length; i++) {
+            completions[i] = new CountDownLatch(1);
+        }
+
+        for (Map.Entry<Step, Integer> entry : getStageSheets().entrySet()) {
+            stages.put(entry.getKey(), new Semaphore(entry.getValue(), true));
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process all sheets through the pipeline, until target step.
+     *
+     * @return true if OK on all sheets
+     */
+    public boolean process ()
+    {
+        final List<Future<Boolean>> futures = new ArrayList<>(stubs.size());
+
+        try {
+            if (admission != null) {
+                for (SheetStub stub : stubs) {
+                    admission.enqueue(stub);
+                }
+            }
+
+            for (int i = 0; i < stubs.size(); i++) {
+                final int index = i;
+                final SheetStub stub = stubs.get(i);
+
+                if (admission != null) {
+                    admission.acquire(stub, target);
+                }
+
+                futures.add(OmrExecutors.getCachedLowExecutor().submit(() -> processStub(index)));
+                logger.debug("{} entered pipeline {}", stub, this);
+            }
+
+            boolean ok = true;
+
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (!future.get()) {
+                        ok = false;
+                    }
+                } catch (ExecutionException ex) {
+                    logger.warn("Future exception", ex);
+                    ok = false;
+                }
+            }
+
+            return ok;
+        } catch (InterruptedException ex) {
+            for (Future<Boolean> future : futures) {
+                future.cancel(true);
+            }
+
+            throw new ProcessingCancellationException(ex);
+        } finally {
+            if (admission != null) {
+                for (SheetStub stub : stubs) {
+                    admission.dequeue(stub);
+                }
+            }
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        final StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append('{').append(target);
+
+        for (Map.Entry<Step, Semaphore> entry : stages.entrySet()) {
+            final Semaphore slots = entry.getValue();
+
+            if (slots.hasQueuedThreads()) {
+                sb.append(' ').append(entry.getKey()).append(":waiting-")
+                        .append(slots.getQueueLength());
+            }
+        }
+
+        if (admission != null) {
+            sb.append(' ').append(admission);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    //-------------//
+    // processStub //
+    //-------------//
+    /**
+     * Process one sheet through the pipeline, then swap it once the previous sheet is complete.
+     *
+     * @param index index of sheet in pipeline
+     * @return true if OK
+     * @throws InterruptedException if interrupted while waiting for previous sheet
+     */
+    private boolean processStub (int index)
+            throws InterruptedException
+    {
+        final SheetStub stub = stubs.get(index);
+        LogUtil.start(stub);
+
+        try {
+            final boolean ok = stub.reachStep(target, force, new StageGate());
+
+            if (index > 0) {
+                completions[index - 1].await();
+            }
+
+            if (ok) {
+                stub.swapSheet(); // Save sheet & global book info to disk
+            }
+
+            return ok;
+        } finally {
+            completions[index].countDown();
+
+            if (admission != null) {
+                admission.release(stub);
+            }
+
+            LogUtil.stopStub();
+        }
+    }
+
+    //----------------//
+    // getStageSheets //
+    //----------------//
+    /**
+     * Report the maximum number of sheets processed in parallel by each step.
+     *
+     * @return the number of sheets per step
+     */
+    public static Map<Step, Integer> getStageSheets ()
+    {
+        final Map<Step, Integer> map = new EnumMap<>(Step.class);
+        final int count = Math.max(1, constants.sheetsPerStage.getValue());
+
+        for (Step step : Step.values()) {
+            map.put(step, count);
+        }
+
+        for (String token : constants.stageSheets.getValue().split("[,\\s]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+
+            final String[] pair = token.split(":");
+
+            try {
+                map.put(Step.valueOf(pair[0].trim().toUpperCase()),
+                        Math.max(1, Integer.parseInt(pair[1].trim())));
+            } catch (RuntimeException ex) {
+                logger.warn("Illegal stage specification: {}", token);
+            }
+        }
+
+        return map;
+    }
+
+    //--------//
+    // isUsed //
+    //--------//
+    /**
+     * Report whether sheets processed in parallel go through the step pipeline.
+     *
+     * @return true if pipeline is used
+     */
+    public static boolean isUsed ()
+    {
+        return constants.usePipeline.isSet();
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //------//
+    // Gate //
+    //------//
+    /**
+     * Interface {@code Gate} is entered before and exited after each step on a sheet.
+     */
+    public static interface Gate
+    {
+
+        /**
+         * Wait until the provided step can be performed.
+         *
+         * @param step the step to perform
+         */
+        void enter (Step step);
+
+        /**
+         * Notify the end of the provided step.
+         *
+         * @param step the step performed
+         */
+        void exit (Step step);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean usePipeline = new Constant.Boolean(
+                true,
+                "Should sheets processed in parallel go through a pipeline of steps?");
+
+        private final Constant.Integer sheetsPerStage = new Constant.Integer(
+                "Sheets",
+                1,
+                "Default maximum number of sheets processed in parallel by a step");
+
+        private final Constant.String stageSheets = new Constant.String(
+                "BINARY:2 HEADS:2 SYMBOLS:2",
+                "Specific maximum number of sheets per step (as STEP:count items)");
+    }
+
+    //-----------//
+    // StageGate //
+    //-----------//
+    /**
+     * Gate which takes a sheet slot in the stage, then a core in the global budget.
+     */
+    private class StageGate
+            implements Gate
+    {
+
+        @Override
+        public void enter (Step step)
+        {
+            final Semaphore slots = stages.get(step);
+
+            try {
+                slots.acquire();
+            } catch (InterruptedException ex) {
+                throw new ProcessingCancellationException(ex);
+            }
+
+            try {
+                OmrExecutors.acquireCore();
+            } catch (InterruptedException ex) {
+                slots.release();
+
+                throw new ProcessingCancellationException(ex);
+            }
+        }
+
+        @Override
+        public void exit (Step step)
+        {
+            OmrExecutors.releaseCore();
+            stages.get(step).release();
+        }
+    }
+}
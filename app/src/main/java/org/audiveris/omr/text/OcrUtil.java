@@ -82,6 +82,32 @@ public abstract class OcrUtil
                                        String language,
                                        int interline,
                                        String label)
+    {
+        return scan(ocr, image, margin, layoutMode, language, interline, label);
+    }
+
+    //------//
+    // scan //
+    //------//
+    /**
+     * Scan the provided image for lines of text, using the provided OCR engine.
+     *
+     * @param engine     the OCR engine to use
+     * @param image      the provided image
+     * @param margin     amount of white pixels added around the image (can be zero)
+     * @param layoutMode MULTI_BLOCK or SINGLE_BLOCK
+     * @param language   language specification
+     * @param interline  scaling interline
+     * @param label      some label meant for debugging
+     * @return the raw lines of text found, with coordinates relative to image origin
+     */
+    public static List<TextLine> scan (OCR engine,
+                                       BufferedImage image,
+                                       int margin,
+                                       LayoutMode layoutMode,
+                                       String language,
+                                       int interline,
+                                       String label)
     {
         final int width = image.getWidth();
         final int height = image.getHeight();
@@ -108,6 +134,6 @@ public abstract class OcrUtil
             bi = image;
         }
 
-        return ocr.recognize(interline, bi, origin, language, layoutMode, label);
+        return engine.recognize(interline, bi, origin, language, layoutMode, label);
     }
 }
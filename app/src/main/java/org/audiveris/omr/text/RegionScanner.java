@@ -0,0 +1,357 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R e g i o n S c a n n e r                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.text;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Glyphs;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code RegionScanner} runs OCR on the text regions of an image rather than on the
+ * whole image.
+ * <p>
+ * Regions are gathered from the glyphs left in image, two glyphs belonging to the same region when
+ * they are close enough horizontally and vertically.
+ * Each region is rendered with its own glyphs only, on a white image just large enough, and
+ * regions are submitted in parallel to the provided OCR engine.
+ * The resulting lines are translated to image coordinates and returned in regions order.
+ *
+ * @author Hervé Bitteur
+ */
+public class RegionScanner
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(RegionScanner.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The OCR engine to use. */
+    private final OCR ocr;
+
+    /** Amount of white pixels added around each region. */
+    private final int margin;
+
+    /** Number of regions scanned by last scan. */
+    private int regionCount;
+
+    /** Area, in pixels, submitted to OCR by last scan. */
+    private long regionArea;
+
+    /** Duration, in nanoseconds, of last scan. */
+    private long duration;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RegionScanner} object.
+     *
+     * @param ocr    the OCR engine to use
+     * @param margin amount of white pixels added around each region (can be zero)
+     */
+    public RegionScanner (OCR ocr,
+                          int margin)
+    {
+        this.ocr = ocr;
+        this.margin = margin;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getDuration //
+    //-------------//
+    /**
+     * Report the duration of last scan.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getDuration ()
+    {
+        return duration;
+    }
+
+    //---------------//
+    // getRegionArea //
+    //---------------//
+    /**
+     * Report the area, margins included, submitted to OCR by last scan.
+     *
+     * @return the area in pixels
+     */
+    public long getRegionArea ()
+    {
+        return regionArea;
+    }
+
+    //----------------//
+    // getRegionCount //
+    //----------------//
+    /**
+     * Report the number of regions submitted to OCR by last scan.
+     *
+     * @return the count of regions
+     */
+    public int getRegionCount ()
+    {
+        return regionCount;
+    }
+
+    //------//
+    // scan //
+    //------//
+    /**
+     * Run OCR on each provided region.
+     *
+     * @param regions    the regions to scan, each as a collection of glyphs
+     * @param layoutMode MULTI_BLOCK or SINGLE_BLOCK, applied within each region
+     * @param language   language specification
+     * @param interline  scaling interline
+     * @param label      some label meant for debugging
+     * @return the raw lines of text found, with coordinates relative to image origin
+     */
+    public List<TextLine> scan (List<? extends Collection<Glyph>> regions,
+                                OCR.LayoutMode layoutMode,
+                                String language,
+                                int interline,
+                                String label)
+    {
+        final long start = System.nanoTime();
+        final List<Callable<List<TextLine>>> tasks = new ArrayList<>();
+        regionArea = 0;
+
+        for (int i = 0; i < regions.size(); i++) {
+            final Collection<Glyph> region = regions.get(i);
+            final Rectangle box = Glyphs.getBounds(region);
+            box.grow(margin, margin);
+            regionArea += (long) box.width * box.height;
+
+            final String regionLabel = label + "-r" + (i + 1);
+            tasks.add(() -> {
+                final List<TextLine> lines = ocr.recognize(
+                        interline,
+                        render(region, box),
+                        box.getLocation(),
+                        language,
+                        layoutMode,
+                        regionLabel);
+
+                return (lines != null) ? lines : Collections.<TextLine>emptyList();
+            });
+        }
+
+        regionCount = tasks.size();
+
+        final List<TextLine> allLines = new ArrayList<>();
+
+        try {
+            if (constants.parallelRegions.isSet()
+                        && OmrExecutors.defaultParallelism.getValue()
+                        && (tasks.size() > 1)) {
+                for (Future<List<TextLine>> future : OmrExecutors.invokeShared(tasks)) {
+                    allLines.addAll(future.get());
+                }
+            } else {
+                for (Callable<List<TextLine>> task : tasks) {
+                    allLines.addAll(task.call());
+                }
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("RegionScanner got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause
+                    : new RuntimeException(cause);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+
+        duration = System.nanoTime() - start;
+
+        return allLines;
+    }
+
+    //--------------//
+    // buildRegions //
+    //--------------//
+    /**
+     * Gather the provided glyphs into text regions.
+     * <p>
+     * Glyphs are swept by abscissa, a glyph being linked to any following glyph that intersects its
+     * bounds enlarged by the provided gaps.
+     * Regions are the connected sets of linked glyphs, those with a too low weight being discarded.
+     *
+     * @param glyphs    the glyphs to gather
+     * @param hGap      maximum horizontal gap between glyphs of a region
+     * @param vGap      maximum vertical gap between glyphs of a region
+     * @param minWeight minimum weight for a region
+     * @return the regions, ordered by abscissa of their left-most glyph
+     */
+    public static List<List<Glyph>> buildRegions (Collection<Glyph> glyphs,
+                                                  int hGap,
+                                                  int vGap,
+                                                  int minWeight)
+    {
+        final List<Glyph> sorted = new ArrayList<>(glyphs);
+        Collections.sort(sorted, Glyphs.byAbscissa);
+
+        final int count = sorted.size();
+        final Rectangle[] boxes = new Rectangle[count];
+        final int[] parents = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            boxes[i] = sorted.get(i).getBounds();
+            parents[i] = i;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final Rectangle fatBox = new Rectangle(boxes[i]);
+            fatBox.grow(hGap, vGap);
+
+            final int xBreak = fatBox.x + fatBox.width; // Glyphs are sorted by abscissa
+
+            for (int j = i + 1; j < count; j++) {
+                if (boxes[j].x >= xBreak) {
+                    break; // Since all following glyphs are located even further
+                }
+
+                if (fatBox.intersects(boxes[j])) {
+                    final int ri = rootOf(parents, i);
+                    final int rj = rootOf(parents, j);
+
+                    if (ri != rj) {
+                        parents[Math.max(ri, rj)] = Math.min(ri, rj);
+                    }
+                }
+            }
+        }
+
+        // Gather glyphs per root, roots being met in abscissa order
+        final Map<Integer, List<Glyph>> map = new LinkedHashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            final Integer root = rootOf(parents, i);
+            List<Glyph> region = map.get(root);
+
+            if (region == null) {
+                map.put(root, region = new ArrayList<>());
+            }
+
+            region.add(sorted.get(i));
+        }
+
+        final List<List<Glyph>> regions = new ArrayList<>();
+
+        for (List<Glyph> region : map.values()) {
+            if (Glyphs.weightOf(region) >= minWeight) {
+                regions.add(region);
+            }
+        }
+
+        logger.debug("{} glyphs gathered into {} regions", count, regions.size());
+
+        return regions;
+    }
+
+    //--------//
+    // render //
+    //--------//
+    /**
+     * Render the glyphs of a region, in black on white.
+     *
+     * @param region the region glyphs
+     * @param box    the region bounds, margins included
+     * @return the region image
+     */
+    private static BufferedImage render (Collection<Glyph> region,
+                                         Rectangle box)
+    {
+        final BufferedImage img = new BufferedImage(
+                box.width,
+                box.height,
+                BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, box.width, box.height);
+        g.setColor(Color.BLACK);
+
+        for (Glyph glyph : region) {
+            final Point topLeft = glyph.getTopLeft();
+            glyph.getRunTable().render(g, new Point(topLeft.x - box.x, topLeft.y - box.y));
+        }
+
+        g.dispose();
+
+        return img;
+    }
+
+    //--------//
+    // rootOf //
+    //--------//
+    private static int rootOf (int[] parents,
+                               int i)
+    {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]]; // Path halving
+            i = parents[i];
+        }
+
+        return i;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean parallelRegions = new Constant.Boolean(
+                true,
+                "Should we scan text regions in parallel?");
+    }
+}
@@ -67,6 +67,9 @@ import java.util.List;
  * Tesseract is used in MULTI_BLOCK layout mode, meaning that the sheet main contain several blocks
  * of text.
  * <p>
+ * By default, rather than the whole sheet image, only the text regions gathered from the glyphs
+ * left in image are submitted to OCR, in parallel, by a {@link RegionScanner}.
+ * <p>
  * The raw OCR output will later be processed at system level by dedicated TextBuilder instances.
  *
  * @author Hervé Bitteur
@@ -83,18 +86,40 @@ public class SheetScanner
     /** Related sheet. */
     private final Sheet sheet;
 
+    /** The OCR engine to use. */
+    private final OCR ocr;
+
     /** Buffer used by OCR. */
     private ByteProcessor buffer;
 
+    /** Glyphs left in buffer. */
+    private List<Glyph> glyphs;
+
+    /** Region scanner used by last scan, if any. */
+    private RegionScanner regionScanner;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
-     * Creates a new {@code TextPageScanner} object.
+     * Creates a new {@code TextPageScanner} object, using the standard OCR engine.
      *
      * @param sheet the sheet to process
      */
     public SheetScanner (Sheet sheet)
+    {
+        this(sheet, OcrUtil.getOcr());
+    }
+
+    /**
+     * Creates a new {@code TextPageScanner} object, using the provided OCR engine.
+     *
+     * @param sheet the sheet to process
+     * @param ocr   the OCR engine to use
+     */
+    public SheetScanner (Sheet sheet,
+                         OCR ocr)
     {
         this.sheet = sheet;
+        this.ocr = ocr;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -109,6 +134,45 @@ public class SheetScanner
         return buffer;
     }
 
+    //------------------//
+    // getRegionScanner //
+    //------------------//
+    /**
+     * Report the region scanner used by last scan.
+     *
+     * @return the region scanner, or null if OCR was run on whole sheet
+     */
+    public RegionScanner getRegionScanner ()
+    {
+        return regionScanner;
+    }
+
+    //---------------//
+    // isRegionsUsed //
+    //---------------//
+    /**
+     * Tell whether OCR is run on text regions rather than on whole sheet.
+     *
+     * @return true if text regions are used
+     */
+    public static boolean isRegionsUsed ()
+    {
+        return constants.useRegions.isSet();
+    }
+
+    //---------------//
+    // setUseRegions //
+    //---------------//
+    /**
+     * Set whether OCR is run on text regions rather than on whole sheet.
+     *
+     * @param bool true for text regions
+     */
+    public static void setUseRegions (boolean bool)
+    {
+        constants.useRegions.setValue(bool);
+    }
+
     //-----------//
     // scanSheet //
     //-----------//
@@ -125,16 +189,61 @@ public class SheetScanner
             // Get clean page image
             watch.start("getCleanImage");
 
-            final BufferedImage image = getCleanImage(); // This also sets buffer member
-
-            // Perform OCR on whole image
-            watch.start("OCR recognize");
+            final BufferedImage image = getCleanImage(); // This also sets buffer & glyphs members
 
             final Param<String> textParam = sheet.getStub().getOcrLanguages();
             final String language = textParam.getValue();
             logger.debug("scanSheet lan:{} on {}", language, sheet);
 
+            if (constants.useRegions.isSet()) {
+                // Perform OCR on text regions
+                watch.start("buildRegions");
+
+                final Scale scale = sheet.getScale();
+                final List<List<Glyph>> regions = RegionScanner.buildRegions(
+                        glyphs,
+                        scale.toPixels(constants.regionHorizontalGap),
+                        scale.toPixels(constants.regionVerticalGap),
+                        scale.toPixels(constants.minRegionWeight));
+
+                watch.start("OCR recognize regions");
+
+                final RegionScanner scanner = new RegionScanner(
+                        ocr,
+                        constants.whiteMarginAdded.getValue());
+                regionScanner = scanner;
+
+                final List<TextLine> lines = scanner.scan(
+                        regions,
+                        OCR.LayoutMode.MULTI_BLOCK,
+                        language,
+                        scale.getInterline(),
+                        sheet.getId());
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug(
+                            "{} OCR on {} regions, {}% of sheet, {} regions/s",
+                            sheet.getId(),
+                            scanner.getRegionCount(),
+                            String.format(
+                                    "%.1f",
+                                    (100.0 * scanner.getRegionArea())
+                                            / ((long) image.getWidth() * image.getHeight())),
+                            String.format(
+                                    "%.1f",
+                                    (1e9 * scanner.getRegionCount())
+                                            / Math.max(1, scanner.getDuration())));
+                }
+
+                return lines;
+            }
+
+            // Perform OCR on whole image
+            watch.start("OCR recognize");
+            regionScanner = null;
+
             return OcrUtil.scan(
+                    ocr,
                     image,
                     constants.whiteMarginAdded.getValue(),
                     OCR.LayoutMode.MULTI_BLOCK,
@@ -160,7 +269,7 @@ public class SheetScanner
         buffer = new ByteProcessor(img);
 
         TextsCleaner cleaner = new TextsCleaner(buffer, img.createGraphics(), sheet);
-        cleaner.eraseInters();
+        glyphs = cleaner.eraseInters();
 
         // Display for visual check?
 
@@ -204,7 +313,23 @@ public class SheetScanner
         private final Constant.Integer whiteMarginAdded = new Constant.Integer(
                 "pixels",
                 10,
-                "Margin of white pixels added around sheet image");
+                "Margin of white pixels added around sheet image or text region");
+
+        private final Constant.Boolean useRegions = new Constant.Boolean(
+                true,
+                "Should we run OCR on text regions rather than on whole sheet?");
+
+        private final Scale.Fraction regionHorizontalGap = new Scale.Fraction(
+                1.5,
+                "Maximum horizontal gap between glyphs of a text region");
+
+        private final Scale.Fraction regionVerticalGap = new Scale.Fraction(
+                0.5,
+                "Maximum vertical gap between glyphs of a text region");
+
+        private final Scale.AreaFraction minRegionWeight = new Scale.AreaFraction(
+                0.02,
+                "Minimum weight for a text region");
     }
 
     //--------------//
@@ -240,8 +365,10 @@ public class SheetScanner
         //-------------//
         /**
          * Erase from image graphics all instances of good inter instances.
+         *
+         * @return the glyphs left in image
          */
-        public void eraseInters ()
+        public List<Glyph> eraseInters ()
         {
             List<Area> cores = new ArrayList<>();
 
@@ -277,7 +404,7 @@ public class SheetScanner
             // Build all glyphs out of buffer and erase those that intersect a staff core area
             RunTable table = new RunTableFactory(Orientation.VERTICAL).createTable(buffer);
             List<Glyph> glyphs = GlyphFactory.buildGlyphs(table, null);
-            eraseBorderGlyphs(glyphs, cores);
+            return eraseBorderGlyphs(glyphs, cores);
         }
 
         //-------//
@@ -323,10 +450,14 @@ public class SheetScanner
          *
          * @param glyphs all the glyph instances in image
          * @param cores  all staves cores
+         * @return the glyphs not erased
          */
-        private void eraseBorderGlyphs (List<Glyph> glyphs,
-                                        List<Area> cores)
+        private List<Glyph> eraseBorderGlyphs (List<Glyph> glyphs,
+                                               List<Area> cores)
         {
+            final List<Glyph> kept = new ArrayList<>();
+
+            GlyphLoop:
             for (Glyph glyph : glyphs) {
                 // Check position WRT staves cores
                 Rectangle glyphBox = glyph.getBounds();
@@ -336,10 +467,14 @@ public class SheetScanner
                     if (core.intersects(glyphBox)) {
                         glyph.getRunTable().render(g, glyph.getTopLeft());
 
-                        break;
+                        continue GlyphLoop;
                     }
                 }
+
+                kept.add(glyph);
             }
+
+            return kept;
         }
 
         //------------//
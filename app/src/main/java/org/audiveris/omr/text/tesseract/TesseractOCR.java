@@ -27,6 +27,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.text.OCR;
 import org.audiveris.omr.text.TextLine;
 import org.audiveris.omr.text.TextWord;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.bytedeco.javacpp.tesseract;
 import org.bytedeco.javacpp.tesseract.StringGenericVector;
@@ -43,17 +44,27 @@ import java.nio.charset.CharsetEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class {@code TesseractOCR} is an OCR service built on Google Tesseract engine.
  * <p>
  * It relies on <b>tesseract3</b> C++ program, accessed through a <b>JavaCPP</b>-based bridge.
+ * <p>
+ * Since initializing a Tesseract engine with its language data is costly, initialized engines are
+ * kept in a pool per language specification and reused by the following orders.
+ * An engine is used by one order at a time, so concurrent orders run on distinct engines.
+ * Each pool keeps at most one idle engine per processor, and idle engines are ended by
+ * {@link #disposeEngines()}.
  *
  * @author Hervé Bitteur
  */
@@ -83,6 +94,10 @@ public class TesseractOCR
     /** To assign a serial number to each image processing order. */
     private final AtomicInteger serial = new AtomicInteger(0);
 
+    /** Idle initialized engines, per language specification. Each deque is its own lock. */
+    private final ConcurrentMap<String, Deque<TessBaseAPI>> idleEngines
+            = new ConcurrentHashMap<>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates the TesseractOCR singleton.
@@ -92,6 +107,70 @@ public class TesseractOCR
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // acquireEngine //
+    //---------------//
+    /**
+     * Acquire an engine initialized for the provided language specification.
+     * <p>
+     * An idle engine is taken from the pool if any, otherwise a new engine is allocated.
+     * The engine must be given back via {@link #releaseEngine(String, TessBaseAPI)}.
+     *
+     * @param lang the language specification
+     * @return the initialized engine, or null if initialization failed
+     */
+    public TessBaseAPI acquireEngine (String lang)
+    {
+        if (constants.reuseEngines.isSet()) {
+            final Deque<TessBaseAPI> idles = idleEngines.get(lang);
+
+            if (idles != null) {
+                synchronized (idles) {
+                    final TessBaseAPI api = idles.pollFirst();
+
+                    if (api != null) {
+                        return api;
+                    }
+                }
+            }
+        }
+
+        final TessBaseAPI api = new TessBaseAPI();
+
+        if (api.Init(getOcrFolder().toString(), lang) != 0) {
+            logger.warn("Could not initialize Tesseract with lang {}", lang);
+            api.End();
+
+            return null;
+        }
+
+        return api;
+    }
+
+    //----------------//
+    // disposeEngines //
+    //----------------//
+    /**
+     * End all idle engines, thus releasing their language data.
+     * <p>
+     * This is meant to be called when OMR processing is shut down.
+     */
+    public void disposeEngines ()
+    {
+        int count = 0;
+
+        for (Deque<TessBaseAPI> idles : idleEngines.values()) {
+            synchronized (idles) {
+                for (TessBaseAPI api; (api = idles.pollFirst()) != null;) {
+                    api.End();
+                    count++;
+                }
+            }
+        }
+
+        logger.debug("Disposed of {} Tesseract engines", count);
+    }
+
     //--------------//
     // getLanguages //
     //--------------//
@@ -135,7 +214,7 @@ public class TesseractOCR
      *
      * @return the OCR folder
      */
-    public Path getOcrFolder ()
+    public synchronized Path getOcrFolder ()
     {
         if (!OCR_FOLDER_SEARCHED) {
             OCR_FOLDER_SEARCHED = true;
@@ -231,6 +310,41 @@ public class TesseractOCR
         }
     }
 
+    //---------------//
+    // releaseEngine //
+    //---------------//
+    /**
+     * Give back an engine acquired via {@link #acquireEngine(String)}.
+     * <p>
+     * The engine recognition results and image are cleared, but its language data is kept for the
+     * next order on the same language specification.
+     * If the pool for this language specification is full, the engine is ended instead.
+     *
+     * @param lang the language specification the engine was initialized with
+     * @param api  the engine to release
+     */
+    public void releaseEngine (String lang,
+                               TessBaseAPI api)
+    {
+        if (constants.reuseEngines.isSet()) {
+            api.Clear();
+
+            final Deque<TessBaseAPI> idles = idleEngines.computeIfAbsent(
+                    lang,
+                    l -> new ArrayDeque<>());
+
+            synchronized (idles) {
+                if (idles.size() < OmrExecutors.getNumberOfCpus()) {
+                    idles.offerFirst(api);
+
+                    return;
+                }
+            }
+        }
+
+        api.End(); // Surplus engine
+    }
+
     //---------------//
     // findOcrFolder //
     //---------------//
@@ -355,6 +469,10 @@ public class TesseractOCR
                 false,
                 "Should we keep the images sent to Tesseract?");
 
+        private final Constant.Boolean reuseEngines = new Constant.Boolean(
+                true,
+                "Should we keep initialized Tesseract engines for the following orders?");
+
         //
         //        private final Scale.Fraction maxDashWidth = new Scale.Fraction(
         //                1.0,
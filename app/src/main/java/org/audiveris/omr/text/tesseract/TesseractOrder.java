@@ -29,21 +29,19 @@ import org.audiveris.omr.text.TextLine;
 import org.audiveris.omr.text.TextWord;
 
 import org.bytedeco.javacpp.*;
-import static org.bytedeco.javacpp.lept.*;
 import static org.bytedeco.javacpp.tesseract.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.FileOutputStream;
+import java.awt.image.DataBufferByte;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -51,13 +49,14 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
 import javax.imageio.spi.IIORegistry;
-import javax.imageio.stream.ImageOutputStream;
 
 /**
  * Class {@code TesseractOrder} carries a processing order submitted to Tesseract OCR
  * program.
+ * <p>
+ * The image is handed to Tesseract as raw gray bytes, one byte per pixel, with no intermediate
+ * image format.
  *
  * @author Hervé Bitteur
  */
@@ -100,8 +99,14 @@ public class TesseractOrder
     /** The dedicated API. */
     private TessBaseAPI api;
 
-    /** The image being processed. */
-    private final PIX image;
+    /** Gray pixels of the image being processed, one byte per pixel, row after row. */
+    private final byte[] pixels;
+
+    /** Image width. */
+    private final int width;
+
+    /** Image height. */
+    private final int height;
 
     //~ Constructors -------------------------------------------------------------------------------
     //----------------//
@@ -117,8 +122,7 @@ public class TesseractOrder
      * @param segMode       The desired page segmentation mode
      * @param bufferedImage The image to process
      * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
-     * @throws IOException          When temporary Tiff buffer failed
-     * @throws RuntimeException     When PIX image failed
+     * @throws IOException          When disk copy of image failed
      */
     public TesseractOrder (String label,
                            int serial,
@@ -135,14 +139,15 @@ public class TesseractOrder
         this.lang = lang;
         this.segMode = segMode;
 
-        // Build a PIX from the image provided
-        ByteBuffer buf = toTiffBuffer(bufferedImage);
-        buf.position(0);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
+        // Get gray pixels from the image provided
+        final BufferedImage gray = toGray(bufferedImage);
+        width = gray.getWidth();
+        height = gray.getHeight();
+        pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
 
-        if (image == null) {
-            logger.warn("Invalid image {}", label);
-            throw new RuntimeException("Invalid image");
+        // Should we keep a local copy of this image on disk?
+        if (keepImage) {
+            saveOnDisk(gray);
         }
     }
 
@@ -151,7 +156,7 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Actually acquire a Tesseract API and recognize the image.
      *
      * @return the sequence of lines found
      */
@@ -162,18 +167,15 @@ public class TesseractOrder
         }
 
         try {
-            final Path ocrFolder = TesseractOCR.getInstance().getOcrFolder();
-            api = new TessBaseAPI();
-
-            // Init API with proper language
-            if (api.Init(ocrFolder.toString(), lang) != 0) {
-                logger.warn("Could not initialize Tesseract with lang {}", lang);
+            // Get an API initialized with proper language
+            api = TesseractOCR.getInstance().acquireEngine(lang);
 
+            if (api == null) {
                 return finish(null);
             }
 
             // Set API image
-            api.SetImage(image);
+            api.SetImage(pixels, width, height, 1, width);
 
             // Perform layout analysis according to segmentation mode
             api.SetPageSegMode(segMode);
@@ -205,19 +207,16 @@ public class TesseractOrder
     // finish //
     //--------//
     /**
-     * Convenient way to cleanup Tesseract resources while ending the current processing
+     * Convenient way to release Tesseract resources while ending the current processing
      *
      * @param lines the lines found, if any
      * @return the lines found, if nay
      */
     private List<TextLine> finish (List<TextLine> lines)
     {
-        if (image != null) {
-            pixDestroy(image);
-        }
-
         if (api != null) {
-            api.End();
+            TesseractOCR.getInstance().releaseEngine(lang, api);
+            api = null;
         }
 
         return lines;
@@ -396,53 +395,59 @@ public class TesseractOrder
         }
     }
 
-    //--------------//
-    // toTiffBuffer //
-    //--------------//
+    //------------//
+    // saveOnDisk //
+    //------------//
     /**
-     * Convert the given image into a TIFF-formatted ByteBuffer for passing it directly
-     * to Tesseract.
-     * <p>
-     * A copy of the tiff buffer can be saved on disk, if so desired.
+     * Save a copy of the image on disk, in TIFF format.
      *
-     * @param image the input image
-     * @return a buffer in TIFF format
+     * @param image the image to save
      */
-    private ByteBuffer toTiffBuffer (BufferedImage image)
+    private void saveOnDisk (BufferedImage image)
             throws IOException
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        String name = String.format("%03d-", serial) + ((label != null) ? label : "");
+        Path path = WellKnowns.TEMP_FOLDER.resolve(name + ".tif");
 
-        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
-            ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
-            writer.setOutput(ios);
-            writer.write(image);
-        } catch (IOException ex) {
-            logger.warn("Could not write image", ex);
+        // Make sure the TEMP directory exists
+        if (!Files.exists(WellKnowns.TEMP_FOLDER)) {
+            Files.createDirectories(WellKnowns.TEMP_FOLDER);
         }
 
-        ByteBuffer buf = ByteBuffer.allocate(baos.size());
-        byte[] bytes = baos.toByteArray();
-        buf.put(bytes);
-
-        // Should we keep a local copy of this buffer on disk?
-        if (keepImage) {
-            String name = String.format("%03d-", serial) + ((label != null) ? label : "");
-            Path path = WellKnowns.TEMP_FOLDER.resolve(name + ".tif");
-
-            // Make sure the TEMP directory exists
-            if (!Files.exists(WellKnowns.TEMP_FOLDER)) {
-                Files.createDirectories(WellKnowns.TEMP_FOLDER);
-            }
+        try {
+            ImageIO.write(image, "tiff", path.toFile());
+        } catch (IOException ex) {
+            logger.warn("Could not write to {}", path, ex);
+        }
+    }
 
-            try (FileOutputStream fos = new FileOutputStream(path.toFile())) {
-                fos.write(bytes);
-            } catch (IOException ex) {
-                logger.warn("Could not write to {}", path, ex);
-            }
+    //--------//
+    // toGray //
+    //--------//
+    /**
+     * Make sure the provided image is a gray image, with one byte per pixel and no padding.
+     *
+     * @param image the input image
+     * @return the image itself if suitable, otherwise a gray copy
+     */
+    private static BufferedImage toGray (BufferedImage image)
+    {
+        if ((image.getType() == BufferedImage.TYPE_BYTE_GRAY)
+                    && (image.getRaster().getParent() == null)
+                    && (image.getRaster().getDataBuffer().getSize()
+                                == (image.getWidth() * image.getHeight()))) {
+            return image;
         }
 
-        return buf;
+        final BufferedImage gray = new BufferedImage(
+                image.getWidth(),
+                image.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics g = gray.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        return gray;
     }
 
     /**
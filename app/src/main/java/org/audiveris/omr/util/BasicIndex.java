@@ -81,6 +81,9 @@ public class BasicIndex<E extends Entity>
     /** List of IDs for declared VIP entities. */
     private List<Integer> vipIds;
 
+    /** Optional spatial index, only for entities whose bounds never change. */
+    private SpatialIndex<E> spatialIndex;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code BasicIndex} object.
@@ -107,6 +110,10 @@ public class BasicIndex<E extends Entity>
     @Override
     public List<E> getContainedEntities (Rectangle rectangle)
     {
+        if (isSpatiallyIndexed()) {
+            return sortedById(spatialIndex.containedEntities(rectangle));
+        }
+
         return Entities.containedEntities(iterator(), rectangle);
     }
 
@@ -116,6 +123,10 @@ public class BasicIndex<E extends Entity>
     @Override
     public List<E> getContainingEntities (Point point)
     {
+        if (isSpatiallyIndexed()) {
+            return sortedById(spatialIndex.containingEntities(point));
+        }
+
         return Entities.containingEntities(iterator(), point);
     }
 
@@ -205,9 +216,26 @@ public class BasicIndex<E extends Entity>
     @Override
     public List<E> getIntersectedEntities (Rectangle rectangle)
     {
+        if (isSpatiallyIndexed()) {
+            return sortedById(spatialIndex.intersectedEntities(rectangle));
+        }
+
         return Entities.intersectedEntities(iterator(), rectangle);
     }
 
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index, if any, notably for its query statistics.
+     *
+     * @return the spatial index, or null
+     */
+    public SpatialIndex<E> getSpatialIndex ()
+    {
+        return spatialIndex;
+    }
+
     //-----------//
     // getLastId //
     //-----------//
@@ -252,7 +280,15 @@ public class BasicIndex<E extends Entity>
             throw new IllegalArgumentException("Entity has no ID");
         }
 
-        entities.put(id, entity);
+        final E old = entities.put(id, entity);
+
+        if (spatialIndex != null) {
+            if (old != null) {
+                spatialIndex.remove(old);
+            }
+
+            spatialIndex.add(entity);
+        }
 
         if (isVipId(id)) {
             entity.setVip(true);
@@ -312,6 +348,10 @@ public class BasicIndex<E extends Entity>
 
         entities.put(id, entity);
 
+        if (spatialIndex != null) {
+            spatialIndex.add(entity);
+        }
+
         if (isVipId(id)) {
             entity.setVip(true);
             logger.info("VIP registered {}", entity);
@@ -326,7 +366,11 @@ public class BasicIndex<E extends Entity>
     @Override
     public void remove (E entity)
     {
-        entities.remove(entity.getId());
+        final E removed = entities.remove(entity.getId());
+
+        if ((removed != null) && (spatialIndex != null)) {
+            spatialIndex.remove(removed);
+        }
     }
 
     //-------//
@@ -337,6 +381,10 @@ public class BasicIndex<E extends Entity>
     {
         lastId.set(0);
         entities.clear();
+
+        if (spatialIndex != null) {
+            spatialIndex.clear();
+        }
     }
 
     //-------------//
@@ -387,6 +435,25 @@ public class BasicIndex<E extends Entity>
         return sb.toString();
     }
 
+    //--------------------//
+    // enableSpatialIndex //
+    //--------------------//
+    /**
+     * Maintain a spatial index on entities, to speed up region queries.
+     * <p>
+     * This is meant only for entities whose bounds never change once indexed.
+     */
+    protected void enableSpatialIndex ()
+    {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialIndex<>();
+
+            for (E entity : entities.values()) {
+                spatialIndex.add(entity);
+            }
+        }
+    }
+
     //------------//
     // generateId //
     //------------//
@@ -427,6 +494,31 @@ public class BasicIndex<E extends Entity>
         return entity != null;
     }
 
+    //--------------------//
+    // isSpatiallyIndexed //
+    //--------------------//
+    private boolean isSpatiallyIndexed ()
+    {
+        return (spatialIndex != null) && SpatialIndex.isUsed();
+    }
+
+    //------------//
+    // sortedById //
+    //------------//
+    /**
+     * Sort the entities found by spatial index in ID order, as a plain browsing would do.
+     *
+     * @param found the entities found
+     * @return the sorted entities
+     */
+    private List<E> sortedById (List<E> found)
+    {
+        final List<E> sorted = new ArrayList<>(found);
+        Collections.sort(sorted, Entities.byId);
+
+        return sorted;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //------------------//
     // InterfaceAdapter //
@@ -0,0 +1,315 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                        L r u C a c h e                                         //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Class {@code LruCache} is a bounded memo cache, which evicts the least recently used
+ * entries when its maximum size is exceeded.
+ * <p>
+ * Optionally, entries can be weighed (typically by their approximate footprint in bytes), and
+ * least recently used entries are then also evicted when the maximum total weight is exceeded.
+ * <p>
+ * All accesses are synchronized, so that a cache can be shared by concurrent threads.
+ * Hits and misses are counted, to check the cache efficiency.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Hervé Bitteur
+ */
+public class LruCache<K, V>
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Cache name, for reporting. */
+    private final String name;
+
+    /** Maximum number of entries. */
+    private final int maxSize;
+
+    /** Maximum total weight of entries. */
+    private final long maxWeight;
+
+    /** Weight of an entry, null for no weight. */
+    private final ToLongBiFunction<K, V> weigher;
+
+    /** Entries, in access order. */
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Current total weight of entries. */
+    private long weight;
+
+    /** Number of successful lookups. */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** Number of failed lookups. */
+    private final AtomicLong misses = new AtomicLong();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code LruCache} object.
+     *
+     * @param name    cache name
+     * @param maxSize maximum number of entries, a non-positive value disables the cache
+     */
+    public LruCache (String name,
+                     int maxSize)
+    {
+        this(name, maxSize, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates a new {@code LruCache} object, bounded by number and by weight of entries.
+     *
+     * @param name      cache name
+     * @param maxSize   maximum number of entries, a non-positive value disables the cache
+     * @param maxWeight maximum total weight of entries
+     * @param weigher   the function that reports the weight of an entry
+     */
+    public LruCache (String name,
+                     int maxSize,
+                     long maxWeight,
+                     ToLongBiFunction<K, V> weigher)
+    {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all entries and reset counters.
+     */
+    public synchronized void clear ()
+    {
+        map.clear();
+        weight = 0;
+        hits.set(0);
+        misses.set(0);
+    }
+
+    //-----------------//
+    // computeIfAbsent //
+    //-----------------//
+    /**
+     * Report the value cached for the provided key, computing and caching it if absent.
+     * <p>
+     * The computation is performed outside of any lock, so concurrent threads may compute the
+     * same value, only the last one being kept.
+     *
+     * @param key      the provided key
+     * @param function the function to compute value from key
+     * @return the cached or computed value
+     */
+    public V computeIfAbsent (K key,
+                              Function<K, V> function)
+    {
+        V value = get(key);
+
+        if (value == null) {
+            value = function.apply(key);
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    //-------//
+    // evict //
+    //-------//
+    /**
+     * Evict least recently used entries until both size and weight limits are respected.
+     * Caller must hold the lock.
+     */
+    private void evict ()
+    {
+        final Iterator<Map.Entry<K, V>> it = map.entrySet().iterator();
+
+        while (((map.size() > maxSize) || (weight > maxWeight)) && it.hasNext()) {
+            final Map.Entry<K, V> eldest = it.next();
+
+            if (weigher != null) {
+                weight -= weigher.applyAsLong(eldest.getKey(), eldest.getValue());
+            }
+
+            it.remove();
+        }
+    }
+
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the value cached for the provided key, if any.
+     *
+     * @param key the provided key
+     * @return the cached value or null
+     */
+    public V get (K key)
+    {
+        final V value;
+
+        synchronized (this) {
+            value = map.get(key);
+        }
+
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+
+        return value;
+    }
+
+    //-------------//
+    // getHitCount //
+    //-------------//
+    /**
+     * Report the number of successful lookups.
+     *
+     * @return the hit count
+     */
+    public long getHitCount ()
+    {
+        return hits.get();
+    }
+
+    //--------------//
+    // getMissCount //
+    //--------------//
+    /**
+     * Report the number of failed lookups.
+     *
+     * @return the miss count
+     */
+    public long getMissCount ()
+    {
+        return misses.get();
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether this cache can hold any entry.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled ()
+    {
+        return maxSize > 0;
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Cache the provided value for the provided key.
+     *
+     * @param key   the provided key
+     * @param value the value to cache, not null
+     */
+    public void put (K key,
+                     V value)
+    {
+        if (isEnabled()) {
+            synchronized (this) {
+                final V old = map.put(key, value);
+
+                if (weigher != null) {
+                    if (old != null) {
+                        weight -= weigher.applyAsLong(key, old);
+                    }
+
+                    weight += weigher.applyAsLong(key, value);
+                }
+
+                evict();
+            }
+        }
+    }
+
+    //-----------//
+    // getWeight //
+    //-----------//
+    /**
+     * Report the current total weight of entries.
+     *
+     * @return the total weight, always 0 if entries are not weighed
+     */
+    public synchronized long getWeight ()
+    {
+        return weight;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the current number of entries.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size ()
+    {
+        return map.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        final long h = hits.get();
+        final long m = misses.get();
+        final StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append('{').append(name);
+        sb.append(" size:").append(size()).append('/').append(maxSize);
+
+        if (weigher != null) {
+            sb.append(" weight:").append(getWeight()).append('/').append(maxWeight);
+        }
+
+        sb.append(" hits:").append(h);
+        sb.append(" misses:").append(m);
+
+        if ((h + m) > 0) {
+            sb.append(String.format(" ratio:%.2f", h / (double) (h + m)));
+        }
+
+        sb.append('}');
+
+        return sb.toString();
+    }
+}
@@ -29,10 +29,18 @@ import org.audiveris.omr.util.param.Param;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -45,6 +53,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
  * </ul>
+ * <p>
+ * A global budget of cores, one permit per processor, is shared by the sheets processed in
+ * parallel and by the tasks they launch (see {@link #invokeShared}), so that the total number of
+ * busy threads does not exceed the number of processors.
  *
  * @author Hervé Bitteur
  */
@@ -69,6 +81,9 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    /** Global budget of cores. */
+    private static final Semaphore coreBudget = new Semaphore(cpuCount, true);
+
     /** To handle all the pools as a whole. */
     private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
 
@@ -93,6 +108,22 @@ public class OmrExecutors
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // acquireCore //
+    //-------------//
+    /**
+     * Wait for a core to be available in the global budget, and take it.
+     * <p>
+     * The core must be given back via {@link #releaseCore()}.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void acquireCore ()
+            throws InterruptedException
+    {
+        coreBudget.acquire();
+    }
+
     //----------------------//
     // getCachedLowExecutor //
     //----------------------//
@@ -145,6 +176,77 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //--------------//
+    // invokeShared //
+    //--------------//
+    /**
+     * Execute the provided tasks, using the calling thread plus one helper thread per core
+     * currently available in the global budget, and wait for their completion.
+     * <p>
+     * The calling thread is assumed to already own its core.
+     * No helper is launched if no core is available, so this method never blocks on the budget.
+     *
+     * @param <T>   type of task result
+     * @param tasks the tasks to execute
+     * @return the futures of the tasks, all done
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> List<Future<T>> invokeShared (List<? extends Callable<T>> tasks)
+            throws InterruptedException
+    {
+        final List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+
+        for (Callable<T> task : tasks) {
+            futures.add(new FutureTask<>(task));
+        }
+
+        final AtomicInteger next = new AtomicInteger(0);
+        final Runnable drain = () -> {
+            for (int i; (i = next.getAndIncrement()) < futures.size();) {
+                futures.get(i).run();
+            }
+        };
+
+        for (int h = 1; (h < futures.size()) && coreBudget.tryAcquire(); h++) {
+            try {
+                getCachedLowExecutor().execute(() -> {
+                    try {
+                        drain.run();
+                    } finally {
+                        coreBudget.release();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                coreBudget.release();
+
+                break;
+            }
+        }
+
+        drain.run();
+
+        for (Future<T> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ignored) {
+                // Left to the caller
+            }
+        }
+
+        return new ArrayList<>(futures);
+    }
+
+    //-------------//
+    // releaseCore //
+    //-------------//
+    /**
+     * Give back a core to the global budget.
+     */
+    public static void releaseCore ()
+    {
+        coreBudget.release();
+    }
+
     //---------//
     // restart //
     //---------//
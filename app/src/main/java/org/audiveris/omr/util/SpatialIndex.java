@@ -0,0 +1,541 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S p a t i a l I n d e x                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Class {@code SpatialIndex} indexes entities by their bounds, using a uniform grid of
+ * square cells, to quickly retrieve the entities located around a given rectangle or point.
+ * <p>
+ * Each entity is registered in every cell its bounds intersect, except very large entities which
+ * are kept in a separate list, always browsed.
+ * A query thus only examines the entities registered in the cells covered by the query area,
+ * plus the large ones, before applying the precise test.
+ * <p>
+ * Entity bounds are not read when the entity is added, but only when the index is next queried.
+ * The owner of this index must call {@link #update} whenever the bounds of an entity may have
+ * changed.
+ * <p>
+ * Query results are reported in the order entities were added to the index.
+ * <p>
+ * All methods are synchronized.
+ *
+ * @param <E> precise type for indexed entities
+ * @author Hervé Bitteur
+ */
+public class SpatialIndex<E extends Entity>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Side of a grid cell, in pixels. */
+    private final int cellSize = constants.cellSize.getValue();
+
+    /** Maximum number of cells for an entity to be registered in grid. */
+    private final int maxCells = constants.maxCells.getValue();
+
+    /** Grid cells, sparsely populated. */
+    private final Map<Long, List<Entry<E>>> cells = new HashMap<>();
+
+    /** Entries of too large entities. */
+    private final List<Entry<E>> larges = new ArrayList<>();
+
+    /** Entry of each indexed entity. */
+    private final Map<E, Entry<E>> entries = new IdentityHashMap<>();
+
+    /** Entries whose bounds must be read again. */
+    private final List<Entry<E>> dirties = new ArrayList<>();
+
+    /** Sequence number of next added entity. */
+    private long nextSeq;
+
+    /** Current query stamp, to avoid examining the same entry twice in a query. */
+    private int stamp;
+
+    /** Number of queries served. */
+    private long queryCount;
+
+    /** Number of entities examined by queries. */
+    private long candidateCount;
+
+    /** Number of entities reported by queries. */
+    private long resultCount;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SpatialIndex} object.
+     */
+    public SpatialIndex ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // isUsed //
+    //--------//
+    /**
+     * Report whether region queries should use spatial indexes.
+     *
+     * @return true if spatial indexes are used
+     */
+    public static boolean isUsed ()
+    {
+        return constants.useSpatialIndex.isSet();
+    }
+
+    //--------//
+    // setUse //
+    //--------//
+    /**
+     * Set whether region queries should use spatial indexes.
+     *
+     * @param bool true to use spatial indexes, false to browse all entities
+     */
+    public static void setUse (boolean bool)
+    {
+        constants.useSpatialIndex.setValue(bool);
+    }
+
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Add an entity to the index.
+     *
+     * @param entity the entity to add
+     */
+    public synchronized void add (E entity)
+    {
+        if (entries.containsKey(entity)) {
+            return;
+        }
+
+        final Entry<E> entry = new Entry<>(entity, nextSeq++);
+        entries.put(entity, entry);
+        dirties.add(entry);
+        entry.dirty = true;
+    }
+
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all entities from the index.
+     */
+    public synchronized void clear ()
+    {
+        cells.clear();
+        larges.clear();
+        entries.clear();
+        dirties.clear();
+    }
+
+    //-------------------//
+    // containedEntities //
+    //-------------------//
+    /**
+     * Report the entities whose bounds are contained in the provided rectangle.
+     *
+     * @param rect the containing rectangle
+     * @return the contained entities, perhaps empty but not null
+     */
+    public List<E> containedEntities (Rectangle rect)
+    {
+        return lookup(rect, entity -> {
+            final Rectangle bounds = entity.getBounds();
+
+            return (bounds != null) && rect.contains(bounds);
+        });
+    }
+
+    //--------------------//
+    // containingEntities //
+    //--------------------//
+    /**
+     * Report the entities which contain the provided point.
+     *
+     * @param point the provided point
+     * @return the containing entities, perhaps empty but not null
+     */
+    public List<E> containingEntities (Point point)
+    {
+        return lookup(new Rectangle(point.x, point.y, 1, 1), entity -> entity.contains(point));
+    }
+
+    //---------------//
+    // getStatistics //
+    //---------------//
+    /**
+     * Report the query counters: queries served, entities examined, entities reported.
+     *
+     * @return array of 3 counters
+     */
+    public synchronized long[] getStatistics ()
+    {
+        return new long[]{queryCount, candidateCount, resultCount};
+    }
+
+    //---------------------//
+    // intersectedEntities //
+    //---------------------//
+    /**
+     * Report the entities whose bounds intersect the provided rectangle.
+     *
+     * @param rect the intersecting rectangle
+     * @return the intersected entities, perhaps empty but not null
+     */
+    public List<E> intersectedEntities (Rectangle rect)
+    {
+        return lookup(rect, entity -> {
+            final Rectangle bounds = entity.getBounds();
+
+            return (bounds != null) && rect.intersects(bounds);
+        });
+    }
+
+    //--------//
+    // lookup //
+    //--------//
+    /**
+     * Report the entities, located around the provided area, which pass the provided test.
+     *
+     * @param area   the area of interest
+     * @param filter the precise test, applied on entities registered in cells covered by area
+     * @return the entities found, in the order they were added, perhaps empty but not null
+     */
+    public synchronized List<E> lookup (Rectangle area,
+                                        Predicate<E> filter)
+    {
+        flush();
+        queryCount++;
+
+        final List<Entry<E>> found = new ArrayList<>();
+        final int s = ++stamp;
+
+        for (Entry<E> entry : larges) {
+            examine(entry, s, filter, found);
+        }
+
+        if (!cells.isEmpty() && (area.width >= 0) && (area.height >= 0)) {
+            final int cx1 = Math.floorDiv(area.x, cellSize);
+            final int cx2 = Math.floorDiv((area.x + Math.max(1, area.width)) - 1, cellSize);
+            final int cy1 = Math.floorDiv(area.y, cellSize);
+            final int cy2 = Math.floorDiv((area.y + Math.max(1, area.height)) - 1, cellSize);
+
+            for (int cy = cy1; cy <= cy2; cy++) {
+                for (int cx = cx1; cx <= cx2; cx++) {
+                    final List<Entry<E>> cell = cells.get(key(cx, cy));
+
+                    if (cell != null) {
+                        for (Entry<E> entry : cell) {
+                            examine(entry, s, filter, found);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Collections.sort(found, Entry.bySeq);
+
+        final List<E> entities = new ArrayList<>(found.size());
+
+        for (Entry<E> entry : found) {
+            entities.add(entry.entity);
+        }
+
+        resultCount += entities.size();
+
+        return entities;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove an entity from the index.
+     *
+     * @param entity the entity to remove
+     */
+    public synchronized void remove (E entity)
+    {
+        final Entry<E> entry = entries.remove(entity);
+
+        if (entry != null) {
+            unlink(entry);
+
+            if (entry.dirty) {
+                dirties.remove(entry);
+            }
+        }
+    }
+
+    //-----------------//
+    // resetStatistics //
+    //-----------------//
+    /**
+     * Reset the query counters.
+     */
+    public synchronized void resetStatistics ()
+    {
+        queryCount = 0;
+        candidateCount = 0;
+        resultCount = 0;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of indexed entities.
+     *
+     * @return the number of entities
+     */
+    public synchronized int size ()
+    {
+        return entries.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append("{");
+        sb.append("entities:").append(entries.size());
+        sb.append(" cells:").append(cells.size());
+        sb.append(" larges:").append(larges.size());
+        sb.append(" queries:").append(queryCount);
+        sb.append(" filtered:").append(candidateCount - resultCount);
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    //--------//
+    // update //
+    //--------//
+    /**
+     * Notify that the bounds of an indexed entity may have changed.
+     *
+     * @param entity the entity at hand
+     */
+    public synchronized void update (E entity)
+    {
+        final Entry<E> entry = entries.get(entity);
+
+        if ((entry != null) && !entry.dirty) {
+            entry.dirty = true;
+            dirties.add(entry);
+        }
+    }
+
+    //---------//
+    // examine //
+    //---------//
+    private void examine (Entry<E> entry,
+                          int s,
+                          Predicate<E> filter,
+                          List<Entry<E>> found)
+    {
+        if (entry.stamp != s) {
+            entry.stamp = s;
+            candidateCount++;
+
+            if (filter.test(entry.entity)) {
+                found.add(entry);
+            }
+        }
+    }
+
+    //-------//
+    // flush //
+    //-------//
+    /**
+     * Read again the bounds of all dirty entries, and register them accordingly.
+     */
+    private void flush ()
+    {
+        for (Entry<E> entry : dirties) {
+            unlink(entry);
+            entry.box = entry.entity.getBounds();
+            entry.dirty = false;
+            link(entry);
+        }
+
+        dirties.clear();
+    }
+
+    //-----//
+    // key //
+    //-----//
+    private static long key (int cx,
+                             int cy)
+    {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    //------//
+    // link //
+    //------//
+    private void link (Entry<E> entry)
+    {
+        final Rectangle box = entry.box;
+
+        if (box == null) {
+            return;
+        }
+
+        final int cx1 = Math.floorDiv(box.x, cellSize);
+        final int cx2 = Math.floorDiv((box.x + Math.max(1, box.width)) - 1, cellSize);
+        final int cy1 = Math.floorDiv(box.y, cellSize);
+        final int cy2 = Math.floorDiv((box.y + Math.max(1, box.height)) - 1, cellSize);
+
+        if ((((long) cx2 - cx1 + 1) * ((long) cy2 - cy1 + 1)) > maxCells) {
+            entry.large = true;
+            larges.add(entry);
+
+            return;
+        }
+
+        for (int cy = cy1; cy <= cy2; cy++) {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    //--------//
+    // unlink //
+    //--------//
+    private void unlink (Entry<E> entry)
+    {
+        final Rectangle box = entry.box;
+
+        if (box == null) {
+            return;
+        }
+
+        if (entry.large) {
+            entry.large = false;
+            larges.remove(entry);
+        } else {
+            final int cx1 = Math.floorDiv(box.x, cellSize);
+            final int cx2 = Math.floorDiv((box.x + Math.max(1, box.width)) - 1, cellSize);
+            final int cy1 = Math.floorDiv(box.y, cellSize);
+            final int cy2 = Math.floorDiv((box.y + Math.max(1, box.height)) - 1, cellSize);
+
+            for (int cy = cy1; cy <= cy2; cy++) {
+                for (int cx = cx1; cx <= cx2; cx++) {
+                    final Long key = key(cx, cy);
+                    final List<Entry<E>> cell = cells.get(key);
+
+                    if (cell != null) {
+                        cell.remove(entry);
+
+                        if (cell.isEmpty()) {
+                            cells.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+
+        entry.box = null;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry<E>
+    {
+
+        static final Comparator<Entry<?>> bySeq = (e1, e2) -> Long.compare(e1.seq, e2.seq);
+
+        final E entity;
+
+        /** Sequence number, to report entities in insertion order. */
+        final long seq;
+
+        /** Bounds used for registration, if any. */
+        Rectangle box;
+
+        /** True if bounds must be read again. */
+        boolean dirty;
+
+        /** True if registered in larges list rather than in grid. */
+        boolean large;
+
+        /** Stamp of last query which examined this entry. */
+        int stamp;
+
+        Entry (E entity,
+               long seq)
+        {
+            this.entity = entity;
+            this.seq = seq;
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useSpatialIndex = new Constant.Boolean(
+                true,
+                "Should region queries use spatial indexes?");
+
+        private final Constant.Integer cellSize = new Constant.Integer(
+                "Pixels",
+                128,
+                "Side of a spatial index cell");
+
+        private final Constant.Integer maxCells = new Constant.Integer(
+                "Cells",
+                64,
+                "Maximum number of cells for an entity to be registered in grid");
+    }
+}
@@ -42,6 +42,9 @@ import java.util.Objects;
  * <p>
  * When IO operations are finished, the file system must be closed via a {@link FileSystem#close()}
  * on the root path like {@code root.getFileSystem().close();}
+ * <p>
+ * Since a zip file can be opened only once at a time, any file system kept open on the same zip
+ * file by {@link ZipFileSystemPool} is flushed beforehand.
  *
  * @author Hervé Bitteur
  */
@@ -73,6 +76,7 @@ public abstract class ZipFileSystem
     {
         Objects.requireNonNull(path, "ZipFileSystem.create: path is null");
 
+        ZipFileSystemPool.flush(path);
         Files.deleteIfExists(path);
 
         // Make sure the containing folder exists
@@ -112,6 +116,8 @@ public abstract class ZipFileSystem
     {
         Objects.requireNonNull(path, "ZipFileSystem.open: path is null");
 
+        ZipFileSystemPool.flush(path);
+
         //        FileSystem fileSystem = FileSystems.newFileSystem(path, (ClassLoader) null);
         //
         //        return fileSystem.getPath(fileSystem.getSeparator());
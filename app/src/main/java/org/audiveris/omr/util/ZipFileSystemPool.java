@@ -0,0 +1,419 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               Z i p F i l e S y s t e m P o o l                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2021. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ZipFileSystemPool} keeps zip file systems open, so that they can be shared
+ * by successive and concurrent readers, rather than being opened and closed for each access.
+ * <p>
+ * A zip file system is opened on the first {@link #acquire(java.nio.file.Path)} and each acquire
+ * must be balanced by a {@link #release(java.nio.file.Path)} on the returned root path.
+ * A file system no longer used is closed after an idle delay (see constant {@code idleTimeout}).
+ * <p>
+ * Since a zip file can be opened only once as a file system, any other opening of the same file
+ * (via {@link ZipFileSystem#open(java.nio.file.Path)} or
+ * {@link ZipFileSystem#create(java.nio.file.Path)}) first flushes the pooled file system.
+ * A writer which uses the pooled file system must call {@link #flush(java.nio.file.Path)} once
+ * finished, so that its modifications are persisted and later readers open the new file content.
+ * <p>
+ * Flushing waits for current users of the file system, while new users wait for the flush to
+ * complete.
+ * Hence a thread must not flush a file system it has acquired and not yet released.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class ZipFileSystemPool
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(ZipFileSystemPool.class);
+
+    /** Pool entries, per normalized zip path. */
+    private static final Map<Path, Entry> entries = new HashMap<>();
+
+    /** Pool entries, per open file system. */
+    private static final Map<FileSystem, Entry> systems = new IdentityHashMap<>();
+
+    /** Closer of idle file systems. */
+    private static ScheduledExecutorService closer;
+
+    /** Number of file systems actually opened. */
+    private static int opens;
+
+    /** Number of acquisitions served by an already open file system. */
+    private static int hits;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /** Not meant to be instantiated. */
+    private ZipFileSystemPool ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // acquire //
+    //---------//
+    /**
+     * Report the root path of the shared file system of the provided zip file, opening the
+     * file system if needed.
+     * <p>
+     * The root path must be released via {@link #release(java.nio.file.Path)} when IO operations
+     * are finished, rather than closing its file system.
+     *
+     * @param path (zip) file path
+     * @return the root path of the (zipped) file system
+     * @throws IOException if anything goes wrong
+     */
+    public static Path acquire (Path path)
+            throws IOException
+    {
+        Objects.requireNonNull(path, "ZipFileSystemPool.acquire: path is null");
+
+        final Path key = keyOf(path);
+
+        synchronized (entries) {
+            Entry entry = waitFlushed(key);
+
+            if (entry == null) {
+                final URI uri = URI.create("jar:" + key.toUri());
+                final FileSystem fs = FileSystems.newFileSystem(
+                        uri,
+                        new HashMap<String, String>(),
+                        null);
+                entry = new Entry(key, fs);
+                entries.put(key, entry);
+                systems.put(fs, entry);
+                opens++;
+                logger.debug("Opened {}", key);
+            } else {
+                hits++;
+            }
+
+            entry.refCount++;
+
+            return entry.fs.getPath(entry.fs.getSeparator());
+        }
+    }
+
+    //----------//
+    // closeAll //
+    //----------//
+    /**
+     * Close all pooled file systems, waiting for their current users if any.
+     */
+    public static void closeAll ()
+    {
+        final List<Path> keys;
+
+        synchronized (entries) {
+            keys = new ArrayList<>(entries.keySet());
+        }
+
+        for (Path key : keys) {
+            flush(key);
+        }
+    }
+
+    //-------//
+    // flush //
+    //-------//
+    /**
+     * Close the pooled file system of the provided zip file, if any, so that all its
+     * modifications are written to disk.
+     * <p>
+     * This waits until the file system is no longer used, and prevents any new use meanwhile.
+     * The next acquisition will re-open the zip file.
+     *
+     * @param path (zip) file path
+     */
+    public static void flush (Path path)
+    {
+        if (path == null) {
+            return;
+        }
+
+        final Path key = keyOf(path);
+
+        synchronized (entries) {
+            final Entry entry;
+
+            try {
+                entry = waitFlushed(key);
+            } catch (IOException ex) {
+                logger.warn("Interrupted while flushing {}", key);
+
+                return;
+            }
+
+            if (entry == null) {
+                return;
+            }
+
+            entry.flushing = true;
+
+            try {
+                while (entry.refCount > 0) {
+                    entries.wait();
+                }
+            } catch (InterruptedException ex) {
+                entry.flushing = false;
+                entries.notifyAll();
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while flushing {}", key);
+
+                return;
+            }
+
+            close(entry);
+            entries.notifyAll();
+        }
+    }
+
+    //---------------//
+    // getStatistics //
+    //---------------//
+    /**
+     * Report pool statistics.
+     *
+     * @return a string with numbers of open file systems, of openings and of shared acquisitions
+     */
+    public static String getStatistics ()
+    {
+        synchronized (entries) {
+            return new StringBuilder(ZipFileSystemPool.class.getSimpleName())
+                    .append("{open:").append(entries.size())
+                    .append(" opens:").append(opens)
+                    .append(" hits:").append(hits)
+                    .append('}').toString();
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Release the file system of the provided path, previously obtained via
+     * {@link #acquire(java.nio.file.Path)}.
+     * <p>
+     * The file system remains open for later use, until it gets idle for too long.
+     *
+     * @param path the root path, or any other path, of the pooled file system
+     */
+    public static void release (Path path)
+    {
+        if (path == null) {
+            return;
+        }
+
+        synchronized (entries) {
+            final Entry entry = systems.get(path.getFileSystem());
+
+            if (entry == null) {
+                logger.warn("Releasing a non pooled file system {}", path.getFileSystem());
+
+                return;
+            }
+
+            if (--entry.refCount == 0) {
+                entry.idleSince = System.currentTimeMillis();
+
+                if (entry.flushing) {
+                    entries.notifyAll();
+                } else {
+                    scheduleIdleCheck(entry);
+                }
+            }
+        }
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Close the file system of the provided entry and remove entry from the pool.
+     * Caller must hold the pool lock.
+     */
+    private static void close (Entry entry)
+    {
+        entries.remove(entry.key);
+        systems.remove(entry.fs);
+
+        try {
+            entry.fs.close();
+            logger.debug("Closed {}", entry.key);
+        } catch (IOException ex) {
+            logger.warn("Error closing {} {}", entry.key, ex.toString(), ex);
+        }
+    }
+
+    //-----------//
+    // closeIdle //
+    //-----------//
+    private static void closeIdle (Entry entry)
+    {
+        synchronized (entries) {
+            if ((entries.get(entry.key) != entry) || (entry.refCount > 0) || entry.flushing) {
+                return;
+            }
+
+            final long idle = System.currentTimeMillis() - entry.idleSince;
+
+            if (idle >= getIdleTimeout()) {
+                close(entry);
+            } else {
+                scheduleIdleCheck(entry);
+            }
+        }
+    }
+
+    //----------------//
+    // getIdleTimeout //
+    //----------------//
+    private static long getIdleTimeout ()
+    {
+        return TimeUnit.SECONDS.toMillis(constants.idleTimeout.getValue());
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private static Path keyOf (Path path)
+    {
+        return path.toAbsolutePath().normalize();
+    }
+
+    //-------------------//
+    // scheduleIdleCheck //
+    //-------------------//
+    private static void scheduleIdleCheck (Entry entry)
+    {
+        if (closer == null) {
+            closer = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+                final Thread thread = new Thread(r, "ZipFileSystemPool-closer");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        closer.schedule(() -> closeIdle(entry), getIdleTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    //-------------//
+    // waitFlushed //
+    //-------------//
+    /**
+     * Wait until the entry for provided key, if any, is no longer being flushed.
+     * Caller must hold the pool lock.
+     *
+     * @param key normalized zip path
+     * @return the usable entry, or null if none
+     * @throws IOException if interrupted
+     */
+    private static Entry waitFlushed (Path key)
+            throws IOException
+    {
+        try {
+            Entry entry = entries.get(key);
+
+            while ((entry != null) && entry.flushing) {
+                entries.wait();
+                entry = entries.get(key);
+            }
+
+            return entry;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while waiting for " + key, ex);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer idleTimeout = new Constant.Integer(
+                "Seconds",
+                30,
+                "Delay before an unused zip file system gets closed");
+    }
+
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * Pooled file system.
+     */
+    private static class Entry
+    {
+
+        /** Normalized zip path. */
+        final Path key;
+
+        /** Open file system. */
+        final FileSystem fs;
+
+        /** Number of current users. */
+        int refCount;
+
+        /** Time when file system became unused. */
+        long idleSince;
+
+        /** True when file system is being closed. */
+        boolean flushing;
+
+        Entry (Path key,
+               FileSystem fs)
+        {
+            this.key = key;
+            this.fs = fs;
+        }
+    }
+}